@@ -0,0 +1,6 @@
+#!/bin/sh
+# Utente di replica e accesso in streaming per il container postgres-replica
+set -e
+psql -v ON_ERROR_STOP=1 -U "$POSTGRES_USER" -d "$POSTGRES_DB" \
+  -c "CREATE ROLE replicatore WITH REPLICATION LOGIN PASSWORD 'replicatore'"
+echo "host replication replicatore all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,25 @@
+#!/bin/sh
+# Misura il tempo dal lancio del processo alla prima risposta 200 di un endpoint.
+# Uso: ./misura-avvio.sh <url> <comando...>
+#   ./misura-avvio.sh http://localhost:8080/api/issue/statistiche java -jar target/BugBoard26-0.0.1-SNAPSHOT.jar
+#   ./misura-avvio.sh http://localhost:8080/api/issue/statistiche docker run --rm -p 8080:8080 bugboard26
+URL="$1"
+shift
+LOG="${TMPDIR:-/tmp}/misura-avvio.log"
+
+inizio=$(date +%s%N)
+"$@" > "$LOG" 2>&1 &
+pid=$!
+
+until [ "$(curl -s -o /dev/null -w '%{http_code}' "$URL")" = "200" ]; do
+  if ! kill -0 "$pid" 2>/dev/null; then
+    echo "Processo terminato prima della prima risposta, vedi $LOG" >&2
+    exit 1
+  fi
+  sleep 0.05
+done
+fine=$(date +%s%N)
+
+echo "Prima richiesta servita dopo $(( (fine - inizio) / 1000000 )) ms"
+kill "$pid"
+wait "$pid" 2>/dev/null
@@ -0,0 +1,87 @@
+package it.unina.bugboard.benchmark;
+
+import it.unina.bugboard.model.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+/**
+ * Dataset sintetico e deterministico condiviso dai benchmark JMH.
+ */
+public final class DatiBenchmark {
+
+	private static final long SEED = 26L;
+	private static final LocalDateTime DATA_BASE = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+	private DatiBenchmark() {
+	}
+
+	public static List<Utenza> utenti(int n) {
+		List<Utenza> utenti = new ArrayList<>(n);
+		for (int i = 1; i <= n; i++) {
+			Utenza u = new Utenza("Nome", "Cognome", "utente" + i + "@bugboard.it",
+					"$2a$08$abcdefghijklmnopqrstuuJ0o1U0pQbC5o8yE8l2Hn0fJ7Zb2p1kW", i == 1 ? Ruolo.Amministratore : Ruolo.Utente,
+					null);
+			impostaCampo(u, "idUtente", i);
+			utenti.add(u);
+		}
+		return utenti;
+	}
+
+	public static List<Issue> issue(int n, List<Utenza> utenti) {
+		Random random = new Random(SEED);
+		Priorita[] priorita = Priorita.values();
+		Stato[] stati = Stato.values();
+		Tipo[] tipi = Tipo.values();
+
+		List<Issue> issues = new ArrayList<>(n);
+		for (int i = 1; i <= n; i++) {
+			Issue issue = new Issue("Issue " + i + " - errore nel modulo " + random.nextInt(50),
+					"Descrizione sintetica dell'issue " + i, priorita[random.nextInt(priorita.length)],
+					stati[random.nextInt(stati.length)], tipi[random.nextInt(tipi.length)],
+					utenti.get(random.nextInt(utenti.size())));
+			issue.setIdIssue(i);
+			issue.setDataCreazione(DATA_BASE.plusMinutes(random.nextInt(500_000)));
+			issues.add(issue);
+		}
+		return issues;
+	}
+
+	/**
+	 * Crea un'implementazione in memoria di un DAO Spring Data: ogni metodo invocato
+	 * viene risolto dalla funzione passata (nome metodo, argomenti).
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T dao(Class<T> tipo, BiFunction<String, Object[], Object> risposte) {
+		return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] { tipo }, (proxy, method, args) -> {
+			if (method.getDeclaringClass() == Object.class) {
+				return switch (method.getName()) {
+				case "hashCode" -> System.identityHashCode(proxy);
+				case "equals" -> proxy == args[0];
+				default -> tipo.getSimpleName() + "Benchmark";
+				};
+			}
+			Object risposta = risposte.apply(method.getName(), args);
+			if (risposta == null && method.getReturnType() == Optional.class) {
+				return Optional.empty();
+			}
+			return risposta;
+		});
+	}
+
+	public static void impostaCampo(Object target, String nome, Object valore) {
+		try {
+			Field field = target.getClass().getDeclaredField(nome);
+			field.setAccessible(true);
+			field.set(target, valore);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Impossibile impostare il campo " + nome, e);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package it.unina.bugboard.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.unina.bugboard.benchmark.DatiBenchmark;
+import it.unina.bugboard.model.Issue;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Corpo JSON di visualizza-lista: Jackson su List<Issue> con creatore, contro lo stesso ObjectMapper
+ * con CacheJsonIssue già popolata. Anche con la cache ogni issue costruisce e confronta l'impronta,
+ * come dopo una lettura dal database. Entrambi scrivono in un buffer riusato e già dimensionato.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheJsonIssueBenchmark {
+
+	@Param({ "100", "1000", "4000" })
+	private int dimensioneLista;
+
+	private ObjectMapper jackson;
+	private ObjectMapper conCache;
+	private List<Issue> issues;
+	private ByteArrayOutputStream uscita;
+
+	@Setup
+	public void setup() throws IOException {
+		jackson = mapper().build();
+		CacheJsonIssue cache = new CacheJsonIssue(new CacheJsonIssue.Parametri(true, 20_000), new SimpleMeterRegistry());
+		conCache = mapper().modulesToInstall(cache.modulo()).build();
+		issues = DatiBenchmark.issue(dimensioneLista, DatiBenchmark.utenti(50));
+		byte[] json = conCache.writeValueAsBytes(issues);
+		uscita = new ByteArrayOutputStream(json.length);
+	}
+
+	@Benchmark
+	public int jackson() throws IOException {
+		uscita.reset();
+		jackson.writeValue(uscita, issues);
+		return uscita.size();
+	}
+
+	@Benchmark
+	public int jsonInCache() throws IOException {
+		uscita.reset();
+		conCache.writeValue(uscita, issues);
+		return uscita.size();
+	}
+
+	private static Jackson2ObjectMapperBuilder mapper() {
+		return Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.FAIL_ON_EMPTY_BEANS);
+	}
+}
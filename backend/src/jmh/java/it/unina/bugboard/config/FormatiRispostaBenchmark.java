@@ -0,0 +1,63 @@
+package it.unina.bugboard.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import it.unina.bugboard.benchmark.DatiBenchmark;
+import it.unina.bugboard.model.Issue;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializzazione di una lista di Issue nei formati negoziabili: JSON e CBOR, con e senza la
+ * compressione gzip del server (livello predefinito del Deflater, come Tomcat). Le dimensioni
+ * del corpo per ogni formato sono stampate nel setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatiRispostaBenchmark {
+
+	@Param({ "100", "1000" })
+	private int dimensioneLista;
+
+	@Param({ "json", "json_gzip", "cbor", "cbor_gzip" })
+	private String formato;
+
+	private ObjectMapper objectMapper;
+	private boolean gzip;
+	private List<Issue> issues;
+	private ByteArrayOutputStream uscita;
+
+	@Setup
+	public void setup() throws IOException {
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.FAIL_ON_EMPTY_BEANS);
+		if (formato.startsWith("cbor")) {
+			builder.factory(new CBORFactory());
+		}
+		objectMapper = builder.build();
+		gzip = formato.endsWith("_gzip");
+		issues = DatiBenchmark.issue(dimensioneLista, DatiBenchmark.utenti(50));
+		uscita = new ByteArrayOutputStream(1 << 20);
+		System.out.printf("%n%s, %d issue: %d byte%n", formato, dimensioneLista, serializza());
+	}
+
+	@Benchmark
+	public int serializza() throws IOException {
+		uscita.reset();
+		OutputStream out = gzip ? new GZIPOutputStream(uscita, 8192) : uscita;
+		objectMapper.writeValue(out, issues);
+		return uscita.size();
+	}
+}
@@ -0,0 +1,79 @@
+package it.unina.bugboard.controller;
+
+import it.unina.bugboard.benchmark.DatiBenchmark;
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.IssueDAO;
+import it.unina.bugboard.dao.UtenzaDAO;
+import it.unina.bugboard.indici.IndiceDuplicati;
+import it.unina.bugboard.indici.IndiceTitoli;
+import it.unina.bugboard.indici.IstantaneaIssue;
+import it.unina.bugboard.model.Issue;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipeline di filtro/ordinamento in memoria di filtraAvanzato: "database" filtra con gli stream la
+ * lista letta dal DAO, "istantanea" interroga le colonne di IstantaneaIssue. Con il profilo gc
+ * (attivo nel profilo Maven benchmark) gc.alloc.rate.norm confronta i byte allocati per richiesta.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IssueControllerBenchmark {
+
+	@Param({ "1000", "10000" })
+	private int numeroIssue;
+
+	@Param({ "database", "istantanea" })
+	private String sorgente;
+
+	private IssueController controller;
+
+	@Setup
+	public void setup() {
+		List<Issue> attive = DatiBenchmark.issue(numeroIssue, DatiBenchmark.utenti(50));
+		// Come dall'indice (archiviata, datacreazione DESC)
+		attive.sort(Comparator.comparing(Issue::getDataCreazione).reversed());
+		IssueDAO issueDAO = DatiBenchmark.dao(IssueDAO.class, (metodo, args) -> switch (metodo) {
+		case "findByArchiviataOrderByDataCreazioneDesc" -> new ArrayList<>(attive);
+		default -> throw new UnsupportedOperationException(metodo);
+		});
+		// Senza pubblica() l'istantanea non è pronta e filtraAvanzato legge dal DAO
+		IstantaneaIssue istantanea = new IstantaneaIssue(Jackson2ObjectMapperBuilder.json().build());
+		if (sorgente.equals("istantanea")) {
+			attive.forEach(istantanea::aggiornaDopoCommit);
+			istantanea.pubblica();
+		}
+		controller = new IssueController(issueDAO, DatiBenchmark.dao(UtenzaDAO.class, (metodo, args) -> null),
+				DatiBenchmark.dao(AllegatoDAO.class, (metodo, args) -> null),
+				new IndiceDuplicati(new IndiceDuplicati.Parametri(0.5, 1000)), new IndiceTitoli(), istantanea);
+	}
+
+	@Benchmark
+	public List<IstantaneaIssue.Scheda> filtraSenzaParametri() {
+		return controller.filtraAvanzato(null, null, null, null, null);
+	}
+
+	@Benchmark
+	public List<IstantaneaIssue.Scheda> filtraStatoPrioritaTipo() {
+		return controller.filtraAvanzato("todo", "high", "bug", null, "data_recente");
+	}
+
+	@Benchmark
+	public List<IstantaneaIssue.Scheda> filtraRicercaOrdinaTitolo() {
+		return controller.filtraAvanzato(null, null, null, "modulo 1", "titolo_az");
+	}
+
+	@Benchmark
+	public List<IstantaneaIssue.Scheda> ordinaPerPriorita() {
+		return controller.filtraAvanzato(null, null, null, null, "priorita_alta");
+	}
+}
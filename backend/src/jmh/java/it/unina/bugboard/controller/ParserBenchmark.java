@@ -0,0 +1,48 @@
+package it.unina.bugboard.controller;
+
+import it.unina.bugboard.benchmark.DatiBenchmark;
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.IssueDAO;
+import it.unina.bugboard.dao.UtenzaDAO;
+import it.unina.bugboard.model.Priorita;
+import it.unina.bugboard.model.Stato;
+import it.unina.bugboard.model.Tipo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parser dei parametri enum usati da tutti gli endpoint di filtro.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+	private IssueController controller;
+
+	@Setup
+	public void setup() {
+		controller = new IssueController(DatiBenchmark.dao(IssueDAO.class, (metodo, args) -> null),
+				DatiBenchmark.dao(UtenzaDAO.class, (metodo, args) -> null),
+				DatiBenchmark.dao(AllegatoDAO.class, (metodo, args) -> null), null, null, null);
+	}
+
+	@Benchmark
+	public Stato parseStato() {
+		return controller.parseStato("inProgress");
+	}
+
+	@Benchmark
+	public Priorita parsePriorita() {
+		return controller.parsePriorita("Critical");
+	}
+
+	@Benchmark
+	public Tipo parseTipo() {
+		return controller.parseTipo("documentation");
+	}
+}
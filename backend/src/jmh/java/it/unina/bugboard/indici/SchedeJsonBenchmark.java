@@ -0,0 +1,62 @@
+package it.unina.bugboard.indici;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import it.unina.bugboard.benchmark.DatiBenchmark;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Corpo JSON di filtraAvanzato: Jackson sulla lista di schede, come prima della cache, contro la
+ * concatenazione dei byte già serializzati di SchedeJson. Entrambi scrivono in un buffer riusato
+ * e già dimensionato, come il buffer di risposta del servlet container.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchedeJsonBenchmark {
+
+	@Param({ "100", "1000", "4000" })
+	private int dimensioneLista;
+
+	private ObjectMapper objectMapper;
+	private SchedeJson schede;
+	private List<IstantaneaIssue.Scheda> lista;
+	private ByteArrayOutputStream uscita;
+
+	@Setup
+	public void setup() {
+		objectMapper = Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.FAIL_ON_EMPTY_BEANS)
+				.build();
+		IstantaneaIssue istantanea = new IstantaneaIssue(objectMapper);
+		DatiBenchmark.issue(dimensioneLista, DatiBenchmark.utenti(50)).forEach(istantanea::aggiornaDopoCommit);
+		istantanea.pubblica();
+		schede = istantanea.filtra(null, null, null, null, null);
+		lista = new ArrayList<>(schede);
+		uscita = new ByteArrayOutputStream((int) schede.lunghezzaJson());
+	}
+
+	@Benchmark
+	public int jackson() throws IOException {
+		uscita.reset();
+		objectMapper.writeValue(uscita, lista);
+		return uscita.size();
+	}
+
+	@Benchmark
+	public int byteInCache() throws IOException {
+		uscita.reset();
+		schede.scriviJson(uscita);
+		return uscita.size();
+	}
+}
@@ -0,0 +1,49 @@
+package it.unina.bugboard.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import it.unina.bugboard.benchmark.DatiBenchmark;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializzazione Jackson delle liste di Issue e Utenza con la stessa configurazione
+ * dell'ObjectMapper di Spring Boot (date ISO-8601, fail-on-empty-beans disattivato).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializzazioneBenchmark {
+
+	@Param({ "100", "1000" })
+	private int dimensioneLista;
+
+	private ObjectMapper objectMapper;
+	private List<Issue> issues;
+	private List<Utenza> utenti;
+
+	@Setup
+	public void setup() {
+		objectMapper = Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.FAIL_ON_EMPTY_BEANS)
+				.build();
+		utenti = DatiBenchmark.utenti(dimensioneLista);
+		issues = DatiBenchmark.issue(dimensioneLista, utenti);
+	}
+
+	@Benchmark
+	public byte[] serializzaIssue() throws Exception {
+		return objectMapper.writeValueAsBytes(issues);
+	}
+
+	@Benchmark
+	public byte[] serializzaUtenti() throws Exception {
+		return objectMapper.writeValueAsBytes(utenti);
+	}
+}
@@ -0,0 +1,90 @@
+package it.unina.bugboard.util;
+
+import it.unina.bugboard.benchmark.DatiBenchmark;
+import it.unina.bugboard.dao.UtenzaDAO;
+import it.unina.bugboard.model.Utenza;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token JWT, hashing BCrypt e validazioni regex usati da login e gestione utenze.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UtilBenchmark {
+
+	private static final String PASSWORD = "passwordSicura1";
+
+	private AccessTokenUtil accessTokenUtil;
+	private PasswordUtil passwordUtil;
+	private ValidationUtil validationUtil;
+	private Utenza utenza;
+	private String token;
+	private String hashPassword;
+
+	@Setup
+	public void setup() {
+		utenza = DatiBenchmark.utenti(1).get(0);
+		UtenzaDAO utenzaDAO = DatiBenchmark.dao(UtenzaDAO.class, (metodo, args) -> switch (metodo) {
+		case "findById" -> Optional.of(utenza);
+		case "existsByEmail" -> false;
+		default -> throw new UnsupportedOperationException(metodo);
+		});
+
+		accessTokenUtil = new AccessTokenUtil(utenzaDAO);
+		DatiBenchmark.impostaCampo(accessTokenUtil, "secretKeyString",
+				"mySecretKeyForBugBoardApplicationMustBe256BitsLongForHS256AlgorithmSecurityCompliant");
+		passwordUtil = new PasswordUtil(new BCryptPasswordEncoder(8));
+		validationUtil = new ValidationUtil(utenzaDAO);
+
+		token = accessTokenUtil.generaToken(utenza);
+		hashPassword = passwordUtil.hashPassword(PASSWORD);
+	}
+
+	@Benchmark
+	public String generaToken() {
+		return accessTokenUtil.generaToken(utenza);
+	}
+
+	@Benchmark
+	public Utenza verificaToken() {
+		return accessTokenUtil.verificaToken(token);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public String hashPassword() {
+		return passwordUtil.hashPassword(PASSWORD);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public boolean checkPassword() {
+		return passwordUtil.checkPassword(PASSWORD, hashPassword);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public void validaEmail() {
+		validationUtil.validaEmailFormat("mario.rossi@bugboard.it");
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public void validaNomeCognome() {
+		validationUtil.validaNomeCognome("D'Alessandro", "cognome");
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public void validaUniqueEmail() {
+		validationUtil.validaUniqueEmail("mario.rossi@bugboard.it");
+	}
+}
@@ -0,0 +1,34 @@
+package it.unina.bugboard.loadtest;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Parametri del generatore e dei test di carico, letti da proprietà di sistema
+ * ({@code -Dloadtest.issue=5000} ecc.) con valori di default pensati per il Postgres
+ * di docker-compose.loadtest.yml.
+ */
+public record ConfigurazioneCarico(String jdbcUrl, String jdbcUtente, String jdbcPassword, String baseUrl,
+		int utenti, int issue, int allegati, long seed, int concorrenza, Duration durata, List<String> scenari,
+		String report) {
+
+	public static ConfigurazioneCarico daProprietaDiSistema() {
+		return new ConfigurazioneCarico(
+				prop("loadtest.jdbc.url", "jdbc:postgresql://localhost:5433/bugboard"),
+				prop("loadtest.jdbc.utente", "bugboard"),
+				prop("loadtest.jdbc.password", "bugboard"),
+				prop("loadtest.url", "http://localhost:8080/api"),
+				Integer.parseInt(prop("loadtest.utenti", "50")),
+				Integer.parseInt(prop("loadtest.issue", "5000")),
+				Integer.parseInt(prop("loadtest.allegati", "500")),
+				Long.parseLong(prop("loadtest.seed", "26")),
+				Integer.parseInt(prop("loadtest.concorrenza", "20")),
+				Duration.ofSeconds(Long.parseLong(prop("loadtest.durata", "30"))),
+				List.of(prop("loadtest.scenari", "dashboard,filtro,dettaglio,upload,login").split(",")),
+				prop("loadtest.report", "target/loadtest-report.json"));
+	}
+
+	private static String prop(String nome, String predefinito) {
+		return System.getProperty(nome, predefinito);
+	}
+}
@@ -0,0 +1,201 @@
+package it.unina.bugboard.loadtest;
+
+import it.unina.bugboard.model.Priorita;
+import it.unina.bugboard.model.Stato;
+import it.unina.bugboard.model.Tipo;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Popola un Postgres locale con un dataset sintetico e deterministico: a parità di
+ * parametri e seed il contenuto generato è sempre lo stesso.
+ *
+ * Utenti: idutente 1 è l'amministratore, tutti condividono la password {@link #PASSWORD}.
+ * Issue: coprono ciclicamente tutte le combinazioni Stato x Priorita x Tipo, circa il 20%
+ * è archiviata. Allegati: dimensioni distribuite tra screenshot, documenti e file grandi.
+ */
+public class GeneratoreDataset {
+
+	public static final String PASSWORD = "LoadTest2026!";
+	public static final String DOMINIO_EMAIL = "@loadtest.bugboard.it";
+
+	private static final String[] TIPI_FILE = { "image/png", "image/jpeg", "application/pdf",
+			"application/vnd.openxmlformats-officedocument.wordprocessingml.document", "image/gif" };
+	private static final String[] ESTENSIONI = { "png", "jpg", "pdf", "docx", "gif" };
+	private static final String[] MODULI = { "login", "dashboard", "allegati", "profilo", "ricerca", "notifiche",
+			"report", "pagamenti", "esportazione", "impostazioni" };
+	private static final String[] SINTOMI = { "crash", "errore 500", "timeout", "layout rotto", "dati mancanti",
+			"lentezza", "traduzione errata", "permessi errati" };
+	private static final int BATCH = 200;
+	private static final int BATCH_ALLEGATI = 20;
+
+	private final ConfigurazioneCarico config;
+	private final Random random;
+
+	public GeneratoreDataset(ConfigurazioneCarico config) {
+		this.config = config;
+		this.random = new Random(config.seed());
+	}
+
+	public static void main(String[] args) throws SQLException {
+		ConfigurazioneCarico config = ConfigurazioneCarico.daProprietaDiSistema();
+		new GeneratoreDataset(config).genera();
+	}
+
+	public void genera() throws SQLException {
+		try (Connection conn = DriverManager.getConnection(config.jdbcUrl(), config.jdbcUtente(),
+				config.jdbcPassword())) {
+			conn.setAutoCommit(false);
+			svuota(conn);
+			long inizio = System.nanoTime();
+			generaUtenti(conn);
+			generaIssue(conn);
+			generaAllegati(conn);
+			try (Statement st = conn.createStatement()) {
+				st.execute("ANALYZE utenza");
+				st.execute("ANALYZE issue");
+				st.execute("ANALYZE allegato");
+			}
+			conn.commit();
+			System.out.printf("Dataset generato in %d ms: %d utenti, %d issue, %d allegati (seed %d)%n",
+					(System.nanoTime() - inizio) / 1_000_000, config.utenti(), config.issue(), config.allegati(),
+					config.seed());
+		}
+	}
+
+	private void svuota(Connection conn) throws SQLException {
+		try (Statement st = conn.createStatement()) {
+			st.execute("TRUNCATE allegato, issue, issue_chiave, utenza RESTART IDENTITY CASCADE");
+		}
+	}
+
+	private void generaUtenti(Connection conn) throws SQLException {
+		// Un solo hash: BCrypt è volutamente lento e il login storm usa la stessa password
+		String hash = new BCryptPasswordEncoder(8).encode(PASSWORD);
+		String sql = "INSERT INTO utenza (nome, cognome, email, password, ruolo, stato, idcreatore) VALUES (?, ?, ?, ?, ?, true, ?)";
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			for (int i = 1; i <= config.utenti(); i++) {
+				ps.setString(1, "Nome" + lettere(i));
+				ps.setString(2, "Cognome" + lettere(i));
+				ps.setString(3, "utente" + i + DOMINIO_EMAIL);
+				ps.setString(4, hash);
+				ps.setString(5, i == 1 ? "Amministratore" : "Utente");
+				if (i == 1) {
+					ps.setNull(6, Types.INTEGER);
+				} else {
+					ps.setInt(6, 1);
+				}
+				ps.addBatch();
+				if (i % BATCH == 0) {
+					ps.executeBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+	}
+
+	private void generaIssue(Connection conn) throws SQLException {
+		Stato[] stati = Stato.values();
+		Priorita[] priorita = Priorita.values();
+		Tipo[] tipi = Tipo.values();
+		LocalDateTime oggi = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+		String sql = "INSERT INTO issue (titolo, descrizione, priorita, stato, tipo, archiviata, dataarchiviazione, "
+				+ "datacreazione, idcreatore, idarchiviatore, datachiusura) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			for (int i = 1; i <= config.issue(); i++) {
+				// Indice di combinazione: copre tutte le 60 combinazioni Stato x Priorita x Tipo
+				int combinazione = (i - 1) % (stati.length * priorita.length * tipi.length);
+				Stato stato = stati[combinazione % stati.length];
+				Priorita prio = priorita[(combinazione / stati.length) % priorita.length];
+				Tipo tipo = tipi[combinazione / (stati.length * priorita.length)];
+
+				String modulo = MODULI[random.nextInt(MODULI.length)];
+				String sintomo = SINTOMI[random.nextInt(SINTOMI.length)];
+				LocalDateTime creazione = oggi.minusMinutes(random.nextInt(2 * 365 * 24 * 60));
+				boolean archiviata = random.nextInt(5) == 0;
+
+				ps.setString(1, "LT-" + i + " " + sintomo + " nel modulo " + modulo);
+				ps.setString(2, "Issue sintetica " + i + ": " + sintomo + " riscontrato in " + modulo
+						+ " durante l'utilizzo quotidiano. Passi per riprodurre allegati.");
+				ps.setString(3, prio.name());
+				ps.setString(4, stato.name());
+				ps.setString(5, tipo.name());
+				ps.setBoolean(6, archiviata);
+				ps.setTimestamp(7, archiviata ? Timestamp.valueOf(creazione.plusDays(random.nextInt(60) + 1L)) : null);
+				ps.setTimestamp(8, Timestamp.valueOf(creazione));
+				ps.setInt(9, random.nextInt(config.utenti()) + 1);
+				if (archiviata) {
+					ps.setInt(10, 1);
+				} else {
+					ps.setNull(10, Types.INTEGER);
+				}
+				ps.setTimestamp(11, stato == Stato.Done ? Timestamp.valueOf(creazione.plusDays(i % 30 + 1L)) : null);
+				ps.addBatch();
+				if (i % BATCH == 0) {
+					ps.executeBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+	}
+
+	private void generaAllegati(Connection conn) throws SQLException {
+		String sql = "INSERT INTO allegato (nomefile, tipofile, dimensione, filedata, datacaricamento, idissue) "
+				+ "VALUES (?, ?, ?, ?, ?, ?)";
+		LocalDate oggi = LocalDate.of(2026, 1, 1);
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			for (int i = 1; i <= config.allegati(); i++) {
+				int tipo = random.nextInt(TIPI_FILE.length);
+				byte[] dati = new byte[dimensioneRealistica()];
+				random.nextBytes(dati);
+
+				ps.setString(1, "allegato-" + i + "." + ESTENSIONI[tipo]);
+				ps.setString(2, TIPI_FILE[tipo]);
+				ps.setInt(3, dati.length);
+				ps.setBytes(4, dati);
+				ps.setObject(5, oggi.minusDays(random.nextInt(700)));
+				ps.setInt(6, random.nextInt(config.issue()) + 1);
+				ps.addBatch();
+				if (i % BATCH_ALLEGATI == 0) {
+					ps.executeBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+	}
+
+	/**
+	 * 60% screenshot (20-200 KB), 30% documenti (200 KB - 2 MB), 10% file grandi (2-9 MB).
+	 */
+	int dimensioneRealistica() {
+		int classe = random.nextInt(10);
+		if (classe < 6) {
+			return 20 * 1024 + random.nextInt(180 * 1024);
+		}
+		if (classe < 9) {
+			return 200 * 1024 + random.nextInt(1800 * 1024);
+		}
+		return 2 * 1024 * 1024 + random.nextInt(7 * 1024 * 1024);
+	}
+
+	private static String lettere(int n) {
+		// Nomi solo alfabetici, come richiesto da ValidationUtil
+		StringBuilder sb = new StringBuilder();
+		for (int v = n; v > 0; v /= 26) {
+			v--;
+			sb.append((char) ('a' + v % 26));
+		}
+		return sb.reverse().toString();
+	}
+}
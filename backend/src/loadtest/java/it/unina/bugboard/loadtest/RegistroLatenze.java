@@ -0,0 +1,68 @@
+package it.unina.bugboard.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Raccoglie le latenze di uno scenario per endpoint e ne calcola throughput e percentili.
+ */
+public class RegistroLatenze {
+
+	private final Map<String, Campioni> perEndpoint = new ConcurrentHashMap<>();
+
+	public void registra(String endpoint, long durataNanos, boolean errore) {
+		perEndpoint.computeIfAbsent(endpoint, k -> new Campioni()).aggiungi(durataNanos, errore);
+	}
+
+	public Map<String, Statistiche> statistiche(double secondiScenario) {
+		Map<String, Statistiche> risultato = new TreeMap<>();
+		perEndpoint.forEach((endpoint, campioni) -> risultato.put(endpoint, campioni.statistiche(secondiScenario)));
+		return risultato;
+	}
+
+	public record Statistiche(long richieste, long errori, double throughput, double p50, double p90, double p95,
+			double p99, double max) {
+
+		String json() {
+			return String.format(Locale.ROOT,
+					"{\"richieste\":%d,\"errori\":%d,\"throughputRps\":%.2f,\"p50Ms\":%.3f,\"p90Ms\":%.3f,"
+							+ "\"p95Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f}",
+					richieste, errori, throughput, p50, p90, p95, p99, max);
+		}
+	}
+
+	private static final class Campioni {
+		private long[] latenze = new long[1024];
+		private int dimensione;
+		private long errori;
+
+		synchronized void aggiungi(long durataNanos, boolean errore) {
+			if (dimensione == latenze.length) {
+				latenze = Arrays.copyOf(latenze, dimensione * 2);
+			}
+			latenze[dimensione++] = durataNanos;
+			if (errore) {
+				errori++;
+			}
+		}
+
+		synchronized Statistiche statistiche(double secondiScenario) {
+			long[] ordinate = Arrays.copyOf(latenze, dimensione);
+			Arrays.sort(ordinate);
+			return new Statistiche(dimensione, errori, dimensione / secondiScenario, percentile(ordinate, 50),
+					percentile(ordinate, 90), percentile(ordinate, 95), percentile(ordinate, 99),
+					percentile(ordinate, 100));
+		}
+
+		private static double percentile(long[] ordinate, double p) {
+			if (ordinate.length == 0) {
+				return 0;
+			}
+			int indice = (int) Math.ceil(p / 100.0 * ordinate.length) - 1;
+			return ordinate[Math.max(0, indice)] / 1_000_000.0;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package it.unina.bugboard.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Esegue gli scenari scriptati contro un backend avviato con il profilo loadtest e
+ * popolato da {@link GeneratoreDataset}. Ogni scenario gira per la durata configurata
+ * con N utenti virtuali (virtual thread); al termine stampa throughput e percentili
+ * per endpoint e salva lo stesso riepilogo in JSON.
+ */
+public class ScenariCarico {
+
+	private static final String[] STATI = { "todo", "inprogress", "done" };
+	private static final String[] PRIORITA = { "critical", "high", "medium", "low", "none" };
+	private static final String[] TIPI = { "bug", "features", "question", "documentation" };
+	private static final String[] ORDINAMENTI = { "data_recente", "data_vecchio", "titolo_az", "priorita_alta" };
+	private static final String[] RICERCHE = { "login", "crash", "timeout", "report", "errore" };
+	private static final String JSON = "application/json";
+
+	private final ConfigurazioneCarico config;
+	private final HttpClient client;
+	private final Map<String, Scenario> scenari = new LinkedHashMap<>();
+
+	@FunctionalInterface
+	interface Scenario {
+		void esegui(Sessione sessione) throws IOException, InterruptedException;
+	}
+
+	public ScenariCarico(ConfigurazioneCarico config) {
+		this.config = config;
+		this.client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+		scenari.put("dashboard", this::dashboard);
+		scenari.put("filtro", this::filtro);
+		scenari.put("dettaglio", this::dettaglio);
+		scenari.put("upload", this::upload);
+		scenari.put("login", this::login);
+	}
+
+	public static void main(String[] args) throws Exception {
+		new ScenariCarico(ConfigurazioneCarico.daProprietaDiSistema()).esegui();
+	}
+
+	public void esegui() throws Exception {
+		Map<String, Map<String, RegistroLatenze.Statistiche>> risultati = new LinkedHashMap<>();
+		for (String nome : config.scenari()) {
+			Scenario scenario = scenari.get(nome.trim());
+			if (scenario == null) {
+				throw new IllegalArgumentException("Scenario sconosciuto: " + nome + " (disponibili: " + scenari.keySet() + ")");
+			}
+			System.out.printf("Scenario %s: %d utenti virtuali per %ds%n", nome, config.concorrenza(),
+					config.durata().toSeconds());
+			risultati.put(nome.trim(), eseguiScenario(scenario));
+		}
+		stampa(risultati);
+		salva(risultati);
+	}
+
+	private Map<String, RegistroLatenze.Statistiche> eseguiScenario(Scenario scenario) throws Exception {
+		RegistroLatenze registro = new RegistroLatenze();
+		long inizio = System.nanoTime();
+		long fine = inizio + config.durata().toNanos();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<?>> workers = new ArrayList<>();
+			for (int w = 0; w < config.concorrenza(); w++) {
+				Sessione sessione = new Sessione(registro, new Random(config.seed() * 31 + w));
+				workers.add(executor.submit(() -> {
+					while (System.nanoTime() < fine) {
+						scenario.esegui(sessione);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+		}
+		return registro.statistiche((System.nanoTime() - inizio) / 1e9);
+	}
+
+	// ========== SCENARI ==========
+
+	/** Home: lista filtrata per stato e lista completa per le statistiche. */
+	private void dashboard(Sessione s) throws IOException, InterruptedException {
+		s.get("GET /issue/filtra-avanzato (home)", "/issue/filtra-avanzato?archiviata=false&ordinamento=data_recente&stato="
+				+ s.scegli(STATI));
+		s.get("GET /issue/filtra-avanzato (statistiche)", "/issue/filtra-avanzato?archiviata=false&ordinamento=data_recente");
+	}
+
+	private void filtro(Sessione s) throws IOException, InterruptedException {
+		StringBuilder query = new StringBuilder("/issue/filtra-avanzato?archiviata=false&ordinamento=")
+				.append(s.scegli(ORDINAMENTI));
+		if (s.random.nextBoolean()) {
+			query.append("&priorita=").append(s.scegli(PRIORITA));
+		}
+		if (s.random.nextBoolean()) {
+			query.append("&tipo=").append(s.scegli(TIPI));
+		}
+		if (s.random.nextInt(3) == 0) {
+			query.append("&ricerca=").append(s.scegli(RICERCHE));
+		}
+		s.get("GET /issue/filtra-avanzato", query.toString());
+	}
+
+	/** DettagliIssue: issue e lista allegati, poi download di un allegato. */
+	private void dettaglio(Sessione s) throws IOException, InterruptedException {
+		int idIssue = s.random.nextInt(config.issue()) + 1;
+		s.get("GET /issue/visualizza/{id}", "/issue/visualizza/" + idIssue);
+		s.get("GET /allegato/issue/{idIssue}", "/allegato/issue/" + idIssue);
+		if (config.allegati() > 0 && s.random.nextInt(4) == 0) {
+			s.get("GET /allegato/download/{id}", "/allegato/download/" + (s.random.nextInt(config.allegati()) + 1));
+		}
+	}
+
+	private void upload(Sessione s) throws IOException, InterruptedException {
+		byte[] contenuto = new byte[100 * 1024 + s.random.nextInt(1900 * 1024)];
+		s.random.nextBytes(contenuto);
+		String boundary = "----bugboard" + Long.toHexString(s.random.nextLong());
+
+		ByteArrayOutputStream corpo = new ByteArrayOutputStream(contenuto.length + 512);
+		corpo.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"idIssue\"\r\n\r\n"
+				+ (s.random.nextInt(config.issue()) + 1) + "\r\n").getBytes(StandardCharsets.UTF_8));
+		corpo.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"carico.png\""
+				+ "\r\nContent-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+		corpo.writeBytes(contenuto);
+		corpo.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+		s.invia("POST /allegato/upload", richiesta("/allegato/upload")
+				.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(corpo.toByteArray())).build());
+	}
+
+	private void login(Sessione s) throws IOException, InterruptedException {
+		String email = "utente" + (s.random.nextInt(config.utenti()) + 1) + GeneratoreDataset.DOMINIO_EMAIL;
+		String corpo = "{\"email\":\"" + email + "\",\"password\":\"" + GeneratoreDataset.PASSWORD + "\"}";
+		s.invia("POST /utenza/login", richiesta("/utenza/login").header("Content-Type", JSON)
+				.POST(HttpRequest.BodyPublishers.ofString(corpo)).build());
+	}
+
+	// ========== SUPPORTO ==========
+
+	private HttpRequest.Builder richiesta(String percorso) {
+		return HttpRequest.newBuilder(URI.create(config.baseUrl() + percorso)).timeout(Duration.ofSeconds(30));
+	}
+
+	private final class Sessione {
+		private final RegistroLatenze registro;
+		private final Random random;
+
+		Sessione(RegistroLatenze registro, Random random) {
+			this.registro = registro;
+			this.random = random;
+		}
+
+		String scegli(String[] valori) {
+			return valori[random.nextInt(valori.length)];
+		}
+
+		void get(String endpoint, String percorso) throws IOException, InterruptedException {
+			invia(endpoint, richiesta(percorso).header("Accept", JSON).GET().build());
+		}
+
+		void invia(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+			long inizio = System.nanoTime();
+			boolean errore;
+			try {
+				HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+				errore = response.statusCode() >= 400;
+			} catch (IOException e) {
+				errore = true;
+			}
+			registro.registra(endpoint, System.nanoTime() - inizio, errore);
+		}
+	}
+
+	private void stampa(Map<String, Map<String, RegistroLatenze.Statistiche>> risultati) {
+		String formato = "%-12s %-42s %9s %7s %9s %9s %9s %9s %9s%n";
+		System.out.printf(formato, "scenario", "endpoint", "richieste", "errori", "req/s", "p50 ms", "p95 ms",
+				"p99 ms", "max ms");
+		risultati.forEach((scenario, endpoints) -> endpoints.forEach((endpoint, st) -> System.out.printf(Locale.ROOT,
+				"%-12s %-42s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", scenario, endpoint, st.richieste(), st.errori(),
+				st.throughput(), st.p50(), st.p95(), st.p99(), st.max())));
+	}
+
+	private void salva(Map<String, Map<String, RegistroLatenze.Statistiche>> risultati) throws IOException {
+		StringBuilder json = new StringBuilder();
+		json.append(String.format(Locale.ROOT,
+				"{\"configurazione\":{\"utenti\":%d,\"issue\":%d,\"allegati\":%d,\"seed\":%d,\"concorrenza\":%d,"
+						+ "\"durataSecondi\":%d},\"scenari\":{",
+				config.utenti(), config.issue(), config.allegati(), config.seed(), config.concorrenza(),
+				config.durata().toSeconds()));
+		List<String> blocchiScenario = new ArrayList<>();
+		risultati.forEach((scenario, endpoints) -> {
+			List<String> blocchi = new ArrayList<>();
+			endpoints.forEach((endpoint, st) -> blocchi.add("\"" + endpoint + "\":" + st.json()));
+			blocchiScenario.add("\"" + scenario + "\":{" + String.join(",", blocchi) + "}");
+		});
+		json.append(String.join(",", blocchiScenario)).append("}}");
+
+		Path report = Path.of(config.report());
+		if (report.getParent() != null) {
+			Files.createDirectories(report.getParent());
+		}
+		Files.writeString(report, json);
+		System.out.println("Report salvato in " + report.toAbsolutePath());
+	}
+}
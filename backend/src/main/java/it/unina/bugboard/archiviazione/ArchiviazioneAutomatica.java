@@ -0,0 +1,125 @@
+package it.unina.bugboard.archiviazione;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.IssueDAO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.function.IntSupplier;
+
+/**
+ * Archivia le issue Done chiuse da più di bugboard.archiviazione.eta-archiviazione ed elimina
+ * le archiviate, con i loro allegati, oltre bugboard.archiviazione.conservazione.
+ *
+ * Lavora solo nella fascia oraria configurata, a lotti di una transazione ciascuno: dopo ogni
+ * lotto attende almeno pausa-minima e almeno rapporto-pausa volte la durata del lotto, così il
+ * carico sul database resta una frazione del tempo anche se i lotti rallentano.
+ */
+public class ArchiviazioneAutomatica {
+
+	private static final Logger log = LoggerFactory.getLogger(ArchiviazioneAutomatica.class);
+
+	private final IssueDAO issueDAO;
+	private final AllegatoDAO allegatoDAO;
+	private final TransactionTemplate transactionTemplate;
+	private final Clock clock;
+	private final Parametri parametri;
+	private final Counter archiviate;
+	private final Counter issueEliminate;
+	private final Counter allegatiEliminati;
+
+	public ArchiviazioneAutomatica(IssueDAO issueDAO, AllegatoDAO allegatoDAO, TransactionTemplate transactionTemplate,
+			Clock clock, Parametri parametri, MeterRegistry meterRegistry) {
+		this.issueDAO = issueDAO;
+		this.allegatoDAO = allegatoDAO;
+		this.transactionTemplate = transactionTemplate;
+		this.clock = clock;
+		this.parametri = parametri;
+		this.archiviate = contatore(meterRegistry, "archiviate");
+		this.issueEliminate = contatore(meterRegistry, "issue_eliminate");
+		this.allegatiEliminati = contatore(meterRegistry, "allegati_eliminati");
+	}
+
+	@Scheduled(cron = "${bugboard.archiviazione.cron:0 */10 * * * *}")
+	public void esegui() {
+		if (!parametri.abilitata() || !inFascia()) {
+			return;
+		}
+		Instant scadenza = clock.instant().plus(parametri.durataMassima());
+		LocalDateTime ora = LocalDateTime.now(clock);
+		LocalDateTime sogliaChiusura = ora.minus(parametri.etaArchiviazione());
+		LocalDateTime sogliaConservazione = ora.minus(parametri.conservazione());
+
+		int nArchiviate = aLotti(scadenza, parametri.lotto(), archiviate,
+				() -> issueDAO.archiviaDoneChiusePrima(sogliaChiusura, ora, parametri.lotto()));
+		int nAllegati = aLotti(scadenza, parametri.lottoAllegati(), allegatiEliminati,
+				() -> allegatoDAO.eliminaAllegatiArchiviatePrima(sogliaConservazione, parametri.lottoAllegati()));
+		int nEliminate = aLotti(scadenza, parametri.lotto(), issueEliminate,
+				() -> issueDAO.eliminaArchiviatePrima(sogliaConservazione, parametri.lotto()));
+
+		if (nArchiviate + nAllegati + nEliminate > 0) {
+			log.info("Archiviazione automatica: {} issue archiviate, {} eliminate con {} allegati",
+					nArchiviate, nEliminate, nAllegati);
+		}
+	}
+
+	// Un lotto più corto del massimo vuol dire che non resta altro, salvo righe bloccate da
+	// altre transazioni: quelle passano al giro successivo
+	private int aLotti(Instant scadenza, int dimensioneLotto, Counter contatore, IntSupplier lotto) {
+		int totale = 0;
+		while (inFascia() && clock.instant().isBefore(scadenza)) {
+			long inizio = System.nanoTime();
+			Integer righe = transactionTemplate.execute(status -> lotto.getAsInt());
+			long durata = System.nanoTime() - inizio;
+			int n = righe != null ? righe : 0;
+			totale += n;
+			contatore.increment(n);
+			if (n < dimensioneLotto || !pausa(durata)) {
+				break;
+			}
+		}
+		return totale;
+	}
+
+	private boolean pausa(long durataLottoNanos) {
+		long pausaNanos = Math.max(parametri.pausaMinima().toNanos(),
+				(long) (durataLottoNanos * parametri.rapportoPausa()));
+		try {
+			Thread.sleep(Duration.ofNanos(pausaNanos));
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	// Fascia che scavalca la mezzanotte (es. 22:00-06:00) se l'inizio segue la fine
+	boolean inFascia() {
+		LocalTime adesso = LocalTime.now(clock);
+		LocalTime inizio = parametri.inizioFascia();
+		LocalTime fine = parametri.fineFascia();
+		if (inizio.isBefore(fine)) {
+			return !adesso.isBefore(inizio) && adesso.isBefore(fine);
+		}
+		return !adesso.isBefore(inizio) || adesso.isBefore(fine);
+	}
+
+	private static Counter contatore(MeterRegistry meterRegistry, String esito) {
+		return Counter.builder("bugboard.archiviazione.righe")
+				.description("Righe elaborate dall'archiviazione automatica").tag("esito", esito).register(meterRegistry);
+	}
+
+	public record Parametri(boolean abilitata, Duration etaArchiviazione, Duration conservazione, int lotto,
+			int lottoAllegati, Duration pausaMinima, double rapportoPausa, Duration durataMassima,
+			LocalTime inizioFascia, LocalTime fineFascia) {
+	}
+}
@@ -0,0 +1,45 @@
+package it.unina.bugboard.archiviazione;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.IssueDAO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalTime;
+
+// Interruttore letto a runtime e non con @ConditionalOnProperty, che con Spring AOT
+// verrebbe fissato al momento della build
+@Configuration
+@EnableScheduling
+public class ArchiviazioneConfig {
+
+	@Bean
+	public ArchiviazioneAutomatica archiviazioneAutomatica(IssueDAO issueDAO, AllegatoDAO allegatoDAO,
+			PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+			@Value("${bugboard.archiviazione.abilitata:true}") boolean abilitata,
+			@Value("${bugboard.archiviazione.eta-archiviazione:30d}") Duration etaArchiviazione,
+			@Value("${bugboard.archiviazione.conservazione:730d}") Duration conservazione,
+			@Value("${bugboard.archiviazione.lotto:200}") int lotto,
+			@Value("${bugboard.archiviazione.lotto-allegati:20}") int lottoAllegati,
+			@Value("${bugboard.archiviazione.pausa-minima-ms:200}") long pausaMinimaMs,
+			@Value("${bugboard.archiviazione.rapporto-pausa:4}") double rapportoPausa,
+			@Value("${bugboard.archiviazione.durata-massima-minuti:8}") long durataMassimaMinuti,
+			@Value("${bugboard.archiviazione.inizio-fascia:22:00}") String inizioFascia,
+			@Value("${bugboard.archiviazione.fine-fascia:06:00}") String fineFascia,
+			@Value("${bugboard.archiviazione.timeout-lotto-secondi:30}") int timeoutLottoSecondi) {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setTimeout(timeoutLottoSecondi);
+		ArchiviazioneAutomatica.Parametri parametri = new ArchiviazioneAutomatica.Parametri(abilitata, etaArchiviazione,
+				conservazione, lotto, lottoAllegati, Duration.ofMillis(pausaMinimaMs), rapportoPausa,
+				Duration.ofMinutes(durataMassimaMinuti), LocalTime.parse(inizioFascia), LocalTime.parse(fineFascia));
+		return new ArchiviazioneAutomatica(issueDAO, allegatoDAO, transactionTemplate, Clock.systemDefaultZone(),
+				parametri, meterRegistry);
+	}
+}
@@ -0,0 +1,175 @@
+package it.unina.bugboard.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copia su disco locale del contenuto degli allegati più letti, per non rileggere il bytea dal
+ * database a ogni download o anteprima. Limitata a bugboard.cache-allegati.dimensione-massima
+ * byte, con eliminazione dei meno usati di recente (LRU).
+ *
+ * Il contenuto di un allegato non cambia e gli id non vengono riusati, quindi una voce non può
+ * diventare obsoleta: al più resta su disco dopo l'eliminazione dell'allegato (es. per cascata
+ * dall'issue) finché non esce per LRU. Chi legge verifica comunque che l'allegato esista ancora.
+ * L'indice vive in memoria, quindi all'avvio la directory viene svuotata.
+ */
+public class CacheAllegati {
+
+	private static final Logger log = LoggerFactory.getLogger(CacheAllegati.class);
+	private static final String ESTENSIONE = ".bin";
+	private static final String NOME = "bugboard.allegati.cache";
+
+	private final Parametri parametri;
+	// Ordine di accesso: la prima voce è la meno usata di recente
+	private final LinkedHashMap<Integer, Long> voci = new LinkedHashMap<>(64, 0.75f, true);
+	private long occupazione;
+
+	private final AtomicLong hit = new AtomicLong();
+	private final AtomicLong miss = new AtomicLong();
+	private final Counter byteRisparmiati;
+	private final Counter eliminazioni;
+
+	public CacheAllegati(Parametri parametri, MeterRegistry meterRegistry) throws IOException {
+		this.parametri = parametri;
+		Files.createDirectories(parametri.directory());
+		try (DirectoryStream<Path> residui = Files.newDirectoryStream(parametri.directory())) {
+			for (Path file : residui) {
+				Files.deleteIfExists(file);
+			}
+		}
+
+		FunctionCounter.builder(NOME + ".richieste", hit, AtomicLong::get).description("Letture servite dalla cache")
+				.tag("esito", "hit").register(meterRegistry);
+		FunctionCounter.builder(NOME + ".richieste", miss, AtomicLong::get)
+				.description("Letture servite dal database").tag("esito", "miss").register(meterRegistry);
+		Gauge.builder(NOME + ".hit_ratio", this, CacheAllegati::getHitRatio)
+				.description("Frazione delle letture servite dalla cache").register(meterRegistry);
+		Gauge.builder(NOME + ".occupazione", this, CacheAllegati::getOccupazione).baseUnit("bytes")
+				.description("Byte occupati su disco").register(meterRegistry);
+		this.byteRisparmiati = Counter.builder(NOME + ".bytes_risparmiati").baseUnit("bytes")
+				.description("Byte non letti dal database grazie alla cache").register(meterRegistry);
+		this.eliminazioni = Counter.builder(NOME + ".eliminazioni")
+				.description("Voci eliminate per fare spazio").register(meterRegistry);
+	}
+
+	/**
+	 * Canale in lettura sul contenuto in cache, da chiudere dopo l'uso. Il file resta leggibile
+	 * anche se nel frattempo la voce viene eliminata.
+	 */
+	public Optional<FileChannel> apri(Integer idAllegato) {
+		if (!parametri.abilitata()) {
+			return Optional.empty();
+		}
+		Long dimensione;
+		synchronized (this) {
+			dimensione = voci.get(idAllegato);
+		}
+		if (dimensione != null) {
+			try {
+				FileChannel canale = FileChannel.open(file(idAllegato), StandardOpenOption.READ);
+				hit.incrementAndGet();
+				byteRisparmiati.increment(dimensione);
+				return Optional.of(canale);
+			} catch (NoSuchFileException e) {
+				// Eliminata tra la lettura dell'indice e l'apertura
+			} catch (IOException e) {
+				log.warn("Lettura dalla cache dell'allegato {} non riuscita", idAllegato, e);
+			}
+		}
+		miss.incrementAndGet();
+		return Optional.empty();
+	}
+
+	/**
+	 * Salva il contenuto letto dal database. Un errore di scrittura non è un errore della
+	 * richiesta: la voce semplicemente non entra in cache.
+	 */
+	public void salva(Integer idAllegato, byte[] dati) {
+		if (!parametri.abilitata() || dati.length > parametri.dimensioneMassimaVoce()
+				|| dati.length > parametri.dimensioneMassima()) {
+			return;
+		}
+		// Scrittura su un file temporaneo e rinomina: chi apre la voce non vede mai un file a metà
+		Path temporaneo = parametri.directory().resolve(idAllegato + "-" + UUID.randomUUID() + ".tmp");
+		try {
+			Files.write(temporaneo, dati);
+			Files.move(temporaneo, file(idAllegato), StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			log.warn("Scrittura in cache dell'allegato {} non riuscita", idAllegato, e);
+			eliminaFile(temporaneo);
+			return;
+		}
+		synchronized (this) {
+			Long precedente = voci.put(idAllegato, (long) dati.length);
+			occupazione += dati.length - (precedente != null ? precedente : 0);
+			Iterator<Map.Entry<Integer, Long>> meno = voci.entrySet().iterator();
+			while (occupazione > parametri.dimensioneMassima() && meno.hasNext()) {
+				Map.Entry<Integer, Long> voce = meno.next();
+				meno.remove();
+				occupazione -= voce.getValue();
+				eliminaFile(file(voce.getKey()));
+				eliminazioni.increment();
+			}
+		}
+	}
+
+	public void invalida(Integer idAllegato) {
+		synchronized (this) {
+			Long dimensione = voci.remove(idAllegato);
+			if (dimensione == null) {
+				return;
+			}
+			occupazione -= dimensione;
+			eliminaFile(file(idAllegato));
+		}
+	}
+
+	public synchronized long getOccupazione() {
+		return occupazione;
+	}
+
+	public double getHitRatio() {
+		long h = hit.get();
+		long totale = h + miss.get();
+		return totale == 0 ? 0 : (double) h / totale;
+	}
+
+	synchronized int numeroVoci() {
+		return voci.size();
+	}
+
+	private Path file(Integer idAllegato) {
+		return parametri.directory().resolve(idAllegato + ESTENSIONE);
+	}
+
+	private static void eliminaFile(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("Eliminazione di {} dalla cache non riuscita", file, e);
+		}
+	}
+
+	public record Parametri(boolean abilitata, Path directory, long dimensioneMassima, long dimensioneMassimaVoce) {
+	}
+}
@@ -0,0 +1,40 @@
+package it.unina.bugboard.cache;
+
+import com.fasterxml.jackson.databind.Module;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class CacheConfig {
+
+	@Bean
+	public CacheAllegati cacheAllegati(MeterRegistry meterRegistry,
+			@Value("${bugboard.cache-allegati.abilitata:true}") boolean abilitata,
+			@Value("${bugboard.cache-allegati.directory:${java.io.tmpdir}/bugboard-cache-allegati}") String directory,
+			@Value("${bugboard.cache-allegati.dimensione-massima:1GB}") DataSize dimensioneMassima,
+			@Value("${bugboard.cache-allegati.dimensione-massima-voce:20MB}") DataSize dimensioneMassimaVoce)
+			throws IOException {
+		CacheAllegati.Parametri parametri = new CacheAllegati.Parametri(abilitata, Path.of(directory),
+				dimensioneMassima.toBytes(), dimensioneMassimaVoce.toBytes());
+		return new CacheAllegati(parametri, meterRegistry);
+	}
+
+	@Bean
+	public CacheJsonIssue cacheJsonIssue(MeterRegistry meterRegistry,
+			@Value("${bugboard.cache-json.abilitata:true}") boolean abilitata,
+			@Value("${bugboard.cache-json.voci-massime:20000}") int vociMassime) {
+		return new CacheJsonIssue(new CacheJsonIssue.Parametri(abilitata, vociMassime), meterRegistry);
+	}
+
+	// Spring Boot registra i Module nell'ObjectMapper e nel Jackson2ObjectMapperBuilder
+	@Bean
+	public Module moduloCacheJsonIssue(CacheJsonIssue cacheJsonIssue) {
+		return cacheJsonIssue.modulo();
+	}
+}
@@ -0,0 +1,196 @@
+package it.unina.bugboard.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.unina.bugboard.model.Issue;
+import it.unina.bugboard.model.Priorita;
+import it.unina.bugboard.model.Ruolo;
+import it.unina.bugboard.model.Stato;
+import it.unina.bugboard.model.Tipo;
+import it.unina.bugboard.model.Utenza;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JSON di ogni Issue, con creatore e archiviatore, serializzato una volta e riscritto così com'è
+ * finché l'issue letta non cambia: visualizza-lista, dettaglio e ogni altra risposta JSON che
+ * contiene issue non passano da Jackson per le issue già viste.
+ *
+ * Non c'è invalidazione: ogni voce è legata all'{@link Impronta} dell'entity, cioè a tutti i valori
+ * che finiscono nel JSON, confrontata con quella dell'issue appena letta dal database. Una modifica
+ * all'issue o al suo creatore o archiviatore, da qualunque istanza, cambia l'impronta e la voce
+ * viene riscritta alla prima lettura. Limitata a bugboard.cache-json.voci-massime voci, con
+ * eliminazione dei meno usati di recente (LRU).
+ *
+ * Il serializzatore di Issue dell'ObjectMapper passa dalla cache solo per i generatori JSON
+ * testuali senza indentazione e senza view: CBOR e gli altri casi usano il serializzatore di Jackson.
+ */
+public class CacheJsonIssue {
+
+	private static final String NOME = "bugboard.cache-json";
+
+	private final Parametri parametri;
+	// Ordine di accesso: la prima voce è la meno usata di recente
+	private final LinkedHashMap<Integer, Voce> voci = new LinkedHashMap<>(64, 0.75f, true);
+
+	private final AtomicLong hit = new AtomicLong();
+	private final AtomicLong miss = new AtomicLong();
+
+	public CacheJsonIssue(Parametri parametri, MeterRegistry meterRegistry) {
+		this.parametri = parametri;
+
+		FunctionCounter.builder(NOME + ".richieste", hit, AtomicLong::get)
+				.description("Issue scritte dal JSON in cache").tag("esito", "hit").register(meterRegistry);
+		FunctionCounter.builder(NOME + ".richieste", miss, AtomicLong::get)
+				.description("Issue serializzate da Jackson").tag("esito", "miss").register(meterRegistry);
+		Gauge.builder(NOME + ".voci", this, CacheJsonIssue::numeroVoci).description("Issue con il JSON in cache")
+				.register(meterRegistry);
+	}
+
+	// Da registrare nell'ObjectMapper dell'applicazione, che lo applica anche al converter CBOR
+	public Module modulo() {
+		SimpleModule modulo = new SimpleModule("CacheJsonIssue");
+		modulo.setSerializerModifier(new BeanSerializerModifier() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc,
+					JsonSerializer<?> serializer) {
+				return beanDesc.getBeanClass() == Issue.class
+						? new Serializzatore((JsonSerializer<Object>) serializer)
+						: serializer;
+			}
+		});
+		return modulo;
+	}
+
+	synchronized int numeroVoci() {
+		return voci.size();
+	}
+
+	private SerializedString json(Issue issue, JsonSerializer<Object> predefinito, ObjectMapper objectMapper,
+			SerializerProvider provider) throws IOException {
+		Integer idIssue = issue.getIdIssue();
+		Impronta impronta = Impronta.di(issue);
+		Voce voce;
+		synchronized (this) {
+			voce = voci.get(idIssue);
+		}
+		if (voce != null && voce.impronta().equals(impronta)) {
+			hit.incrementAndGet();
+			return voce.json();
+		}
+		miss.incrementAndGet();
+
+		StringWriter testo = new StringWriter();
+		try (JsonGenerator copia = objectMapper.getFactory().createGenerator(testo)) {
+			provider.getConfig().initialize(copia);
+			predefinito.serialize(issue, copia, provider);
+		}
+		SerializedString json = new SerializedString(testo.toString());
+		synchronized (this) {
+			voci.put(idIssue, new Voce(impronta, json));
+			if (voci.size() > parametri.vociMassime()) {
+				voci.remove(voci.keySet().iterator().next());
+			}
+		}
+		return json;
+	}
+
+	public record Parametri(boolean abilitata, int vociMassime) {
+	}
+
+	/**
+	 * Valori di Issue che finiscono nel JSON, con gli stessi nomi delle proprietà: un campo nuovo
+	 * dell'entity va aggiunto anche qui, e CacheJsonIssueTest lo verifica.
+	 */
+	record Impronta(Integer idIssue, String titolo, String descrizione, Priorita priorita, Stato stato, Tipo tipo,
+			Boolean archiviata, LocalDateTime dataArchiviazione, LocalDateTime dataCreazione,
+			LocalDateTime dataChiusura, ImprontaUtente creatore, ImprontaUtente archiviatore) {
+
+		static Impronta di(Issue issue) {
+			return new Impronta(issue.getIdIssue(), issue.getTitolo(), issue.getDescrizione(), issue.getPriorita(),
+					issue.getStato(), issue.getTipo(), issue.getArchiviata(), issue.getDataArchiviazione(),
+					issue.getDataCreazione(), issue.getDataChiusura(), ImprontaUtente.di(issue.getCreatore()),
+					ImprontaUtente.di(issue.getArchiviatore()));
+		}
+	}
+
+	record ImprontaUtente(Integer idUtente, String nome, String cognome, String email, Ruolo ruolo, Boolean stato) {
+
+		static ImprontaUtente di(Utenza utenza) {
+			return utenza == null ? null
+					: new ImprontaUtente(utenza.getIdUtente(), utenza.getNome(), utenza.getCognome(),
+							utenza.getEmail(), utenza.getRuolo(), utenza.getStato());
+		}
+	}
+
+	private record Voce(Impronta impronta, SerializedString json) {
+	}
+
+	private final class Serializzatore extends StdSerializer<Issue> implements ResolvableSerializer, ContextualSerializer {
+
+		private final JsonSerializer<Object> predefinito;
+
+		Serializzatore(JsonSerializer<Object> predefinito) {
+			super(Issue.class);
+			this.predefinito = predefinito;
+		}
+
+		@Override
+		public void serialize(Issue issue, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			if (!parametri.abilitata() || issue.getIdIssue() == null || !(gen instanceof JsonGeneratorImpl)
+					|| gen.getPrettyPrinter() != null || provider.getActiveView() != null
+					|| !(gen.getCodec() instanceof ObjectMapper objectMapper)) {
+				predefinito.serialize(issue, gen, provider);
+				return;
+			}
+			gen.writeRawValue(json(issue, predefinito, objectMapper, provider));
+		}
+
+		@Override
+		public void serializeWithType(Issue issue, JsonGenerator gen, SerializerProvider provider,
+				TypeSerializer typeSer) throws IOException {
+			predefinito.serializeWithType(issue, gen, provider, typeSer);
+		}
+
+		@Override
+		public void resolve(SerializerProvider provider) throws JsonMappingException {
+			if (predefinito instanceof ResolvableSerializer risolvibile) {
+				risolvibile.resolve(provider);
+			}
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+				throws JsonMappingException {
+			if (!(predefinito instanceof ContextualSerializer contestuale)) {
+				return this;
+			}
+			JsonSerializer<?> serializer = contestuale.createContextual(provider, property);
+			return serializer == predefinito ? this : new Serializzatore((JsonSerializer<Object>) serializer);
+		}
+	}
+}
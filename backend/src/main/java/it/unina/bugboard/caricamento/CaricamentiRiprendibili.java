@@ -0,0 +1,187 @@
+package it.unina.bugboard.caricamento;
+
+import it.unina.bugboard.exception.AlreadyExistsException;
+import it.unina.bugboard.exception.InvalidFieldException;
+import it.unina.bugboard.exception.NotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caricamenti riprendibili: si apre una sessione con la dimensione del file, si inviano le
+ * porzioni con il loro offset e si consultano gli intervalli già ricevuti per riprendere dopo un
+ * errore. Le porzioni sono scritte direttamente nel file temporaneo della sessione, mai tenute
+ * per intero in memoria.
+ *
+ * Le sessioni vivono in memoria e i file in bugboard.caricamento.directory, quindi appartengono
+ * a un'istanza: all'avvio la directory viene svuotata. Una sessione senza porzioni per più di
+ * bugboard.caricamento.scadenza viene eliminata con il suo file.
+ */
+public class CaricamentiRiprendibili {
+
+	private static final Logger log = LoggerFactory.getLogger(CaricamentiRiprendibili.class);
+	private static final String ESTENSIONE = ".part";
+	private static final int BUFFER = 64 * 1024;
+
+	private final Parametri parametri;
+	private final Clock clock;
+	private final Map<String, SessioneCaricamento> sessioni = new ConcurrentHashMap<>();
+
+	public CaricamentiRiprendibili(Parametri parametri, Clock clock) throws IOException {
+		this.parametri = parametri;
+		this.clock = clock;
+		Files.createDirectories(parametri.directory());
+		try (DirectoryStream<Path> residui = Files.newDirectoryStream(parametri.directory(), "*" + ESTENSIONE)) {
+			for (Path file : residui) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	public SessioneCaricamento apri(Integer idIssue, Integer idCaricatore, String nomeFile, String tipoFile,
+			long dimensione) throws IOException {
+		if (dimensione <= 0 || dimensione > parametri.dimensioneMassima()) {
+			throw new InvalidFieldException(String.format("Il file deve essere tra 1 byte e %.0fMB",
+					parametri.dimensioneMassima() / (1024.0 * 1024.0)));
+		}
+		if (sessioni.size() >= parametri.sessioniMassime()) {
+			throw new InvalidFieldException("Troppi caricamenti in corso, riprovare più tardi");
+		}
+		String idCaricamento = UUID.randomUUID().toString();
+		Path file = Files.createFile(parametri.directory().resolve(idCaricamento + ESTENSIONE));
+		SessioneCaricamento sessione = new SessioneCaricamento(idCaricamento, idIssue, idCaricatore, nomeFile, tipoFile,
+				dimensione, file, clock.instant());
+		sessioni.put(idCaricamento, sessione);
+		return sessione;
+	}
+
+	public SessioneCaricamento trova(String idCaricamento) {
+		SessioneCaricamento sessione = sessioni.get(idCaricamento);
+		if (sessione == null) {
+			throw new NotFoundException("Caricamento non trovato o scaduto: " + idCaricamento);
+		}
+		sessione.tocca(clock.instant());
+		return sessione;
+	}
+
+	/**
+	 * Scrive la porzione che inizia a offset e restituisce i byte scritti. Se la connessione cade
+	 * a metà, la parte arrivata resta registrata e il client riprende da lì. Rifiutata con
+	 * AlreadyExistsException se il completamento è già iniziato.
+	 */
+	public long scrivi(String idCaricamento, long offset, InputStream dati) throws IOException {
+		SessioneCaricamento sessione = trova(idCaricamento);
+		if (offset < 0 || offset >= sessione.getDimensione()) {
+			throw new InvalidFieldException("Offset fuori dal file: " + offset);
+		}
+		if (!sessione.iniziaScrittura()) {
+			throw new AlreadyExistsException("Caricamento già in fase di completamento: " + idCaricamento);
+		}
+		try {
+			return scrivi(sessione, offset, dati);
+		} catch (NoSuchFileException e) {
+			// Sessione chiusa o scaduta tra trova() e l'apertura del file
+			throw new NotFoundException("Caricamento non trovato o scaduto: " + idCaricamento);
+		} finally {
+			sessione.terminaScrittura();
+		}
+	}
+
+	private long scrivi(SessioneCaricamento sessione, long offset, InputStream dati) throws IOException {
+		long limitePorzione = offset + parametri.porzioneMassima();
+		long posizione = offset;
+		byte[] buffer = new byte[BUFFER];
+		try (FileChannel canale = FileChannel.open(sessione.getFile(), StandardOpenOption.WRITE)) {
+			int letti;
+			while ((letti = dati.read(buffer)) != -1) {
+				if (posizione + letti > sessione.getDimensione()) {
+					throw new InvalidFieldException("La porzione supera la dimensione dichiarata del file");
+				}
+				if (posizione + letti > limitePorzione) {
+					throw new InvalidFieldException(
+							"Una porzione può contenere al massimo " + parametri.porzioneMassima() + " byte");
+				}
+				ByteBuffer daScrivere = ByteBuffer.wrap(buffer, 0, letti);
+				while (daScrivere.hasRemaining()) {
+					posizione += canale.write(daScrivere, posizione);
+				}
+			}
+		} finally {
+			sessione.aggiungi(offset, posizione);
+			sessione.tocca(clock.instant());
+		}
+		return posizione - offset;
+	}
+
+	// Una sola richiesta alla volta può trasformare la sessione in allegato, e solo senza porzioni
+	// in scrittura; se fallisce il chiamante usa annullaCompletamento() e la sessione resta riprendibile
+	public SessioneCaricamento avviaCompletamento(String idCaricamento) {
+		SessioneCaricamento sessione = trova(idCaricamento);
+		if (!sessione.isCompleto()) {
+			throw new InvalidFieldException("Caricamento incompleto: ricevuti " + sessione.getByteRicevuti()
+					+ " byte su " + sessione.getDimensione());
+		}
+		if (!sessione.avviaCompletamento()) {
+			throw new AlreadyExistsException(
+					"Caricamento già in fase di completamento o con porzioni in scrittura: " + idCaricamento);
+		}
+		return sessione;
+	}
+
+	public void chiudi(SessioneCaricamento sessione) {
+		sessioni.remove(sessione.getIdCaricamento(), sessione);
+		eliminaFile(sessione);
+	}
+
+	@Scheduled(fixedDelayString = "${bugboard.caricamento.intervallo-pulizia-ms:60000}")
+	public void eliminaScadute() {
+		Instant soglia = clock.instant().minus(parametri.scadenza());
+		int eliminate = 0;
+		for (SessioneCaricamento sessione : sessioni.values()) {
+			if (sessione.getUltimoAccesso().isBefore(soglia)
+					&& sessioni.remove(sessione.getIdCaricamento(), sessione)) {
+				eliminaFile(sessione);
+				eliminate++;
+			}
+		}
+		if (eliminate > 0) {
+			log.info("Eliminati {} caricamenti scaduti", eliminate);
+		}
+	}
+
+	public int getPorzioneMassima() {
+		return parametri.porzioneMassima();
+	}
+
+	int sessioniAperte() {
+		return sessioni.size();
+	}
+
+	private void eliminaFile(SessioneCaricamento sessione) {
+		try {
+			Files.deleteIfExists(sessione.getFile());
+		} catch (IOException e) {
+			log.warn("Impossibile eliminare {}: {}", sessione.getFile(), e.getMessage());
+		}
+	}
+
+	public record Parametri(Path directory, long dimensioneMassima, int porzioneMassima, Duration scadenza,
+			int sessioniMassime) {
+	}
+}
@@ -0,0 +1,46 @@
+package it.unina.bugboard.caricamento;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class CaricamentoConfig {
+
+	@Bean
+	public CaricamentiRiprendibili caricamentiRiprendibili(
+			@Value("${bugboard.caricamento.directory:${java.io.tmpdir}/bugboard-caricamenti}") String directory,
+			@Value("${bugboard.caricamento.dimensione-massima:50MB}") DataSize dimensioneMassima,
+			@Value("${bugboard.caricamento.porzione-massima:8MB}") DataSize porzioneMassima,
+			@Value("${bugboard.caricamento.scadenza:24h}") Duration scadenza,
+			@Value("${bugboard.caricamento.sessioni-massime:20}") int sessioniMassime) throws IOException {
+		CaricamentiRiprendibili.Parametri parametri = new CaricamentiRiprendibili.Parametri(Path.of(directory),
+				dimensioneMassima.toBytes(), (int) porzioneMassima.toBytes(), scadenza, sessioniMassime);
+		return new CaricamentiRiprendibili(parametri, Clock.systemDefaultZone());
+	}
+
+	// Validazione e hash dei file di un upload multiplo. Pool e coda limitati: a coda piena il
+	// lavoro resta sul thread della richiesta, che così rallenta invece di accumulare file in attesa
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService esecutoreAllegati(MeterRegistry meterRegistry,
+			@Value("${bugboard.caricamento.thread-elaborazione:4}") int thread,
+			@Value("${bugboard.caricamento.coda-elaborazione:32}") int coda) {
+		ThreadPoolExecutor esecutore = new ThreadPoolExecutor(thread, thread, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(coda), new CustomizableThreadFactory("elaborazione-allegati-"),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		return ExecutorServiceMetrics.monitor(meterRegistry, esecutore, "elaborazione-allegati");
+	}
+}
@@ -0,0 +1,134 @@
+package it.unina.bugboard.caricamento;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Caricamento riprendibile in corso: il file è scritto su disco porzione per porzione, anche
+ * in parallelo e fuori ordine, e gli intervalli ricevuti sono tenuti già fusi.
+ */
+public class SessioneCaricamento {
+
+	private final String idCaricamento;
+	private final Integer idIssue;
+	private final Integer idCaricatore;
+	private final String nomeFile;
+	private final String tipoFile;
+	private final long dimensione;
+	private final Path file;
+	// inizio -> fine esclusa, senza sovrapposizioni né intervalli adiacenti
+	private final TreeMap<Long, Long> ricevuti = new TreeMap<>();
+	// Completamento e scritture si escludono: il file non cambia mentre diventa un allegato
+	private boolean inCompletamento;
+	private int scrittureInCorso;
+	private volatile Instant ultimoAccesso;
+
+	SessioneCaricamento(String idCaricamento, Integer idIssue, Integer idCaricatore, String nomeFile, String tipoFile,
+			long dimensione, Path file, Instant creazione) {
+		this.idCaricamento = idCaricamento;
+		this.idIssue = idIssue;
+		this.idCaricatore = idCaricatore;
+		this.nomeFile = nomeFile;
+		this.tipoFile = tipoFile;
+		this.dimensione = dimensione;
+		this.file = file;
+		this.ultimoAccesso = creazione;
+	}
+
+	synchronized void aggiungi(long inizio, long fine) {
+		if (fine <= inizio) {
+			return;
+		}
+		Map.Entry<Long, Long> precedente = ricevuti.floorEntry(inizio);
+		if (precedente != null && precedente.getValue() >= inizio) {
+			inizio = precedente.getKey();
+			fine = Math.max(fine, precedente.getValue());
+		}
+		Map.Entry<Long, Long> successivo = ricevuti.ceilingEntry(inizio);
+		while (successivo != null && successivo.getKey() <= fine) {
+			fine = Math.max(fine, successivo.getValue());
+			ricevuti.remove(successivo.getKey());
+			successivo = ricevuti.ceilingEntry(inizio);
+		}
+		ricevuti.put(inizio, fine);
+	}
+
+	public synchronized List<long[]> getIntervalliRicevuti() {
+		List<long[]> intervalli = new ArrayList<>(ricevuti.size());
+		ricevuti.forEach((inizio, fine) -> intervalli.add(new long[] { inizio, fine }));
+		return intervalli;
+	}
+
+	public synchronized long getByteRicevuti() {
+		return ricevuti.entrySet().stream().mapToLong(e -> e.getValue() - e.getKey()).sum();
+	}
+
+	public synchronized boolean isCompleto() {
+		Long fine = ricevuti.get(0L);
+		return ricevuti.size() == 1 && fine != null && fine == dimensione;
+	}
+
+	synchronized boolean iniziaScrittura() {
+		if (inCompletamento) {
+			return false;
+		}
+		scrittureInCorso++;
+		return true;
+	}
+
+	synchronized void terminaScrittura() {
+		scrittureInCorso--;
+	}
+
+	synchronized boolean avviaCompletamento() {
+		if (inCompletamento || scrittureInCorso > 0) {
+			return false;
+		}
+		inCompletamento = true;
+		return true;
+	}
+
+	public synchronized void annullaCompletamento() {
+		inCompletamento = false;
+	}
+
+	void tocca(Instant adesso) {
+		ultimoAccesso = adesso;
+	}
+
+	Instant getUltimoAccesso() {
+		return ultimoAccesso;
+	}
+
+	public String getIdCaricamento() {
+		return idCaricamento;
+	}
+
+	public Integer getIdIssue() {
+		return idIssue;
+	}
+
+	public Integer getIdCaricatore() {
+		return idCaricatore;
+	}
+
+	public String getNomeFile() {
+		return nomeFile;
+	}
+
+	public String getTipoFile() {
+		return tipoFile;
+	}
+
+	public long getDimensione() {
+		return dimensione;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+}
@@ -0,0 +1,21 @@
+package it.unina.bugboard.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Formato delle risposte scelto dall'header Accept: JSON di default, CBOR con application/cbor.
+ * Il converter CBOR sostituisce quello predefinito di Spring, che userebbe un ObjectMapper senza
+ * le impostazioni spring.jackson: così date e campi sono gli stessi del JSON, in binario.
+ */
+@Configuration
+public class FormatiRispostaConfig {
+
+	@Bean
+	public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+	}
+}
@@ -0,0 +1,78 @@
+package it.unina.bugboard.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Apre in anticipo le connessioni minime del pool Hikari. Gli ApplicationRunner terminano
+ * prima che l'applicazione passi a ACCEPTING_TRAFFIC, quindi la readiness diventa positiva
+ * solo a pool pronto e la prima richiesta non paga l'handshake TLS verso il database.
+ */
+@Component
+public class RiscaldamentoPool implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(RiscaldamentoPool.class);
+	private static final int TIMEOUT_VALIDAZIONE_SECONDI = 5;
+
+	private final DataSource dataSource;
+	private final boolean abilitato;
+
+	public RiscaldamentoPool(DataSource dataSource,
+			@Value("${bugboard.avvio.riscaldamento-pool:true}") boolean abilitato) {
+		this.dataSource = dataSource;
+		this.abilitato = abilitato;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!abilitato) {
+			return;
+		}
+		long inizio = System.nanoTime();
+		int connessioni = connessioniDaAprire();
+		List<Connection> aperte = new ArrayList<>(connessioni);
+		try {
+			// Tenerle aperte insieme obbliga Hikari a crearne davvero "connessioni" distinte
+			for (int i = 0; i < connessioni; i++) {
+				Connection connection = dataSource.getConnection();
+				aperte.add(connection);
+				connection.isValid(TIMEOUT_VALIDAZIONE_SECONDI);
+			}
+			log.info("Pool database pronto: {} connessioni in {} ms", connessioni,
+					(System.nanoTime() - inizio) / 1_000_000);
+		} catch (SQLException e) {
+			// Non blocca l'avvio: la readiness resta gestita dall'health check del datasource
+			log.warn("Riscaldamento del pool non riuscito: {}", e.getMessage());
+		} finally {
+			for (Connection connection : aperte) {
+				try {
+					connection.close();
+				} catch (SQLException e) {
+					log.debug("Chiusura connessione di riscaldamento fallita", e);
+				}
+			}
+		}
+	}
+
+	private int connessioniDaAprire() {
+		try {
+			if (dataSource.isWrapperFor(HikariDataSource.class)) {
+				return Math.max(1, dataSource.unwrap(HikariDataSource.class).getMinimumIdle());
+			}
+		} catch (SQLException e) {
+			log.debug("DataSource non Hikari", e);
+		}
+		return 1;
+	}
+}
@@ -1,18 +1,47 @@
 package it.unina.bugboard.controller;
 
+import it.unina.bugboard.cache.CacheAllegati;
+import it.unina.bugboard.caricamento.CaricamentiRiprendibili;
+import it.unina.bugboard.caricamento.SessioneCaricamento;
 import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.InfoAllegato;
 import it.unina.bugboard.dao.IssueDAO;
+import it.unina.bugboard.dao.NuovoAllegato;
+import it.unina.bugboard.dao.Occupazione;
+import it.unina.bugboard.dao.RiepilogoAllegati;
+import it.unina.bugboard.dao.RisultatoRicercaAllegati;
 import it.unina.bugboard.model.Allegato;
 import it.unina.bugboard.model.Issue;
 import it.unina.bugboard.exception.*;
-import org.springframework.core.io.ByteArrayResource;
+import it.unina.bugboard.jfr.AllegatoTrasferimentoEvent;
+import it.unina.bugboard.metrics.MetricheAllegati;
+import it.unina.bugboard.quote.QuoteAllegati;
+import it.unina.bugboard.storage.ArchivioOggetti;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.*;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @RestController
 @RequestMapping("/api/allegato")
@@ -26,47 +55,58 @@ public class AllegatoController {
 	private static final String DATA_CARICAMENTO_KEY = "dataCaricamento";
 	private static final String DIMENSIONE_MB_KEY = "dimensioneMB";
 	private static final String ID_ISSUE_KEY = "idIssue";
+	private static final String ESITO_KEY = "esito";
+	private static final String REMOTO_KEY = "remoto";
 
 	private static final String ALLEGATO_NON_TROVATO_MSG = "Allegato non trovato con id: ";
 	private static final String ISSUE_NON_TROVATA_MSG = "Issue non trovata con id: ";
+	private static final String SQL_STATE_UNIQUE_VIOLATION = "23505";
 
 	private static final long MAX_FILE_SIZE = 10 * 1024 * 1024L; // 10MB
+	private static final int MAX_ISSUE_RIEPILOGO = 1000;
+	private static final int MAX_FILE_MULTIPLO = 10;
+	private static final int MAX_TESTO_RICERCA = 200;
+	private static final int MAX_RISULTATI_RICERCA = 50;
+	private static final int PORZIONE_ZIP = 256 * 1024;
+	// Formati già compressi: ricomprimerli costa CPU senza ridurre la dimensione
+	private static final Set<String> TIPI_COMPRESSI = Set.of("image/jpeg", "image/jpg", "image/png", "image/gif",
+			"image/webp", "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
 	private static final String[] ALLOWED_CONTENT_TYPES = { "image/jpeg", "image/jpg", "image/png", "image/gif",
 			"image/webp", "application/pdf", "application/msword",
 			"application/vnd.openxmlformats-officedocument.wordprocessingml.document" };
 
 	private final AllegatoDAO allegatoDAO;
 	private final IssueDAO issueDAO;
-
-	public AllegatoController(AllegatoDAO allegatoDAO, IssueDAO issueDAO) {
+	private final MetricheAllegati metricheAllegati;
+	private final CaricamentiRiprendibili caricamenti;
+	private final ExecutorService esecutoreAllegati;
+	private final ArchivioOggetti archivioOggetti;
+	private final CacheAllegati cacheAllegati;
+	private final QuoteAllegati quoteAllegati;
+
+	public AllegatoController(AllegatoDAO allegatoDAO, IssueDAO issueDAO, MetricheAllegati metricheAllegati,
+			CaricamentiRiprendibili caricamenti, @Qualifier("esecutoreAllegati") ExecutorService esecutoreAllegati,
+			ArchivioOggetti archivioOggetti, CacheAllegati cacheAllegati, QuoteAllegati quoteAllegati) {
 		this.allegatoDAO = allegatoDAO;
 		this.issueDAO = issueDAO;
+		this.metricheAllegati = metricheAllegati;
+		this.caricamenti = caricamenti;
+		this.esecutoreAllegati = esecutoreAllegati;
+		this.archivioOggetti = archivioOggetti;
+		this.cacheAllegati = cacheAllegati;
+		this.quoteAllegati = quoteAllegati;
 	}
 
 	@PostMapping("/upload")
 	@Transactional
 	public Map<String, Object> uploadAllegato(@RequestParam(value = "file") MultipartFile file,
-			@RequestParam(value = "idIssue") Integer idIssue) throws IOException {
-
-		if (file == null || file.isEmpty()) {
-			throw new InvalidFieldException("File mancante o vuoto");
-		}
-		
-		   if (file.getOriginalFilename() == null || file.getOriginalFilename().isBlank()) {
-		        throw new InvalidFieldException("Nome file mancante");
-		    }
-
-		if (file.getSize() > MAX_FILE_SIZE) {
-			throw new InvalidFieldException(String.format("Il file supera la dimensione massima consentita di %.0fMB",
-					MAX_FILE_SIZE / (1024.0 * 1024.0)));
-		}
+			@RequestParam(value = "idIssue") Integer idIssue,
+			@RequestParam(value = "idCaricatore", required = false) Integer idCaricatore) throws IOException {
 
+		verificaFile(file);
 		String contentType = file.getContentType();
-		if (contentType == null || !isAllowedContentType(contentType)) {
-			throw new InvalidFieldException(
-					"Tipo di file non supportato. Formati consentiti: immagini (JPG, PNG, GIF, WEBP), PDF, DOC, DOCX");
-		}
 
+		AllegatoTrasferimentoEvent evento = new AllegatoTrasferimentoEvent("upload");
 		Issue issue = issueDAO.findById(idIssue)
 				.orElseThrow(() -> new NotFoundException(ISSUE_NON_TROVATA_MSG + idIssue));
 
@@ -74,43 +114,229 @@ public class AllegatoController {
 		byte[] fileData = file.getBytes();
 		Allegato allegato = new Allegato(file.getOriginalFilename(), contentType, (int) file.getSize(), fileData,
 				issue);
+		allegato.setIdCaricatore(idCaricatore);
 
-		Allegato saved = allegatoDAO.save(allegato);
+		Allegato saved = quoteAllegati.inserisci(idIssue, idCaricatore, fileData.length,
+				() -> allegatoDAO.save(allegato));
+		metricheAllegati.registraUpload(fileData.length);
+		evento.completa(saved.getIdAllegato(), fileData.length);
 
 		return Map.of(ID_ALLEGATO_KEY, saved.getIdAllegato(), NOME_FILE_KEY, saved.getNomeFile(), TIPO_FILE_KEY,
 				saved.getTipoFile(), DIMENSIONE_KEY, saved.getDimensione(), DATA_CARICAMENTO_KEY,
 				saved.getDataCaricamento(), MESSAGE_KEY, "File caricato con successo");
 	}
 
-	@GetMapping("/download/{id}")
-	@Transactional(readOnly = true)
-	public ResponseEntity<ByteArrayResource> downloadAllegato(@PathVariable(value = "id") Integer id) {
-		Allegato allegato = allegatoDAO.findById(id)
-				.orElseThrow(() -> new NotFoundException(ALLEGATO_NON_TROVATO_MSG + id));
+	// Più file per la stessa issue: validazione e SHA-256 in parallelo su esecutoreAllegati, poi un solo
+	// batch di insert. Ogni file ha il suo esito e quelli scartati non bloccano gli altri. Nessuna
+	// transazione durante la validazione: la connessione serve solo per il batch
+	@PostMapping("/upload-multiplo")
+	public Map<String, Object> uploadMultiplo(@RequestParam(value = "file") List<MultipartFile> file,
+			@RequestParam(value = "idIssue") Integer idIssue,
+			@RequestParam(value = "idCaricatore", required = false) Integer idCaricatore) {
+		if (file == null || file.isEmpty()) {
+			throw new InvalidFieldException("Nessun file da caricare");
+		}
+		if (file.size() > MAX_FILE_MULTIPLO) {
+			throw new InvalidFieldException("Si possono caricare al massimo " + MAX_FILE_MULTIPLO + " file per volta");
+		}
+		verificaEsistenzaIssue(idIssue);
 
-		byte[] data = allegato.getFileData();
-		ByteArrayResource resource = new ByteArrayResource(data);
+		List<Future<String>> hash = file.stream().map(f -> esecutoreAllegati.submit(() -> verificaEHash(f))).toList();
+
+		List<Map<String, Object>> risultati = new ArrayList<>();
+		List<Map<String, Object>> accettati = new ArrayList<>();
+		List<NuovoAllegato> daInserire = new ArrayList<>();
+		Map<String, String> nomePerHash = new HashMap<>();
+		for (int i = 0; i < file.size(); i++) {
+			MultipartFile f = file.get(i);
+			Map<String, Object> esito = new LinkedHashMap<>();
+			esito.put(NOME_FILE_KEY, f.getOriginalFilename());
+			try {
+				String sha256 = attendiHash(hash.get(i));
+				String primo = nomePerHash.putIfAbsent(sha256, f.getOriginalFilename());
+				if (primo != null) {
+					throw new InvalidFieldException("Contenuto identico a " + primo);
+				}
+				esito.put(DIMENSIONE_KEY, f.getSize());
+				esito.put("sha256", sha256);
+				accettati.add(esito);
+				daInserire.add(new NuovoAllegato(f.getOriginalFilename(), f.getContentType(), f.getSize(), f));
+			} catch (InvalidFieldException e) {
+				esito.put(ESITO_KEY, "scartato");
+				esito.put("errore", e.getMessage());
+			}
+			risultati.add(esito);
+		}
 
-		return ResponseEntity.ok()
-				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + allegato.getNomeFile() + "\"")
-				.contentType(MediaType.parseMediaType(allegato.getTipoFile())).contentLength(data.length)
-				.body(resource);
+		// La quota vale per il batch intero: o entrano tutti gli accettati o nessuno
+		long byteNuovi = daInserire.stream().mapToLong(NuovoAllegato::dimensione).sum();
+		List<Integer> idAllegati = quoteAllegati.inserisci(idIssue, idCaricatore, byteNuovi,
+				() -> allegatoDAO.inserisciTutti(idIssue, idCaricatore, daInserire));
+		for (int i = 0; i < accettati.size(); i++) {
+			accettati.get(i).put(ESITO_KEY, "caricato");
+			accettati.get(i).put(ID_ALLEGATO_KEY, idAllegati.get(i));
+			metricheAllegati.registraUpload(daInserire.get(i).dimensione());
+		}
+
+		return Map.of(ID_ISSUE_KEY, idIssue, "caricati", accettati.size(), "scartati",
+				risultati.size() - accettati.size(), "risultati", risultati);
 	}
 
-	@GetMapping("/preview/{id}")
+	// Caricamento diretto sull'object storage (vedi ArchivioOggetti): il browser riceve un URL
+	// presigned per il PUT e poi conferma; i byte non passano dal backend
+	@PostMapping("/oggetti")
+	public Map<String, Object> preparaCaricamentoOggetto(@RequestParam(value = "idIssue") Integer idIssue,
+			@RequestParam(value = "nomeFile") String nomeFile, @RequestParam(value = "tipoFile") String tipoFile,
+			@RequestParam(value = "dimensione") long dimensione,
+			@RequestParam(value = "idCaricatore", required = false) Integer idCaricatore) {
+		if (!archivioOggetti.isAbilitato()) {
+			throw new NotFoundException("Object storage non configurato");
+		}
+		if (nomeFile.isBlank()) {
+			throw new InvalidFieldException("Nome file mancante");
+		}
+		verificaTipoFile(tipoFile);
+		verificaDimensioneOggetto(dimensione);
+		verificaEsistenzaIssue(idIssue);
+		quoteAllegati.verifica(idIssue, idCaricatore, dimensione);
+
+		String chiave = archivioOggetti.nuovaChiave(idIssue);
+		allegatoDAO.registraOggettoInCaricamento(chiave, archivioOggetti.getScadenzaConferma().toSeconds());
+		ArchivioOggetti.UrlPresigned caricamento = archivioOggetti.urlCaricamento(chiave, tipoFile, dimensione);
+		return Map.of("chiave", chiave, "url", caricamento.url().toString(), "metodo", "PUT", "header",
+				Map.of(HttpHeaders.CONTENT_TYPE, tipoFile), "scadenza", caricamento.scadenza().toString());
+	}
+
+	// Tipo e dimensione vengono dall'oggetto caricato, non dal client
+	@PostMapping("/oggetti/conferma")
+	public Map<String, Object> confermaCaricamentoOggetto(@RequestParam(value = "idIssue") Integer idIssue,
+			@RequestParam(value = "chiave") String chiave, @RequestParam(value = "nomeFile") String nomeFile,
+			@RequestParam(value = "idCaricatore", required = false) Integer idCaricatore) throws IOException {
+		if (!archivioOggetti.appartieneAIssue(chiave, idIssue)) {
+			throw new InvalidFieldException("Chiave non valida per l'issue " + idIssue);
+		}
+		ArchivioOggetti.Oggetto oggetto = archivioOggetti.leggiMetadati(chiave)
+				.orElseThrow(() -> new InvalidFieldException("Il file non è ancora stato caricato"));
+		verificaTipoFile(oggetto.tipoFile());
+		verificaDimensioneOggetto(oggetto.dimensione());
+		Issue issue = issueDAO.findById(idIssue)
+				.orElseThrow(() -> new NotFoundException(ISSUE_NON_TROVATA_MSG + idIssue));
+
+		Allegato allegato = new Allegato(nomeFile, oggetto.tipoFile(), (int) oggetto.dimensione(), chiave, issue);
+		allegato.setIdCaricatore(idCaricatore);
+		Allegato saved;
+		try {
+			saved = quoteAllegati.inserisci(idIssue, idCaricatore, oggetto.dimensione(), () -> {
+				Allegato inserito = allegatoDAO.saveAndFlush(allegato);
+				// Senza la riga in attesa la chiave è già nella coda di eliminazione
+				if (allegatoDAO.rimuoviOggettoInCaricamento(chiave) == 0) {
+					throw new InvalidFieldException("Caricamento scaduto, ricaricare il file: " + chiave);
+				}
+				return inserito;
+			});
+		} catch (DataIntegrityViolationException e) {
+			if (SQL_STATE_UNIQUE_VIOLATION.equals(sqlStateViolazione(e))) {
+				throw new AlreadyExistsException("Caricamento già confermato: " + chiave);
+			}
+			throw e;
+		}
+		metricheAllegati.registraUpload(oggetto.dimensione());
+
+		return Map.of(ID_ALLEGATO_KEY, saved.getIdAllegato(), NOME_FILE_KEY, saved.getNomeFile(), TIPO_FILE_KEY,
+				saved.getTipoFile(), DIMENSIONE_KEY, saved.getDimensione(), DATA_CARICAMENTO_KEY,
+				saved.getDataCaricamento(), MESSAGE_KEY, "File caricato con successo");
+	}
+
+	// URL presigned per scaricare o mostrare un allegato su object storage direttamente dallo storage
+	@GetMapping("/{id}/link")
 	@Transactional(readOnly = true)
-	public ResponseEntity<ByteArrayResource> previewAllegato(@PathVariable(value = "id") Integer id) {
-		Allegato allegato = allegatoDAO.findById(id)
+	public Map<String, Object> linkAllegato(@PathVariable(value = "id") Integer id,
+			@RequestParam(value = "inline", defaultValue = "false") boolean inline) {
+		InfoAllegato allegato = allegatoDAO.findInfoById(id)
 				.orElseThrow(() -> new NotFoundException(ALLEGATO_NON_TROVATO_MSG + id));
+		if (allegato.getChiaveOggetto() == null) {
+			throw new InvalidFieldException("L'allegato " + id + " non è su object storage");
+		}
+		ArchivioOggetti.UrlPresigned link = archivioOggetti.urlScaricamento(allegato.getChiaveOggetto(),
+				allegato.getNomeFile(), inline);
+		return Map.of(ID_ALLEGATO_KEY, id, "url", link.url().toString(), "scadenza", link.scadenza().toString());
+	}
+
+	// Caricamento riprendibile (vedi CaricamentiRiprendibili), per i file oltre il limite del multipart
+	// e per le connessioni instabili: dopo un errore si reinviano solo le porzioni mancanti
+	@PostMapping("/caricamenti")
+	public Map<String, Object> apriCaricamento(@RequestParam(value = "idIssue") Integer idIssue,
+			@RequestParam(value = "nomeFile") String nomeFile, @RequestParam(value = "tipoFile") String tipoFile,
+			@RequestParam(value = "dimensione") long dimensione,
+			@RequestParam(value = "idCaricatore", required = false) Integer idCaricatore) throws IOException {
+		if (nomeFile.isBlank()) {
+			throw new InvalidFieldException("Nome file mancante");
+		}
+		verificaTipoFile(tipoFile);
+		verificaEsistenzaIssue(idIssue);
+		// Prima di ricevere i byte; la verifica che conta è quella al completamento
+		quoteAllegati.verifica(idIssue, idCaricatore, dimensione);
 
-		byte[] data = allegato.getFileData();
-		ByteArrayResource resource = new ByteArrayResource(data);
+		SessioneCaricamento sessione = caricamenti.apri(idIssue, idCaricatore, nomeFile, tipoFile, dimensione);
+		return caricamentoToMap(sessione);
+	}
 
-		// Inline invece di attachment per visualizzazione diretta nel browser
-		return ResponseEntity.ok()
-				.header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + allegato.getNomeFile() + "\"")
-				.contentType(MediaType.parseMediaType(allegato.getTipoFile())).contentLength(data.length)
-				.body(resource);
+	// Porzioni anche in parallelo e in qualsiasi ordine; reinviare una porzione già ricevuta è innocuo
+	@PutMapping(value = "/caricamenti/{idCaricamento}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+	public Map<String, Object> inviaPorzione(@PathVariable(value = "idCaricamento") String idCaricamento,
+			@RequestParam(value = "offset") long offset, InputStream porzione) throws IOException {
+		long scritti = caricamenti.scrivi(idCaricamento, offset, porzione);
+		metricheAllegati.registraUpload(scritti);
+		return caricamentoToMap(caricamenti.trova(idCaricamento));
+	}
+
+	@GetMapping("/caricamenti/{idCaricamento}")
+	public Map<String, Object> statoCaricamento(@PathVariable(value = "idCaricamento") String idCaricamento) {
+		return caricamentoToMap(caricamenti.trova(idCaricamento));
+	}
+
+	@PostMapping("/caricamenti/{idCaricamento}/completa")
+	public Map<String, Object> completaCaricamento(@PathVariable(value = "idCaricamento") String idCaricamento) {
+		AllegatoTrasferimentoEvent evento = new AllegatoTrasferimentoEvent("upload");
+		SessioneCaricamento sessione = caricamenti.avviaCompletamento(idCaricamento);
+
+		Integer idAllegato;
+		try {
+			verificaEsistenzaIssue(sessione.getIdIssue());
+			idAllegato = quoteAllegati.inserisci(sessione.getIdIssue(), sessione.getIdCaricatore(),
+					sessione.getDimensione(),
+					() -> allegatoDAO.inserisciDaFile(sessione.getNomeFile(), sessione.getTipoFile(),
+							sessione.getDimensione(), sessione.getFile(), sessione.getIdIssue(),
+							sessione.getIdCaricatore()));
+		} catch (RuntimeException e) {
+			sessione.annullaCompletamento();
+			throw e;
+		}
+		caricamenti.chiudi(sessione);
+		evento.completa(idAllegato, sessione.getDimensione());
+
+		return Map.of(ID_ALLEGATO_KEY, idAllegato, NOME_FILE_KEY, sessione.getNomeFile(), TIPO_FILE_KEY,
+				sessione.getTipoFile(), DIMENSIONE_KEY, sessione.getDimensione(), MESSAGE_KEY,
+				"File caricato con successo");
+	}
+
+	@DeleteMapping("/caricamenti/{idCaricamento}")
+	public Map<String, String> annullaCaricamento(@PathVariable(value = "idCaricamento") String idCaricamento) {
+		caricamenti.chiudi(caricamenti.trova(idCaricamento));
+		return Map.of(MESSAGE_KEY, "Caricamento annullato");
+	}
+
+	@GetMapping("/download/{id}")
+	@Transactional(readOnly = true)
+	public ResponseEntity<StreamingResponseBody> downloadAllegato(@PathVariable(value = "id") Integer id) {
+		return inviaContenuto(id, false);
+	}
+
+	// Inline invece di attachment per visualizzazione diretta nel browser
+	@GetMapping("/preview/{id}")
+	@Transactional(readOnly = true)
+	public ResponseEntity<StreamingResponseBody> previewAllegato(@PathVariable(value = "id") Integer id) {
+		return inviaContenuto(id, true);
 	}
 
 	@GetMapping("/issue/{idIssue}")
@@ -139,7 +365,7 @@ public class AllegatoController {
 	public Map<String, Object> getDimensioneTotale(@PathVariable(value = "idIssue") Integer idIssue) {
 		verificaEsistenzaIssue(idIssue);
 
-		Long totale = Optional.ofNullable(allegatoDAO.sumDimensioniByIssue(idIssue)).orElse(0L);
+		long totale = occupazioneIssue(idIssue).map(Occupazione::getDimensione).orElse(0L);
 
 		return Map.of(ID_ISSUE_KEY, idIssue, "dimensioneTotaleBytes", totale, "dimensioneTotaleMB",
 				String.format("%.2f", totale / (1024.0 * 1024.0)));
@@ -149,10 +375,85 @@ public class AllegatoController {
 	@Transactional(readOnly = true)
 	public Map<String, Object> countAllegati(@PathVariable(value = "idIssue") Integer idIssue) {
 		verificaEsistenzaIssue(idIssue);
-		long count = allegatoDAO.countByIssueIdIssue(idIssue);
+		long count = occupazioneIssue(idIssue).map(Occupazione::getNumero).orElse(0L);
 		return Map.of(ID_ISSUE_KEY, idIssue, "numeroAllegati", count);
 	}
 
+	// Spazio occupato e quota per il sistema, per l'issue e per l'utente indicati (vedi QuoteAllegati)
+	@GetMapping("/occupazione")
+	@Transactional(readOnly = true)
+	public Map<String, Map<String, Object>> occupazione(
+			@RequestParam(value = "idIssue", required = false) Integer idIssue,
+			@RequestParam(value = "idUtente", required = false) Integer idUtente) {
+		return quoteAllegati.riepilogo(idIssue, idUtente);
+	}
+
+	// Indicatori delle liste con una sola lettura per tutte le issue richieste, invece di /count
+	// issue per issue. Le issue senza allegati, o inesistenti, risultano con zero
+	@PostMapping("/riepilogo")
+	@Transactional(readOnly = true)
+	public Map<Integer, Map<String, Object>> riepilogoAllegati(@RequestBody List<Integer> idIssue) {
+		if (idIssue == null || idIssue.isEmpty() || idIssue.stream().anyMatch(Objects::isNull)) {
+			throw new InvalidFieldException("Indicare almeno un id di issue valido");
+		}
+		if (idIssue.size() > MAX_ISSUE_RIEPILOGO) {
+			throw new InvalidFieldException("Si possono richiedere al massimo " + MAX_ISSUE_RIEPILOGO + " issue");
+		}
+
+		Map<Integer, Map<String, Object>> riepilogo = new LinkedHashMap<>();
+		for (Integer id : idIssue) {
+			riepilogo.put(id, riepilogoToMap(0, 0));
+		}
+		for (RiepilogoAllegati r : allegatoDAO.riepilogoByIssue(riepilogo.keySet().toArray(Integer[]::new))) {
+			riepilogo.put(r.getIdIssue(), riepilogoToMap(r.getNumeroAllegati(), r.getDimensioneTotale()));
+		}
+		return riepilogo;
+	}
+
+	// Ricerca nel testo estratto dai PDF e DOCX (vedi EstrazioneTesto), con la sintassi di
+	// websearch_to_tsquery: "frase esatta", -escluso, or. Issue nell'ordine del loro allegato più
+	// rilevante, ciascuna con gli allegati trovati e un estratto
+	@GetMapping("/cerca")
+	@Transactional(readOnly = true)
+	public List<Map<String, Object>> cercaNegliAllegati(@RequestParam(value = "testo") String testo,
+			@RequestParam(value = "limite", defaultValue = "20") int limite) {
+		if (testo.isBlank() || testo.length() > MAX_TESTO_RICERCA) {
+			throw new InvalidFieldException("Il testo da cercare deve avere tra 1 e " + MAX_TESTO_RICERCA + " caratteri");
+		}
+		if (limite < 1 || limite > MAX_RISULTATI_RICERCA) {
+			throw new InvalidFieldException("Il limite deve essere tra 1 e " + MAX_RISULTATI_RICERCA);
+		}
+
+		Map<Integer, Map<String, Object>> issue = new LinkedHashMap<>();
+		Map<Integer, List<Map<String, Object>>> allegatiPerIssue = new HashMap<>();
+		for (RisultatoRicercaAllegati r : allegatoDAO.cercaNelTesto(testo.trim(), limite)) {
+			List<Map<String, Object>> allegati = allegatiPerIssue.computeIfAbsent(r.getIdIssue(), id -> {
+				List<Map<String, Object>> trovati = new ArrayList<>();
+				issue.put(id, Map.of(ID_ISSUE_KEY, id, "titolo", r.getTitolo(), "stato", r.getStato(), "allegati",
+						trovati));
+				return trovati;
+			});
+			allegati.add(Map.of(ID_ALLEGATO_KEY, r.getIdAllegato(), NOME_FILE_KEY, r.getNomeFile(), "estratto",
+					r.getEstratto(), "rilevanza", r.getRilevanza()));
+		}
+		return new ArrayList<>(issue.values());
+	}
+
+	// Archivio costruito mentre viene inviato: gli allegati sono letti uno dopo l'altro a porzioni di
+	// PORZIONE_ZIP, quindi la memoria usata non dipende dal numero né dalla dimensione dei file
+	@GetMapping("/issue/{idIssue}/zip")
+	@Transactional(readOnly = true)
+	public ResponseEntity<StreamingResponseBody> scaricaZip(@PathVariable(value = "idIssue") Integer idIssue) {
+		verificaEsistenzaIssue(idIssue);
+
+		List<InfoAllegato> allegati = allegatoDAO.findInfoByIssue(idIssue);
+
+		StreamingResponseBody corpo = out -> scriviZip(allegati, out);
+		return ResponseEntity.ok()
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"issue-" + idIssue + "-allegati.zip\"")
+				.contentType(MediaType.parseMediaType("application/zip")).body(corpo);
+	}
+
 	@DeleteMapping("/{id}")
 	@Transactional
 	public Map<String, String> eliminaAllegato(@PathVariable(value = "id") Integer id) {
@@ -160,15 +461,203 @@ public class AllegatoController {
 				.orElseThrow(() -> new NotFoundException(ALLEGATO_NON_TROVATO_MSG + id));
 
 		allegatoDAO.delete(allegato);
+		cacheAllegati.invalida(id);
 		return Map.of(MESSAGE_KEY, "Allegato eliminato con successo");
 	}
 
+	private Optional<Occupazione> occupazioneIssue(Integer idIssue) {
+		return allegatoDAO.findOccupazioni(new String[] { QuoteAllegati.ISSUE }, new Integer[] { idIssue }).stream()
+				.findFirst();
+	}
+
 	private void verificaEsistenzaIssue(Integer idIssue) {
 		if (!issueDAO.existsById(idIssue)) {
 			throw new NotFoundException(ISSUE_NON_TROVATA_MSG + idIssue);
 		}
 	}
 
+	// STORED di java.util.zip vuole CRC e dimensione prima dei dati, cioè una doppia lettura dal
+	// database: per i formati già compressi si usa DEFLATED a livello 0, che copia i byte così come sono
+	private void scriviZip(List<InfoAllegato> allegati, OutputStream out) throws IOException {
+		Set<String> nomiUsati = new HashSet<>();
+		ZipOutputStream zip = new ZipOutputStream(out);
+		for (InfoAllegato allegato : allegati) {
+			AllegatoTrasferimentoEvent evento = new AllegatoTrasferimentoEvent("zip");
+			boolean compresso = allegato.getTipoFile() != null
+					&& TIPI_COMPRESSI.contains(allegato.getTipoFile().toLowerCase(Locale.ROOT));
+			zip.setLevel(compresso ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+			zip.putNextEntry(new ZipEntry(nomeUnivoco(allegato.getNomeFile(), nomiUsati)));
+
+			long scritti = allegato.getChiaveOggetto() != null ? copiaOggetto(allegato.getChiaveOggetto(), zip)
+					: copiaFileData(allegato, zip);
+
+			zip.closeEntry();
+			metricheAllegati.registraZip(scritti);
+			evento.completa(allegato.getIdAllegato(), scritti);
+		}
+		zip.finish();
+	}
+
+	// Si legge fino alla dimensione registrata: una porzione mancante interrompe lo ZIP, che altrimenti
+	// arriverebbe al client valido ma con il file troncato
+	private long copiaFileData(InfoAllegato allegato, OutputStream out) throws IOException {
+		long dimensione = allegato.getDimensione();
+		long scritti = 0;
+		while (scritti < dimensione) {
+			byte[] porzione = allegatoDAO.leggiPorzione(allegato.getIdAllegato(), Math.toIntExact(scritti + 1),
+					PORZIONE_ZIP);
+			if (porzione == null || porzione.length == 0) {
+				break;
+			}
+			out.write(porzione);
+			scritti += porzione.length;
+		}
+		if (scritti != dimensione) {
+			throw new IOException("Allegato " + allegato.getIdAllegato() + " letto per " + scritti + " byte su "
+					+ dimensione + ", archivio interrotto");
+		}
+		return scritti;
+	}
+
+	private long copiaOggetto(String chiave, OutputStream out) throws IOException {
+		try (InputStream dati = archivioOggetti.apri(chiave)) {
+			return dati.transferTo(out);
+		}
+	}
+
+	// Nomi ripetuti diventano "nome (2).ext", "nome (3).ext"...; niente percorsi dentro l'archivio
+	private String nomeUnivoco(String nomeFile, Set<String> nomiUsati) {
+		String nome = nomeFile == null ? ""
+				: nomeFile.substring(Math.max(nomeFile.lastIndexOf('/'), nomeFile.lastIndexOf('\\')) + 1);
+		if (nome.isBlank()) {
+			nome = "allegato";
+		}
+		int punto = nome.lastIndexOf('.');
+		String base = punto > 0 ? nome.substring(0, punto) : nome;
+		String estensione = punto > 0 ? nome.substring(punto) : "";
+		String candidato = nome;
+		for (int n = 2; !nomiUsati.add(candidato.toLowerCase(Locale.ROOT)); n++) {
+			candidato = base + " (" + n + ")" + estensione;
+		}
+		return candidato;
+	}
+
+	private void verificaDimensioneOggetto(long dimensione) {
+		if (dimensione <= 0 || dimensione > archivioOggetti.getDimensioneMassima()) {
+			throw new InvalidFieldException(String.format("Il file deve essere tra 1 byte e %.0fMB",
+					archivioOggetti.getDimensioneMassima() / (1024.0 * 1024.0)));
+		}
+	}
+
+	// I metadati si leggono sempre dal database, anche con il contenuto in cache: un allegato
+	// eliminato non viene più servito. Dalla cache il file va alla risposta con transferTo
+	private ResponseEntity<StreamingResponseBody> inviaContenuto(Integer id, boolean inline) {
+		AllegatoTrasferimentoEvent evento = new AllegatoTrasferimentoEvent(inline ? "preview" : "download");
+		InfoAllegato allegato = allegatoDAO.findInfoById(id)
+				.orElseThrow(() -> new NotFoundException(ALLEGATO_NON_TROVATO_MSG + id));
+		if (allegato.getChiaveOggetto() != null) {
+			ArchivioOggetti.UrlPresigned link = archivioOggetti.urlScaricamento(allegato.getChiaveOggetto(),
+					allegato.getNomeFile(), inline);
+			return ResponseEntity.status(HttpStatus.FOUND).location(link.url()).build();
+		}
+
+		StreamingResponseBody corpo;
+		long dimensione;
+		Optional<FileChannel> inCache = cacheAllegati.apri(id);
+		if (inCache.isPresent()) {
+			FileChannel canale = inCache.get();
+			try {
+				dimensione = canale.size();
+			} catch (IOException e) {
+				chiudi(canale);
+				throw new UncheckedIOException(e);
+			}
+			corpo = out -> {
+				try (canale) {
+					WritableByteChannel destinazione = Channels.newChannel(out);
+					for (long inviati = 0; inviati < dimensione;) {
+						inviati += canale.transferTo(inviati, dimensione - inviati, destinazione);
+					}
+				}
+			};
+		} else {
+			byte[] data = allegatoDAO.findFileDataById(id);
+			cacheAllegati.salva(id, data);
+			dimensione = data.length;
+			corpo = out -> out.write(data);
+		}
+		if (inline) {
+			metricheAllegati.registraAnteprima(dimensione);
+		} else {
+			metricheAllegati.registraDownload(dimensione);
+		}
+		evento.completa(id, dimensione);
+
+		return ResponseEntity.ok()
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						(inline ? "inline" : "attachment") + "; filename=\"" + allegato.getNomeFile() + "\"")
+				.contentType(MediaType.parseMediaType(allegato.getTipoFile())).contentLength(dimensione).body(corpo);
+	}
+
+	private static void chiudi(FileChannel canale) {
+		try {
+			canale.close();
+		} catch (IOException e) {
+			// Solo lettura: nulla da perdere
+		}
+	}
+
+	private void verificaFile(MultipartFile file) {
+		if (file == null || file.isEmpty()) {
+			throw new InvalidFieldException("File mancante o vuoto");
+		}
+		if (file.getOriginalFilename() == null || file.getOriginalFilename().isBlank()) {
+			throw new InvalidFieldException("Nome file mancante");
+		}
+		if (file.getSize() > MAX_FILE_SIZE) {
+			throw new InvalidFieldException(String.format("Il file supera la dimensione massima consentita di %.0fMB",
+					MAX_FILE_SIZE / (1024.0 * 1024.0)));
+		}
+		verificaTipoFile(file.getContentType());
+	}
+
+	private String verificaEHash(MultipartFile file) throws IOException, NoSuchAlgorithmException {
+		verificaFile(file);
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream dati = file.getInputStream()) {
+			int letti;
+			while ((letti = dati.read(buffer)) != -1) {
+				digest.update(buffer, 0, letti);
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private String attendiHash(Future<String> hash) {
+		try {
+			return hash.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Upload interrotto", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof InvalidFieldException invalido) {
+				throw invalido;
+			}
+			if (e.getCause() instanceof IOException) {
+				throw new InvalidFieldException("Errore nella lettura del file");
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private void verificaTipoFile(String contentType) {
+		if (contentType == null || !isAllowedContentType(contentType)) {
+			throw new InvalidFieldException(
+					"Tipo di file non supportato. Formati consentiti: immagini (JPG, PNG, GIF, WEBP), PDF, DOC, DOCX");
+		}
+	}
+
 	private boolean isAllowedContentType(String contentType) {
 		for (String allowed : ALLOWED_CONTENT_TYPES) {
 			if (allowed.equalsIgnoreCase(contentType)) {
@@ -178,6 +667,23 @@ public class AllegatoController {
 		return false;
 	}
 
+	private Map<String, Object> caricamentoToMap(SessioneCaricamento sessione) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("idCaricamento", sessione.getIdCaricamento());
+		map.put(ID_ISSUE_KEY, sessione.getIdIssue());
+		map.put(NOME_FILE_KEY, sessione.getNomeFile());
+		map.put(DIMENSIONE_KEY, sessione.getDimensione());
+		map.put("dimensionePorzione", caricamenti.getPorzioneMassima());
+		map.put("byteRicevuti", sessione.getByteRicevuti());
+		map.put("intervalliRicevuti", sessione.getIntervalliRicevuti());
+		map.put("completo", sessione.isCompleto());
+		return map;
+	}
+
+	private Map<String, Object> riepilogoToMap(long numeroAllegati, long dimensioneTotale) {
+		return Map.of("numeroAllegati", numeroAllegati, "dimensioneTotaleBytes", dimensioneTotale);
+	}
+
 	private Map<String, Object> allegatoToMap(Allegato a) {
 		Map<String, Object> map = new HashMap<>();
 		map.put(ID_ALLEGATO_KEY, a.getIdAllegato());
@@ -186,6 +692,16 @@ public class AllegatoController {
 		map.put(DIMENSIONE_KEY, a.getDimensione());
 		map.put(DIMENSIONE_MB_KEY, String.format("%.2f", a.getDimensione() / (1024.0 * 1024.0)));
 		map.put(DATA_CARICAMENTO_KEY, a.getDataCaricamento());
+		map.put(REMOTO_KEY, a.getChiaveOggetto() != null);
 		return map;
 	}
+
+	private String sqlStateViolazione(DataIntegrityViolationException e) {
+		for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+			if (causa instanceof ConstraintViolationException cve) {
+				return cve.getSQLState();
+			}
+		}
+		return null;
+	}
 }
\ No newline at end of file
@@ -1,9 +1,21 @@
 package it.unina.bugboard.controller;
 
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.InfoAllegato;
 import it.unina.bugboard.dao.IssueDAO;
+import it.unina.bugboard.dao.SchedaBoard;
 import it.unina.bugboard.dao.UtenzaDAO;
+import it.unina.bugboard.indici.IndiceDuplicati;
+import it.unina.bugboard.indici.IndiceTitoli;
+import it.unina.bugboard.indici.IstantaneaIssue;
 import it.unina.bugboard.model.*;
 import it.unina.bugboard.exception.*;
+import it.unina.bugboard.util.CursoreBoard;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,13 +30,28 @@ public class IssueController {
 
 	private static final String MESSAGE_KEY = "message";
 	private static final String ISSUE_NON_TROVATA_MSG = "Issue non trovata con id: ";
+	private static final String SQL_STATE_UNIQUE_VIOLATION = "23505";
+	private static final String SQL_STATE_FK_VIOLATION = "23503";
+	private static final int DIMENSIONE_PAGINA_MASSIMA = 100;
+	private static final int MAX_SUGGERIMENTI = 20;
+	private static final int MAX_TESTO_AUTOCOMPLETAMENTO = 100;
+	private static final String[] STATI_BOARD = Arrays.stream(Stato.values()).map(Stato::name).toArray(String[]::new);
 
 	private final IssueDAO issueDAO;
 	private final UtenzaDAO utenzaDAO;
+	private final AllegatoDAO allegatoDAO;
+	private final IndiceDuplicati indiceDuplicati;
+	private final IndiceTitoli indiceTitoli;
+	private final IstantaneaIssue istantaneaIssue;
 
-	public IssueController(IssueDAO issueDAO, UtenzaDAO utenzaDAO) {
+	public IssueController(IssueDAO issueDAO, UtenzaDAO utenzaDAO, AllegatoDAO allegatoDAO,
+			IndiceDuplicati indiceDuplicati, IndiceTitoli indiceTitoli, IstantaneaIssue istantaneaIssue) {
 		this.issueDAO = issueDAO;
 		this.utenzaDAO = utenzaDAO;
+		this.allegatoDAO = allegatoDAO;
+		this.indiceDuplicati = indiceDuplicati;
+		this.indiceTitoli = indiceTitoli;
+		this.istantaneaIssue = istantaneaIssue;
 	}
 
 	@PostMapping("/crea")
@@ -50,47 +77,85 @@ public class IssueController {
 			throw new InvalidFieldException("Il titolo è obbligatorio");
 		}
 
-		
-		issueDAO.findByTitolo(titolo).ifPresent(i -> {
-			throw new AlreadyExistsException("Esiste già un'issue con questo titolo");
-		});
-
-		
 		Priorita priorita = parsePriorita(prioritaStr);
 		Stato stato = parseStato(statoStr);
 		Tipo tipo = parseTipo(tipoStr);
 
-		
-		Utenza creatore = utenzaDAO.findById(idCreatore)
-				.orElseThrow(() -> new NotFoundException("Utente non trovato con id: " + idCreatore));
-
-		
+		// Il creatore viene agganciato per riferimento: l'esistenza è verificata dalla FK
+		Utenza creatore = utenzaDAO.getReferenceById(idCreatore);
 		Issue issue = new Issue(titolo, descrizione, priorita, stato, tipo, creatore);
-		return issueDAO.save(issue);
+
+		// Unicità del titolo garantita dall'indice univoco, non da un controllo preventivo
+		try {
+			Issue salvata = issueDAO.saveAndFlush(issue);
+			istantaneaIssue.aggiornaDopoCommit(salvata);
+			return salvata;
+		} catch (DataIntegrityViolationException e) {
+			String sqlState = sqlStateViolazione(e);
+			if (SQL_STATE_UNIQUE_VIOLATION.equals(sqlState)) {
+				throw new AlreadyExistsException("Esiste già un'issue con questo titolo");
+			}
+			if (SQL_STATE_FK_VIOLATION.equals(sqlState)) {
+				throw new NotFoundException("Utente non trovato con id: " + idCreatore);
+			}
+			throw e;
+		}
 	}
 
+	/**
+	 * Issue attive filtrate e ordinate, sempre come schede di sei campi (idIssue, titolo, stato, tipo,
+	 * priorita, dataCreazione): dall'istantanea in memoria senza interrogare il database, o dalla lista
+	 * letta dal database finché la sincronizzazione non l'ha caricata o se è disabilitata.
+	 *
+	 * Cambio incompatibile: prima la risposta erano Issue complete. Chi ne legge descrizione, creatore,
+	 * archiviatore o le altre date deve chiedere /dettaglio/{id}. Le archiviate restano Issue complete,
+	 * con archiviata=true (vedi filtraArchiviate).
+	 */
 	@GetMapping("/filtra-avanzato")
-	public List<Issue> filtraAvanzato(@RequestParam(value = "stato", required = false) String stato,
+	public List<IstantaneaIssue.Scheda> filtraAvanzato(@RequestParam(value = "stato", required = false) String stato,
+			@RequestParam(value = "priorita", required = false) String priorita,
+			@RequestParam(value = "tipo", required = false) String tipo,
+			@RequestParam(value = "ricerca", required = false) String ricerca,
+			@RequestParam(value = "ordinamento", required = false) String ordinamento) {
+
+		Stato statoEnum = stato != null && !stato.isEmpty() ? parseStato(stato) : null;
+		Priorita prioritaEnum = priorita != null && !priorita.isEmpty() ? parsePriorita(priorita) : null;
+		Tipo tipoEnum = tipo != null && !tipo.isEmpty() ? parseTipo(tipo) : null;
+
+		if (istantaneaIssue.pronta()) {
+			return istantaneaIssue.filtra(statoEnum, prioritaEnum, tipoEnum, ricerca, ordinamento);
+		}
+		return filtraDalDatabase(false, statoEnum, prioritaEnum, tipoEnum, ricerca, ordinamento).stream()
+				.map(IstantaneaIssue.Scheda::di).toList();
+	}
+
+	// Stessi filtri e ordinamenti di filtraAvanzato sulle archiviate, come Issue complete
+	@GetMapping(value = "/filtra-avanzato", params = "archiviata=true")
+	public List<Issue> filtraArchiviate(@RequestParam(value = "stato", required = false) String stato,
 			@RequestParam(value = "priorita", required = false) String priorita,
 			@RequestParam(value = "tipo", required = false) String tipo,
 			@RequestParam(value = "ricerca", required = false) String ricerca,
-			@RequestParam(value = "ordinamento", required = false) String ordinamento,
-			@RequestParam(value = "archiviata", required = false, defaultValue = "false") boolean archiviata) {
+			@RequestParam(value = "ordinamento", required = false) String ordinamento) {
+
+		return filtraDalDatabase(true, stato != null && !stato.isEmpty() ? parseStato(stato) : null,
+				priorita != null && !priorita.isEmpty() ? parsePriorita(priorita) : null,
+				tipo != null && !tipo.isEmpty() ? parseTipo(tipo) : null, ricerca, ordinamento);
+	}
 
-		List<Issue> issues = archiviata ? issueDAO.findByArchiviata(true) : issueDAO.findByArchiviataFalse();
+	private List<Issue> filtraDalDatabase(boolean archiviata, Stato statoEnum, Priorita prioritaEnum, Tipo tipoEnum,
+			String ricerca, String ordinamento) {
+		// Già ordinate per data decrescente dall'indice (archiviata, datacreazione DESC)
+		List<Issue> issues = issueDAO.findByArchiviataOrderByDataCreazioneDesc(archiviata);
 
-		if (stato != null && !stato.isEmpty()) {
-			Stato statoEnum = parseStato(stato);
+		if (statoEnum != null) {
 			issues = issues.stream().filter(i -> i.getStato() == statoEnum).collect(Collectors.toList());
 		}
 
-		if (priorita != null && !priorita.isEmpty()) {
-			Priorita prioritaEnum = parsePriorita(priorita);
+		if (prioritaEnum != null) {
 			issues = issues.stream().filter(i -> i.getPriorita() == prioritaEnum).collect(Collectors.toList());
 		}
 
-		if (tipo != null && !tipo.isEmpty()) {
-			Tipo tipoEnum = parseTipo(tipo);
+		if (tipoEnum != null) {
 			issues = issues.stream().filter(i -> i.getTipo() == tipoEnum).collect(Collectors.toList());
 		}
 
@@ -103,7 +168,6 @@ public class IssueController {
 		if (ordinamento != null && !ordinamento.isEmpty()) {
 			switch (ordinamento.toLowerCase()) {
 			case "data_recente":
-				issues.sort((a, b) -> b.getDataCreazione().compareTo(a.getDataCreazione()));
 				break;
 			case "data_vecchio":
 				issues.sort((a, b) -> a.getDataCreazione().compareTo(b.getDataCreazione()));
@@ -123,10 +187,8 @@ public class IssueController {
 						getPrioritaOrdine(a.getPriorita())));
 				break;
 			default:
-				issues.sort((a, b) -> b.getDataCreazione().compareTo(a.getDataCreazione()));
+				break;
 			}
-		} else {
-			issues.sort((a, b) -> b.getDataCreazione().compareTo(a.getDataCreazione()));
 		}
 
 		return issues;
@@ -169,6 +231,7 @@ public class IssueController {
 
 		issue.setArchiviatore(archiviatore);
 		issueDAO.save(issue);
+		istantaneaIssue.aggiornaDopoCommit(issue);
 
 		return Map.of(MESSAGE_KEY, "Issue archiviata con successo");
 	}
@@ -186,6 +249,7 @@ public class IssueController {
 		issue.setArchiviatore(null);
 
 		issueDAO.save(issue);
+		istantaneaIssue.aggiornaDopoCommit(issue);
 		return Map.of(MESSAGE_KEY, "Issue disarchiviata con successo");
 	}
 
@@ -202,7 +266,9 @@ public class IssueController {
 		Stato stato = parseStato(nuovoStato);
 		issue.setStato(stato);
 
-		return issueDAO.save(issue);
+		Issue salvata = issueDAO.save(issue);
+		istantaneaIssue.aggiornaDopoCommit(salvata);
+		return salvata;
 	}
 
 	@GetMapping("/visualizza/{id}")
@@ -216,14 +282,102 @@ public class IssueController {
 		Issue issue = issueDAO.findById(id).orElseThrow(() -> new NotFoundException(ISSUE_NON_TROVATA_MSG + id));
 
 		issueDAO.delete(issue);
+		istantaneaIssue.rimuoviDopoCommit(id);
 		return Map.of(MESSAGE_KEY, "Issue eliminata con successo");
 	}
 
+	// Tutto ciò che serve a DettagliIssue in due query: issue con creatore e archiviatore, poi i
+	// metadati degli allegati, da cui si ricavano anche numero e dimensione totale
+	@GetMapping("/dettaglio/{id}")
+	public Map<String, Object> visualizzaDettaglio(@PathVariable(value = "id") Integer id) {
+		Issue issue = issueDAO.findDettaglioById(id)
+				.orElseThrow(() -> new NotFoundException(ISSUE_NON_TROVATA_MSG + id));
+		List<InfoAllegato> allegati = allegatoDAO.findInfoByIssue(id);
+		long dimensioneTotale = allegati.stream().mapToLong(InfoAllegato::getDimensione).sum();
+
+		Map<String, Object> dettaglio = new HashMap<>();
+		dettaglio.put("issue", issue);
+		dettaglio.put("allegati", allegati.stream().map(this::infoAllegatoToMap).toList());
+		dettaglio.put("numeroAllegati", allegati.size());
+		dettaglio.put("dimensioneTotaleBytes", dimensioneTotale);
+		dettaglio.put("dimensioneTotaleMB", String.format("%.2f", dimensioneTotale / (1024.0 * 1024.0)));
+		return dettaglio;
+	}
+
 	@GetMapping("/visualizza-lista")
 	public List<Issue> visualizzaListaIssue(@RequestParam(value = "archiviata", required = false) Boolean archiviata) {
 		return archiviata != null ? issueDAO.findByArchiviata(archiviata) : issueDAO.findAll();
 	}
 
+	// Pagine della sola partizione issue_archiviate; Slice evita il COUNT dell'intero archivio
+	@GetMapping("/archiviate")
+	public Map<String, Object> visualizzaArchiviate(
+			@RequestParam(value = "pagina", required = false, defaultValue = "0") int pagina,
+			@RequestParam(value = "dimensione", required = false, defaultValue = "20") int dimensione,
+			@RequestParam(value = "ordinamento", required = false, defaultValue = "data_recente") String ordinamento) {
+		if (pagina < 0) {
+			throw new InvalidFieldException("La pagina non può essere negativa");
+		}
+		validaDimensione(dimensione);
+		Sort.Direction direzione = switch (ordinamento) {
+		case "data_recente" -> Sort.Direction.DESC;
+		case "data_vecchio" -> Sort.Direction.ASC;
+		default -> throw new InvalidFieldException("Ordinamento non valido: " + ordinamento);
+		};
+
+		Slice<Issue> risultato = issueDAO.findByArchiviataTrue(
+				PageRequest.of(pagina, dimensione, Sort.by(direzione, "dataArchiviazione", "idIssue")));
+
+		Map<String, Object> pagine = new HashMap<>();
+		pagine.put("issue", risultato.getContent());
+		pagine.put("pagina", pagina);
+		pagine.put("dimensione", dimensione);
+		pagine.put("successiva", risultato.hasNext());
+		return pagine;
+	}
+
+	// Colonne Todo, inProgress e Done con le prime schede per priorità e data, più il totale di
+	// ciascuna colonna: il client non deve più scaricare tutte le issue attive per raggrupparle
+	@GetMapping("/board")
+	public Map<String, Object> visualizzaBoard(
+			@RequestParam(value = "limite", required = false, defaultValue = "20") int limite) {
+		validaDimensione(limite);
+		Map<String, List<SchedaBoard.ConTotale>> perStato = issueDAO.findBoard(STATI_BOARD, limite).stream()
+				.collect(Collectors.groupingBy(SchedaBoard::getStato));
+
+		Map<String, Object> colonne = new LinkedHashMap<>();
+		for (String stato : STATI_BOARD) {
+			List<SchedaBoard.ConTotale> schede = perStato.getOrDefault(stato, List.of());
+			long totale = schede.isEmpty() ? 0 : schede.get(0).getTotale();
+			Map<String, Object> colonna = colonnaBoard(schede, totale > schede.size());
+			colonna.put("totale", totale);
+			colonne.put(stato, colonna);
+		}
+
+		Map<String, Object> board = new HashMap<>();
+		board.put("colonne", colonne);
+		board.put("limite", limite);
+		return board;
+	}
+
+	// "Carica altre" di una colonna: riparte dal cursore restituito dalla board o dalla pagina precedente
+	@GetMapping("/board/{stato}")
+	public Map<String, Object> caricaColonnaBoard(@PathVariable(value = "stato") String stato,
+			@RequestParam(value = "cursore") String cursore,
+			@RequestParam(value = "limite", required = false, defaultValue = "20") int limite) {
+		validaDimensione(limite);
+		Stato statoEnum = parseStato(stato);
+		CursoreBoard dopo = CursoreBoard.decodifica(cursore);
+
+		// Una scheda in più dice se dopo questa pagina ne restano altre
+		List<SchedaBoard> schede = issueDAO.findColonnaBoardDopo(statoEnum.name(), dopo.pesoPriorita(),
+				dopo.dataCreazione(), dopo.idIssue(), limite + 1);
+		boolean altre = schede.size() > limite;
+		Map<String, Object> colonna = colonnaBoard(altre ? schede.subList(0, limite) : schede, altre);
+		colonna.put("stato", statoEnum.name());
+		return colonna;
+	}
+
 	@GetMapping("/urgenti")
 	public List<Issue> trovaUrgenti() {
 		return issueDAO.findIssueUrgenti(List.of(Priorita.critical, Priorita.high));
@@ -237,6 +391,44 @@ public class IssueController {
 		return issueDAO.findByTitoloContainingIgnoreCase(titolo);
 	}
 
+	// Possibili duplicati mentre si compila CreaIssue: solo issue attive, dall'indice in memoria
+	// senza interrogare il database
+	@GetMapping("/simili")
+	public List<Map<String, Object>> trovaSimili(@RequestParam(value = "titolo") String titolo,
+			@RequestParam(value = "descrizione", required = false) String descrizione,
+			@RequestParam(value = "limite", required = false, defaultValue = "5") int limite) {
+		if (titolo == null || titolo.isBlank()) {
+			throw new InvalidFieldException("Il parametro 'titolo' è obbligatorio per la ricerca");
+		}
+		validaLimiteSuggerimenti(limite);
+		return indiceDuplicati.cerca(titolo, descrizione, limite).stream().map(simile -> {
+			Map<String, Object> map = new HashMap<>();
+			map.put("idIssue", simile.idIssue());
+			map.put("titolo", simile.titolo());
+			map.put("somiglianza", Math.round(simile.somiglianza() * 100) / 100.0);
+			return map;
+		}).toList();
+	}
+
+	// Suggerimenti mentre si scrive nella ricerca: issue attive i cui titoli hanno parole che
+	// iniziano con quelle scritte, per priorità e data, dall'indice in memoria
+	@GetMapping("/autocompleta")
+	public List<Map<String, Object>> autocompleta(@RequestParam(value = "testo") String testo,
+			@RequestParam(value = "limite", required = false, defaultValue = "8") int limite) {
+		if (testo == null || testo.isBlank() || testo.length() > MAX_TESTO_AUTOCOMPLETAMENTO) {
+			throw new InvalidFieldException("Il testo deve avere tra 1 e " + MAX_TESTO_AUTOCOMPLETAMENTO + " caratteri");
+		}
+		validaLimiteSuggerimenti(limite);
+		return indiceTitoli.suggerisci(testo, limite).stream().map(suggerimento -> {
+			Map<String, Object> map = new HashMap<>();
+			map.put("idIssue", suggerimento.idIssue());
+			map.put("titolo", suggerimento.titolo());
+			map.put("priorita", suggerimento.priorita());
+			map.put("dataCreazione", suggerimento.dataCreazione());
+			return map;
+		}).toList();
+	}
+
 	@GetMapping("/statistiche")
 	public Map<String, Object> visualizzaStatistiche() {
 		Map<String, Object> stats = new HashMap<>();
@@ -248,6 +440,58 @@ public class IssueController {
 		return stats;
 	}
 
+	private void validaLimiteSuggerimenti(int limite) {
+		if (limite < 1 || limite > MAX_SUGGERIMENTI) {
+			throw new InvalidFieldException("Il limite deve essere tra 1 e " + MAX_SUGGERIMENTI);
+		}
+	}
+
+	private void validaDimensione(int dimensione) {
+		if (dimensione < 1 || dimensione > DIMENSIONE_PAGINA_MASSIMA) {
+			throw new InvalidFieldException("La dimensione della pagina deve essere tra 1 e " + DIMENSIONE_PAGINA_MASSIMA);
+		}
+	}
+
+	private Map<String, Object> colonnaBoard(List<? extends SchedaBoard> schede, boolean altre) {
+		Map<String, Object> colonna = new HashMap<>();
+		colonna.put("issue", schede.stream().map(this::schedaToMap).toList());
+		colonna.put("cursore", altre ? CursoreBoard.dopo(schede.get(schede.size() - 1)).codifica() : null);
+		return colonna;
+	}
+
+	private Map<String, Object> schedaToMap(SchedaBoard scheda) {
+		Map<String, Object> map = new HashMap<>();
+		map.put("idIssue", scheda.getIdIssue());
+		map.put("titolo", scheda.getTitolo());
+		map.put("stato", scheda.getStato());
+		map.put("tipo", scheda.getTipo());
+		map.put("priorita", scheda.getPriorita());
+		map.put("dataCreazione", scheda.getDataCreazione());
+		return map;
+	}
+
+	// Stesse chiavi di AllegatoController, così AttachmentsViewer legge entrambe le risposte
+	private Map<String, Object> infoAllegatoToMap(InfoAllegato a) {
+		Map<String, Object> map = new HashMap<>();
+		map.put("idAllegato", a.getIdAllegato());
+		map.put("nomeFile", a.getNomeFile());
+		map.put("tipoFile", a.getTipoFile());
+		map.put("dimensione", a.getDimensione());
+		map.put("dimensioneMB", String.format("%.2f", a.getDimensione() / (1024.0 * 1024.0)));
+		map.put("dataCaricamento", a.getDataCaricamento());
+		map.put("remoto", a.getChiaveOggetto() != null);
+		return map;
+	}
+
+	private String sqlStateViolazione(DataIntegrityViolationException e) {
+		for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+			if (causa instanceof ConstraintViolationException cve) {
+				return cve.getSQLState();
+			}
+		}
+		return null;
+	}
+
 	private int getPrioritaOrdine(Priorita priorita) {
 		return switch (priorita) {
 		case critical -> 0;
@@ -258,7 +502,7 @@ public class IssueController {
 		};
 	}
 
-	private Priorita parsePriorita(String value) {
+	Priorita parsePriorita(String value) {
 		if (value == null || value.isBlank()) {
 			return Priorita.none;
 		}
@@ -273,7 +517,7 @@ public class IssueController {
 		};
 	}
 
-	private Stato parseStato(String value) {
+	Stato parseStato(String value) {
 		if (value == null || value.isBlank()) {
 			throw new InvalidFieldException("Stato non può essere vuoto");
 		}
@@ -286,7 +530,7 @@ public class IssueController {
 		};
 	}
 
-	private Tipo parseTipo(String value) {
+	Tipo parseTipo(String value) {
 		if (value == null || value.isBlank()) {
 			throw new InvalidFieldException("Tipo non può essere vuoto");
 		}
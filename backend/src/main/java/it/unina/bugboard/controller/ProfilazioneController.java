@@ -0,0 +1,78 @@
+package it.unina.bugboard.controller;
+
+import it.unina.bugboard.exception.UnauthorizedException;
+import it.unina.bugboard.jfr.RegistrazioneJfr;
+import it.unina.bugboard.model.Ruolo;
+import it.unina.bugboard.model.Utenza;
+import it.unina.bugboard.util.AccessTokenUtil;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/jfr")
+public class ProfilazioneController {
+
+	private static final String BEARER_PREFIX = "Bearer ";
+
+	private final RegistrazioneJfr registrazioneJfr;
+	private final AccessTokenUtil accessTokenUtil;
+
+	public ProfilazioneController(RegistrazioneJfr registrazioneJfr, AccessTokenUtil accessTokenUtil) {
+		this.registrazioneJfr = registrazioneJfr;
+		this.accessTokenUtil = accessTokenUtil;
+	}
+
+	@GetMapping("/stato")
+	public Map<String, Object> stato(@RequestHeader("Authorization") String token) {
+		verificaAmministratore(token);
+		return registrazioneJfr.stato();
+	}
+
+	@PostMapping("/avvia")
+	public Map<String, Object> avvia(@RequestHeader("Authorization") String token,
+			@RequestParam(value = "etaMassimaMinuti", required = false) Long etaMassimaMinuti,
+			@RequestParam(value = "dimensioneMassimaMB", required = false) Long dimensioneMassimaMB) {
+		verificaAmministratore(token);
+		return registrazioneJfr.avvia(etaMassimaMinuti, dimensioneMassimaMB);
+	}
+
+	@PostMapping("/ferma")
+	public Map<String, Object> ferma(@RequestHeader("Authorization") String token) {
+		verificaAmministratore(token);
+		return registrazioneJfr.ferma();
+	}
+
+	@GetMapping("/dump")
+	public ResponseEntity<InputStreamResource> dump(@RequestHeader("Authorization") String token) throws IOException {
+		verificaAmministratore(token);
+		Path file = registrazioneJfr.dump();
+		long dimensione = Files.size(file);
+
+		// Il file temporaneo viene cancellato alla chiusura dello stream di risposta
+		InputStreamResource resource = new InputStreamResource(
+				Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE));
+
+		return ResponseEntity.ok()
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+				.contentType(MediaType.APPLICATION_OCTET_STREAM).contentLength(dimensione).body(resource);
+	}
+
+	private void verificaAmministratore(String token) {
+		Utenza utente = accessTokenUtil.verificaToken(token.replace(BEARER_PREFIX, ""));
+		if (Boolean.FALSE.equals(utente.getStato())) {
+			throw new UnauthorizedException("Account disattivato. Non puoi eseguire questa operazione");
+		}
+		if (!utente.getRuolo().equals(Ruolo.Amministratore)) {
+			throw new UnauthorizedException("Solo gli amministratori possono eseguire questa operazione");
+		}
+	}
+}
@@ -2,20 +2,210 @@ package it.unina.bugboard.dao;
 
 import it.unina.bugboard.model.Allegato;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface AllegatoDAO extends JpaRepository<Allegato, Integer> {
+public interface AllegatoDAO extends JpaRepository<Allegato, Integer>, AllegatoDAOCustom {
     
     List<Allegato> findByIssueIdIssue(Integer idIssue);
     
     @Query("SELECT a FROM Allegato a WHERE a.issue.idIssue = :idIssue ORDER BY a.dimensione DESC")
     List<Allegato> findAllegatiByIssueOrderByDimensioneDesc(Integer idIssue);
     
-    @Query("SELECT SUM(a.dimensione) FROM Allegato a WHERE a.issue.idIssue = :idIssue")
-    Long sumDimensioniByIssue(Integer idIssue);
-    
-    long countByIssueIdIssue(Integer idIssue);
+
+    @Query("SELECT a.idAllegato AS idAllegato, a.nomeFile AS nomeFile, a.tipoFile AS tipoFile, "
+            + "a.dimensione AS dimensione, a.dataCaricamento AS dataCaricamento, a.chiaveOggetto AS chiaveOggetto "
+            + "FROM Allegato a WHERE a.issue.idIssue = :idIssue ORDER BY a.idAllegato")
+    List<InfoAllegato> findInfoByIssue(@Param("idIssue") Integer idIssue);
+
+    @Query("SELECT a.idAllegato AS idAllegato, a.nomeFile AS nomeFile, a.tipoFile AS tipoFile, "
+            + "a.dimensione AS dimensione, a.dataCaricamento AS dataCaricamento, a.chiaveOggetto AS chiaveOggetto "
+            + "FROM Allegato a WHERE a.idAllegato = :idAllegato")
+    Optional<InfoAllegato> findInfoById(@Param("idAllegato") Integer idAllegato);
+
+    @Query("SELECT a.fileData FROM Allegato a WHERE a.idAllegato = :idAllegato")
+    byte[] findFileDataById(@Param("idAllegato") Integer idAllegato);
+
+    // Un solo parametro array invece di IN (?, ?, ...): lo stesso statement per ogni numero di issue.
+    // Legge i contatori di occupazione_allegati invece di aggregare gli allegati
+    @Query(value = "SELECT id AS \"idIssue\", numero AS \"numeroAllegati\", dimensione AS \"dimensioneTotale\" "
+            + "FROM occupazione_allegati WHERE ambito = 'issue' AND id = ANY (CAST(:idIssue AS integer[]))",
+            nativeQuery = true)
+    List<RiepilogoAllegati> riepilogoByIssue(@Param("idIssue") Integer[] idIssue);
+
+    // Contatori mantenuti dal trigger tr_allegato_occupazione_* (vedi QuoteAllegati). Le coppie
+    // (ambito, id) arrivano come due array paralleli
+    @Query(value = "SELECT o.ambito AS \"ambito\", o.id AS \"id\", o.numero AS \"numero\", o.dimensione AS \"dimensione\" "
+            + "FROM unnest(CAST(:ambiti AS varchar[]), CAST(:id AS integer[])) AS k(ambito, id) "
+            + "JOIN occupazione_allegati o ON o.ambito = k.ambito AND o.id = k.id", nativeQuery = true)
+    List<Occupazione> findOccupazioni(@Param("ambiti") String[] ambiti, @Param("id") Integer[] id);
+
+    @Modifying
+    @Query(value = "INSERT INTO occupazione_allegati (ambito, id) "
+            + "SELECT * FROM unnest(CAST(:ambiti AS varchar[]), CAST(:id AS integer[])) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int creaOccupazioni(@Param("ambiti") String[] ambiti, @Param("id") Integer[] id);
+
+    // Stesso ordine di aggiornamento del trigger
+    @Query(value = "SELECT o.ambito AS \"ambito\", o.id AS \"id\", o.numero AS \"numero\", o.dimensione AS \"dimensione\" "
+            + "FROM unnest(CAST(:ambiti AS varchar[]), CAST(:id AS integer[])) AS k(ambito, id) "
+            + "JOIN occupazione_allegati o ON o.ambito = k.ambito AND o.id = k.id "
+            + "ORDER BY o.ambito, o.id FOR UPDATE OF o", nativeQuery = true)
+    List<Occupazione> bloccaOccupazioni(@Param("ambiti") String[] ambiti, @Param("id") Integer[] id);
+
+    // Riconciliazione a intervalli di id (vedi RiconciliazioneOccupazione): i contatori
+    // dell'intervallo vengono bloccati prima, così il ricalcolo vede tutti gli insert già contati
+    @Query(value = "SELECT ambito AS \"ambito\", id AS \"id\", numero AS \"numero\", dimensione AS \"dimensione\" "
+            + "FROM occupazione_allegati WHERE ambito = :ambito AND id BETWEEN :da AND :a "
+            + "ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Occupazione> bloccaOccupazioniIntervallo(@Param("ambito") String ambito, @Param("da") int da,
+            @Param("a") int a);
+
+    @Modifying
+    @Query(value = "INSERT INTO occupazione_allegati AS o (ambito, id, numero, dimensione) "
+            + "SELECT 'issue', c.id, count(a.idallegato), coalesce(sum(a.dimensione), 0) "
+            + "FROM (SELECT idissue AS id FROM allegato WHERE idissue BETWEEN :da AND :a "
+            + "UNION SELECT id FROM occupazione_allegati WHERE ambito = 'issue' AND id BETWEEN :da AND :a) c "
+            + "LEFT JOIN allegato a ON a.idissue = c.id GROUP BY c.id "
+            + "ON CONFLICT (ambito, id) DO UPDATE SET numero = EXCLUDED.numero, dimensione = EXCLUDED.dimensione "
+            + "WHERE (o.numero, o.dimensione) IS DISTINCT FROM (EXCLUDED.numero, EXCLUDED.dimensione)",
+            nativeQuery = true)
+    int riconciliaOccupazioneIssue(@Param("da") int da, @Param("a") int a);
+
+    @Modifying
+    @Query(value = "INSERT INTO occupazione_allegati AS o (ambito, id, numero, dimensione) "
+            + "SELECT 'utente', c.id, count(a.idallegato), coalesce(sum(a.dimensione), 0) "
+            + "FROM (SELECT idcaricatore AS id FROM allegato WHERE idcaricatore BETWEEN :da AND :a "
+            + "UNION SELECT id FROM occupazione_allegati WHERE ambito = 'utente' AND id BETWEEN :da AND :a) c "
+            + "LEFT JOIN allegato a ON a.idcaricatore = c.id GROUP BY c.id "
+            + "ON CONFLICT (ambito, id) DO UPDATE SET numero = EXCLUDED.numero, dimensione = EXCLUDED.dimensione "
+            + "WHERE (o.numero, o.dimensione) IS DISTINCT FROM (EXCLUDED.numero, EXCLUDED.dimensione)",
+            nativeQuery = true)
+    int riconciliaOccupazioneUtenti(@Param("da") int da, @Param("a") int a);
+
+    // Il totale globale è la somma dei contatori delle issue, già riconciliati
+    @Modifying
+    @Query(value = "INSERT INTO occupazione_allegati AS o (ambito, id, numero, dimensione) "
+            + "SELECT 'globale', 0, coalesce(sum(numero), 0), coalesce(sum(dimensione), 0) "
+            + "FROM occupazione_allegati WHERE ambito = 'issue' "
+            + "ON CONFLICT (ambito, id) DO UPDATE SET numero = EXCLUDED.numero, dimensione = EXCLUDED.dimensione "
+            + "WHERE (o.numero, o.dimensione) IS DISTINCT FROM (EXCLUDED.numero, EXCLUDED.dimensione)",
+            nativeQuery = true)
+    int riconciliaOccupazioneGlobale();
+
+    // Id più alto con allegati o con un contatore, per l'ultimo intervallo da riconciliare
+    @Query(value = "SELECT greatest((SELECT max(idissue) FROM allegato), "
+            + "(SELECT max(id) FROM occupazione_allegati WHERE ambito = 'issue'))", nativeQuery = true)
+    Integer findMaxIdIssueConAllegati();
+
+    @Query(value = "SELECT greatest((SELECT max(idcaricatore) FROM allegato WHERE idcaricatore IS NOT NULL), "
+            + "(SELECT max(id) FROM occupazione_allegati WHERE ambito = 'utente'))", nativeQuery = true)
+    Integer findMaxIdCaricatore();
+
+    // Porzione di filedata a partire da :inizio (base 1): il driver materializza tutto il bytea
+    // letto, così l'archivio ZIP tiene in memoria una porzione alla volta e non il file intero.
+    // Non read-only, quindi sempre sul primario: ZIP ed estrazione leggono fuori da una richiesta, dove
+    // FinestraLetturaScrittura non vede il client, e repliche diverse con ritardi diversi potrebbero
+    // restituire porzioni di versioni diverse o nessuna riga. Con filedata EXTERNAL (V13) ogni porzione
+    // legge solo i chunk TOAST che le servono
+    @Transactional
+    @Query(value = "SELECT substring(filedata FROM :inizio FOR :lunghezza) FROM allegato WHERE idallegato = :idAllegato",
+            nativeQuery = true)
+    byte[] leggiPorzione(@Param("idAllegato") Integer idAllegato, @Param("inizio") int inizio,
+            @Param("lunghezza") int lunghezza);
+
+    // Coda riempita dal trigger tr_allegato_oggetto_eliminato (vedi EliminazioneOggetti)
+    @Query(value = "SELECT chiave FROM oggetto_da_eliminare LIMIT :lotto", nativeQuery = true)
+    List<String> findOggettiDaEliminare(@Param("lotto") int lotto);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM oggetto_da_eliminare WHERE chiave = ANY (CAST(:chiavi AS varchar[]))", nativeQuery = true)
+    int rimuoviOggettiEliminati(@Param("chiavi") String[] chiavi);
+
+    // Caricamenti su object storage in attesa di conferma (vedi EliminazioneOggetti)
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO oggetto_in_caricamento (chiave, scadenza) "
+            + "VALUES (:chiave, now() + make_interval(secs => :secondi))", nativeQuery = true)
+    int registraOggettoInCaricamento(@Param("chiave") String chiave, @Param("secondi") long secondi);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM oggetto_in_caricamento WHERE chiave = :chiave", nativeQuery = true)
+    int rimuoviOggettoInCaricamento(@Param("chiave") String chiave);
+
+    // Le chiavi scadute passano nella coda di eliminazione con una sola istruzione: una conferma
+    // concorrente trova la riga già eliminata e fallisce
+    @Transactional
+    @Modifying
+    @Query(value = "WITH scadute AS (DELETE FROM oggetto_in_caricamento WHERE chiave IN "
+            + "(SELECT chiave FROM oggetto_in_caricamento WHERE scadenza < now() LIMIT :lotto FOR UPDATE SKIP LOCKED) "
+            + "RETURNING chiave) "
+            + "INSERT INTO oggetto_da_eliminare (chiave) SELECT chiave FROM scadute ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int accodaCaricamentiScaduti(@Param("lotto") int lotto);
+
+    // Coda di estrazione del testo riempita dal trigger tr_allegato_estrazione_testo (vedi
+    // EstrazioneTesto). La prenotazione sposta disponibile_da oltre la durata di un'estrazione:
+    // se l'istanza si ferma a metà, la riga torna disponibile da sola. SKIP LOCKED divide il
+    // lavoro tra più istanze
+    @Transactional
+    @Query(value = "WITH prenotati AS (SELECT idallegato FROM testo_allegato "
+            + "WHERE stato = 'da_estrarre' AND disponibile_da <= now() "
+            + "ORDER BY disponibile_da LIMIT :lotto FOR UPDATE SKIP LOCKED) "
+            + "UPDATE testo_allegato t SET tentativi = t.tentativi + 1, "
+            + "disponibile_da = now() + make_interval(secs => :prenotazioneSecondi) "
+            + "FROM prenotati p WHERE t.idallegato = p.idallegato RETURNING t.idallegato", nativeQuery = true)
+    List<Integer> prenotaEstrazioni(@Param("lotto") int lotto, @Param("prenotazioneSecondi") long prenotazioneSecondi);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE testo_allegato SET stato = 'estratto', testo = :testo, troncato = :troncato, "
+            + "errore = NULL WHERE idallegato = :idAllegato", nativeQuery = true)
+    int salvaTestoEstratto(@Param("idAllegato") Integer idAllegato, @Param("testo") String testo,
+            @Param("troncato") boolean troncato);
+
+    // Nuovo tentativo dopo :ritardoSecondi per ogni tentativo già fatto, fino a :tentativiMassimi
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE testo_allegato SET errore = left(:errore, 500), "
+            + "stato = CASE WHEN tentativi >= :tentativiMassimi THEN 'fallito' ELSE 'da_estrarre' END, "
+            + "disponibile_da = now() + make_interval(secs => :ritardoSecondi * tentativi) "
+            + "WHERE idallegato = :idAllegato", nativeQuery = true)
+    int registraErroreEstrazione(@Param("idAllegato") Integer idAllegato, @Param("errore") String errore,
+            @Param("tentativiMassimi") int tentativiMassimi, @Param("ritardoSecondi") long ritardoSecondi);
+
+    // Prima i :limite allegati più rilevanti, poi estratti e issue solo per quelli: ts_headline
+    // rilegge il testo, quindi non va calcolato su tutte le corrispondenze
+    @Query(value = "SELECT a.idissue AS \"idIssue\", i.titolo AS \"titolo\", i.stato AS \"stato\", "
+            + "a.idallegato AS \"idAllegato\", a.nomefile AS \"nomeFile\", "
+            + "ts_headline('simple', t.testo, q.query, 'MaxFragments=2, MinWords=5, MaxWords=20, "
+            + "FragmentDelimiter=\" … \"') AS \"estratto\", r.rilevanza AS \"rilevanza\" "
+            + "FROM websearch_to_tsquery('simple', :testo) AS q(query) "
+            + "CROSS JOIN LATERAL (SELECT idallegato, CAST(ts_rank_cd(documento, q.query) AS double precision) AS rilevanza "
+            + "FROM testo_allegato WHERE documento @@ q.query "
+            + "ORDER BY rilevanza DESC, idallegato LIMIT :limite) r "
+            + "JOIN testo_allegato t ON t.idallegato = r.idallegato "
+            + "JOIN allegato a ON a.idallegato = r.idallegato "
+            + "JOIN issue i ON i.idissue = a.idissue "
+            + "ORDER BY r.rilevanza DESC, r.idallegato", nativeQuery = true)
+    List<RisultatoRicercaAllegati> cercaNelTesto(@Param("testo") String testo, @Param("limite") int limite);
+
+    // Allegati delle issue archiviate oltre la conservazione, a lotti (vedi ArchiviazioneAutomatica).
+    // Il LATERAL cerca gli allegati issue per issue sull'indice di idissue
+    @Modifying
+    @Query(value = "DELETE FROM allegato WHERE idallegato = ANY (ARRAY("
+            + "SELECT a.idallegato FROM issue i CROSS JOIN LATERAL ("
+            + "SELECT idallegato FROM allegato WHERE idissue = i.idissue LIMIT :lotto FOR UPDATE SKIP LOCKED) a "
+            + "WHERE i.archiviata = true AND i.dataarchiviazione < :soglia LIMIT :lotto))", nativeQuery = true)
+    int eliminaAllegatiArchiviatePrima(@Param("soglia") LocalDateTime soglia, @Param("lotto") int lotto);
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package it.unina.bugboard.dao;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public interface AllegatoDAOCustom {
+
+    /**
+     * Inserisce un allegato leggendo filedata da un file, senza caricarlo in memoria.
+     * Restituisce l'id generato.
+     */
+    Integer inserisciDaFile(String nomeFile, String tipoFile, long dimensione, Path file, Integer idIssue,
+            Integer idCaricatore);
+
+    /**
+     * Inserisce gli allegati di un'issue con un solo batch JDBC, in un'unica transazione.
+     * Restituisce gli id generati nello stesso ordine. idCaricatore può essere null.
+     */
+    List<Integer> inserisciTutti(Integer idIssue, Integer idCaricatore, List<NuovoAllegato> allegati);
+}
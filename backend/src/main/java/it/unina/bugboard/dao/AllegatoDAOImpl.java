@@ -0,0 +1,89 @@
+package it.unina.bugboard.dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Con un byte[] l'entità Allegato terrebbe in memoria il file intero; setBinaryStream con la
+// lunghezza nota fa inviare al driver il contenuto direttamente nel messaggio di Bind.
+// Con gli id IDENTITY Hibernate non raggruppa gli insert, qui invece si usa un solo batch
+public class AllegatoDAOImpl implements AllegatoDAOCustom {
+
+    private static final String INSERT = "INSERT INTO allegato (nomefile, tipofile, dimensione, filedata, "
+            + "datacaricamento, idissue, idcaricatore) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public Integer inserisciDaFile(String nomeFile, String tipoFile, long dimensione, Path file, Integer idIssue,
+            Integer idCaricatore) {
+        NuovoAllegato allegato = new NuovoAllegato(nomeFile, tipoFile, dimensione, new FileSystemResource(file));
+        return inserisciTutti(idIssue, idCaricatore, List.of(allegato)).get(0);
+    }
+
+    @Override
+    @Transactional
+    public List<Integer> inserisciTutti(Integer idIssue, Integer idCaricatore, List<NuovoAllegato> allegati) {
+        if (allegati.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.unwrap(Session.class)
+                .doReturningWork(connection -> inserisci(connection, idIssue, idCaricatore, allegati));
+    }
+
+    private List<Integer> inserisci(Connection connection, Integer idIssue, Integer idCaricatore,
+            List<NuovoAllegato> allegati) throws SQLException {
+        List<InputStream> aperti = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(INSERT, new String[] { "idallegato" })) {
+            LocalDate oggi = LocalDate.now();
+            for (NuovoAllegato allegato : allegati) {
+                InputStream dati = allegato.dati().getInputStream();
+                aperti.add(dati);
+                ps.setString(1, allegato.nomeFile());
+                ps.setString(2, allegato.tipoFile());
+                ps.setInt(3, Math.toIntExact(allegato.dimensione()));
+                ps.setBinaryStream(4, dati, allegato.dimensione());
+                ps.setObject(5, oggi);
+                ps.setInt(6, idIssue);
+                ps.setObject(7, idCaricatore, Types.INTEGER);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+
+            List<Integer> id = new ArrayList<>(allegati.size());
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                while (rs.next()) {
+                    id.add(rs.getInt(1));
+                }
+            }
+            return id;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (InputStream dati : aperti) {
+                try {
+                    dati.close();
+                } catch (IOException e) {
+                    // solo lettura: nulla da recuperare
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package it.unina.bugboard.dao;
+
+import java.time.LocalDate;
+
+// Metadati di un allegato senza filedata: senza bytecode enhancement il LAZY sui byte non ha effetto
+public interface InfoAllegato {
+
+	Integer getIdAllegato();
+
+	String getNomeFile();
+
+	String getTipoFile();
+
+	Integer getDimensione();
+
+	LocalDate getDataCaricamento();
+
+	// null se il contenuto è in filedata
+	String getChiaveOggetto();
+}
@@ -5,12 +5,17 @@ import it.unina.bugboard.model.Stato;
 import it.unina.bugboard.model.Priorita;
 import it.unina.bugboard.model.Tipo;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +34,10 @@ public interface IssueDAO extends JpaRepository<Issue, Integer> {
 
 	List<Issue> findByArchiviataFalse();
 
+	List<Issue> findByArchiviataOrderByDataCreazioneDesc(Boolean archiviata);
+
+	Slice<Issue> findByArchiviataTrue(Pageable pageable);
+
 	List<Issue> findByStatoAndPriorita(Stato stato, Priorita priorita);
 
 	Long countByStato(Stato stato);
@@ -37,7 +46,75 @@ public interface IssueDAO extends JpaRepository<Issue, Integer> {
 
 	List<Issue> findByTitoloContainingIgnoreCase(String titolo);
 
+	@Query("SELECT i FROM Issue i LEFT JOIN FETCH i.creatore LEFT JOIN FETCH i.archiviatore WHERE i.idIssue = :id")
+	Optional<Issue> findDettaglioById(@Param("id") Integer id);
+
 	@Query("SELECT i FROM Issue i WHERE i.priorita IN :priorita AND i.archiviata = false")
 	List<Issue> findIssueUrgenti(@Param("priorita") List<Priorita> priorita);
 
+	// Prime :limite schede di ogni stato e totale per colonna in una sola query: ogni colonna legge
+	// solo le sue prime righe da ix_issue_attive_board, invece di ordinare tutta la partizione attiva
+	@Query(value = "SELECT t.idissue AS \"idIssue\", t.titolo AS \"titolo\", s.stato AS \"stato\", t.tipo AS \"tipo\", "
+			+ "t.priorita AS \"priorita\", t.datacreazione AS \"dataCreazione\", t.peso_priorita AS \"pesoPriorita\", "
+			+ "c.totale AS \"totale\" FROM unnest(CAST(:stati AS varchar[])) AS s(stato) "
+			+ "CROSS JOIN LATERAL (SELECT count(*) AS totale FROM issue WHERE archiviata = false AND stato = s.stato) c "
+			+ "CROSS JOIN LATERAL (SELECT i.idissue, i.titolo, i.tipo, i.priorita, i.datacreazione, i.peso_priorita "
+			+ "FROM issue i WHERE i.archiviata = false AND i.stato = s.stato "
+			+ "ORDER BY i.peso_priorita DESC, i.datacreazione DESC, i.idissue DESC LIMIT :limite) t", nativeQuery = true)
+	List<SchedaBoard.ConTotale> findBoard(@Param("stati") String[] stati, @Param("limite") int limite);
+
+	@Query(value = "SELECT i.idissue AS \"idIssue\", i.titolo AS \"titolo\", i.stato AS \"stato\", i.tipo AS \"tipo\", "
+			+ "i.priorita AS \"priorita\", i.datacreazione AS \"dataCreazione\", i.peso_priorita AS \"pesoPriorita\" "
+			+ "FROM issue i WHERE i.archiviata = false AND i.stato = :stato "
+			+ "AND (i.peso_priorita, i.datacreazione, i.idissue) < (:peso, :dataCreazione, :idIssue) "
+			+ "ORDER BY i.peso_priorita DESC, i.datacreazione DESC, i.idissue DESC LIMIT :limite", nativeQuery = true)
+	List<SchedaBoard> findColonnaBoardDopo(@Param("stato") String stato, @Param("peso") int peso,
+			@Param("dataCreazione") LocalDateTime dataCreazione, @Param("idIssue") int idIssue,
+			@Param("limite") int limite);
+
+	// Lotti per ArchiviazioneAutomatica. ARRAY(...) diventa un InitPlan: le righe da modificare si
+	// raggiungono per chiave anche con il piano generico. SKIP LOCKED salta quelle in modifica
+	@Modifying
+	@Query(value = "UPDATE issue SET archiviata = true, dataarchiviazione = :ora "
+			+ "WHERE archiviata = false AND idissue = ANY (ARRAY("
+			+ "SELECT idissue FROM issue WHERE archiviata = false AND stato = 'Done' AND datachiusura < :soglia "
+			+ "ORDER BY datachiusura LIMIT :lotto FOR UPDATE SKIP LOCKED))", nativeQuery = true)
+	int archiviaDoneChiusePrima(@Param("soglia") LocalDateTime soglia, @Param("ora") LocalDateTime ora,
+			@Param("lotto") int lotto);
+
+	// Gli allegati sono già stati eliminati a lotti più piccoli; la cascata raccoglie solo quelli
+	// caricati nel frattempo
+	@Modifying
+	@Query(value = "DELETE FROM issue WHERE archiviata = true AND idissue = ANY (ARRAY("
+			+ "SELECT idissue FROM issue WHERE archiviata = true AND dataarchiviazione < :soglia "
+			+ "LIMIT :lotto FOR UPDATE SKIP LOCKED))", nativeQuery = true)
+	int eliminaArchiviatePrima(@Param("soglia") LocalDateTime soglia, @Param("lotto") int lotto);
+
+	// Caricamento degli indici in memoria a lotti per chiave, dalla sola partizione attiva
+	@Query(value = "SELECT i.idissue AS \"idIssue\", i.titolo AS \"titolo\", left(i.descrizione, :caratteri) AS \"descrizione\", "
+			+ "i.stato AS \"stato\", i.tipo AS \"tipo\", i.priorita AS \"priorita\", i.peso_priorita AS \"pesoPriorita\", "
+			+ "i.datacreazione AS \"dataCreazione\" FROM issue i "
+			+ "WHERE i.archiviata = false AND i.idissue > :dopo ORDER BY i.idissue LIMIT :lotto",
+			nativeQuery = true)
+	List<TestoIssue> findTestiAttiviDopo(@Param("dopo") int dopo, @Param("caratteri") int caratteri,
+			@Param("lotto") int lotto);
+
+	// Stato attuale delle issue in modifica_issue da :da: titolo NULL se archiviata o eliminata,
+	// idIssue NULL per un TRUNCATE
+	@Query(value = "SELECT m.idissue AS \"idIssue\", i.titolo AS \"titolo\", left(i.descrizione, :caratteri) AS \"descrizione\", "
+			+ "i.stato AS \"stato\", i.tipo AS \"tipo\", i.priorita AS \"priorita\", i.peso_priorita AS \"pesoPriorita\", "
+			+ "i.datacreazione AS \"dataCreazione\", m.datamodifica AS \"dataModifica\" "
+			+ "FROM (SELECT idissue, max(datamodifica) AS datamodifica FROM modifica_issue "
+			+ "WHERE datamodifica >= :da GROUP BY idissue) m "
+			+ "LEFT JOIN issue i ON i.archiviata = false AND i.idissue = m.idissue", nativeQuery = true)
+	List<TestoIssue.Modificato> findModificheDal(@Param("da") LocalDateTime da, @Param("caratteri") int caratteri);
+
+	@Query(value = "SELECT localtimestamp", nativeQuery = true)
+	LocalDateTime oraDatabase();
+
+	@Transactional
+	@Modifying
+	@Query(value = "DELETE FROM modifica_issue WHERE datamodifica < :soglia", nativeQuery = true)
+	int eliminaModifichePrima(@Param("soglia") LocalDateTime soglia);
+
 }
@@ -0,0 +1,10 @@
+package it.unina.bugboard.dao;
+
+import org.springframework.core.io.InputStreamSource;
+
+/**
+ * Allegato da inserire con {@link AllegatoDAOCustom#inserisciTutti}: il contenuto è letto da
+ * dati al momento dell'inserimento (parte multipart, file temporaneo...).
+ */
+public record NuovoAllegato(String nomeFile, String tipoFile, long dimensione, InputStreamSource dati) {
+}
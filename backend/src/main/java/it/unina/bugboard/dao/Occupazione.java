@@ -0,0 +1,13 @@
+package it.unina.bugboard.dao;
+
+// Contatore di occupazione_allegati: ambito 'globale' (id 0), 'issue' o 'utente'
+public interface Occupazione {
+
+	String getAmbito();
+
+	Integer getId();
+
+	Long getNumero();
+
+	Long getDimensione();
+}
@@ -0,0 +1,11 @@
+package it.unina.bugboard.dao;
+
+// Numero e dimensione totale degli allegati di una issue, per gli indicatori delle liste
+public interface RiepilogoAllegati {
+
+	Integer getIdIssue();
+
+	Long getNumeroAllegati();
+
+	Long getDimensioneTotale();
+}
@@ -0,0 +1,19 @@
+package it.unina.bugboard.dao;
+
+// Allegato il cui testo corrisponde a una ricerca, con la sua issue e un estratto evidenziato
+public interface RisultatoRicercaAllegati {
+
+	Integer getIdIssue();
+
+	String getTitolo();
+
+	String getStato();
+
+	Integer getIdAllegato();
+
+	String getNomeFile();
+
+	String getEstratto();
+
+	Double getRilevanza();
+}
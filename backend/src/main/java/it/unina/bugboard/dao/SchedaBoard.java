@@ -0,0 +1,26 @@
+package it.unina.bugboard.dao;
+
+import java.time.LocalDateTime;
+
+// Proiezione delle query della board: solo i campi mostrati nelle schede, senza descrizione né relazioni
+public interface SchedaBoard {
+
+	Integer getIdIssue();
+
+	String getTitolo();
+
+	String getStato();
+
+	String getTipo();
+
+	String getPriorita();
+
+	LocalDateTime getDataCreazione();
+
+	Integer getPesoPriorita();
+
+	interface ConTotale extends SchedaBoard {
+
+		Long getTotale();
+	}
+}
@@ -0,0 +1,29 @@
+package it.unina.bugboard.dao;
+
+import java.time.LocalDateTime;
+
+// Proiezione per gli indici in memoria: titolo, inizio della descrizione, classificazione e
+// ordinamento di un'issue attiva
+public interface TestoIssue {
+
+	Integer getIdIssue();
+
+	String getTitolo();
+
+	String getDescrizione();
+
+	String getStato();
+
+	String getTipo();
+
+	String getPriorita();
+
+	Integer getPesoPriorita();
+
+	LocalDateTime getDataCreazione();
+
+	interface Modificato extends TestoIssue {
+
+		LocalDateTime getDataModifica();
+	}
+}
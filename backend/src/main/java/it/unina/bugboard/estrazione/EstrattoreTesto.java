@@ -0,0 +1,314 @@
+package it.unina.bugboard.estrazione;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Testo di un PDF o di un DOCX, entro limiti di caratteri, di pagine e di tempo: superato un
+ * limite l'estrazione si ferma e restituisce il testo raccolto fino a quel punto, segnato come
+ * troncato. Nessun documento passa per intero in memoria:
+ * - il PDF va in un file temporaneo, perché PDFBox vuole accesso casuale, e anche gli stream
+ *   decodificati restano su disco;
+ * - il DOCX è uno ZIP letto in sequenza, e word/document.xml è letto con StAX senza DTD.
+ * Un file che non è un PDF o un DOCX valido dà {@link DocumentoNonValido}: riprovare non serve.
+ *
+ * La scadenza si controlla solo tra una pagina e l'altra e durante la scrittura del testo, quindi
+ * non ferma il parsing di un PDF o una singola pagina patologica. Per questo l'estrazione gira su
+ * un thread suo: se non torna entro una volta e mezza la durata massima viene interrotta e si lancia
+ * {@link EstrazioneScaduta}. PDFBox ignora l'interruzione, quindi il thread può continuare a
+ * lavorare: chi chiama deve considerarlo occupato fino a {@link EstrazioneScaduta#fine()}.
+ */
+public class EstrattoreTesto {
+
+	public static final String PDF = "application/pdf";
+	public static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
+	private static final String NS_WORD = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+	private final Parametri parametri;
+	private final XMLInputFactory xml;
+
+	public EstrattoreTesto(Parametri parametri) {
+		this.parametri = parametri;
+		this.xml = XMLInputFactory.newFactory();
+		xml.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		xml.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	public static boolean supportato(String tipoFile) {
+		return PDF.equals(tipoFile) || DOCX.equals(tipoFile);
+	}
+
+	public Estrazione estrai(String tipoFile, InputStream dati) throws IOException {
+		Duration limite = parametri.durataMassima().plus(parametri.durataMassima().dividedBy(2));
+		FutureTask<Estrazione> estrazione = new FutureTask<>(() -> estraiEntroScadenza(tipoFile, dati));
+		CompletableFuture<Void> fine = new CompletableFuture<>();
+		Thread lavoratore = new Thread(() -> {
+			try {
+				estrazione.run();
+			} finally {
+				fine.complete(null);
+			}
+		}, "estrazione-documento");
+		lavoratore.setDaemon(true);
+		lavoratore.setPriority(Thread.MIN_PRIORITY);
+		lavoratore.start();
+		try {
+			return estrazione.get(limite.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			estrazione.cancel(true);
+			throw new EstrazioneScaduta("Estrazione interrotta dopo " + limite.toSeconds() + "s", fine);
+		} catch (InterruptedException e) {
+			estrazione.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Estrazione interrotta");
+		} catch (ExecutionException e) {
+			switch (e.getCause()) {
+			case IOException io -> throw io;
+			case RuntimeException runtime -> throw runtime;
+			case Error errore -> throw errore;
+			default -> throw new IOException(e.getCause());
+			}
+		}
+	}
+
+	private Estrazione estraiEntroScadenza(String tipoFile, InputStream dati) throws IOException {
+		Testo testo = new Testo(parametri.caratteriMassimi(), System.nanoTime() + parametri.durataMassima().toNanos());
+		try {
+			if (PDF.equals(tipoFile)) {
+				estraiPdf(dati, testo);
+			} else if (DOCX.equals(tipoFile)) {
+				estraiDocx(dati, testo);
+			} else {
+				throw new DocumentoNonValido("Tipo di file non supportato: " + tipoFile, null);
+			}
+		} catch (LimiteRaggiunto e) {
+			return new Estrazione(testo.toString(), true);
+		}
+		return new Estrazione(testo.toString(), false);
+	}
+
+	private void estraiPdf(InputStream dati, Testo testo) throws IOException {
+		Path file = Files.createTempFile(parametri.directory(), "estrazione-", ".pdf");
+		try {
+			Files.copy(dati, file, StandardCopyOption.REPLACE_EXISTING);
+			PDDocument caricato;
+			try {
+				caricato = Loader.loadPDF(file.toFile(), IOUtils.createTempFileOnlyStreamCache());
+			} catch (IOException e) {
+				throw new DocumentoNonValido("PDF non valido: " + e.getMessage(), e);
+			}
+			try (PDDocument documento = caricato) {
+				PDFTextStripper stripper = new PDFTextStripper() {
+					@Override
+					protected void startPage(PDPage page) throws IOException {
+						testo.verificaTempo();
+						super.startPage(page);
+					}
+				};
+				stripper.setEndPage(parametri.pagineMassime());
+				stripper.writeText(documento, testo);
+				if (documento.getNumberOfPages() > parametri.pagineMassime()) {
+					throw new LimiteRaggiunto();
+				}
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private void estraiDocx(InputStream dati, Testo testo) throws IOException {
+		ZipInputStream zip = new ZipInputStream(dati);
+		try {
+			for (ZipEntry voce = zip.getNextEntry(); voce != null; voce = zip.getNextEntry()) {
+				if ("word/document.xml".equals(voce.getName())) {
+					leggiDocumentXml(new Limitato(zip, parametri.byteXmlMassimi()), testo);
+					return;
+				}
+			}
+		} catch (ZipException e) {
+			throw new DocumentoNonValido("DOCX non valido: " + e.getMessage(), e);
+		}
+		throw new DocumentoNonValido("DOCX senza word/document.xml", null);
+	}
+
+	// Testo dei <w:t>; fine paragrafo e interruzioni di riga diventano a capo, le tabulazioni spazi
+	private void leggiDocumentXml(InputStream documentXml, Testo testo) throws IOException {
+		try {
+			XMLStreamReader lettore = xml.createXMLStreamReader(documentXml);
+			boolean inTesto = false;
+			while (lettore.hasNext()) {
+				int evento = lettore.next();
+				if (evento == XMLStreamConstants.START_ELEMENT && NS_WORD.equals(lettore.getNamespaceURI())) {
+					switch (lettore.getLocalName()) {
+					case "t" -> inTesto = true;
+					case "tab" -> testo.write(' ');
+					case "br", "cr" -> testo.write('\n');
+					default -> testo.verificaTempo();
+					}
+				} else if (evento == XMLStreamConstants.END_ELEMENT && NS_WORD.equals(lettore.getNamespaceURI())) {
+					if ("t".equals(lettore.getLocalName())) {
+						inTesto = false;
+					} else if ("p".equals(lettore.getLocalName())) {
+						testo.write('\n');
+					}
+				} else if (inTesto && (evento == XMLStreamConstants.CHARACTERS || evento == XMLStreamConstants.CDATA)) {
+					testo.write(lettore.getTextCharacters(), lettore.getTextStart(), lettore.getTextLength());
+				}
+			}
+		} catch (XMLStreamException e) {
+			if (e.getCause() instanceof LimiteRaggiunto limite) {
+				throw limite;
+			}
+			throw new DocumentoNonValido("word/document.xml non valido: " + e.getMessage(), e);
+		}
+	}
+
+	public record Estrazione(String testo, boolean troncato) {
+	}
+
+	public static class DocumentoNonValido extends IOException {
+
+		public DocumentoNonValido(String message, Throwable cause) {
+			super(message, cause);
+		}
+	}
+
+	// Il documento resta non valido, ma il thread che lo legge può essere ancora vivo
+	public static class EstrazioneScaduta extends DocumentoNonValido {
+
+		private final transient CompletionStage<Void> fine;
+
+		public EstrazioneScaduta(String message, CompletionStage<Void> fine) {
+			super(message, null);
+			this.fine = fine;
+		}
+
+		public CompletionStage<Void> fine() {
+			return fine;
+		}
+	}
+
+	public record Parametri(int caratteriMassimi, int pagineMassime, long byteXmlMassimi, Duration durataMassima,
+			Path directory) {
+	}
+
+	// Scrittura del testo estratto che si ferma al limite di caratteri, alla scadenza o
+	// all'interruzione. Scarta U+0000, che il tipo text di Postgres non accetta
+	static final class Testo extends Writer {
+
+		private final StringBuilder testo = new StringBuilder();
+		private final int caratteriMassimi;
+		private final long scadenza;
+
+		Testo(int caratteriMassimi, long scadenza) {
+			this.caratteriMassimi = caratteriMassimi;
+			this.scadenza = scadenza;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			verificaTempo();
+			for (int i = off; i < off + len; i++) {
+				if (cbuf[i] == '\0') {
+					continue;
+				}
+				if (testo.length() == caratteriMassimi) {
+					throw new LimiteRaggiunto();
+				}
+				testo.append(cbuf[i]);
+			}
+		}
+
+		@Override
+		public void write(int c) {
+			write(new char[] { (char) c }, 0, 1);
+		}
+
+		void verificaTempo() {
+			if (System.nanoTime() - scadenza > 0 || Thread.currentThread().isInterrupted()) {
+				throw new LimiteRaggiunto();
+			}
+		}
+
+		@Override
+		public void flush() {
+			// Nulla da scaricare: il testo resta in memoria
+		}
+
+		@Override
+		public void close() {
+			// Come flush
+		}
+
+		@Override
+		public String toString() {
+			return testo.toString();
+		}
+	}
+
+	// Contro gli ZIP che si espandono oltre ogni proporzione
+	private static final class Limitato extends FilterInputStream {
+
+		private long rimanenti;
+
+		Limitato(InputStream in, long massimo) {
+			super(in);
+			this.rimanenti = massimo;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			conta(b < 0 ? 0 : 1);
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int letti = super.read(b, off, len);
+			conta(Math.max(letti, 0));
+			return letti;
+		}
+
+		private void conta(int letti) {
+			rimanenti -= letti;
+			if (rimanenti < 0) {
+				throw new LimiteRaggiunto();
+			}
+		}
+	}
+
+	private static final class LimiteRaggiunto extends RuntimeException {
+
+		LimiteRaggiunto() {
+			super(null, null, false, false);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package it.unina.bugboard.estrazione;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.storage.ArchivioOggetti;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class EstrazioneConfig {
+
+	@Bean
+	public EstrattoreTesto estrattoreTesto(
+			@Value("${bugboard.estrazione.directory:${java.io.tmpdir}/bugboard-estrazione}") String directory,
+			@Value("${bugboard.estrazione.caratteri-massimi:200000}") int caratteriMassimi,
+			@Value("${bugboard.estrazione.pagine-massime:500}") int pagineMassime,
+			@Value("${bugboard.estrazione.xml-massimo:64MB}") DataSize xmlMassimo,
+			@Value("${bugboard.estrazione.durata-massima:30s}") Duration durataMassima) throws IOException {
+		Path cartella = Files.createDirectories(Path.of(directory));
+		return new EstrattoreTesto(new EstrattoreTesto.Parametri(caratteriMassimi, pagineMassime, xmlMassimo.toBytes(),
+				durataMassima, cartella));
+	}
+
+	// Thread a priorità minima: l'estrazione è lavoro di fondo e non deve rubare CPU alle richieste.
+	// La coda non si riempie mai, perché EstrazioneTesto prenota solo quanto i thread liberi
+	@Bean(destroyMethod = "shutdownNow")
+	public ExecutorService esecutoreEstrazione(MeterRegistry meterRegistry,
+			@Value("${bugboard.estrazione.thread:2}") int thread) {
+		CustomizableThreadFactory fabbrica = new CustomizableThreadFactory("estrazione-testo-");
+		fabbrica.setThreadPriority(Thread.MIN_PRIORITY);
+		ThreadPoolExecutor esecutore = new ThreadPoolExecutor(thread, thread, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), fabbrica);
+		return ExecutorServiceMetrics.monitor(meterRegistry, esecutore, "estrazione-testo");
+	}
+
+	@Bean
+	public EstrazioneTesto estrazioneTesto(AllegatoDAO allegatoDAO, ArchivioOggetti archivioOggetti,
+			EstrattoreTesto estrattoreTesto, @Qualifier("esecutoreEstrazione") ExecutorService esecutoreEstrazione,
+			MeterRegistry meterRegistry,
+			@Value("${bugboard.estrazione.abilitata:true}") boolean abilitata,
+			@Value("${bugboard.estrazione.thread:2}") int thread,
+			@Value("${bugboard.estrazione.durata-massima:30s}") Duration durataMassima,
+			@Value("${bugboard.estrazione.tentativi-massimi:3}") int tentativiMassimi,
+			@Value("${bugboard.estrazione.ritardo-tentativi:5m}") Duration ritardoTentativi) {
+		// La prenotazione copre l'estrazione più la lettura del contenuto e il salvataggio
+		Duration prenotazione = durataMassima.multipliedBy(2).plusMinutes(1);
+		EstrazioneTesto.Parametri parametri = new EstrazioneTesto.Parametri(abilitata, thread, prenotazione,
+				tentativiMassimi, ritardoTentativi);
+		return new EstrazioneTesto(allegatoDAO, archivioOggetti, estrattoreTesto, esecutoreEstrazione, parametri,
+				meterRegistry);
+	}
+}
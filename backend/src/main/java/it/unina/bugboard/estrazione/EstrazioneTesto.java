@@ -0,0 +1,215 @@
+package it.unina.bugboard.estrazione;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.InfoAllegato;
+import it.unina.bugboard.storage.ArchivioOggetti;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Estrae il testo degli allegati PDF e DOCX accodati in testo_allegato dal trigger
+ * tr_allegato_estrazione_testo, mai sul thread della richiesta di upload.
+ *
+ * Il job pianificato prenota solo tante righe quanti sono i thread liberi di esecutoreEstrazione,
+ * e torna subito: l'estrazione gira sull'esecutore, e ogni thread continua a prenotare righe
+ * finché la coda non è vuota. Un errore di lettura rimette la riga in coda con un ritardo
+ * crescente, fino a bugboard.estrazione.tentativi-massimi; un documento non valido no.
+ */
+public class EstrazioneTesto {
+
+	private static final Logger log = LoggerFactory.getLogger(EstrazioneTesto.class);
+	private static final int PORZIONE = 256 * 1024;
+	private static final String NOME = "bugboard.estrazione";
+
+	private final AllegatoDAO allegatoDAO;
+	private final ArchivioOggetti archivioOggetti;
+	private final EstrattoreTesto estrattore;
+	private final ExecutorService esecutore;
+	private final Parametri parametri;
+	private final Semaphore threadLiberi;
+	private final Counter estratti;
+	private final Counter troncati;
+	private final Counter errori;
+	private final Timer durata;
+
+	public EstrazioneTesto(AllegatoDAO allegatoDAO, ArchivioOggetti archivioOggetti, EstrattoreTesto estrattore,
+			ExecutorService esecutore, Parametri parametri, MeterRegistry meterRegistry) {
+		this.allegatoDAO = allegatoDAO;
+		this.archivioOggetti = archivioOggetti;
+		this.estrattore = estrattore;
+		this.esecutore = esecutore;
+		this.parametri = parametri;
+		this.threadLiberi = new Semaphore(parametri.thread());
+		this.estratti = contatore(meterRegistry, "estratto");
+		this.troncati = contatore(meterRegistry, "troncato");
+		this.errori = contatore(meterRegistry, "errore");
+		this.durata = Timer.builder(NOME + ".durata").description("Durata dell'estrazione del testo di un allegato")
+				.register(meterRegistry);
+	}
+
+	@Scheduled(fixedDelayString = "${bugboard.estrazione.intervallo-ms:2000}")
+	public void esegui() {
+		if (!parametri.abilitata()) {
+			return;
+		}
+		int liberi = threadLiberi.drainPermits();
+		if (liberi == 0) {
+			return;
+		}
+		List<Integer> prenotati = List.of();
+		try {
+			prenotati = allegatoDAO.prenotaEstrazioni(liberi, parametri.prenotazione().toSeconds());
+		} finally {
+			threadLiberi.release(liberi - prenotati.size());
+		}
+		for (Integer idAllegato : prenotati) {
+			try {
+				esecutore.execute(() -> lavora(idAllegato));
+			} catch (RejectedExecutionException e) {
+				// In chiusura: la prenotazione scade e la riga torna in coda
+				threadLiberi.release();
+			}
+		}
+	}
+
+	// Dopo un'estrazione scaduta il thread non prende altri documenti, e il permesso torna libero solo
+	// quando il thread del parsing esce davvero: così i parsing vivi non superano mai parametri.thread
+	private void lavora(Integer primo) {
+		Optional<CompletionStage<Void>> inCorso = Optional.empty();
+		try {
+			Integer idAllegato = primo;
+			while (idAllegato != null) {
+				inCorso = estrai(idAllegato);
+				idAllegato = inCorso.isEmpty() ? prossimo() : null;
+			}
+		} finally {
+			inCorso.ifPresentOrElse(fine -> fine.whenComplete((r, e) -> threadLiberi.release()),
+					threadLiberi::release);
+		}
+	}
+
+	private Integer prossimo() {
+		if (!parametri.abilitata() || Thread.currentThread().isInterrupted()) {
+			return null;
+		}
+		List<Integer> prenotato = allegatoDAO.prenotaEstrazioni(1, parametri.prenotazione().toSeconds());
+		return prenotato.isEmpty() ? null : prenotato.get(0);
+	}
+
+	// Vuoto, o la fine del thread di un'estrazione scaduta che sta ancora girando
+	Optional<CompletionStage<Void>> estrai(Integer idAllegato) {
+		long inizio = System.nanoTime();
+		try {
+			// Da una replica in ritardo l'allegato può non essere ancora visibile: si riprova più tardi
+			Optional<InfoAllegato> allegato = allegatoDAO.findInfoById(idAllegato);
+			if (allegato.isEmpty()) {
+				throw new IOException("Allegato non ancora leggibile");
+			}
+			EstrattoreTesto.Estrazione estrazione;
+			try (InputStream dati = apri(allegato.get())) {
+				estrazione = estrattore.estrai(allegato.get().getTipoFile(), dati);
+			}
+			allegatoDAO.salvaTestoEstratto(idAllegato, estrazione.testo(), estrazione.troncato());
+			(estrazione.troncato() ? troncati : estratti).increment();
+		} catch (EstrattoreTesto.EstrazioneScaduta e) {
+			log.warn("Allegato {} non indicizzabile: {}", idAllegato, e.getMessage());
+			errori.increment();
+			allegatoDAO.registraErroreEstrazione(idAllegato, e.getMessage(), 0, 0);
+			return Optional.of(e.fine());
+		} catch (EstrattoreTesto.DocumentoNonValido e) {
+			log.debug("Allegato {} non indicizzabile: {}", idAllegato, e.getMessage());
+			errori.increment();
+			allegatoDAO.registraErroreEstrazione(idAllegato, e.getMessage(), 0, 0);
+		} catch (IOException | RuntimeException e) {
+			log.warn("Estrazione del testo dell'allegato {} non riuscita: {}", idAllegato, e.toString());
+			errori.increment();
+			allegatoDAO.registraErroreEstrazione(idAllegato, String.valueOf(e.getMessage()),
+					parametri.tentativiMassimi(), parametri.ritardoTentativi().toSeconds());
+		} finally {
+			durata.record(Duration.ofNanos(System.nanoTime() - inizio));
+		}
+		return Optional.empty();
+	}
+
+	private InputStream apri(InfoAllegato allegato) throws IOException {
+		if (allegato.getChiaveOggetto() != null) {
+			return archivioOggetti.apri(allegato.getChiaveOggetto());
+		}
+		return new FileData(allegatoDAO, allegato.getIdAllegato());
+	}
+
+	private static Counter contatore(MeterRegistry meterRegistry, String esito) {
+		return Counter.builder(NOME + ".allegati").description("Allegati elaborati dall'estrazione del testo")
+				.tag("esito", esito).register(meterRegistry);
+	}
+
+	public record Parametri(boolean abilitata, int thread, Duration prenotazione, int tentativiMassimi,
+			Duration ritardoTentativi) {
+	}
+
+	// Contenuto nel database letto a porzioni, come per lo ZIP degli allegati
+	private static final class FileData extends InputStream {
+
+		private final AllegatoDAO allegatoDAO;
+		private final Integer idAllegato;
+		private byte[] porzione = new byte[0];
+		private int posizione;
+		private long letti;
+		private boolean finito;
+
+		FileData(AllegatoDAO allegatoDAO, Integer idAllegato) {
+			this.allegatoDAO = allegatoDAO;
+			this.idAllegato = idAllegato;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] uno = new byte[1];
+			return read(uno, 0, 1) < 0 ? -1 : uno[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (posizione == porzione.length && !prossimaPorzione()) {
+				return -1;
+			}
+			int n = Math.min(len, porzione.length - posizione);
+			System.arraycopy(porzione, posizione, b, off, n);
+			posizione += n;
+			return n;
+		}
+
+		private boolean prossimaPorzione() {
+			if (finito) {
+				return false;
+			}
+			byte[] successiva = allegatoDAO.leggiPorzione(idAllegato, Math.toIntExact(letti + 1), PORZIONE);
+			if (successiva == null || successiva.length == 0) {
+				finito = true;
+				return false;
+			}
+			finito = successiva.length < PORZIONE;
+			porzione = successiva;
+			posizione = 0;
+			letti += successiva.length;
+			return true;
+		}
+	}
+}
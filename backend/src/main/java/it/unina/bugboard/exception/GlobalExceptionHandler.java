@@ -1,5 +1,7 @@
 package it.unina.bugboard.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import java.io.IOException;
@@ -13,8 +15,15 @@ public class GlobalExceptionHandler {
     private static final String ERROR_KEY = "error";  // ✅ Mantieni per retrocompatibilità
     private static final String DETTAGLI_KEY = "dettagli";
 
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<Map<String, String>> handleNotFound(NotFoundException e) {
+        conta(e);
         Map<String, String> response = new HashMap<>();
         response.put(MESSAGE_KEY, e.getMessage());
         response.put(ERROR_KEY, e.getMessage());  // ✅ Duplica per compatibilità
@@ -23,6 +32,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(AlreadyExistsException.class)
     public ResponseEntity<Map<String, String>> handleAlreadyExists(AlreadyExistsException e) {
+        conta(e);
         Map<String, String> response = new HashMap<>();
         response.put(MESSAGE_KEY, e.getMessage());
         response.put(ERROR_KEY, e.getMessage());
@@ -31,6 +41,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(InvalidInputException.class)
     public ResponseEntity<Map<String, String>> handleInvalidInput(InvalidInputException e) {
+        conta(e);
         Map<String, String> response = new HashMap<>();
         response.put(MESSAGE_KEY, e.getMessage());
         response.put(ERROR_KEY, e.getMessage());
@@ -39,6 +50,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(UnauthorizedException.class)
     public ResponseEntity<Map<String, String>> handleUnauthorized(UnauthorizedException e) {
+        conta(e);
         Map<String, String> response = new HashMap<>();
         response.put(MESSAGE_KEY, e.getMessage());
         response.put(ERROR_KEY, e.getMessage());
@@ -47,6 +59,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(InvalidFieldException.class)
     public ResponseEntity<Map<String, String>> handleInvalidField(InvalidFieldException e) {
+        conta(e);
         Map<String, String> response = new HashMap<>();
         response.put(MESSAGE_KEY, e.getMessage());  // ✅ Per il nuovo codice
         response.put(ERROR_KEY, e.getMessage());    // ✅ Per il vecchio codice
@@ -55,6 +68,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(IOException.class)
     public ResponseEntity<Map<String, String>> handleIOException(IOException e) {
+        conta(e);
         Map<String, String> response = new HashMap<>();
         response.put(MESSAGE_KEY, "Errore durante l'operazione sul file");
         response.put(ERROR_KEY, "Errore durante l'operazione sul file");
@@ -64,10 +78,19 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGeneric(Exception e) {
+        conta(e);
         Map<String, String> response = new HashMap<>();
         response.put(MESSAGE_KEY, "Errore interno del server");
         response.put(ERROR_KEY, "Errore interno del server");
         response.put(DETTAGLI_KEY, e.getMessage());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
+
+    private void conta(Exception e) {
+        Counter.builder("bugboard.eccezioni")
+                .description("Eccezioni gestite da GlobalExceptionHandler")
+                .tag("tipo", e.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
 }
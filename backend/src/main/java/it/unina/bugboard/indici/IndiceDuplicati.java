@@ -0,0 +1,286 @@
+package it.unina.bugboard.indici;
+
+import it.unina.bugboard.dao.TestoIssue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Indice in memoria delle issue attive per suggerire i possibili duplicati mentre si scrive una
+ * nuova issue. Ogni issue ha due firme MinHash: dei trigrammi di carattere delle parole del titolo,
+ * che reggono refusi e varianti ("login"/"logins"), e delle parole della descrizione. La frazione
+ * di minimi uguali di due firme stima l'indice di Jaccard dei due insiemi.
+ *
+ * I candidati si trovano con LSH: le firme sono divise in bande di {@value #RIGHE_BANDA} minimi e
+ * due issue sono candidate se coincidono su almeno una banda intera. Con 20 bande sul titolo, due
+ * titoli con somiglianza 0.5 sono candidati con probabilità ~0.93, a 0.2 con ~0.15. Una ricerca
+ * legge quindi poche decine di bucket e confronta solo i candidati, senza scorrere l'indice.
+ *
+ * Scritto da un solo thread (SincronizzazioneIndici), letto dalle richieste senza lock: i bucket
+ * sono array sostituiti per intero.
+ */
+public class IndiceDuplicati implements IndiceIssue {
+
+	private static final int RIGHE_BANDA = 3;
+	private static final int MINIMI_TITOLO = 60;
+	private static final int MINIMI_DESCRIZIONE = 30;
+	private static final int BANDE_TITOLO = MINIMI_TITOLO / RIGHE_BANDA;
+	private static final double PESO_TITOLO = 0.6;
+	private static final long[] SEMI = new long[MINIMI_TITOLO];
+	private static final Set<String> PAROLE_VUOTE = Set.of("il", "lo", "la", "gli", "le", "un", "uno", "una", "di",
+			"del", "dello", "della", "dei", "degli", "delle", "da", "dal", "dalla", "in", "nel", "nello", "nella", "con",
+			"su", "sul", "sulla", "per", "tra", "fra", "ed", "che", "non", "si", "al", "allo", "alla", "ai", "agli",
+			"alle", "come", "quando", "the", "an", "of", "to", "on", "for", "and", "or", "is", "are", "not", "with", "when");
+
+	static {
+		for (int i = 0; i < SEMI.length; i++) {
+			SEMI[i] = mescola((i + 1) * 0x9E3779B97F4A7C15L);
+		}
+	}
+
+	private final Parametri parametri;
+	private final ConcurrentHashMap<Integer, Voce> voci = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Long, int[]> bucket = new ConcurrentHashMap<>();
+
+	public IndiceDuplicati(Parametri parametri) {
+		this.parametri = parametri;
+	}
+
+	@Override
+	public void aggiorna(TestoIssue issue) {
+		aggiorna(issue.getIdIssue(), issue.getTitolo(), issue.getDescrizione());
+	}
+
+	public void aggiorna(int idIssue, String titolo, String descrizione) {
+		String inizio = inizio(descrizione);
+		Voce vecchia = voci.get(idIssue);
+		if (vecchia != null && vecchia.titolo().equals(titolo) && vecchia.impronta() == inizio.hashCode()) {
+			return;
+		}
+		Voce nuova = new Voce(titolo, inizio.hashCode(), firmaTitolo(titolo), firmaDescrizione(inizio));
+		voci.put(idIssue, nuova);
+		if (vecchia != null) {
+			for (long chiave : chiavi(vecchia.firmaTitolo(), vecchia.firmaDescrizione())) {
+				togli(chiave, idIssue);
+			}
+		}
+		for (long chiave : chiavi(nuova.firmaTitolo(), nuova.firmaDescrizione())) {
+			aggiungi(chiave, idIssue);
+		}
+	}
+
+	@Override
+	public void rimuovi(int idIssue) {
+		Voce vecchia = voci.remove(idIssue);
+		if (vecchia != null) {
+			for (long chiave : chiavi(vecchia.firmaTitolo(), vecchia.firmaDescrizione())) {
+				togli(chiave, idIssue);
+			}
+		}
+	}
+
+	@Override
+	public void rimuoviSe(IntPredicate condizione) {
+		for (int idIssue : voci.keySet()) {
+			if (condizione.test(idIssue)) {
+				rimuovi(idIssue);
+			}
+		}
+	}
+
+	@Override
+	public void svuota() {
+		voci.clear();
+		bucket.clear();
+	}
+
+	@Override
+	public int dimensione() {
+		return voci.size();
+	}
+
+	/**
+	 * Issue attive con somiglianza almeno bugboard.duplicati.soglia, dalla più simile. La
+	 * descrizione conta solo se ce l'hanno entrambe: mentre si scrive il titolo si confrontano i titoli.
+	 */
+	public List<Simile> cerca(String titolo, String descrizione, int limite) {
+		int[] firmaTitolo = firmaTitolo(titolo);
+		int[] firmaDescrizione = firmaDescrizione(inizio(descrizione));
+		if (firmaTitolo == null && firmaDescrizione == null) {
+			return List.of();
+		}
+		Set<Integer> candidati = new HashSet<>();
+		for (long chiave : chiavi(firmaTitolo, firmaDescrizione)) {
+			int[] ids = bucket.get(chiave);
+			if (ids != null) {
+				for (int id : ids) {
+					candidati.add(id);
+				}
+			}
+		}
+
+		List<Simile> simili = new ArrayList<>();
+		for (Integer id : candidati) {
+			Voce voce = voci.get(id);
+			if (voce == null) {
+				continue;
+			}
+			double somiglianza = somiglianza(firmaTitolo, voce.firmaTitolo());
+			if (firmaDescrizione != null && voce.firmaDescrizione() != null) {
+				somiglianza = PESO_TITOLO * somiglianza
+						+ (1 - PESO_TITOLO) * somiglianza(firmaDescrizione, voce.firmaDescrizione());
+			}
+			if (somiglianza >= parametri.soglia()) {
+				simili.add(new Simile(id, voce.titolo(), somiglianza));
+			}
+		}
+		simili.sort(Comparator.comparingDouble(Simile::somiglianza).reversed().thenComparing(Simile::idIssue));
+		return simili.size() > limite ? List.copyOf(simili.subList(0, limite)) : simili;
+	}
+
+	private String inizio(String descrizione) {
+		if (descrizione == null) {
+			return "";
+		}
+		return descrizione.length() > parametri.caratteriDescrizione()
+				? descrizione.substring(0, parametri.caratteriDescrizione()) : descrizione;
+	}
+
+	private void aggiungi(long chiave, int idIssue) {
+		bucket.compute(chiave, (k, ids) -> {
+			if (ids == null) {
+				return new int[] { idIssue };
+			}
+			for (int id : ids) {
+				if (id == idIssue) {
+					return ids;
+				}
+			}
+			int[] nuovi = Arrays.copyOf(ids, ids.length + 1);
+			nuovi[ids.length] = idIssue;
+			return nuovi;
+		});
+	}
+
+	private void togli(long chiave, int idIssue) {
+		bucket.computeIfPresent(chiave, (k, ids) -> {
+			int[] rimasti = Arrays.stream(ids).filter(id -> id != idIssue).toArray();
+			return rimasti.length == 0 ? null : rimasti;
+		});
+	}
+
+	// Una chiave per banda: numero della banda nei 32 bit alti, hash dei suoi minimi nei bassi.
+	// Le bande della descrizione seguono quelle del titolo
+	private static long[] chiavi(int[] firmaTitolo, int[] firmaDescrizione) {
+		long[] titolo = bande(firmaTitolo, 0);
+		long[] descrizione = bande(firmaDescrizione, BANDE_TITOLO);
+		long[] chiavi = Arrays.copyOf(titolo, titolo.length + descrizione.length);
+		System.arraycopy(descrizione, 0, chiavi, titolo.length, descrizione.length);
+		return chiavi;
+	}
+
+	private static long[] bande(int[] firma, int primaBanda) {
+		if (firma == null) {
+			return new long[0];
+		}
+		long[] chiavi = new long[firma.length / RIGHE_BANDA];
+		for (int b = 0; b < chiavi.length; b++) {
+			int hash = 1;
+			for (int r = 0; r < RIGHE_BANDA; r++) {
+				hash = 31 * hash + firma[b * RIGHE_BANDA + r];
+			}
+			chiavi[b] = ((long) (primaBanda + b) << 32) | (hash & 0xFFFFFFFFL);
+		}
+		return chiavi;
+	}
+
+	private static double somiglianza(int[] a, int[] b) {
+		if (a == null || b == null) {
+			return 0;
+		}
+		int uguali = 0;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] == b[i]) {
+				uguali++;
+			}
+		}
+		return (double) uguali / a.length;
+	}
+
+	// Trigrammi delle parole con uno spazio ai lati, codificati senza collisioni nei 48 bit bassi
+	private static int[] firmaTitolo(String titolo) {
+		List<String> parole = parole(titolo);
+		List<Long> trigrammi = new ArrayList<>();
+		for (String parola : parole) {
+			String p = " " + parola + " ";
+			for (int i = 0; i + 3 <= p.length(); i++) {
+				trigrammi.add(((long) p.charAt(i) << 32) | ((long) p.charAt(i + 1) << 16) | p.charAt(i + 2));
+			}
+		}
+		return firma(trigrammi, MINIMI_TITOLO);
+	}
+
+	private static int[] firmaDescrizione(String descrizione) {
+		List<Long> hash = new ArrayList<>();
+		for (String parola : parole(descrizione)) {
+			hash.add(fnv(parola));
+		}
+		return firma(hash, MINIMI_DESCRIZIONE);
+	}
+
+	private static int[] firma(List<Long> elementi, int minimi) {
+		if (elementi.isEmpty()) {
+			return null;
+		}
+		int[] firma = new int[minimi];
+		Arrays.fill(firma, Integer.MAX_VALUE);
+		for (long elemento : elementi) {
+			long base = mescola(elemento);
+			for (int i = 0; i < minimi; i++) {
+				int valore = (int) (mescola(base ^ SEMI[i]) >>> 32);
+				if (valore < firma[i]) {
+					firma[i] = valore;
+				}
+			}
+		}
+		return firma;
+	}
+
+	// Parole normalizzate, senza quelle vuote e di una lettera
+	private static List<String> parole(String testo) {
+		return Normalizzazione.parole(testo).stream().filter(p -> p.length() > 1 && !PAROLE_VUOTE.contains(p)).toList();
+	}
+
+	private static long fnv(String parola) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < parola.length(); i++) {
+			hash = (hash ^ parola.charAt(i)) * 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	// Finalizzatore di MurmurHash3
+	private static long mescola(long x) {
+		x ^= x >>> 33;
+		x *= 0xff51afd7ed558ccdL;
+		x ^= x >>> 33;
+		x *= 0xc4ceb9fe1a85ec53L;
+		x ^= x >>> 33;
+		return x;
+	}
+
+	public record Simile(Integer idIssue, String titolo, double somiglianza) {
+	}
+
+	public record Parametri(double soglia, int caratteriDescrizione) {
+	}
+
+	private record Voce(String titolo, int impronta, int[] firmaTitolo, int[] firmaDescrizione) {
+	}
+}
@@ -0,0 +1,24 @@
+package it.unina.bugboard.indici;
+
+import it.unina.bugboard.dao.TestoIssue;
+
+import java.util.function.IntPredicate;
+
+// Indice in memoria delle issue attive, tenuto allineato da SincronizzazioneIndici
+public interface IndiceIssue {
+
+	void aggiorna(TestoIssue issue);
+
+	void rimuovi(int idIssue);
+
+	void svuota();
+
+	// Toglie le issue per cui la condizione è vera
+	void rimuoviSe(IntPredicate condizione);
+
+	int dimensione();
+
+	// Fine di un giro di sincronizzazione: per gli indici che rendono visibili le modifiche a blocchi
+	default void pubblica() {
+	}
+}
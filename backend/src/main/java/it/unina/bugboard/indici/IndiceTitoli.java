@@ -0,0 +1,137 @@
+package it.unina.bugboard.indici;
+
+import it.unina.bugboard.dao.TestoIssue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Autocompletamento dei titoli delle issue attive. Ogni parola normalizzata di un titolo è una
+ * chiave "parola\u0001id" di una mappa ordinata: le parole che iniziano con un prefisso sono un
+ * intervallo contiguo, trovato con una ricerca binaria e letto in ordine, senza scorrere i titoli.
+ *
+ * Ogni parola scritta deve essere l'inizio di una parola del titolo, in qualunque ordine ("log crash"
+ * trova "Crash al login"). L'intervallo letto è quello della parola più lunga, la più selettiva;
+ * le altre si verificano sulle parole del candidato. Tra i titoli trovati vincono priorità più alta
+ * e poi issue più recenti.
+ *
+ * Come IndiceDuplicati: un solo thread scrive (SincronizzazioneIndici), le richieste leggono senza lock.
+ */
+public class IndiceTitoli implements IndiceIssue {
+
+	private static final char SEPARATORE = '\u0001';
+	private static final Comparator<Voce> ORDINE = Comparator.comparingInt(Voce::pesoPriorita)
+			.thenComparing(Voce::dataCreazione).thenComparingInt(Voce::idIssue);
+
+	private final ConcurrentSkipListMap<String, Voce> parole = new ConcurrentSkipListMap<>();
+	private final ConcurrentHashMap<Integer, Voce> voci = new ConcurrentHashMap<>();
+
+	@Override
+	public void aggiorna(TestoIssue issue) {
+		Voce nuova = new Voce(issue.getIdIssue(), issue.getTitolo(), issue.getPriorita(),
+				issue.getPesoPriorita() != null ? issue.getPesoPriorita() : 0, issue.getDataCreazione(),
+				List.copyOf(new HashSet<>(Normalizzazione.parole(issue.getTitolo()))));
+		Voce vecchia = voci.get(nuova.idIssue());
+		if (nuova.equals(vecchia)) {
+			return;
+		}
+		voci.put(nuova.idIssue(), nuova);
+		if (vecchia != null) {
+			for (String parola : vecchia.parole()) {
+				if (!nuova.parole().contains(parola)) {
+					this.parole.remove(chiave(parola, vecchia.idIssue()));
+				}
+			}
+		}
+		for (String parola : nuova.parole()) {
+			this.parole.put(chiave(parola, nuova.idIssue()), nuova);
+		}
+	}
+
+	@Override
+	public void rimuovi(int idIssue) {
+		Voce vecchia = voci.remove(idIssue);
+		if (vecchia != null) {
+			for (String parola : vecchia.parole()) {
+				parole.remove(chiave(parola, idIssue));
+			}
+		}
+	}
+
+	@Override
+	public void rimuoviSe(IntPredicate condizione) {
+		for (int idIssue : voci.keySet()) {
+			if (condizione.test(idIssue)) {
+				rimuovi(idIssue);
+			}
+		}
+	}
+
+	@Override
+	public void svuota() {
+		voci.clear();
+		parole.clear();
+	}
+
+	@Override
+	public int dimensione() {
+		return voci.size();
+	}
+
+	public List<Suggerimento> suggerisci(String testo, int limite) {
+		List<String> cercate = Normalizzazione.parole(testo);
+		if (cercate.isEmpty()) {
+			return List.of();
+		}
+		String guida = cercate.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+
+		// Le peggiori in testa: la coda tiene solo le migliori :limite
+		PriorityQueue<Voce> migliori = new PriorityQueue<>(limite + 1, ORDINE);
+		Set<Integer> visti = new HashSet<>();
+		for (Voce voce : parole.subMap(guida, guida + Character.MAX_VALUE).values()) {
+			// La voce in mappa può essere di un titolo appena cambiato: fa fede quella per id
+			if (voci.get(voce.idIssue()) != voce || !visti.add(voce.idIssue()) || !contieneTutte(voce, cercate)) {
+				continue;
+			}
+			migliori.add(voce);
+			if (migliori.size() > limite) {
+				migliori.poll();
+			}
+		}
+
+		List<Suggerimento> suggerimenti = new ArrayList<>(migliori.size());
+		while (!migliori.isEmpty()) {
+			Voce voce = migliori.poll();
+			suggerimenti.add(new Suggerimento(voce.idIssue(), voce.titolo(), voce.priorita(), voce.dataCreazione()));
+		}
+		return suggerimenti.reversed();
+	}
+
+	private static boolean contieneTutte(Voce voce, List<String> cercate) {
+		for (String cercata : cercate) {
+			if (voce.parole().stream().noneMatch(parola -> parola.startsWith(cercata))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String chiave(String parola, int idIssue) {
+		return parola + SEPARATORE + idIssue;
+	}
+
+	public record Suggerimento(Integer idIssue, String titolo, String priorita, LocalDateTime dataCreazione) {
+	}
+
+	private record Voce(int idIssue, String titolo, String priorita, int pesoPriorita, LocalDateTime dataCreazione,
+			List<String> parole) {
+	}
+}
@@ -0,0 +1,61 @@
+package it.unina.bugboard.indici;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unina.bugboard.dao.IssueDAO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class IndiciConfig implements WebMvcConfigurer {
+
+	@Bean
+	public IndiceDuplicati indiceDuplicati(MeterRegistry meterRegistry,
+			@Value("${bugboard.duplicati.soglia:0.5}") double soglia,
+			@Value("${bugboard.duplicati.caratteri-descrizione:1000}") int caratteriDescrizione) {
+		IndiceDuplicati indice = new IndiceDuplicati(new IndiceDuplicati.Parametri(soglia, caratteriDescrizione));
+		Gauge.builder("bugboard.indici.issue", indice, IndiceDuplicati::dimensione).tag("indice", "duplicati")
+				.description("Issue attive negli indici in memoria").register(meterRegistry);
+		return indice;
+	}
+
+	@Bean
+	public IndiceTitoli indiceTitoli(MeterRegistry meterRegistry) {
+		IndiceTitoli indice = new IndiceTitoli();
+		Gauge.builder("bugboard.indici.issue", indice, IndiceTitoli::dimensione).tag("indice", "titoli")
+				.description("Issue attive negli indici in memoria").register(meterRegistry);
+		return indice;
+	}
+
+	@Bean
+	public IstantaneaIssue istantaneaIssue(MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+		IstantaneaIssue indice = new IstantaneaIssue(objectMapper);
+		Gauge.builder("bugboard.indici.issue", indice, IstantaneaIssue::dimensione).tag("indice", "istantanea")
+				.description("Issue attive negli indici in memoria").register(meterRegistry);
+		return indice;
+	}
+
+	@Bean
+	public SincronizzazioneIndici sincronizzazioneIndici(IssueDAO issueDAO, List<IndiceIssue> indici,
+			@Value("${bugboard.indici.abilitata:true}") boolean abilitata,
+			@Value("${bugboard.duplicati.caratteri-descrizione:1000}") int caratteriDescrizione,
+			@Value("${bugboard.indici.lotto:2000}") int lotto,
+			@Value("${bugboard.indici.sovrapposizione:2m}") Duration sovrapposizione,
+			@Value("${bugboard.indici.conservazione:1h}") Duration conservazione,
+			@Value("${bugboard.indici.riallineamento:15m}") Duration riallineamento) {
+		return new SincronizzazioneIndici(issueDAO, indici, new SincronizzazioneIndici.Parametri(abilitata,
+				caratteriDescrizione, lotto, sovrapposizione, conservazione, riallineamento, Duration.ofMinutes(10)));
+	}
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.add(0, new SchedeJsonConverter());
+	}
+}
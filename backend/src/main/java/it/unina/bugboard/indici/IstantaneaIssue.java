@@ -0,0 +1,470 @@
+package it.unina.bugboard.indici;
+
+import it.unina.bugboard.dao.TestoIssue;
+import it.unina.bugboard.model.Issue;
+import it.unina.bugboard.model.Priorita;
+import it.unina.bugboard.model.Stato;
+import it.unina.bugboard.model.Tipo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Array;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Issue attive in colonne di primitivi, per filtraAvanzato senza interrogare il database: stato,
+ * priorità e tipo come ordinali byte, titoli in minuscolo per la ricerca, rango di ogni titolo
+ * nell'ordine alfabetico (uguale per i titoli uguali). Le righe sono già in ordine di creazione decrescente, quindi gli
+ * ordinamenti per data sono letture in avanti o all'indietro.
+ *
+ * Un filtro è un bitset di una parola long ogni 64 righe, ristretto da una colonna alla volta. Per
+ * titolo si ordinano long con il rango nei 32 bit alti e la riga nei bassi; per priorità, che
+ * ha cinque valori, si legge il bitset una volta per valore. Una richiesta alloca solo il bitset,
+ * le eventuali chiavi da ordinare e l'array delle righe restituite.
+ *
+ * Ogni scheda è serializzata in JSON una volta, quando entra o cambia: la risposta di
+ * filtraAvanzato è una SchedeJson che SchedeJsonConverter scrive concatenando quei byte.
+ *
+ * Le colonne sono immutabili e sostituite per intero, le richieste le leggono senza lock.
+ * SincronizzazioneIndici le ricostruisce a fine giro, se il giro ha cambiato qualcosa. Le scritture
+ * di IssueController su questa istanza, dopo il commit, sostituiscono solo la riga dell'issue: copie
+ * degli array e una passata sull'ordine dei titoli, senza riordinare. Chi crea o modifica un'issue la
+ * ritrova subito nella lista.
+ */
+public class IstantaneaIssue implements IndiceIssue {
+
+	// Ordinali di Priorita dalla più alta (critical) alla più bassa (none) e viceversa
+	private static final byte[] PRIORITA_ALTA = new byte[Priorita.values().length];
+	private static final byte[] PRIORITA_BASSA = new byte[PRIORITA_ALTA.length];
+
+	static {
+		for (int i = 0; i < PRIORITA_ALTA.length; i++) {
+			PRIORITA_ALTA[i] = (byte) i;
+			PRIORITA_BASSA[i] = (byte) (PRIORITA_ALTA.length - 1 - i);
+		}
+	}
+
+	private final ObjectWriter writer;
+	private final Map<Integer, Riga> righe = new HashMap<>();
+	private boolean cambiata;
+	// Falsa da svuota() alla fine del giro che ricarica tutto: le colonne intanto restano le vecchie
+	private boolean completa;
+	private volatile Colonne colonne;
+
+	public IstantaneaIssue(ObjectMapper objectMapper) {
+		this.writer = objectMapper.writerFor(Scheda.class);
+	}
+
+	@Override
+	public synchronized void aggiorna(TestoIssue issue) {
+		metti(new Scheda(issue.getIdIssue(), issue.getTitolo(), Stato.valueOf(issue.getStato()),
+				Tipo.valueOf(issue.getTipo()), Priorita.valueOf(issue.getPriorita()), issue.getDataCreazione()));
+	}
+
+	@Override
+	public synchronized void rimuovi(int idIssue) {
+		if (righe.remove(idIssue) != null) {
+			cambiata = true;
+		}
+	}
+
+	@Override
+	public synchronized void rimuoviSe(IntPredicate condizione) {
+		if (righe.keySet().removeIf(condizione::test)) {
+			cambiata = true;
+		}
+	}
+
+	@Override
+	public synchronized void svuota() {
+		righe.clear();
+		cambiata = true;
+		completa = false;
+	}
+
+	@Override
+	public int dimensione() {
+		Colonne attuali = colonne;
+		return attuali != null ? attuali.schede.length : 0;
+	}
+
+	@Override
+	public synchronized void pubblica() {
+		completa = true;
+		ricostruisciColonne();
+	}
+
+	public void aggiornaDopoCommit(Issue issue) {
+		Scheda scheda = Boolean.TRUE.equals(issue.getArchiviata()) ? null : Scheda.di(issue);
+		int idIssue = issue.getIdIssue();
+		dopoCommit(idIssue, () -> {
+			if (scheda != null) {
+				metti(scheda);
+			} else {
+				rimuovi(idIssue);
+			}
+		});
+	}
+
+	public void rimuoviDopoCommit(int idIssue) {
+		dopoCommit(idIssue, () -> rimuovi(idIssue));
+	}
+
+	// Falsa finché la sincronizzazione non ha caricato tutte le issue attive
+	public boolean pronta() {
+		return colonne != null;
+	}
+
+	/**
+	 * Schede delle issue attive che passano i filtri (null = tutti), nell'ordinamento di
+	 * filtraAvanzato; senza ordinamento o con uno sconosciuto dalla più recente.
+	 */
+	public SchedeJson filtra(Stato stato, Priorita priorita, Tipo tipo, String ricerca, String ordinamento) {
+		return colonne.filtra(stato, priorita, tipo, ricerca, ordinamento);
+	}
+
+	private void dopoCommit(int idIssue, Runnable modifica) {
+		Runnable applica = () -> {
+			synchronized (this) {
+				Riga vecchia = righe.get(idIssue);
+				boolean altreModifiche = cambiata;
+				cambiata = false;
+				modifica.run();
+				if (cambiata && completa && colonne != null) {
+					// Le modifiche del giro in corso, se ci sono, restano per pubblica()
+					Riga nuova = righe.get(idIssue);
+					LocalDateTime dataCreazione = (nuova != null ? nuova : vecchia).scheda().dataCreazione();
+					colonne = colonne.sostituisci(idIssue, dataCreazione, nuova);
+					cambiata = altreModifiche;
+				} else {
+					cambiata |= altreModifiche;
+				}
+			}
+		};
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			applica.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				applica.run();
+			}
+		});
+	}
+
+	private void metti(Scheda scheda) {
+		Riga vecchia = righe.get(scheda.idIssue());
+		if (vecchia == null || !vecchia.scheda().equals(scheda)) {
+			righe.put(scheda.idIssue(), new Riga(scheda, json(scheda)));
+			cambiata = true;
+		}
+	}
+
+	private byte[] json(Scheda scheda) {
+		try {
+			return writer.writeValueAsBytes(scheda);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Scheda non serializzabile: " + scheda.idIssue(), e);
+		}
+	}
+
+	private void ricostruisciColonne() {
+		if (cambiata) {
+			colonne = Colonne.di(righe.values());
+			cambiata = false;
+		}
+	}
+
+	public record Scheda(Integer idIssue, String titolo, Stato stato, Tipo tipo, Priorita priorita,
+			LocalDateTime dataCreazione) {
+
+		// Data ai microsecondi come nel database: la stessa issue riletta dalla sincronizzazione resta uguale
+		public static Scheda di(Issue issue) {
+			return new Scheda(issue.getIdIssue(), issue.getTitolo(), issue.getStato(), issue.getTipo(),
+					issue.getPriorita(), issue.getDataCreazione().truncatedTo(ChronoUnit.MICROS));
+		}
+	}
+
+	private record Riga(Scheda scheda, byte[] json) {
+	}
+
+	private static final class Colonne {
+
+		// Dalla più recente, come datacreazione DESC nel database
+		private static final Comparator<Scheda> PER_DATA = Comparator.comparing(Scheda::dataCreazione)
+				.thenComparing(Scheda::idIssue).reversed();
+
+		private final Scheda[] schede;
+		private final byte[][] json;
+		private final byte[] stato;
+		private final byte[] priorita;
+		private final byte[] tipo;
+		private final String[] titoloMinuscolo;
+		// Righe in ordine alfabetico, a parità di titolo in ordine di riga
+		private final int[] perTitolo;
+		private final int[] rangoTitolo;
+
+		private Colonne(Scheda[] schede, byte[][] json, byte[] stato, byte[] priorita, byte[] tipo,
+				String[] titoloMinuscolo, int[] perTitolo) {
+			this.schede = schede;
+			this.json = json;
+			this.stato = stato;
+			this.priorita = priorita;
+			this.tipo = tipo;
+			this.titoloMinuscolo = titoloMinuscolo;
+			this.perTitolo = perTitolo;
+			rangoTitolo = new int[schede.length];
+			for (int posizione = 0; posizione < perTitolo.length; posizione++) {
+				int riga = perTitolo[posizione];
+				boolean uguale = posizione > 0
+						&& schede[perTitolo[posizione - 1]].titolo().compareToIgnoreCase(schede[riga].titolo()) == 0;
+				rangoTitolo[riga] = uguale ? rangoTitolo[perTitolo[posizione - 1]] : posizione;
+			}
+		}
+
+		static Colonne di(Collection<Riga> tutte) {
+			List<Riga> ordinate = new ArrayList<>(tutte);
+			ordinate.sort(Comparator.comparing(Riga::scheda, PER_DATA));
+
+			int righe = ordinate.size();
+			Scheda[] schede = new Scheda[righe];
+			byte[][] json = new byte[righe][];
+			byte[] stato = new byte[righe];
+			byte[] priorita = new byte[righe];
+			byte[] tipo = new byte[righe];
+			String[] titoloMinuscolo = new String[righe];
+			for (int i = 0; i < righe; i++) {
+				schede[i] = ordinate.get(i).scheda();
+				json[i] = ordinate.get(i).json();
+				stato[i] = (byte) schede[i].stato().ordinal();
+				priorita[i] = (byte) schede[i].priorita().ordinal();
+				tipo[i] = (byte) schede[i].tipo().ordinal();
+				titoloMinuscolo[i] = schede[i].titolo().toLowerCase();
+			}
+
+			Integer[] ordine = new Integer[righe];
+			for (int i = 0; i < righe; i++) {
+				ordine[i] = i;
+			}
+			Arrays.sort(ordine, (a, b) -> schede[a].titolo().compareToIgnoreCase(schede[b].titolo()));
+			int[] perTitolo = new int[righe];
+			for (int i = 0; i < righe; i++) {
+				perTitolo[i] = ordine[i];
+			}
+			return new Colonne(schede, json, stato, priorita, tipo, titoloMinuscolo, perTitolo);
+		}
+
+		// Senza la riga dell'issue, se c'è, e con la nuova al suo posto nell'ordine per data, se non è null.
+		// La data di creazione non cambia, quindi basta a ritrovare la riga con una ricerca binaria
+		Colonne sostituisci(int idIssue, LocalDateTime dataCreazione, Riga nuova) {
+			Colonne risultato = this;
+			int riga = Arrays.binarySearch(schede, new Scheda(idIssue, null, null, null, null, dataCreazione), PER_DATA);
+			if (riga >= 0) {
+				risultato = senza(riga);
+			}
+			return nuova != null ? risultato.con(nuova) : risultato;
+		}
+
+		private Colonne senza(int riga) {
+			int righe = schede.length - 1;
+			int[] titoli = new int[righe];
+			int k = 0;
+			for (int r : perTitolo) {
+				if (r != riga) {
+					titoli[k++] = r > riga ? r - 1 : r;
+				}
+			}
+			return new Colonne(togli(schede, riga, new Scheda[righe]), togli(json, riga, new byte[righe][]),
+					togli(stato, riga, new byte[righe]), togli(priorita, riga, new byte[righe]),
+					togli(tipo, riga, new byte[righe]), togli(titoloMinuscolo, riga, new String[righe]), titoli);
+		}
+
+		private Colonne con(Riga nuova) {
+			Scheda scheda = nuova.scheda();
+			int cercata = Arrays.binarySearch(schede, scheda, PER_DATA);
+			int riga = cercata >= 0 ? cercata : -cercata - 1;
+			int righe = schede.length + 1;
+
+			Scheda[] schede = aggiungi(this.schede, riga, new Scheda[righe]);
+			byte[][] json = aggiungi(this.json, riga, new byte[righe][]);
+			byte[] stato = aggiungi(this.stato, riga, new byte[righe]);
+			byte[] priorita = aggiungi(this.priorita, riga, new byte[righe]);
+			byte[] tipo = aggiungi(this.tipo, riga, new byte[righe]);
+			String[] titoloMinuscolo = aggiungi(this.titoloMinuscolo, riga, new String[righe]);
+			schede[riga] = scheda;
+			json[riga] = nuova.json();
+			stato[riga] = (byte) scheda.stato().ordinal();
+			priorita[riga] = (byte) scheda.priorita().ordinal();
+			tipo[riga] = (byte) scheda.tipo().ordinal();
+			titoloMinuscolo[riga] = scheda.titolo().toLowerCase();
+
+			// Le righe dopo la nuova scorrono di uno; la nuova entra prima del primo titolo che la segue
+			int[] titoli = new int[righe];
+			int k = 0;
+			boolean inserita = false;
+			for (int r : perTitolo) {
+				int spostata = r >= riga ? r + 1 : r;
+				if (!inserita) {
+					int confronto = this.schede[r].titolo().compareToIgnoreCase(scheda.titolo());
+					if (confronto > 0 || confronto == 0 && spostata > riga) {
+						titoli[k++] = riga;
+						inserita = true;
+					}
+				}
+				titoli[k++] = spostata;
+			}
+			if (!inserita) {
+				titoli[k] = riga;
+			}
+			return new Colonne(schede, json, stato, priorita, tipo, titoloMinuscolo, titoli);
+		}
+
+		private static <A> A togli(A da, int riga, A in) {
+			int righe = Array.getLength(in);
+			System.arraycopy(da, 0, in, 0, riga);
+			System.arraycopy(da, riga + 1, in, riga, righe - riga);
+			return in;
+		}
+
+		private static <A> A aggiungi(A da, int riga, A in) {
+			int righe = Array.getLength(da);
+			System.arraycopy(da, 0, in, 0, riga);
+			System.arraycopy(da, riga, in, riga + 1, righe - riga);
+			return in;
+		}
+
+		SchedeJson filtra(Stato stato, Priorita priorita, Tipo tipo, String ricerca, String ordinamento) {
+			long[] filtro = tutte(schede.length);
+			if (stato != null) {
+				restringi(filtro, this.stato, stato.ordinal());
+			}
+			if (priorita != null) {
+				restringi(filtro, this.priorita, priorita.ordinal());
+			}
+			if (tipo != null) {
+				restringi(filtro, this.tipo, tipo.ordinal());
+			}
+			if (ricerca != null && !ricerca.isEmpty()) {
+				restringiTitolo(filtro, ricerca.toLowerCase());
+			}
+
+			int trovate = 0;
+			for (long parola : filtro) {
+				trovate += Long.bitCount(parola);
+			}
+			int[] risultato = new int[trovate];
+			switch (ordinamento != null ? ordinamento.toLowerCase() : "") {
+			case "data_vecchio" -> inOrdineInverso(filtro, risultato);
+			case "titolo_az" -> perTitolo(filtro, false, risultato);
+			case "titolo_za" -> perTitolo(filtro, true, risultato);
+			case "priorita_alta" -> perPriorita(filtro, PRIORITA_ALTA, risultato);
+			case "priorita_bassa" -> perPriorita(filtro, PRIORITA_BASSA, risultato);
+			default -> inOrdine(filtro, risultato);
+			}
+			return new SchedeJson(schede, json, risultato);
+		}
+
+		private static long[] tutte(int righe) {
+			long[] filtro = new long[(righe + 63) >>> 6];
+			Arrays.fill(filtro, -1L);
+			if ((righe & 63) != 0) {
+				filtro[filtro.length - 1] = (1L << (righe & 63)) - 1;
+			}
+			return filtro;
+		}
+
+		private static void restringi(long[] filtro, byte[] colonna, int valore) {
+			for (int p = 0; p < filtro.length; p++) {
+				if (filtro[p] == 0) {
+					continue;
+				}
+				int base = p << 6;
+				int fine = Math.min(64, colonna.length - base);
+				long uguali = 0;
+				for (int b = 0; b < fine; b++) {
+					if (colonna[base + b] == valore) {
+						uguali |= 1L << b;
+					}
+				}
+				filtro[p] &= uguali;
+			}
+		}
+
+		private void restringiTitolo(long[] filtro, String ricerca) {
+			for (int p = 0; p < filtro.length; p++) {
+				for (long rimaste = filtro[p]; rimaste != 0; rimaste &= rimaste - 1) {
+					int b = Long.numberOfTrailingZeros(rimaste);
+					if (!titoloMinuscolo[(p << 6) + b].contains(ricerca)) {
+						filtro[p] &= ~(1L << b);
+					}
+				}
+			}
+		}
+
+		private void inOrdine(long[] filtro, int[] risultato) {
+			int k = 0;
+			for (int p = 0; p < filtro.length; p++) {
+				for (long rimaste = filtro[p]; rimaste != 0; rimaste &= rimaste - 1) {
+					risultato[k++] = (p << 6) + Long.numberOfTrailingZeros(rimaste);
+				}
+			}
+		}
+
+		private void inOrdineInverso(long[] filtro, int[] risultato) {
+			int k = 0;
+			for (int p = filtro.length - 1; p >= 0; p--) {
+				for (long rimaste = filtro[p]; rimaste != 0;) {
+					int b = 63 - Long.numberOfLeadingZeros(rimaste);
+					rimaste &= ~(1L << b);
+					risultato[k++] = (p << 6) + b;
+				}
+			}
+		}
+
+		// Con la riga nei bit bassi l'ordinamento dei long è stabile rispetto all'ordine per data, in
+		// entrambi i versi: a parità di titolo resta prima la più recente, come nel sort su List<Issue>
+		private void perTitolo(long[] filtro, boolean decrescente, int[] risultato) {
+			long[] chiavi = new long[risultato.length];
+			int k = 0;
+			for (int p = 0; p < filtro.length; p++) {
+				for (long rimaste = filtro[p]; rimaste != 0; rimaste &= rimaste - 1) {
+					int riga = (p << 6) + Long.numberOfTrailingZeros(rimaste);
+					int rango = decrescente ? rangoTitolo.length - 1 - rangoTitolo[riga] : rangoTitolo[riga];
+					chiavi[k++] = ((long) rango << 32) | riga;
+				}
+			}
+			Arrays.sort(chiavi);
+			for (int i = 0; i < chiavi.length; i++) {
+				risultato[i] = (int) chiavi[i];
+			}
+		}
+
+		// Anche priorita_bassa legge le righe in avanti: a parità di priorità resta prima la più recente
+		private void perPriorita(long[] filtro, byte[] ordine, int[] risultato) {
+			int k = 0;
+			for (byte valore : ordine) {
+				for (int p = 0; p < filtro.length && k < risultato.length; p++) {
+					for (long rimaste = filtro[p]; rimaste != 0; rimaste &= rimaste - 1) {
+						int riga = (p << 6) + Long.numberOfTrailingZeros(rimaste);
+						if (priorita[riga] == valore) {
+							risultato[k++] = riga;
+						}
+					}
+				}
+			}
+		}
+	}
+}
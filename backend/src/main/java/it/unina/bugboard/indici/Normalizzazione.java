@@ -0,0 +1,35 @@
+package it.unina.bugboard.indici;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Parole come le confrontano gli indici: minuscole senza accenti, separate da tutto ciò che non è
+// lettera o cifra ("Perché l'App" -> perche, l, app)
+final class Normalizzazione {
+
+	private Normalizzazione() {
+	}
+
+	static List<String> parole(String testo) {
+		List<String> parole = new ArrayList<>();
+		if (testo == null) {
+			return parole;
+		}
+		String normalizzato = Normalizer.normalize(testo, Normalizer.Form.NFD);
+		StringBuilder parola = new StringBuilder();
+		for (int i = 0; i <= normalizzato.length(); i++) {
+			char c = i < normalizzato.length() ? normalizzato.charAt(i) : ' ';
+			if (Character.getType(c) == Character.NON_SPACING_MARK) {
+				continue;
+			}
+			if (Character.isLetterOrDigit(c)) {
+				parola.append(Character.toLowerCase(c));
+			} else if (!parola.isEmpty()) {
+				parole.add(parola.toString());
+				parola.setLength(0);
+			}
+		}
+		return parole;
+	}
+}
@@ -0,0 +1,54 @@
+package it.unina.bugboard.indici;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Risultato di IstantaneaIssue.filtra: le righe scelte delle colonne, senza copiarle. Per il codice
+ * Java è una lista di schede; in HTTP SchedeJsonConverter la scrive come array JSON con i byte già
+ * serializzati di ogni scheda, senza passare da Jackson.
+ */
+public final class SchedeJson extends AbstractList<IstantaneaIssue.Scheda> implements RandomAccess {
+
+	private final IstantaneaIssue.Scheda[] schede;
+	private final byte[][] json;
+	private final int[] righe;
+
+	SchedeJson(IstantaneaIssue.Scheda[] schede, byte[][] json, int[] righe) {
+		this.schede = schede;
+		this.json = json;
+		this.righe = righe;
+	}
+
+	@Override
+	public IstantaneaIssue.Scheda get(int index) {
+		return schede[righe[index]];
+	}
+
+	@Override
+	public int size() {
+		return righe.length;
+	}
+
+	// Parentesi e virgole comprese
+	public long lunghezzaJson() {
+		long lunghezza = 2 + Math.max(0, righe.length - 1);
+		for (int riga : righe) {
+			lunghezza += json[riga].length;
+		}
+		return lunghezza;
+	}
+
+	public void scriviJson(OutputStream out) throws IOException {
+		out.write('[');
+		for (int i = 0; i < righe.length; i++) {
+			if (i > 0) {
+				out.write(',');
+			}
+			out.write(json[righe[i]]);
+		}
+		out.write(']');
+	}
+}
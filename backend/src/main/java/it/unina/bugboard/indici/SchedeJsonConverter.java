@@ -0,0 +1,46 @@
+package it.unina.bugboard.indici;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Prima dei converter di Jackson: per le SchedeJson in application/json scrive i byte già pronti,
+// con Content-Length. Gli altri formati restano ai rispettivi converter, che vedono una lista
+public class SchedeJsonConverter extends AbstractHttpMessageConverter<SchedeJson> {
+
+	public SchedeJsonConverter() {
+		super(MediaType.APPLICATION_JSON);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return SchedeJson.class == clazz;
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected SchedeJson readInternal(Class<? extends SchedeJson> clazz, HttpInputMessage inputMessage) {
+		throw new HttpMessageNotReadableException("SchedeJson è solo in uscita", inputMessage);
+	}
+
+	@Override
+	protected Long getContentLength(SchedeJson schede, MediaType contentType) {
+		return schede.lunghezzaJson();
+	}
+
+	@Override
+	protected void writeInternal(SchedeJson schede, HttpOutputMessage outputMessage) throws IOException {
+		OutputStream out = outputMessage.getBody();
+		schede.scriviJson(out);
+		out.flush();
+	}
+}
@@ -0,0 +1,136 @@
+package it.unina.bugboard.indici;
+
+import it.unina.bugboard.dao.IssueDAO;
+import it.unina.bugboard.dao.TestoIssue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tiene gli indici in memoria (IndiceDuplicati, IndiceTitoli, IstantaneaIssue) allineati alle
+ * issue attive. Al primo giro carica tutta la partizione attiva a lotti; poi applica le modifiche
+ * registrate in modifica_issue dal trigger tr_issue_modifica, da qualunque istanza provengano. Una
+ * sola lettura per giro serve tutti gli indici.
+ *
+ * datamodifica è l'inizio della transazione, che può diventare visibile anche molto dopo: ogni
+ * giro rilegge le modifiche da bugboard.indici.sovrapposizione prima dell'inizio del giro
+ * precedente. Riapplicarle non cambia gli indici, che saltano le issue rimaste uguali. Una
+ * transazione che diventa visibile oltre la sovrapposizione sfuggirebbe per sempre: ogni
+ * bugboard.indici.riallineamento un giro rilegge tutta la partizione attiva senza svuotare gli
+ * indici, e toglie le issue lette prima che non ci sono più.
+ */
+public class SincronizzazioneIndici {
+
+	private static final Logger log = LoggerFactory.getLogger(SincronizzazioneIndici.class);
+
+	private final IssueDAO issueDAO;
+	private final List<IndiceIssue> indici;
+	private final Parametri parametri;
+
+	private LocalDateTime letteDal;
+	private LocalDateTime ultimaRicostruzione;
+	private LocalDateTime ultimoRiallineamento;
+	private LocalDateTime ultimaPulizia;
+
+	public SincronizzazioneIndici(IssueDAO issueDAO, List<IndiceIssue> indici, Parametri parametri) {
+		this.issueDAO = issueDAO;
+		this.indici = indici;
+		this.parametri = parametri;
+	}
+
+	@Scheduled(fixedDelayString = "${bugboard.indici.intervallo-ms:1000}")
+	public void esegui() {
+		if (!parametri.abilitata()) {
+			return;
+		}
+		LocalDateTime ora = issueDAO.oraDatabase();
+		// Dopo una lunga assenza del database le modifiche più vecchie possono essere già state pulite
+		if (letteDal == null || letteDal.isBefore(ora.minus(parametri.conservazione()))) {
+			ricostruisci(ora);
+		} else if (ultimoRiallineamento.isBefore(ora.minus(parametri.riallineamento()))) {
+			riallinea(ora);
+		} else {
+			applicaModifiche(ora);
+		}
+		indici.forEach(IndiceIssue::pubblica);
+		letteDal = ora.minus(parametri.sovrapposizione());
+
+		if (ultimaPulizia == null || ultimaPulizia.isBefore(ora.minus(parametri.intervalloPulizia()))) {
+			issueDAO.eliminaModifichePrima(ora.minus(parametri.conservazione()));
+			ultimaPulizia = ora;
+		}
+	}
+
+	private void applicaModifiche(LocalDateTime ora) {
+		List<TestoIssue.Modificato> modifiche = issueDAO.findModificheDal(letteDal, parametri.caratteriDescrizione());
+		for (TestoIssue.Modificato modifica : modifiche) {
+			if (modifica.getIdIssue() == null && modifica.getDataModifica().isAfter(ultimaRicostruzione)) {
+				ricostruisci(ora);
+				return;
+			}
+		}
+		for (TestoIssue.Modificato modifica : modifiche) {
+			if (modifica.getIdIssue() == null) {
+				continue;
+			}
+			for (IndiceIssue indice : indici) {
+				if (modifica.getTitolo() == null) {
+					indice.rimuovi(modifica.getIdIssue());
+				} else {
+					indice.aggiorna(modifica);
+				}
+			}
+		}
+	}
+
+	private void ricostruisci(LocalDateTime ora) {
+		long inizio = System.nanoTime();
+		indici.forEach(IndiceIssue::svuota);
+		Set<Integer> attive = caricaAttive();
+		ultimaRicostruzione = ora;
+		ultimoRiallineamento = ora;
+		log.info("Indici delle issue costruiti: {} issue attive in {} ms", attive.size(),
+				Duration.ofNanos(System.nanoTime() - inizio).toMillis());
+	}
+
+	// Come ricostruisci, ma gli indici restano interrogabili. Le issue create dopo l'ultimo lotto hanno id
+	// più alti e non si toccano
+	private void riallinea(LocalDateTime ora) {
+		long inizio = System.nanoTime();
+		Set<Integer> attive = caricaAttive();
+		int ultima = attive.stream().mapToInt(Integer::intValue).max().orElse(0);
+		for (IndiceIssue indice : indici) {
+			indice.rimuoviSe(idIssue -> idIssue <= ultima && !attive.contains(idIssue));
+		}
+		ultimoRiallineamento = ora;
+		log.info("Indici delle issue riallineati: {} issue attive in {} ms", attive.size(),
+				Duration.ofNanos(System.nanoTime() - inizio).toMillis());
+	}
+
+	private Set<Integer> caricaAttive() {
+		Set<Integer> attive = new HashSet<>();
+		int ultimo = 0;
+		List<TestoIssue> lotto;
+		do {
+			lotto = issueDAO.findTestiAttiviDopo(ultimo, parametri.caratteriDescrizione(), parametri.lotto());
+			for (TestoIssue issue : lotto) {
+				for (IndiceIssue indice : indici) {
+					indice.aggiorna(issue);
+				}
+				ultimo = issue.getIdIssue();
+				attive.add(ultimo);
+			}
+		} while (lotto.size() == parametri.lotto());
+		return attive;
+	}
+
+	public record Parametri(boolean abilitata, int caratteriDescrizione, int lotto, Duration sovrapposizione,
+			Duration conservazione, Duration riallineamento, Duration intervalloPulizia) {
+	}
+}
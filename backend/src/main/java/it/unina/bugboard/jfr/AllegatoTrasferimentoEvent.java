@@ -0,0 +1,38 @@
+package it.unina.bugboard.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("it.unina.bugboard.AllegatoTrasferimento")
+@Label("Trasferimento allegato")
+@Description("Upload, download, anteprima o inserimento in uno ZIP di un allegato")
+@Category({ "BugBoard", "Allegati" })
+@StackTrace(false)
+public class AllegatoTrasferimentoEvent extends Event {
+
+	@Label("Operazione")
+	String operazione;
+
+	@Label("Id allegato")
+	int idAllegato;
+
+	@Label("Byte")
+	@DataAmount
+	long bytes;
+
+	public AllegatoTrasferimentoEvent(String operazione) {
+		this.operazione = operazione;
+		begin();
+	}
+
+	public void completa(Integer idAllegato, long bytes) {
+		this.idAllegato = idAllegato != null ? idAllegato : 0;
+		this.bytes = bytes;
+		commit();
+	}
+}
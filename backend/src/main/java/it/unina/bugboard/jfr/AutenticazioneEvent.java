@@ -0,0 +1,32 @@
+package it.unina.bugboard.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("it.unina.bugboard.Autenticazione")
+@Label("Autenticazione")
+@Description("Verifica di un token JWT o di una password BCrypt")
+@Category({ "BugBoard", "Sicurezza" })
+@StackTrace(false)
+public class AutenticazioneEvent extends Event {
+
+	@Label("Operazione")
+	String operazione;
+
+	@Label("Esito")
+	boolean esito;
+
+	public AutenticazioneEvent(String operazione) {
+		this.operazione = operazione;
+		begin();
+	}
+
+	public void completa(boolean esito) {
+		this.esito = esito;
+		commit();
+	}
+}
@@ -0,0 +1,110 @@
+package it.unina.bugboard.jfr;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Avvolge il DataSource in un proxy JDBC che emette uno {@link StatementSqlEvent} per ogni
+ * esecuzione. unwrap/isWrapperFor vengono delegati, quindi le metriche Hikari restano visibili.
+ * Il costo resta anche a registrazione spenta: ogni chiamata su Connection e Statement passa da
+ * un proxy JDK e da Method.invoke, e gli execute aggiungono un controllo isEnabled(). Con
+ * bugboard.jfr.statement-sql=false, letta all'avvio, il DataSource non viene avvolto.
+ */
+public class DataSourceJfrPostProcessor implements BeanPostProcessor, EnvironmentAware {
+
+	private static final String NOME_DATASOURCE = "dataSource";
+	private static final String ABILITATO = "bugboard.jfr.statement-sql";
+	private static final Set<String> METODI_CONNESSIONE = Set.of("prepareStatement", "prepareCall", "createStatement");
+
+	private Environment environment;
+
+	@Override
+	public void setEnvironment(Environment environment) {
+		this.environment = environment;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (NOME_DATASOURCE.equals(beanName) && bean instanceof DataSource dataSource
+				&& environment.getProperty(ABILITATO, Boolean.class, true)) {
+			return proxy(DataSource.class, dataSource, (target, method, args) -> {
+				Object risultato = invoca(target, method, args);
+				return risultato instanceof Connection connection ? proxyConnessione(connection) : risultato;
+			});
+		}
+		return bean;
+	}
+
+	private static Connection proxyConnessione(Connection connection) {
+		return proxy(Connection.class, connection, (target, method, args) -> {
+			Object risultato = invoca(target, method, args);
+			if (!METODI_CONNESSIONE.contains(method.getName()) || !(risultato instanceof Statement statement)) {
+				return risultato;
+			}
+			String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+			Class<? extends Statement> tipo = statement instanceof CallableStatement ? CallableStatement.class
+					: statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+			return proxyStatement(tipo, statement, sql);
+		});
+	}
+
+	private static <S extends Statement> S proxyStatement(Class<S> tipo, Statement statement, String sqlPreparato) {
+		return proxy(tipo, tipo.cast(statement), (target, method, args) -> {
+			if (!method.getName().startsWith("execute")) {
+				return invoca(target, method, args);
+			}
+			StatementSqlEvent evento = new StatementSqlEvent();
+			if (!evento.isEnabled()) {
+				return invoca(target, method, args);
+			}
+			evento.begin();
+			try {
+				return invoca(target, method, args);
+			} finally {
+				evento.end();
+				if (evento.shouldCommit()) {
+					evento.sql = sqlPreparato != null ? sqlPreparato
+							: args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+					evento.metodo = method.getName();
+					evento.commit();
+				}
+			}
+		});
+	}
+
+	@FunctionalInterface
+	private interface Intercettore<T> {
+		Object invoca(T target, Method method, Object[] args) throws Throwable;
+	}
+
+	private static <T> T proxy(Class<T> tipo, T target, Intercettore<T> intercettore) {
+		InvocationHandler handler = (proxy, method, args) -> switch (method.getName()) {
+		case "equals" -> proxy == args[0];
+		case "hashCode" -> System.identityHashCode(proxy);
+		case "toString" -> "JFR[" + target + "]";
+		default -> intercettore.invoca(target, method, args);
+		};
+		return tipo.cast(Proxy.newProxyInstance(DataSourceJfrPostProcessor.class.getClassLoader(),
+				new Class<?>[] { tipo }, handler));
+	}
+
+	private static Object invoca(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package it.unina.bugboard.jfr;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class JfrConfig implements WebMvcConfigurer {
+
+	@Bean
+	public static DataSourceJfrPostProcessor dataSourceJfrPostProcessor() {
+		return new DataSourceJfrPostProcessor();
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new RichiestaJfrInterceptor()).addPathPatterns("/api/**");
+	}
+}
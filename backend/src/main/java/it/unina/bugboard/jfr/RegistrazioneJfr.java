@@ -0,0 +1,128 @@
+package it.unina.bugboard.jfr;
+
+import it.unina.bugboard.exception.InvalidFieldException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Gestisce un'unica registrazione JFR a buffer circolare (limitata per età e dimensione)
+ * avviabile, interrompibile e scaricabile a caldo dall'endpoint di profilazione.
+ */
+@Component
+public class RegistrazioneJfr {
+
+	private static final String NOME = "bugboard";
+	private static final Duration DURATA_MASSIMA = Duration.ofHours(6);
+	private static final long DIMENSIONE_MASSIMA = 1024L * 1024 * 1024;
+
+	private final String profilo;
+	private final boolean avvioAutomatico;
+	private final Duration etaPredefinita;
+	private final long dimensionePredefinita;
+
+	private Recording registrazione;
+
+	public RegistrazioneJfr(@Value("${bugboard.jfr.profilo:default}") String profilo,
+			@Value("${bugboard.jfr.avvio-automatico:false}") boolean avvioAutomatico,
+			@Value("${bugboard.jfr.eta-massima-minuti:30}") long etaMassimaMinuti,
+			@Value("${bugboard.jfr.dimensione-massima-mb:100}") long dimensioneMassimaMB) {
+		this.profilo = profilo;
+		this.avvioAutomatico = avvioAutomatico;
+		this.etaPredefinita = Duration.ofMinutes(etaMassimaMinuti);
+		this.dimensionePredefinita = dimensioneMassimaMB * 1024 * 1024;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void avviaSeConfigurata() {
+		if (avvioAutomatico) {
+			avvia(null, null);
+		}
+	}
+
+	public synchronized Map<String, Object> avvia(Long etaMassimaMinuti, Long dimensioneMassimaMB) {
+		if (attiva()) {
+			throw new InvalidFieldException("Registrazione JFR già in corso");
+		}
+		Duration eta = etaMassimaMinuti != null ? Duration.ofMinutes(etaMassimaMinuti) : etaPredefinita;
+		long dimensione = dimensioneMassimaMB != null ? dimensioneMassimaMB * 1024 * 1024 : dimensionePredefinita;
+		if (eta.isNegative() || eta.isZero() || eta.compareTo(DURATA_MASSIMA) > 0) {
+			throw new InvalidFieldException("Età massima della registrazione non valida (1-" + DURATA_MASSIMA.toMinutes() + " minuti)");
+		}
+		if (dimensione <= 0 || dimensione > DIMENSIONE_MASSIMA) {
+			throw new InvalidFieldException("Dimensione massima della registrazione non valida (1-1024 MB)");
+		}
+
+		Recording nuova = new Recording(configurazione());
+		nuova.setName(NOME);
+		nuova.setToDisk(true);
+		nuova.setMaxAge(eta);
+		nuova.setMaxSize(dimensione);
+		nuova.enable(RichiestaEvent.class);
+		nuova.enable(StatementSqlEvent.class);
+		nuova.enable(AllegatoTrasferimentoEvent.class);
+		nuova.enable(AutenticazioneEvent.class);
+		nuova.start();
+		registrazione = nuova;
+		return stato();
+	}
+
+	public synchronized Map<String, Object> ferma() {
+		if (!attiva()) {
+			throw new InvalidFieldException("Nessuna registrazione JFR in corso");
+		}
+		registrazione.close();
+		registrazione = null;
+		return stato();
+	}
+
+	/**
+	 * Scrive su un file temporaneo i dati raccolti finora, senza interrompere la registrazione.
+	 */
+	public synchronized Path dump() throws IOException {
+		if (!attiva()) {
+			throw new InvalidFieldException("Nessuna registrazione JFR in corso");
+		}
+		Path file = Files.createTempFile("bugboard-", ".jfr");
+		registrazione.dump(file);
+		return file;
+	}
+
+	public synchronized Map<String, Object> stato() {
+		Map<String, Object> stato = new LinkedHashMap<>();
+		stato.put("attiva", attiva());
+		if (attiva()) {
+			stato.put("avviata", registrazione.getStartTime());
+			stato.put("etaMassimaMinuti", registrazione.getMaxAge().toMinutes());
+			stato.put("dimensioneMassimaMB", registrazione.getMaxSize() / (1024 * 1024));
+			stato.put("profilo", profilo);
+			stato.put("ora", Instant.now());
+		}
+		return stato;
+	}
+
+	private boolean attiva() {
+		return registrazione != null && registrazione.getState() == RecordingState.RUNNING;
+	}
+
+	private Configuration configurazione() {
+		try {
+			return Configuration.getConfiguration(profilo);
+		} catch (IOException | ParseException e) {
+			throw new IllegalStateException("Profilo JFR non disponibile: " + profilo, e);
+		}
+	}
+}
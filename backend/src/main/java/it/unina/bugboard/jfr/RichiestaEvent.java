@@ -0,0 +1,25 @@
+package it.unina.bugboard.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("it.unina.bugboard.Richiesta")
+@Label("Richiesta HTTP")
+@Description("Invocazione di un endpoint dei controller")
+@Category({ "BugBoard", "Web" })
+@StackTrace(false)
+public class RichiestaEvent extends Event {
+
+	@Label("Metodo")
+	String metodo;
+
+	@Label("Endpoint")
+	String endpoint;
+
+	@Label("Status")
+	int status;
+}
@@ -0,0 +1,39 @@
+package it.unina.bugboard.jfr;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Apre un {@link RichiestaEvent} all'ingresso nel controller e lo chiude a risposta completata.
+ */
+public class RichiestaJfrInterceptor implements HandlerInterceptor {
+
+	private static final String ATTRIBUTO_EVENTO = RichiestaJfrInterceptor.class.getName() + ".evento";
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		RichiestaEvent evento = new RichiestaEvent();
+		if (evento.isEnabled()) {
+			evento.begin();
+			request.setAttribute(ATTRIBUTO_EVENTO, evento);
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		if (request.getAttribute(ATTRIBUTO_EVENTO) instanceof RichiestaEvent evento) {
+			evento.end();
+			if (evento.shouldCommit()) {
+				Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+				evento.metodo = request.getMethod();
+				evento.endpoint = pattern != null ? pattern.toString() : request.getRequestURI();
+				evento.status = response.getStatus();
+				evento.commit();
+			}
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package it.unina.bugboard.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("it.unina.bugboard.StatementSql")
+@Label("Statement SQL")
+@Description("Esecuzione JDBC di uno statement generato da Hibernate")
+@Category({ "BugBoard", "Database" })
+@StackTrace(false)
+public class StatementSqlEvent extends Event {
+
+	@Label("SQL")
+	String sql;
+
+	@Label("Metodo JDBC")
+	String metodo;
+}
@@ -0,0 +1,26 @@
+package it.unina.bugboard.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Conta gli statement SQL preparati da Hibernate sul thread corrente.
+ * Il conteggio viene azzerato e letto da {@link MetricheRichiestaInterceptor} per ogni richiesta.
+ */
+public class ContatoreStatementJpa implements StatementInspector {
+
+	private static final ThreadLocal<int[]> CONTATORE = ThreadLocal.withInitial(() -> new int[1]);
+
+	@Override
+	public String inspect(String sql) {
+		CONTATORE.get()[0]++;
+		return sql;
+	}
+
+	public static void azzera() {
+		CONTATORE.get()[0] = 0;
+	}
+
+	public static int letti() {
+		return CONTATORE.get()[0];
+	}
+}
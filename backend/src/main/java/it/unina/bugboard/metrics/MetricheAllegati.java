@@ -0,0 +1,47 @@
+package it.unina.bugboard.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Byte degli allegati in ingresso (upload) e in uscita (download/anteprima/zip).
+ */
+@Component
+public class MetricheAllegati {
+
+	private static final String NOME = "bugboard.allegati.bytes";
+
+	private final Counter caricati;
+	private final Counter scaricati;
+	private final Counter anteprime;
+	private final Counter archivi;
+
+	public MetricheAllegati(MeterRegistry meterRegistry) {
+		this.caricati = contatore(meterRegistry, "in", "upload");
+		this.scaricati = contatore(meterRegistry, "out", "download");
+		this.anteprime = contatore(meterRegistry, "out", "preview");
+		this.archivi = contatore(meterRegistry, "out", "zip");
+	}
+
+	public void registraUpload(long bytes) {
+		caricati.increment(bytes);
+	}
+
+	public void registraDownload(long bytes) {
+		scaricati.increment(bytes);
+	}
+
+	public void registraAnteprima(long bytes) {
+		anteprime.increment(bytes);
+	}
+
+	public void registraZip(long bytes) {
+		archivi.increment(bytes);
+	}
+
+	private static Counter contatore(MeterRegistry meterRegistry, String direzione, String operazione) {
+		return Counter.builder(NOME).description("Byte di allegati trasferiti").baseUnit("bytes")
+				.tag("direzione", direzione).tag("operazione", operazione).register(meterRegistry);
+	}
+}
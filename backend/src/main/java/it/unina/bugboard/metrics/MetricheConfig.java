@@ -0,0 +1,29 @@
+package it.unina.bugboard.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class MetricheConfig implements WebMvcConfigurer {
+
+	private final MeterRegistry meterRegistry;
+
+	public MetricheConfig(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer contatoreStatementCustomizer() {
+		return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new ContatoreStatementJpa());
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new MetricheRichiestaInterceptor(meterRegistry)).addPathPatterns("/api/**");
+	}
+}
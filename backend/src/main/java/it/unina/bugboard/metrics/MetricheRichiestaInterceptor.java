@@ -0,0 +1,51 @@
+package it.unina.bugboard.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Registra il numero di statement JPA eseguiti da ogni richiesta, per endpoint.
+ * Le risposte asincrone (StreamingResponseBody di download, anteprima e ZIP) passano due volte per
+ * l'interceptor: il conteggio del primo dispatch viene salvato nella richiesta e sommato a quello del
+ * dispatch asincrono, che registra il totale. Gli statement eseguiti mentre il corpo viene scritto
+ * girano su un altro thread e non sono contati.
+ */
+public class MetricheRichiestaInterceptor implements AsyncHandlerInterceptor {
+
+	private static final String STATEMENT_PRECEDENTI = MetricheRichiestaInterceptor.class.getName() + ".statement";
+
+	private final MeterRegistry meterRegistry;
+
+	public MetricheRichiestaInterceptor(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		ContatoreStatementJpa.azzera();
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		request.setAttribute(STATEMENT_PRECEDENTI, ContatoreStatementJpa.letti());
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		int precedenti = request.getAttribute(STATEMENT_PRECEDENTI) instanceof Integer n ? n : 0;
+		DistributionSummary.builder("bugboard.jpa.statements")
+				.description("Statement SQL eseguiti da Hibernate per richiesta")
+				.tag("method", request.getMethod())
+				.tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+				.register(meterRegistry)
+				.record(precedenti + ContatoreStatementJpa.letti());
+	}
+}
@@ -30,7 +30,7 @@ public class Allegato {
 
 	@Lob
 	@Basic(fetch = FetchType.LAZY)
-	@Column(name = "filedata", nullable = false)
+	@Column(name = "filedata")
 	@JdbcTypeCode(SqlTypes.VARBINARY) 
 	@JsonIgnore
 	private byte[] fileData;
@@ -38,6 +38,15 @@ public class Allegato {
 	@Column(name = "datacaricamento", nullable = false)
 	private LocalDate dataCaricamento;
 
+	// Contenuto su object storage invece che in fileData (vedi ArchivioOggetti)
+	@Column(name = "chiaveoggetto", length = 512)
+	private String chiaveOggetto;
+
+	// Utente che ha caricato il file, per la quota per utente (vedi QuoteAllegati); l'esistenza è
+	// verificata dalla FK
+	@Column(name = "idcaricatore")
+	private Integer idCaricatore;
+
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "idissue", nullable = false, referencedColumnName = "idissue")
 	@OnDelete(action = OnDeleteAction.CASCADE)
@@ -58,6 +67,23 @@ public class Allegato {
 		setIssue(issue);
 	}
 
+	public Allegato(String nomeFile, String tipoFile, Integer dimensione, String chiaveOggetto, Issue issue) {
+		this();
+		setNomeFile(nomeFile);
+		setTipoFile(tipoFile);
+		setDimensione(dimensione);
+		setChiaveOggetto(chiaveOggetto);
+		setIssue(issue);
+	}
+
+	public Integer getIdCaricatore() {
+		return idCaricatore;
+	}
+
+	public void setIdCaricatore(Integer idCaricatore) {
+		this.idCaricatore = idCaricatore;
+	}
+
 	public Integer getIdAllegato() {
 		return idAllegato;
 	}
@@ -125,4 +151,14 @@ public class Allegato {
 			throw new InvalidFieldException("L'issue associato non può essere null");
 		this.issue = issue;
 	}
-}
\ No newline at end of file
+
+	public String getChiaveOggetto() {
+		return chiaveOggetto;
+	}
+
+	public void setChiaveOggetto(String chiaveOggetto) {
+		if (chiaveOggetto == null || chiaveOggetto.isBlank())
+			throw new InvalidFieldException("La chiave dell'oggetto non può essere vuota");
+		this.chiaveOggetto = chiaveOggetto;
+	}
+}
@@ -9,7 +9,7 @@ import it.unina.bugboard.exception.InvalidFieldException;
 
 
 @Entity
-@Table(name = "issue")
+@Table(name = "issue", uniqueConstraints = @UniqueConstraint(name = "uk_issue_titolo", columnNames = "titolo"))
 public class Issue {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -43,6 +43,9 @@ public class Issue {
 	@Column(name = "datacreazione", nullable = false)
 	private LocalDateTime dataCreazione;
 
+	@Column(name = "datachiusura")
+	private LocalDateTime dataChiusura;
+
 	@ManyToOne
 	@JoinColumn(name = "idcreatore")
 	private Utenza creatore;
@@ -116,6 +119,10 @@ public class Issue {
 	public void setStato(Stato stato) {
 		if (stato == null)
 			throw new InvalidFieldException("Lo stato non può essere null");
+		if (stato != Stato.Done)
+			this.dataChiusura = null;
+		else if (this.stato != Stato.Done)
+			this.dataChiusura = LocalDateTime.now();
 		this.stato = stato;
 	}
 
@@ -157,6 +164,10 @@ public class Issue {
 		this.dataCreazione = dataCreazione;
 	}
 
+	public LocalDateTime getDataChiusura() {
+		return dataChiusura;
+	}
+
 	public Utenza getCreatore() {
 		return creatore;
 	}
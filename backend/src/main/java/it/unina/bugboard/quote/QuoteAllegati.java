@@ -0,0 +1,172 @@
+package it.unina.bugboard.quote;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.Occupazione;
+import it.unina.bugboard.exception.InvalidFieldException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Quote di spazio degli allegati per issue, per utente caricatore e globale, verificate sui
+ * contatori di occupazione_allegati senza aggregare gli allegati. Una quota a 0 non è applicata.
+ *
+ * {@link #inserisci} blocca i contatori degli ambiti con una quota nella stessa transazione
+ * dell'insert: due caricamenti concorrenti sulla stessa issue non possono superarla insieme.
+ * {@link #verifica} legge senza bloccare, per rifiutare un file prima di riceverne i byte.
+ */
+public class QuoteAllegati {
+
+	public static final String GLOBALE = "globale";
+	public static final String ISSUE = "issue";
+	public static final String UTENTE = "utente";
+
+	private final AllegatoDAO allegatoDAO;
+	private final TransactionTemplate transactionTemplate;
+	private final Parametri parametri;
+
+	public QuoteAllegati(AllegatoDAO allegatoDAO, TransactionTemplate transactionTemplate, Parametri parametri) {
+		this.allegatoDAO = allegatoDAO;
+		this.transactionTemplate = transactionTemplate;
+		this.parametri = parametri;
+	}
+
+	public void verifica(Integer idIssue, Integer idCaricatore, long byteNuovi) {
+		Ambiti ambiti = ambitiConQuota(idIssue, idCaricatore);
+		if (!ambiti.isEmpty()) {
+			verificaSpazio(allegatoDAO.findOccupazioni(ambiti.nomi(), ambiti.id()), ambiti, byteNuovi);
+		}
+	}
+
+	/**
+	 * Esegue l'inserimento se c'è spazio per byteNuovi in tutti gli ambiti, altrimenti lancia
+	 * InvalidFieldException senza eseguirlo. Partecipa alla transazione in corso, se c'è.
+	 */
+	public <T> T inserisci(Integer idIssue, Integer idCaricatore, long byteNuovi, Supplier<T> inserimento) {
+		Ambiti ambiti = ambitiConQuota(idIssue, idCaricatore);
+		if (ambiti.isEmpty()) {
+			return transactionTemplate.execute(status -> inserimento.get());
+		}
+		return transactionTemplate.execute(status -> {
+			// Il contatore deve esistere per poterlo bloccare: la prima issue non fa eccezione
+			allegatoDAO.creaOccupazioni(ambiti.nomi(), ambiti.id());
+			verificaSpazio(allegatoDAO.bloccaOccupazioni(ambiti.nomi(), ambiti.id()), ambiti, byteNuovi);
+			return inserimento.get();
+		});
+	}
+
+	/**
+	 * Occupazione e quota di ciascun ambito richiesto; idIssue e idCaricatore possono essere null.
+	 */
+	public Map<String, Map<String, Object>> riepilogo(Integer idIssue, Integer idCaricatore) {
+		Ambiti ambiti = new Ambiti();
+		ambiti.aggiungi(GLOBALE, 0, parametri.quotaGlobale());
+		if (idIssue != null) {
+			ambiti.aggiungi(ISSUE, idIssue, parametri.quotaIssue());
+		}
+		if (idCaricatore != null) {
+			ambiti.aggiungi(UTENTE, idCaricatore, parametri.quotaUtente());
+		}
+		Map<String, Occupazione> perAmbito = new HashMap<>();
+		for (Occupazione o : allegatoDAO.findOccupazioni(ambiti.nomi(), ambiti.id())) {
+			perAmbito.put(o.getAmbito(), o);
+		}
+
+		Map<String, Map<String, Object>> riepilogo = new HashMap<>();
+		for (int i = 0; i < ambiti.size(); i++) {
+			Occupazione o = perAmbito.get(ambiti.nome(i));
+			Map<String, Object> voce = new HashMap<>();
+			voce.put("id", ambiti.idAmbito(i));
+			voce.put("numeroAllegati", o != null ? o.getNumero() : 0L);
+			voce.put("dimensioneTotaleBytes", o != null ? o.getDimensione() : 0L);
+			voce.put("quotaBytes", ambiti.quota(i));
+			riepilogo.put(ambiti.nome(i), voce);
+		}
+		return riepilogo;
+	}
+
+	private Ambiti ambitiConQuota(Integer idIssue, Integer idCaricatore) {
+		Ambiti ambiti = new Ambiti();
+		if (parametri.quotaGlobale() > 0) {
+			ambiti.aggiungi(GLOBALE, 0, parametri.quotaGlobale());
+		}
+		if (parametri.quotaIssue() > 0) {
+			ambiti.aggiungi(ISSUE, idIssue, parametri.quotaIssue());
+		}
+		if (parametri.quotaUtente() > 0 && idCaricatore != null) {
+			ambiti.aggiungi(UTENTE, idCaricatore, parametri.quotaUtente());
+		}
+		return ambiti;
+	}
+
+	private static void verificaSpazio(List<Occupazione> occupazioni, Ambiti ambiti, long byteNuovi) {
+		Map<String, Long> occupati = new HashMap<>();
+		for (Occupazione o : occupazioni) {
+			occupati.put(o.getAmbito(), o.getDimensione());
+		}
+		for (int i = 0; i < ambiti.size(); i++) {
+			long occupato = occupati.getOrDefault(ambiti.nome(i), 0L);
+			if (occupato + byteNuovi > ambiti.quota(i)) {
+				throw new InvalidFieldException(String.format("Quota allegati %s superata: %.1fMB occupati di %.1fMB",
+						descrizione(ambiti.nome(i)), occupato / (1024.0 * 1024.0), ambiti.quota(i) / (1024.0 * 1024.0)));
+			}
+		}
+	}
+
+	private static String descrizione(String ambito) {
+		return switch (ambito) {
+		case ISSUE -> "dell'issue";
+		case UTENTE -> "dell'utente";
+		default -> "del sistema";
+		};
+	}
+
+	// Array paralleli come li vogliono le query native
+	private static final class Ambiti {
+
+		private final List<String> nomi = new ArrayList<>(3);
+		private final List<Integer> id = new ArrayList<>(3);
+		private final List<Long> quote = new ArrayList<>(3);
+
+		void aggiungi(String nome, Integer idAmbito, long quota) {
+			nomi.add(nome);
+			id.add(idAmbito);
+			quote.add(quota);
+		}
+
+		boolean isEmpty() {
+			return nomi.isEmpty();
+		}
+
+		int size() {
+			return nomi.size();
+		}
+
+		String nome(int i) {
+			return nomi.get(i);
+		}
+
+		Integer idAmbito(int i) {
+			return id.get(i);
+		}
+
+		long quota(int i) {
+			return quote.get(i);
+		}
+
+		String[] nomi() {
+			return nomi.toArray(String[]::new);
+		}
+
+		Integer[] id() {
+			return id.toArray(Integer[]::new);
+		}
+	}
+
+	public record Parametri(long quotaIssue, long quotaUtente, long quotaGlobale) {
+	}
+}
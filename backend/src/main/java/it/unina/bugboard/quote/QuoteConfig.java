@@ -0,0 +1,33 @@
+package it.unina.bugboard.quote;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+@Configuration
+public class QuoteConfig {
+
+	// Una quota a 0 non è applicata
+	@Bean
+	public QuoteAllegati quoteAllegati(AllegatoDAO allegatoDAO, PlatformTransactionManager transactionManager,
+			@Value("${bugboard.quote.issue:0}") DataSize quotaIssue,
+			@Value("${bugboard.quote.utente:0}") DataSize quotaUtente,
+			@Value("${bugboard.quote.globale:0}") DataSize quotaGlobale) {
+		QuoteAllegati.Parametri parametri = new QuoteAllegati.Parametri(quotaIssue.toBytes(), quotaUtente.toBytes(),
+				quotaGlobale.toBytes());
+		return new QuoteAllegati(allegatoDAO, new TransactionTemplate(transactionManager), parametri);
+	}
+
+	@Bean
+	public RiconciliazioneOccupazione riconciliazioneOccupazione(AllegatoDAO allegatoDAO,
+			PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+			@Value("${bugboard.quote.lotto:5000}") int lotto) {
+		return new RiconciliazioneOccupazione(allegatoDAO, new TransactionTemplate(transactionManager), lotto,
+				meterRegistry);
+	}
+}
@@ -0,0 +1,89 @@
+package it.unina.bugboard.quote;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Ricalcola dagli allegati i contatori di occupazione_allegati e corregge quelli che si sono
+ * discostati (es. modifiche fatte a mano sul database con i trigger disabilitati).
+ *
+ * Lavora per intervalli di bugboard.quote.lotto id, una transazione ciascuno: i contatori
+ * dell'intervallo vengono bloccati prima del ricalcolo, quindi un caricamento concorrente
+ * attende la fine del lotto invece di andare perso. Il totale globale viene ricalcolato per
+ * ultimo, come somma dei contatori delle issue.
+ */
+public class RiconciliazioneOccupazione {
+
+	private static final Logger log = LoggerFactory.getLogger(RiconciliazioneOccupazione.class);
+
+	private final AllegatoDAO allegatoDAO;
+	private final TransactionTemplate transactionTemplate;
+	private final int lotto;
+	private final Counter correzioni;
+
+	public RiconciliazioneOccupazione(AllegatoDAO allegatoDAO, TransactionTemplate transactionTemplate, int lotto,
+			MeterRegistry meterRegistry) {
+		this.allegatoDAO = allegatoDAO;
+		this.transactionTemplate = transactionTemplate;
+		this.lotto = lotto;
+		this.correzioni = Counter.builder("bugboard.occupazione.correzioni")
+				.description("Contatori di occupazione degli allegati corretti dalla riconciliazione")
+				.register(meterRegistry);
+	}
+
+	@Scheduled(cron = "${bugboard.quote.riconciliazione-cron:0 30 3 * * *}")
+	public void esegui() {
+		riconcilia();
+	}
+
+	// Numero di contatori corretti
+	int riconcilia() {
+		int corretti = aIntervalli(QuoteAllegati.ISSUE, allegatoDAO.findMaxIdIssueConAllegati(),
+				(da, a) -> allegatoDAO.riconciliaOccupazioneIssue(da, a));
+		corretti += aIntervalli(QuoteAllegati.UTENTE, allegatoDAO.findMaxIdCaricatore(),
+				(da, a) -> allegatoDAO.riconciliaOccupazioneUtenti(da, a));
+		corretti += inTransazione(() -> {
+			allegatoDAO.bloccaOccupazioniIntervallo(QuoteAllegati.GLOBALE, 0, 0);
+			return allegatoDAO.riconciliaOccupazioneGlobale();
+		});
+
+		correzioni.increment(corretti);
+		if (corretti > 0) {
+			log.warn("Riconciliazione occupazione allegati: {} contatori corretti", corretti);
+		}
+		return corretti;
+	}
+
+	private int aIntervalli(String ambito, Integer idMassimo, Intervallo riconcilia) {
+		if (idMassimo == null) {
+			return 0;
+		}
+		int corretti = 0;
+		for (long da = 1; da <= idMassimo; da += lotto) {
+			int inizio = (int) da;
+			int fine = (int) Math.min(da + lotto - 1, idMassimo);
+			corretti += inTransazione(() -> {
+				allegatoDAO.bloccaOccupazioniIntervallo(ambito, inizio, fine);
+				return riconcilia.esegui(inizio, fine);
+			});
+		}
+		return corretti;
+	}
+
+	private int inTransazione(IntSupplier lavoro) {
+		Integer righe = transactionTemplate.execute(status -> lavoro.getAsInt());
+		return righe != null ? righe : 0;
+	}
+
+	@FunctionalInterface
+	private interface Intervallo {
+		int esegui(int da, int a);
+	}
+}
@@ -0,0 +1,73 @@
+package it.unina.bugboard.replica;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-your-writes: dopo il commit di una transazione di scrittura, il client che l'ha
+ * eseguita legge dal primario per bugboard.replica.finestra-lettura-scrittura-ms.
+ * Il client è identificato dall'header Authorization, o dall'indirizzo remoto se assente.
+ */
+public class FinestraLetturaScrittura implements TransactionExecutionListener {
+
+	private static final String AUTHORIZATION = "Authorization";
+
+	private final long durataNanos;
+	private final Map<String, Long> scadenze = new ConcurrentHashMap<>();
+
+	public FinestraLetturaScrittura(Duration durata) {
+		this.durataNanos = durata.toNanos();
+	}
+
+	@Override
+	public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+		if (commitFailure != null || transaction.isReadOnly() || !transaction.isNewTransaction()) {
+			return;
+		}
+		String cliente = clienteCorrente();
+		if (cliente != null) {
+			scadenze.put(cliente, System.nanoTime() + durataNanos);
+		}
+	}
+
+	public boolean attiva() {
+		String cliente = clienteCorrente();
+		if (cliente == null) {
+			return false;
+		}
+		Long scadenza = scadenze.get(cliente);
+		if (scadenza == null) {
+			return false;
+		}
+		if (System.nanoTime() - scadenza < 0) {
+			return true;
+		}
+		scadenze.remove(cliente, scadenza);
+		return false;
+	}
+
+	public void rimuoviScadute() {
+		long ora = System.nanoTime();
+		scadenze.values().removeIf(scadenza -> ora - scadenza >= 0);
+	}
+
+	int clientiAttivi() {
+		return scadenze.size();
+	}
+
+	private static String clienteCorrente() {
+		if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributi)) {
+			return null;
+		}
+		HttpServletRequest request = attributi.getRequest();
+		String authorization = request.getHeader(AUTHORIZATION);
+		return authorization != null && !authorization.isBlank() ? authorization : request.getRemoteAddr();
+	}
+}
@@ -0,0 +1,97 @@
+package it.unina.bugboard.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Il DataSource "dataSource" è un LazyConnectionDataSourceProxy: la connessione fisica viene presa
+ * al primo statement, quando il flag read-only della transazione è già noto, dal primario o dal
+ * {@link SelettoreReplica}. Registrata sempre: bugboard.replica.urls è letta all'avvio e, se vuota,
+ * il selettore non ha repliche e restituisce connessioni del primario.
+ */
+@Configuration
+@EnableScheduling
+public class ReplicaConfig {
+
+	private static final long TIMEOUT_CONNESSIONE_REPLICA_MS = 2000;
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource dataSourcePrimario(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primario");
+		return dataSource;
+	}
+
+	@Bean
+	public FinestraLetturaScrittura finestraLetturaScrittura(
+			@Value("${bugboard.replica.finestra-lettura-scrittura-ms:5000}") long durataMs) {
+		return new FinestraLetturaScrittura(Duration.ofMillis(durataMs));
+	}
+
+	@Bean
+	public SelettoreReplica selettoreReplica(HikariDataSource dataSourcePrimario, FinestraLetturaScrittura finestra,
+			MeterRegistry meterRegistry, DataSourceProperties properties,
+			@Value("${bugboard.replica.urls:}") List<String> urls,
+			@Value("${bugboard.replica.username:}") String username,
+			@Value("${bugboard.replica.password:}") String password,
+			@Value("${bugboard.replica.pool-massimo:10}") int poolMassimo,
+			@Value("${bugboard.replica.ritardo-massimo:1MB}") DataSize ritardoMassimo) {
+		List<SelettoreReplica.Replica> repliche = new ArrayList<>();
+		for (String url : urls) {
+			if (url.isBlank()) {
+				continue;
+			}
+			String nome = "replica-" + (repliche.size() + 1);
+			HikariDataSource pool = new HikariDataSource();
+			pool.setPoolName(nome);
+			pool.setJdbcUrl(url.trim());
+			pool.setUsername(username.isBlank() ? properties.determineUsername() : username);
+			pool.setPassword(password.isBlank() ? properties.determinePassword() : password);
+			pool.setReadOnly(true);
+			pool.setMaximumPoolSize(poolMassimo);
+			pool.setConnectionTimeout(TIMEOUT_CONNESSIONE_REPLICA_MS);
+			// Una replica spenta all'avvio non deve bloccare l'applicazione
+			pool.setInitializationFailTimeout(-1);
+			pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+			SelettoreReplica.Replica replica = new SelettoreReplica.Replica(nome, pool);
+			Gauge.builder("bugboard.replica.disponibile", replica, r -> r.isDisponibile() ? 1 : 0)
+					.tag("replica", nome).register(meterRegistry);
+			Gauge.builder("bugboard.replica.ritardo", replica, SelettoreReplica.Replica::getRitardoBytes)
+					.tag("replica", nome).baseUnit("bytes").register(meterRegistry);
+			repliche.add(replica);
+		}
+		Gauge.builder("bugboard.replica.finestra.clienti", finestra, FinestraLetturaScrittura::clientiAttivi)
+				.register(meterRegistry);
+		return new SelettoreReplica(dataSourcePrimario, repliche, finestra, ritardoMassimo.toBytes());
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(HikariDataSource dataSourcePrimario, SelettoreReplica selettoreReplica) {
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(dataSourcePrimario);
+		dataSource.setReadOnlyDataSource(selettoreReplica);
+		// Evita di aprire una connessione all'avvio solo per leggere i default del driver
+		dataSource.setDefaultAutoCommit(true);
+		dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		return dataSource;
+	}
+}
@@ -0,0 +1,170 @@
+package it.unina.bugboard.replica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource usato per le transazioni read-only: distribuisce le connessioni in round-robin
+ * sulle repliche disponibili e ripiega sul primario se nessuna lo è, se una replica rifiuta
+ * la connessione o se il client corrente ha appena scritto (vedi {@link FinestraLetturaScrittura}).
+ */
+public class SelettoreReplica extends AbstractDataSource implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(SelettoreReplica.class);
+	private static final int TIMEOUT_VERIFICA_SECONDI = 2;
+
+	// Il ritardo è misurato in byte di WAL e non in tempo: a primario fermo il timestamp dell'ultima
+	// transazione riprodotta invecchia anche su una replica allineata
+	private static final String QUERY_LSN_PRIMARIO = "SELECT pg_current_wal_lsn()::text";
+	private static final String QUERY_RITARDO = "SELECT pg_wal_lsn_diff(CAST(? AS pg_lsn), pg_last_wal_replay_lsn())";
+
+	private final DataSource primario;
+	private final List<Replica> repliche;
+	private final FinestraLetturaScrittura finestra;
+	private final long ritardoMassimoBytes;
+	private final AtomicInteger prossima = new AtomicInteger();
+
+	public SelettoreReplica(DataSource primario, List<Replica> repliche, FinestraLetturaScrittura finestra,
+			long ritardoMassimoBytes) {
+		this.primario = primario;
+		this.repliche = List.copyOf(repliche);
+		this.finestra = finestra;
+		this.ritardoMassimoBytes = ritardoMassimoBytes;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (repliche.isEmpty() || finestra.attiva()) {
+			return primario.getConnection();
+		}
+		int numero = repliche.size();
+		int inizio = Math.floorMod(prossima.getAndIncrement(), numero);
+		for (int i = 0; i < numero; i++) {
+			Replica replica = repliche.get((inizio + i) % numero);
+			if (!replica.isDisponibile()) {
+				continue;
+			}
+			try {
+				return replica.dataSource().getConnection();
+			} catch (SQLException e) {
+				aggiorna(replica, false, e.getMessage());
+			}
+		}
+		return primario.getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("Le credenziali sono fissate dai pool delle repliche");
+	}
+
+	@Scheduled(fixedDelayString = "${bugboard.replica.intervallo-verifica-ms:5000}")
+	public void verificaRepliche() {
+		if (!repliche.isEmpty()) {
+			String lsnPrimario = lsnPrimario();
+			for (Replica replica : repliche) {
+				verifica(replica, lsnPrimario);
+			}
+		}
+		finestra.rimuoviScadute();
+	}
+
+	public List<Replica> getRepliche() {
+		return repliche;
+	}
+
+	@Override
+	public void close() throws Exception {
+		for (Replica replica : repliche) {
+			if (replica.dataSource() instanceof AutoCloseable pool) {
+				pool.close();
+			}
+		}
+	}
+
+	// Con il primario irraggiungibile le repliche restano valutate solo sulla raggiungibilità
+	private String lsnPrimario() {
+		try (Connection connection = primario.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.setQueryTimeout(TIMEOUT_VERIFICA_SECONDI);
+			try (ResultSet rs = statement.executeQuery(QUERY_LSN_PRIMARIO)) {
+				return rs.next() ? rs.getString(1) : null;
+			}
+		} catch (SQLException e) {
+			log.warn("Posizione WAL del primario non disponibile: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	private void verifica(Replica replica, String lsnPrimario) {
+		try (Connection connection = replica.dataSource().getConnection();
+				PreparedStatement statement = connection.prepareStatement(QUERY_RITARDO)) {
+			statement.setQueryTimeout(TIMEOUT_VERIFICA_SECONDI);
+			statement.setString(1, lsnPrimario);
+			try (ResultSet rs = statement.executeQuery()) {
+				// NULL se la replica non è in recovery o manca la posizione del primario
+				long ritardo = rs.next() ? Math.max(0, rs.getLong(1)) : 0;
+				replica.ritardoBytes = ritardo;
+				aggiorna(replica, ritardo <= ritardoMassimoBytes, "ritardo di replica " + ritardo + " byte di WAL");
+			}
+		} catch (SQLException e) {
+			aggiorna(replica, false, e.getMessage());
+		}
+	}
+
+	private static void aggiorna(Replica replica, boolean disponibile, String motivo) {
+		if (replica.disponibile == disponibile) {
+			return;
+		}
+		replica.disponibile = disponibile;
+		if (disponibile) {
+			log.info("Replica {} disponibile per le letture", replica.nome());
+		} else {
+			log.warn("Replica {} esclusa dalle letture: {}", replica.nome(), motivo);
+		}
+	}
+
+	/**
+	 * Pool di una replica. Parte non disponibile: riceve letture solo dopo la prima verifica riuscita.
+	 */
+	public static final class Replica {
+
+		private final String nome;
+		private final DataSource dataSource;
+		private volatile boolean disponibile;
+		private volatile long ritardoBytes;
+
+		public Replica(String nome, DataSource dataSource) {
+			this.nome = nome;
+			this.dataSource = dataSource;
+		}
+
+		public String nome() {
+			return nome;
+		}
+
+		public DataSource dataSource() {
+			return dataSource;
+		}
+
+		public boolean isDisponibile() {
+			return disponibile;
+		}
+
+		public long getRitardoBytes() {
+			return ritardoBytes;
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package it.unina.bugboard.storage;
+
+import it.unina.bugboard.exception.NotFoundException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Contenuto degli allegati su un object storage S3 compatibile. Il browser carica e scarica
+ * direttamente con URL presigned di breve durata; il backend registra solo i metadati e usa
+ * lo stesso meccanismo per le poche richieste che fa da sé (verifica, ZIP, eliminazione).
+ *
+ * Con bugboard.storage.s3.abilitato=false tutti i metodi tranne isAbilitato() rifiutano la
+ * richiesta e gli allegati restano in allegato.filedata.
+ */
+public class ArchivioOggetti {
+
+	private static final Duration DURATA_RICHIESTE_INTERNE = Duration.ofMinutes(1);
+
+	private final boolean abilitato;
+	private final FirmaS3 firma;
+	private final Duration durataUrl;
+	private final Duration attesaConferma;
+	private final long dimensioneMassima;
+	private final HttpClient http;
+	private final Clock clock;
+
+	public ArchivioOggetti(boolean abilitato, FirmaS3 firma, Duration durataUrl, Duration attesaConferma,
+			long dimensioneMassima, HttpClient http, Clock clock) {
+		this.abilitato = abilitato;
+		this.firma = firma;
+		this.durataUrl = durataUrl;
+		this.attesaConferma = attesaConferma;
+		this.dimensioneMassima = dimensioneMassima;
+		this.http = http;
+		this.clock = clock;
+	}
+
+	public boolean isAbilitato() {
+		return abilitato;
+	}
+
+	public long getDimensioneMassima() {
+		return dimensioneMassima;
+	}
+
+	// Oltre la scadenza dell'URL di caricamento, quanto una chiave può restare senza conferma
+	// prima che l'oggetto venga eliminato
+	public Duration getScadenzaConferma() {
+		return durataUrl.plus(attesaConferma);
+	}
+
+	// Il prefisso lega la chiave all'issue: la conferma accetta solo chiavi della propria issue
+	public String nuovaChiave(Integer idIssue) {
+		verificaAbilitato();
+		return prefissoIssue(idIssue) + UUID.randomUUID();
+	}
+
+	public boolean appartieneAIssue(String chiave, Integer idIssue) {
+		return chiave != null && chiave.startsWith(prefissoIssue(idIssue))
+				&& chiave.indexOf('/', prefissoIssue(idIssue).length()) < 0;
+	}
+
+	// Content-Type e Content-Length firmati: il PUT riesce solo con il tipo e la dimensione dichiarati
+	public UrlPresigned urlCaricamento(String chiave, String tipoFile, long dimensione) {
+		verificaAbilitato();
+		Instant adesso = clock.instant();
+		URI url = firma.firma("PUT", chiave, Map.of(),
+				Map.of("Content-Type", tipoFile, "Content-Length", Long.toString(dimensione)), durataUrl, adesso);
+		return new UrlPresigned(url, adesso.plus(durataUrl));
+	}
+
+	public UrlPresigned urlScaricamento(String chiave, String nomeFile, boolean inline) {
+		verificaAbilitato();
+		Instant adesso = clock.instant();
+		URI url = firma.firma("GET", chiave,
+				Map.of("response-content-disposition", contentDisposition(nomeFile, inline)), Map.of(), durataUrl,
+				adesso);
+		return new UrlPresigned(url, adesso.plus(durataUrl));
+	}
+
+	public Optional<Oggetto> leggiMetadati(String chiave) throws IOException {
+		HttpResponse<Void> risposta = invia(HttpRequest.newBuilder(interna("HEAD", chiave))
+				.method("HEAD", HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding());
+		if (risposta.statusCode() == 404) {
+			return Optional.empty();
+		}
+		verificaRisposta(risposta, chiave);
+		long dimensione = risposta.headers().firstValueAsLong("Content-Length").orElse(-1);
+		String tipo = risposta.headers().firstValue("Content-Type").orElse(null);
+		return Optional.of(new Oggetto(dimensione, tipo));
+	}
+
+	// Flusso del contenuto, letto a blocchi dal chiamante: l'oggetto non passa mai per intero in memoria
+	public InputStream apri(String chiave) throws IOException {
+		HttpResponse<InputStream> risposta = invia(HttpRequest.newBuilder(interna("GET", chiave)).GET(),
+				HttpResponse.BodyHandlers.ofInputStream());
+		if (risposta.statusCode() == 404) {
+			risposta.body().close();
+			throw new NotFoundException("Contenuto dell'allegato non trovato nello storage: " + chiave);
+		}
+		if (risposta.statusCode() / 100 != 2) {
+			risposta.body().close();
+			verificaRisposta(risposta, chiave);
+		}
+		return risposta.body();
+	}
+
+	// Un oggetto già assente conta come eliminato
+	public void elimina(String chiave) throws IOException {
+		HttpResponse<Void> risposta = invia(HttpRequest.newBuilder(interna("DELETE", chiave)).DELETE(),
+				HttpResponse.BodyHandlers.discarding());
+		if (risposta.statusCode() != 404) {
+			verificaRisposta(risposta, chiave);
+		}
+	}
+
+	private URI interna(String metodo, String chiave) {
+		verificaAbilitato();
+		return firma.firma(metodo, chiave, Map.of(), Map.of(), DURATA_RICHIESTE_INTERNE, clock.instant());
+	}
+
+	private <T> HttpResponse<T> invia(HttpRequest.Builder richiesta, HttpResponse.BodyHandler<T> corpo)
+			throws IOException {
+		try {
+			return http.send(richiesta.timeout(Duration.ofSeconds(30)).build(), corpo);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Richiesta allo storage interrotta", e);
+		}
+	}
+
+	private void verificaAbilitato() {
+		if (!abilitato) {
+			throw new NotFoundException("Object storage non configurato");
+		}
+	}
+
+	private static void verificaRisposta(HttpResponse<?> risposta, String chiave) throws IOException {
+		if (risposta.statusCode() / 100 != 2) {
+			throw new IOException("Storage: HTTP " + risposta.statusCode() + " per " + chiave);
+		}
+	}
+
+	private static String prefissoIssue(Integer idIssue) {
+		return "issue/" + idIssue + "/";
+	}
+
+	// filename ASCII per i client datati, filename* (RFC 6266) con il nome originale
+	private static String contentDisposition(String nomeFile, boolean inline) {
+		String ascii = nomeFile.replaceAll("[^\\x20-\\x7e]|[\"\\\\]", "_");
+		return (inline ? "inline" : "attachment") + "; filename=\"" + ascii + "\"; filename*=UTF-8''"
+				+ FirmaS3.codifica(nomeFile, true).replace("%2F", "_");
+	}
+
+	public record UrlPresigned(URI url, Instant scadenza) {
+	}
+
+	public record Oggetto(long dimensione, String tipoFile) {
+	}
+}
@@ -0,0 +1,72 @@
+package it.unina.bugboard.storage;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Elimina dallo storage gli oggetti degli allegati cancellati, accodati dal trigger
+ * tr_allegato_oggetto_eliminato, e quelli caricati ma mai confermati, accodati a ogni giro da
+ * oggetto_in_caricamento. Una chiave lascia la coda solo dopo l'eliminazione
+ * dell'oggetto: se lo storage non risponde si riprova al giro successivo.
+ */
+public class EliminazioneOggetti {
+
+	private static final Logger log = LoggerFactory.getLogger(EliminazioneOggetti.class);
+	private static final int LOTTO = 100;
+
+	private final AllegatoDAO allegatoDAO;
+	private final ArchivioOggetti archivioOggetti;
+
+	public EliminazioneOggetti(AllegatoDAO allegatoDAO, ArchivioOggetti archivioOggetti) {
+		this.allegatoDAO = allegatoDAO;
+		this.archivioOggetti = archivioOggetti;
+	}
+
+	@Scheduled(fixedDelayString = "${bugboard.storage.s3.intervallo-eliminazione-ms:60000}")
+	public void esegui() {
+		if (!archivioOggetti.isAbilitato()) {
+			return;
+		}
+		int scaduti = 0;
+		int accodati;
+		do {
+			accodati = allegatoDAO.accodaCaricamentiScaduti(LOTTO);
+			scaduti += accodati;
+		} while (accodati == LOTTO);
+		if (scaduti > 0) {
+			log.info("{} caricamenti mai confermati accodati per l'eliminazione", scaduti);
+		}
+
+		int totale = 0;
+		List<String> chiavi;
+		do {
+			chiavi = allegatoDAO.findOggettiDaEliminare(LOTTO);
+			List<String> eliminate = new ArrayList<>(chiavi.size());
+			for (String chiave : chiavi) {
+				try {
+					archivioOggetti.elimina(chiave);
+					eliminate.add(chiave);
+				} catch (IOException e) {
+					log.warn("Oggetto {} non eliminato, nuovo tentativo al prossimo giro: {}", chiave, e.getMessage());
+				}
+			}
+			if (!eliminate.isEmpty()) {
+				allegatoDAO.rimuoviOggettiEliminati(eliminate.toArray(String[]::new));
+			}
+			totale += eliminate.size();
+			if (eliminate.size() < chiavi.size()) {
+				break;
+			}
+		} while (chiavi.size() == LOTTO);
+
+		if (totale > 0) {
+			log.info("Eliminati {} oggetti dallo storage", totale);
+		}
+	}
+}
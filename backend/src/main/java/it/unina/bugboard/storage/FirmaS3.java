@@ -0,0 +1,139 @@
+package it.unina.bugboard.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * URL presigned S3 (Signature Version 4 in query string): chi possiede l'URL può eseguire
+ * quella sola richiesta sull'oggetto fino alla scadenza, senza credenziali. Funziona con AWS e
+ * con i servizi compatibili (MinIO, S3Proxy...), in stile virtual-hosted o con il bucket nel percorso.
+ */
+public class FirmaS3 {
+
+	private static final String ALGORITMO = "AWS4-HMAC-SHA256";
+	private static final String PAYLOAD = "UNSIGNED-PAYLOAD";
+	private static final DateTimeFormatter DATA_ORA = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+			.withZone(ZoneOffset.UTC);
+	private static final DateTimeFormatter DATA = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+	private static final long SCADENZA_MASSIMA_SECONDI = 7 * 24 * 3600L;
+
+	private final URI endpoint;
+	private final String regione;
+	private final String bucket;
+	private final boolean bucketNelPercorso;
+	private final String accessKey;
+	private final String secretKey;
+
+	public FirmaS3(URI endpoint, String regione, String bucket, boolean bucketNelPercorso, String accessKey,
+			String secretKey) {
+		this.endpoint = endpoint;
+		this.regione = regione;
+		this.bucket = bucket;
+		this.bucketNelPercorso = bucketNelPercorso;
+		this.accessKey = accessKey;
+		this.secretKey = secretKey;
+	}
+
+	/**
+	 * @param parametri parametri aggiuntivi della query (es. response-content-disposition), firmati
+	 * @param header    header che la richiesta dovrà avere con questi valori esatti, oltre a host
+	 */
+	public URI firma(String metodo, String chiave, Map<String, String> parametri, Map<String, String> header,
+			Duration durata, Instant adesso) {
+		long secondi = durata.toSeconds();
+		if (secondi < 1 || secondi > SCADENZA_MASSIMA_SECONDI) {
+			throw new IllegalArgumentException("Scadenza di un URL presigned tra 1 secondo e 7 giorni: " + durata);
+		}
+		String host = bucketNelPercorso ? hostEndpoint() : bucket + "." + hostEndpoint();
+		String percorso = (bucketNelPercorso ? "/" + codifica(bucket, false) : "") + "/" + codifica(chiave, false);
+		String dataOra = DATA_ORA.format(adesso);
+		String ambito = DATA.format(adesso) + "/" + regione + "/s3/aws4_request";
+
+		TreeMap<String, String> headerFirmati = new TreeMap<>();
+		headerFirmati.put("host", host);
+		header.forEach((nome, valore) -> headerFirmati.put(nome.toLowerCase(Locale.ROOT), valore.trim()));
+		String nomiHeader = String.join(";", headerFirmati.keySet());
+
+		TreeMap<String, String> query = new TreeMap<>();
+		parametri.forEach((nome, valore) -> query.put(codifica(nome, true), codifica(valore, true)));
+		query.put("X-Amz-Algorithm", ALGORITMO);
+		query.put("X-Amz-Credential", codifica(accessKey + "/" + ambito, true));
+		query.put("X-Amz-Date", dataOra);
+		query.put("X-Amz-Expires", Long.toString(secondi));
+		query.put("X-Amz-SignedHeaders", codifica(nomiHeader, true));
+		String queryCanonica = query.entrySet().stream().map(e -> e.getKey() + "=" + e.getValue())
+				.collect(Collectors.joining("&"));
+
+		String richiestaCanonica = metodo + "\n" + percorso + "\n" + queryCanonica + "\n"
+				+ headerFirmati.entrySet().stream().map(e -> e.getKey() + ":" + e.getValue() + "\n")
+						.collect(Collectors.joining())
+				+ "\n" + nomiHeader + "\n" + PAYLOAD;
+		String daFirmare = ALGORITMO + "\n" + dataOra + "\n" + ambito + "\n" + hex(sha256(richiestaCanonica));
+
+		byte[] chiaveFirma = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), DATA.format(adesso));
+		chiaveFirma = hmac(chiaveFirma, regione);
+		chiaveFirma = hmac(chiaveFirma, "s3");
+		chiaveFirma = hmac(chiaveFirma, "aws4_request");
+		String firma = hex(hmac(chiaveFirma, daFirmare));
+
+		return URI.create(endpoint.getScheme() + "://" + host + percorso + "?" + queryCanonica + "&X-Amz-Signature="
+				+ firma);
+	}
+
+	private String hostEndpoint() {
+		int porta = endpoint.getPort();
+		boolean portaPredefinita = porta == -1 || (porta == 80 && "http".equals(endpoint.getScheme()))
+				|| (porta == 443 && "https".equals(endpoint.getScheme()));
+		return portaPredefinita ? endpoint.getHost() : endpoint.getHost() + ":" + porta;
+	}
+
+	// URI encoding di SigV4: solo i caratteri non riservati restano invariati; "/" resta nei percorsi
+	static String codifica(String valore, boolean codificaBarra) {
+		StringBuilder sb = new StringBuilder();
+		for (byte b : valore.getBytes(StandardCharsets.UTF_8)) {
+			char c = (char) (b & 0xff);
+			if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_'
+					|| c == '.' || c == '~' || (c == '/' && !codificaBarra)) {
+				sb.append(c);
+			} else {
+				sb.append('%').append(String.format("%02X", b & 0xff));
+			}
+		}
+		return sb.toString();
+	}
+
+	private static byte[] sha256(String testo) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(testo.getBytes(StandardCharsets.UTF_8));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] hmac(byte[] chiave, String testo) {
+		try {
+			Mac mac = Mac.getInstance("HmacSHA256");
+			mac.init(new SecretKeySpec(chiave, "HmacSHA256"));
+			return mac.doFinal(testo.getBytes(StandardCharsets.UTF_8));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String hex(byte[] dati) {
+		return HexFormat.of().formatHex(dati);
+	}
+}
@@ -0,0 +1,38 @@
+package it.unina.bugboard.storage;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+public class StorageConfig {
+
+	@Bean
+	public ArchivioOggetti archivioOggetti(@Value("${bugboard.storage.s3.abilitato:false}") boolean abilitato,
+			@Value("${bugboard.storage.s3.endpoint:https://s3.amazonaws.com}") String endpoint,
+			@Value("${bugboard.storage.s3.regione:us-east-1}") String regione,
+			@Value("${bugboard.storage.s3.bucket:bugboard-allegati}") String bucket,
+			@Value("${bugboard.storage.s3.bucket-nel-percorso:true}") boolean bucketNelPercorso,
+			@Value("${bugboard.storage.s3.access-key:}") String accessKey,
+			@Value("${bugboard.storage.s3.secret-key:}") String secretKey,
+			@Value("${bugboard.storage.s3.durata-url:5m}") Duration durataUrl,
+			@Value("${bugboard.storage.s3.attesa-conferma:1h}") Duration attesaConferma,
+			@Value("${bugboard.storage.s3.dimensione-massima:100MB}") DataSize dimensioneMassima) {
+		FirmaS3 firma = new FirmaS3(URI.create(endpoint), regione, bucket, bucketNelPercorso, accessKey, secretKey);
+		HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+		return new ArchivioOggetti(abilitato, firma, durataUrl, attesaConferma, dimensioneMassima.toBytes(), http,
+				Clock.systemDefaultZone());
+	}
+
+	@Bean
+	public EliminazioneOggetti eliminazioneOggetti(AllegatoDAO allegatoDAO, ArchivioOggetti archivioOggetti) {
+		return new EliminazioneOggetti(allegatoDAO, archivioOggetti);
+	}
+}
@@ -3,6 +3,7 @@ package it.unina.bugboard.util;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import it.unina.bugboard.dao.UtenzaDAO;
+import it.unina.bugboard.jfr.AutenticazioneEvent;
 import it.unina.bugboard.model.Utenza;
 import it.unina.bugboard.exception.InvalidFieldException;
 import org.springframework.beans.factory.annotation.Value;
@@ -45,6 +46,8 @@ public class AccessTokenUtil {
     }
     
     public Utenza verificaToken(String token) {
+        AutenticazioneEvent evento = new AutenticazioneEvent("verificaToken");
+        boolean esito = false;
         try {
             if (secretKey == null) {
                 secretKey = Keys.hmacShaKeyFor(secretKeyString.getBytes());
@@ -57,13 +60,17 @@ public class AccessTokenUtil {
                     .getPayload();
             Integer idUtente = Integer.parseInt(claims.getSubject());
             
-            return utenzaDAO.findById(idUtente)
+            Utenza utenza = utenzaDAO.findById(idUtente)
                     .orElseThrow(() -> new InvalidFieldException("Utente non trovato"));
+            esito = true;
+            return utenza;
                     
         } catch (ExpiredJwtException e) {
             throw new InvalidFieldException("Token scaduto - sessione terminata dopo 30 minuti");
         } catch (JwtException e) {
             throw new InvalidFieldException("Token non valido");
+        } finally {
+            evento.completa(esito);
         }
     }
     
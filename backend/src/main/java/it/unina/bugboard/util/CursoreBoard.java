@@ -0,0 +1,41 @@
+package it.unina.bugboard.util;
+
+import it.unina.bugboard.dao.SchedaBoard;
+import it.unina.bugboard.exception.InvalidFieldException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posizione dell'ultima scheda restituita in una colonna della board, nello stesso ordine
+ * dell'indice ix_issue_attive_board. Viaggia verso il client come stringa opaca.
+ */
+public record CursoreBoard(int pesoPriorita, LocalDateTime dataCreazione, int idIssue) {
+
+	private static final String SEPARATORE = "|";
+
+	public static CursoreBoard dopo(SchedaBoard scheda) {
+		return new CursoreBoard(scheda.getPesoPriorita(), scheda.getDataCreazione(), scheda.getIdIssue());
+	}
+
+	public String codifica() {
+		String testo = pesoPriorita + SEPARATORE + dataCreazione + SEPARATORE + idIssue;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(testo.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static CursoreBoard decodifica(String cursore) {
+		try {
+			String[] parti = new String(Base64.getUrlDecoder().decode(cursore), StandardCharsets.UTF_8)
+					.split("\\" + SEPARATORE);
+			if (parti.length != 3) {
+				throw new InvalidFieldException("Cursore non valido");
+			}
+			return new CursoreBoard(Integer.parseInt(parti[0]), LocalDateTime.parse(parti[1]),
+					Integer.parseInt(parti[2]));
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw new InvalidFieldException("Cursore non valido");
+		}
+	}
+}
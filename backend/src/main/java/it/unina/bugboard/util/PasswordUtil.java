@@ -1,5 +1,6 @@
 package it.unina.bugboard.util;
 
+import it.unina.bugboard.jfr.AutenticazioneEvent;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
 import java.security.SecureRandom;
@@ -19,7 +20,10 @@ public class PasswordUtil {
     }
     
     public boolean checkPassword(String rawPassword, String hashedPassword) {
-        return encoder.matches(rawPassword, hashedPassword);
+        AutenticazioneEvent evento = new AutenticazioneEvent("checkPassword");
+        boolean esito = encoder.matches(rawPassword, hashedPassword);
+        evento.completa(esito);
+        return esito;
     }
     
     public String generaPassword() {
@@ -0,0 +1,5 @@
+-- L'autocompletamento dei titoli (IndiceTitoli) ordina per priorità: anche un cambio di priorità
+-- va registrato in modifica_issue
+DROP TRIGGER tr_issue_modifica ON issue;
+CREATE TRIGGER tr_issue_modifica AFTER INSERT OR DELETE OR UPDATE OF titolo, descrizione, priorita, archiviata ON issue
+    FOR EACH ROW EXECUTE FUNCTION registra_modifica_issue();
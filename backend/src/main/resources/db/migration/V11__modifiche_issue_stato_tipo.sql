@@ -0,0 +1,5 @@
+-- La lista delle issue attive (IstantaneaIssue) filtra per stato e tipo: anche questi cambi
+-- vanno registrati in modifica_issue
+DROP TRIGGER tr_issue_modifica ON issue;
+CREATE TRIGGER tr_issue_modifica AFTER INSERT OR DELETE OR UPDATE OF titolo, descrizione, priorita, stato, tipo, archiviata ON issue
+    FOR EACH ROW EXECUTE FUNCTION registra_modifica_issue();
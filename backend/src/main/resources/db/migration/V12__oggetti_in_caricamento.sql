@@ -0,0 +1,9 @@
+-- Chiavi consegnate da /api/allegato/oggetti e non ancora confermate. Un oggetto caricato e mai
+-- confermato resterebbe sullo storage per sempre: scaduta la riga, EliminazioneOggetti sposta la
+-- chiave in oggetto_da_eliminare. La conferma elimina la riga nella transazione dell'allegato
+CREATE TABLE oggetto_in_caricamento (
+    chiave      VARCHAR(512) PRIMARY KEY,
+    scadenza    TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX ix_oggetto_in_caricamento_scadenza ON oggetto_in_caricamento (scadenza);
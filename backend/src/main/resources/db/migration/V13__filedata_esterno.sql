@@ -0,0 +1,10 @@
+-- filedata viene letto a porzioni con substring (ZIP ed estrazione del testo). Su un valore TOAST
+-- compresso ogni porzione decomprime il file dall'inizio, quindi un file intero costa un tempo
+-- quadratico; con EXTERNAL il valore resta fuori riga ma non compresso e substring legge solo i
+-- chunk interessati. I formati caricati sono in gran parte già compressi, lo spazio perso è poco.
+ALTER TABLE allegato ALTER COLUMN filedata SET STORAGE EXTERNAL;
+
+-- SET STORAGE vale solo per i valori scritti d'ora in poi: i file già compressi vengono riscritti.
+-- La concatenazione forza un valore nuovo, un semplice filedata = filedata riuserebbe il puntatore TOAST
+UPDATE allegato SET filedata = filedata || ''::bytea
+WHERE filedata IS NOT NULL AND pg_column_compression(filedata) IS NOT NULL;
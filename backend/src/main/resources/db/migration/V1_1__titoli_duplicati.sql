@@ -0,0 +1,26 @@
+-- V2 crea l'indice unico su issue.titolo. Prima l'unicità era solo controllata e poi inserita da
+-- IssueController, quindi due creazioni concorrenti possono aver salvato lo stesso titolo: l'issue
+-- più vecchia lo tiene, le altre ricevono il suffisso " (#id)". Se anche il titolo rinominato è già
+-- usato la migrazione si ferma e indica l'issue da rinominare a mano.
+DO $$
+DECLARE
+    duplicata RECORD;
+    suffisso  TEXT;
+    nuovo     TEXT;
+BEGIN
+    FOR duplicata IN
+        SELECT idissue, titolo
+        FROM (SELECT idissue, titolo, row_number() OVER (PARTITION BY titolo ORDER BY idissue) AS n FROM issue) t
+        WHERE n > 1
+        ORDER BY idissue
+    LOOP
+        suffisso := ' (#' || duplicata.idissue || ')';
+        nuovo := left(duplicata.titolo, 100 - length(suffisso)) || suffisso;
+        IF EXISTS (SELECT 1 FROM issue WHERE titolo = nuovo) THEN
+            RAISE EXCEPTION 'Issue % ha il titolo duplicato "%" e "%" è già usato: rinominarla a mano e rilanciare la migrazione',
+                duplicata.idissue, duplicata.titolo, nuovo;
+        END IF;
+        UPDATE issue SET titolo = nuovo WHERE idissue = duplicata.idissue;
+        RAISE WARNING 'Issue % rinominata da "%" a "%": titolo duplicato', duplicata.idissue, duplicata.titolo, nuovo;
+    END LOOP;
+END $$;
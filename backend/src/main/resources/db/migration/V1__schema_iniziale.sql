@@ -0,0 +1,37 @@
+-- Schema iniziale, allineato alle entity. I database già esistenti partono da questa
+-- versione come baseline (spring.flyway.baseline-on-migrate) e ricevono solo le successive.
+
+CREATE TABLE utenza (
+    idutente   INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    idcreatore INTEGER REFERENCES utenza (idutente),
+    nome       VARCHAR(255) NOT NULL,
+    cognome    VARCHAR(255) NOT NULL,
+    email      VARCHAR(255) NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    ruolo      VARCHAR(20)  NOT NULL CHECK (ruolo IN ('Amministratore', 'Utente')),
+    stato      BOOLEAN      NOT NULL DEFAULT TRUE
+);
+
+CREATE TABLE issue (
+    idissue           INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    titolo            VARCHAR(100) NOT NULL,
+    descrizione       TEXT         NOT NULL,
+    priorita          VARCHAR(20)  NOT NULL CHECK (priorita IN ('critical', 'high', 'medium', 'low', 'none')),
+    stato             VARCHAR(20)  NOT NULL CHECK (stato IN ('Todo', 'inProgress', 'Done')),
+    tipo              VARCHAR(20)  NOT NULL CHECK (tipo IN ('question', 'features', 'bug', 'documentation')),
+    archiviata        BOOLEAN      NOT NULL DEFAULT FALSE,
+    dataarchiviazione TIMESTAMP(6),
+    datacreazione     TIMESTAMP(6) NOT NULL,
+    idcreatore        INTEGER REFERENCES utenza (idutente),
+    idarchiviatore    INTEGER REFERENCES utenza (idutente)
+);
+
+CREATE TABLE allegato (
+    idallegato      INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nomefile        VARCHAR(255) NOT NULL,
+    tipofile        VARCHAR(100) NOT NULL,
+    dimensione      INTEGER      NOT NULL,
+    filedata        BYTEA        NOT NULL,
+    datacaricamento DATE         NOT NULL,
+    idissue         INTEGER      NOT NULL REFERENCES issue (idissue) ON DELETE CASCADE
+);
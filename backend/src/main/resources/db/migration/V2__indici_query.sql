@@ -0,0 +1,29 @@
+-- Indici ricavati dalle query dei DAO; IF NOT EXISTS perché i database in baseline
+-- possono già averne alcuni. Verificati da PianoQueryTest.
+
+-- IssueDAO.findByTitolo e unicità del titolo (IssueController.creaIssue)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_issue_titolo ON issue (titolo);
+
+-- findByArchiviataOrderByDataCreazioneDesc, findByArchiviata, countByArchiviataFalse
+CREATE INDEX IF NOT EXISTS ix_issue_archiviata_datacreazione ON issue (archiviata, datacreazione DESC);
+
+-- findIssueUrgenti: solo le issue attive, che sono quelle lette dalla dashboard
+CREATE INDEX IF NOT EXISTS ix_issue_priorita_attive ON issue (priorita) WHERE archiviata = false;
+
+-- findByStatoAndPriorita, findByStato, countByStato
+CREATE INDEX IF NOT EXISTS ix_issue_stato_priorita ON issue (stato, priorita);
+
+-- findByPriorita e findByTipo (/api/issue/filtra), anche sulle archiviate
+CREATE INDEX IF NOT EXISTS ix_issue_priorita ON issue (priorita);
+CREATE INDEX IF NOT EXISTS ix_issue_tipo ON issue (tipo);
+
+-- findByTitoloContainingIgnoreCase: upper(titolo) LIKE '%...%' richiede trigrammi
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS ix_issue_titolo_trgm ON issue USING gin (upper(titolo) gin_trgm_ops);
+
+-- AllegatoDAO: tutte le query filtrano per issue, l'elenco ordina per dimensione;
+-- serve anche al DELETE CASCADE dalla issue
+CREATE INDEX IF NOT EXISTS ix_allegato_issue_dimensione ON allegato (idissue, dimensione DESC);
+
+-- UtenzaDAO.findByEmail / existsByEmail (login, creazione utenze)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_utenza_email ON utenza (email);
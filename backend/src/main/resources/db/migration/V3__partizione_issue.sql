@@ -0,0 +1,109 @@
+-- Issue attive e archiviate in due partizioni di "issue" (LIST su archiviata): la board,
+-- le urgenti e i conteggi delle attive leggono solo issue_attive, che non cresce con
+-- l'archivio. archiviaIssue/disarchiviaIssue restano un UPDATE: PostgreSQL sposta la riga
+-- tra le partizioni.
+--
+-- Una chiave primaria o un vincolo univoco su una tabella partizionata deve includere la
+-- chiave di partizione, quindi l'unicità globale di idissue e titolo, e la FK di allegato,
+-- passano per issue_chiave, allineata da trigger.
+
+-- Costruita a fianco della vecchia: i database in baseline hanno vincoli con nomi
+-- generati da Hibernate, che spariscono con il DROP ... CASCADE della vecchia tabella
+CREATE TABLE issue_nuova (
+    idissue           INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    titolo            VARCHAR(100) NOT NULL,
+    descrizione       TEXT         NOT NULL,
+    priorita          VARCHAR(20)  NOT NULL CONSTRAINT ck_issue_priorita
+                      CHECK (priorita IN ('critical', 'high', 'medium', 'low', 'none')),
+    stato             VARCHAR(20)  NOT NULL CONSTRAINT ck_issue_stato CHECK (stato IN ('Todo', 'inProgress', 'Done')),
+    tipo              VARCHAR(20)  NOT NULL CONSTRAINT ck_issue_tipo
+                      CHECK (tipo IN ('question', 'features', 'bug', 'documentation')),
+    archiviata        BOOLEAN      NOT NULL DEFAULT FALSE,
+    dataarchiviazione TIMESTAMP(6),
+    datacreazione     TIMESTAMP(6) NOT NULL,
+    idcreatore        INTEGER CONSTRAINT fk_issue_creatore REFERENCES utenza (idutente),
+    idarchiviatore    INTEGER CONSTRAINT fk_issue_archiviatore REFERENCES utenza (idutente),
+    CONSTRAINT pk_issue PRIMARY KEY (idissue, archiviata)
+) PARTITION BY LIST (archiviata);
+
+CREATE TABLE issue_attive PARTITION OF issue_nuova FOR VALUES IN (FALSE);
+CREATE TABLE issue_archiviate PARTITION OF issue_nuova FOR VALUES IN (TRUE);
+
+CREATE FUNCTION issue_chiave_inserisci() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    -- Anche lo spostamento tra partizioni arriva come INSERT: la chiave esiste già
+    INSERT INTO issue_chiave (idissue, titolo) VALUES (NEW.idissue, NEW.titolo)
+    ON CONFLICT (idissue) DO UPDATE SET titolo = EXCLUDED.titolo;
+    RETURN NULL;
+END $$;
+
+CREATE FUNCTION issue_chiave_aggiorna() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    UPDATE issue_chiave SET titolo = NEW.titolo WHERE idissue = NEW.idissue;
+    RETURN NULL;
+END $$;
+
+CREATE FUNCTION issue_chiave_elimina() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    -- Nello spostamento tra partizioni il DELETE dalla vecchia partizione arriva quando la
+    -- riga è già nella nuova: la chiave va tenuta, altrimenti la cascata cancella gli allegati
+    IF NOT EXISTS (SELECT 1 FROM issue WHERE idissue = OLD.idissue) THEN
+        DELETE FROM issue_chiave WHERE idissue = OLD.idissue;
+    END IF;
+    RETURN NULL;
+END $$;
+
+INSERT INTO issue_nuova (idissue, titolo, descrizione, priorita, stato, tipo, archiviata, dataarchiviazione,
+                         datacreazione, idcreatore, idarchiviatore)
+SELECT idissue, titolo, descrizione, priorita, stato, tipo, archiviata, dataarchiviazione,
+       datacreazione, idcreatore, idarchiviatore
+FROM issue;
+
+DROP TABLE issue CASCADE;
+ALTER TABLE issue_nuova RENAME TO issue;
+ALTER SEQUENCE issue_nuova_idissue_seq RENAME TO issue_idissue_seq;
+SELECT setval('issue_idissue_seq', COALESCE(MAX(idissue), 0) + 1, false) FROM issue;
+
+CREATE TABLE issue_chiave (
+    idissue INTEGER      PRIMARY KEY,
+    titolo  VARCHAR(100) NOT NULL,
+    CONSTRAINT uk_issue_titolo UNIQUE (titolo)
+);
+
+INSERT INTO issue_chiave (idissue, titolo) SELECT idissue, titolo FROM issue;
+
+CREATE TRIGGER tr_issue_chiave_inserisci AFTER INSERT ON issue
+    FOR EACH ROW EXECUTE FUNCTION issue_chiave_inserisci();
+CREATE TRIGGER tr_issue_chiave_aggiorna AFTER UPDATE OF titolo ON issue
+    FOR EACH ROW EXECUTE FUNCTION issue_chiave_aggiorna();
+CREATE TRIGGER tr_issue_chiave_elimina AFTER DELETE ON issue
+    FOR EACH ROW EXECUTE FUNCTION issue_chiave_elimina();
+
+ALTER TABLE allegato ADD CONSTRAINT fk_allegato_issue
+    FOREIGN KEY (idissue) REFERENCES issue_chiave (idissue) ON DELETE CASCADE;
+
+-- Creati sulla tabella partizionata, quindi presenti in entrambe le partizioni. Le attive
+-- non hanno più bisogno di indici parziali su archiviata: la partizione stessa fa da filtro.
+
+-- findByTitolo
+CREATE INDEX ix_issue_titolo ON issue (titolo);
+
+-- findByArchiviataOrderByDataCreazioneDesc, findByArchiviata
+CREATE INDEX ix_issue_datacreazione ON issue (datacreazione DESC);
+
+-- ListaIssueArchiviate: findByArchiviataTrueOrderByDataArchiviazioneDescIdIssueDesc
+CREATE INDEX ix_issue_dataarchiviazione ON issue (dataarchiviazione DESC, idissue DESC);
+
+-- findIssueUrgenti, findByPriorita
+CREATE INDEX ix_issue_priorita ON issue (priorita);
+
+-- findByStatoAndPriorita, findByStato, countByStato
+CREATE INDEX ix_issue_stato_priorita ON issue (stato, priorita);
+
+-- findByTipo
+CREATE INDEX ix_issue_tipo ON issue (tipo);
+
+-- findByTitoloContainingIgnoreCase
+CREATE INDEX ix_issue_titolo_trgm ON issue USING gin (upper(titolo) gin_trgm_ops);
+
+ANALYZE issue;
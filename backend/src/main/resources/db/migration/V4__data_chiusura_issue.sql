@@ -0,0 +1,9 @@
+-- Data in cui l'issue è passata a Done, usata da ArchiviazioneAutomatica per l'età di
+-- archiviazione. Per le issue già chiuse la data reale non è nota: si usa la creazione,
+-- il limite inferiore; l'archiviazione automatica resta comunque reversibile.
+ALTER TABLE issue ADD COLUMN datachiusura TIMESTAMP(6);
+
+UPDATE issue SET datachiusura = datacreazione WHERE stato = 'Done';
+
+-- Candidate all'archiviazione automatica: solo le Done, in ordine di chiusura
+CREATE INDEX ix_issue_done_datachiusura ON issue (datachiusura) WHERE stato = 'Done';
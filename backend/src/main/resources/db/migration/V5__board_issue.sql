@@ -0,0 +1,15 @@
+-- Ordine delle colonne della board: priorità (critical prima) e poi issue più recenti.
+-- Il peso è una colonna generata perché l'indice e il cursore "carica altre" confrontino
+-- (peso_priorita, datacreazione, idissue) come riga, tutti in ordine decrescente.
+ALTER TABLE issue ADD COLUMN peso_priorita SMALLINT GENERATED ALWAYS AS (
+    CASE priorita
+        WHEN 'critical' THEN 4
+        WHEN 'high' THEN 3
+        WHEN 'medium' THEN 2
+        WHEN 'low' THEN 1
+        ELSE 0
+    END) STORED;
+
+-- Solo sulla partizione attiva: la board non mostra le archiviate. Serve le prime schede di ogni
+-- colonna in findBoard e le pagine successive in findColonnaBoardDopo.
+CREATE INDEX ix_issue_attive_board ON issue_attive (stato, peso_priorita DESC, datacreazione DESC, idissue DESC);
@@ -0,0 +1,30 @@
+-- Allegati il cui contenuto sta su object storage S3 (vedi ArchivioOggetti): la riga tiene solo
+-- i metadati e la chiave dell'oggetto, filedata resta NULL. Ogni allegato ha esattamente uno dei due.
+ALTER TABLE allegato ADD COLUMN chiaveoggetto VARCHAR(512);
+ALTER TABLE allegato ALTER COLUMN filedata DROP NOT NULL;
+
+-- NOT VALID + VALIDATE: la verifica delle righe esistenti non blocca le scritture
+ALTER TABLE allegato ADD CONSTRAINT ck_allegato_contenuto
+    CHECK ((filedata IS NULL) <> (chiaveoggetto IS NULL)) NOT VALID;
+ALTER TABLE allegato VALIDATE CONSTRAINT ck_allegato_contenuto;
+
+-- Una chiave confermata una volta sola
+CREATE UNIQUE INDEX ux_allegato_chiaveoggetto ON allegato (chiaveoggetto) WHERE chiaveoggetto IS NOT NULL;
+
+-- Oggetti da eliminare dallo storage. Il trigger raccoglie ogni eliminazione di un allegato,
+-- anche quelle a cascata dalle issue e le pulizie a lotti di ArchiviazioneAutomatica;
+-- EliminazioneOggetti svuota la coda dopo aver cancellato gli oggetti
+CREATE TABLE oggetto_da_eliminare (
+    chiave              VARCHAR(512) PRIMARY KEY,
+    dataeliminazione    TIMESTAMP(6) NOT NULL DEFAULT now()
+);
+
+CREATE FUNCTION accoda_oggetto_eliminato() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO oggetto_da_eliminare (chiave) VALUES (OLD.chiaveoggetto) ON CONFLICT DO NOTHING;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tr_allegato_oggetto_eliminato AFTER DELETE ON allegato
+    FOR EACH ROW WHEN (OLD.chiaveoggetto IS NOT NULL) EXECUTE FUNCTION accoda_oggetto_eliminato();
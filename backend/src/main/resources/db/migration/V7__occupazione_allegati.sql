@@ -0,0 +1,71 @@
+-- Chi ha caricato l'allegato, per la quota per utente. NULL per gli allegati precedenti
+ALTER TABLE allegato ADD COLUMN idcaricatore INTEGER
+    CONSTRAINT fk_allegato_caricatore REFERENCES utenza (idutente) ON DELETE SET NULL;
+CREATE INDEX ix_allegato_caricatore ON allegato (idcaricatore, dimensione);
+
+-- Numero e byte degli allegati per ambito: una riga 'globale' (id 0), una per issue e una per
+-- utente caricatore. Aggiornati dal trigger nella stessa transazione dell'insert o del delete,
+-- quindi i totali e le verifiche di quota sono letture per chiave (vedi QuoteAllegati).
+-- RiconciliazioneOccupazione li ricalcola periodicamente dagli allegati
+CREATE TABLE occupazione_allegati (
+    ambito      VARCHAR(10) NOT NULL CONSTRAINT ck_occupazione_ambito CHECK (ambito IN ('globale', 'issue', 'utente')),
+    id          INTEGER     NOT NULL,
+    numero      BIGINT      NOT NULL DEFAULT 0,
+    dimensione  BIGINT      NOT NULL DEFAULT 0,
+    CONSTRAINT pk_occupazione_allegati PRIMARY KEY (ambito, id)
+);
+
+-- Trigger per istruzione con le tabelle di transizione: un batch di insert o una cascata da
+-- un'issue aggiorna ogni contatore una volta sola. Le righe sono aggiornate in ordine di
+-- (ambito, id), lo stesso dei lock di QuoteAllegati, così due transazioni non si bloccano a
+-- vicenda. Gli allegati non vengono mai modificati: UPDATE non è intercettato
+CREATE FUNCTION occupazione_allegati_aggiorna() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO occupazione_allegati AS o (ambito, id, numero, dimensione)
+        SELECT k.ambito, k.id, count(*), sum(n.dimensione)
+        FROM nuovi n
+        CROSS JOIN LATERAL (VALUES ('globale', 0), ('issue', n.idissue), ('utente', n.idcaricatore)) AS k(ambito, id)
+        WHERE k.id IS NOT NULL
+        GROUP BY k.ambito, k.id ORDER BY k.ambito, k.id
+        ON CONFLICT (ambito, id) DO UPDATE
+            SET numero = o.numero + EXCLUDED.numero, dimensione = o.dimensione + EXCLUDED.dimensione;
+    ELSE
+        INSERT INTO occupazione_allegati AS o (ambito, id, numero, dimensione)
+        SELECT k.ambito, k.id, -count(*), -sum(v.dimensione)
+        FROM vecchi v
+        CROSS JOIN LATERAL (VALUES ('globale', 0), ('issue', v.idissue), ('utente', v.idcaricatore)) AS k(ambito, id)
+        WHERE k.id IS NOT NULL
+        GROUP BY k.ambito, k.id ORDER BY k.ambito, k.id
+        ON CONFLICT (ambito, id) DO UPDATE
+            SET numero = o.numero + EXCLUDED.numero, dimensione = o.dimensione + EXCLUDED.dimensione;
+        -- Le issue eliminate non lasciano righe a zero
+        DELETE FROM occupazione_allegati o
+        WHERE o.ambito <> 'globale' AND o.numero = 0
+          AND (o.ambito, o.id) IN (SELECT 'issue', idissue FROM vecchi
+                                   UNION SELECT 'utente', idcaricatore FROM vecchi);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tr_allegato_occupazione_inserisci AFTER INSERT ON allegato
+    REFERENCING NEW TABLE AS nuovi FOR EACH STATEMENT EXECUTE FUNCTION occupazione_allegati_aggiorna();
+CREATE TRIGGER tr_allegato_occupazione_elimina AFTER DELETE ON allegato
+    REFERENCING OLD TABLE AS vecchi FOR EACH STATEMENT EXECUTE FUNCTION occupazione_allegati_aggiorna();
+
+-- TRUNCATE (es. GeneratoreDataset) non attiva i trigger di DELETE
+CREATE FUNCTION occupazione_allegati_azzera() RETURNS trigger AS $$
+BEGIN
+    DELETE FROM occupazione_allegati;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tr_allegato_occupazione_svuota AFTER TRUNCATE ON allegato
+    FOR EACH STATEMENT EXECUTE FUNCTION occupazione_allegati_azzera();
+
+INSERT INTO occupazione_allegati (ambito, id, numero, dimensione)
+SELECT 'globale', 0, count(*), coalesce(sum(dimensione), 0) FROM allegato;
+INSERT INTO occupazione_allegati (ambito, id, numero, dimensione)
+SELECT 'issue', idissue, count(*), sum(dimensione) FROM allegato GROUP BY idissue;
@@ -0,0 +1,34 @@
+-- Testo estratto dai PDF e DOCX allegati, per la ricerca nel contenuto (vedi EstrazioneTesto).
+-- La riga fa anche da coda: il trigger la crea 'da_estrarre' e il job la prenota spostando
+-- disponibile_da in avanti, così un'estrazione interrotta torna disponibile da sola.
+-- Configurazione 'simple': allegati in più lingue e log, nessuno stemming da indovinare
+CREATE TABLE testo_allegato (
+    idallegato      INTEGER      PRIMARY KEY REFERENCES allegato (idallegato) ON DELETE CASCADE,
+    stato           VARCHAR(12)  NOT NULL DEFAULT 'da_estrarre'
+        CONSTRAINT ck_testo_allegato_stato CHECK (stato IN ('da_estrarre', 'estratto', 'fallito')),
+    tentativi       SMALLINT     NOT NULL DEFAULT 0,
+    disponibile_da  TIMESTAMP(6) NOT NULL DEFAULT now(),
+    troncato        BOOLEAN      NOT NULL DEFAULT false,
+    errore          VARCHAR(500),
+    testo           TEXT,
+    documento       TSVECTOR     GENERATED ALWAYS AS (to_tsvector('simple', coalesce(testo, ''))) STORED
+);
+
+CREATE INDEX ix_testo_allegato_coda ON testo_allegato (disponibile_da) WHERE stato = 'da_estrarre';
+CREATE INDEX ix_testo_allegato_documento ON testo_allegato USING gin (documento);
+
+CREATE FUNCTION accoda_estrazione_testo() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO testo_allegato (idallegato)
+    SELECT idallegato FROM nuovi
+    WHERE tipofile IN ('application/pdf', 'application/vnd.openxmlformats-officedocument.wordprocessingml.document');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tr_allegato_estrazione_testo AFTER INSERT ON allegato
+    REFERENCING NEW TABLE AS nuovi FOR EACH STATEMENT EXECUTE FUNCTION accoda_estrazione_testo();
+
+INSERT INTO testo_allegato (idallegato)
+SELECT idallegato FROM allegato
+WHERE tipofile IN ('application/pdf', 'application/vnd.openxmlformats-officedocument.wordprocessingml.document');
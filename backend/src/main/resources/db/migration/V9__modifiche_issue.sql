@@ -0,0 +1,31 @@
+-- Registro delle issue create, modificate nel titolo o nella descrizione, archiviate,
+-- disarchiviate o eliminate, da qualunque istanza e anche dagli UPDATE e DELETE a lotti di
+-- ArchiviazioneAutomatica. SincronizzazioneIndici lo rilegge per aggiornare gli indici in
+-- memoria (possibili duplicati e titoli), e lo svuota delle righe più vecchie.
+-- idissue NULL vuol dire "tutte le issue" (TRUNCATE): l'indice va ricostruito da capo
+CREATE TABLE modifica_issue (
+    idmodifica    BIGINT       GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    idissue       INTEGER,
+    datamodifica  TIMESTAMP(6) NOT NULL DEFAULT now()
+);
+CREATE INDEX ix_modifica_issue_data ON modifica_issue (datamodifica);
+
+-- Per riga: lo spostamento tra le partizioni arriva come DELETE più INSERT (vedi V3), e
+-- registrare l'id due volte non cambia nulla per chi legge
+CREATE FUNCTION registra_modifica_issue() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'TRUNCATE' THEN
+        INSERT INTO modifica_issue (idissue) VALUES (NULL);
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO modifica_issue (idissue) VALUES (OLD.idissue);
+    ELSE
+        INSERT INTO modifica_issue (idissue) VALUES (NEW.idissue);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tr_issue_modifica AFTER INSERT OR DELETE OR UPDATE OF titolo, descrizione, archiviata ON issue
+    FOR EACH ROW EXECUTE FUNCTION registra_modifica_issue();
+CREATE TRIGGER tr_issue_svuota AFTER TRUNCATE ON issue
+    FOR EACH STATEMENT EXECUTE FUNCTION registra_modifica_issue();
@@ -0,0 +1,136 @@
+package it.unina.bugboard.archiviazione;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.IssueDAO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ArchiviazioneAutomaticaTest {
+
+	private static final LocalDateTime NOTTE = LocalDateTime.of(2026, 3, 10, 23, 0);
+	private static final int LOTTO = 200;
+	private static final int LOTTO_ALLEGATI = 20;
+
+	@Mock
+	private IssueDAO issueDAO;
+
+	@Mock
+	private AllegatoDAO allegatoDAO;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	/*
+	 TEST 1: esegui - Fuori dalla fascia oraria
+	 CE: Ore 12:00, fascia 22:00-06:00
+	 Atteso: Nessuna query eseguita
+	 */
+	@Test
+	void testEsegui_FuoriFascia_NessunLotto() {
+		archiviazione(true, LocalDateTime.of(2026, 3, 10, 12, 0)).esegui();
+
+		verifyNoInteractions(issueDAO, allegatoDAO, transactionTemplate);
+	}
+
+	/*
+	 TEST 2: esegui - Archiviazione a lotti
+	 CE: Due lotti pieni da 200 e uno da 37 issue Done da archiviare
+	 Atteso: Tre lotti con soglia a 30 giorni, ciascuno nella propria transazione, contatore a 437
+	 */
+	@Test
+	void testEsegui_LottiFinoAEsaurimento_ArchiviaTutte() {
+		eseguiInTransazione();
+		when(issueDAO.archiviaDoneChiusePrima(any(), any(), eq(LOTTO))).thenReturn(LOTTO, LOTTO, 37);
+
+		archiviazione(true, NOTTE).esegui();
+
+		verify(issueDAO, times(3)).archiviaDoneChiusePrima(NOTTE.minusDays(30), NOTTE, LOTTO);
+		verify(transactionTemplate, times(5)).execute(any());
+		assertEquals(437, meterRegistry.get("bugboard.archiviazione.righe").tag("esito", "archiviate")
+				.counter().count());
+	}
+
+	/*
+	 TEST 3: esegui - Eliminazione oltre la conservazione
+	 CE: Archiviate scadute con allegati
+	 Atteso: Allegati eliminati prima delle issue, con soglia a 730 giorni
+	 */
+	@Test
+	void testEsegui_ConservazioneScaduta_AllegatiPrimaDelleIssue() {
+		eseguiInTransazione();
+		when(allegatoDAO.eliminaAllegatiArchiviatePrima(any(), anyInt())).thenReturn(LOTTO_ALLEGATI, 3);
+		when(issueDAO.eliminaArchiviatePrima(any(), anyInt())).thenReturn(12);
+
+		archiviazione(true, NOTTE).esegui();
+
+		InOrder ordine = inOrder(allegatoDAO, issueDAO);
+		ordine.verify(allegatoDAO, times(2)).eliminaAllegatiArchiviatePrima(NOTTE.minusDays(730), LOTTO_ALLEGATI);
+		ordine.verify(issueDAO).eliminaArchiviatePrima(NOTTE.minusDays(730), LOTTO);
+	}
+
+	/*
+	 TEST 4: inFascia - Fascia che scavalca la mezzanotte
+	 CE: Fascia 22:00-06:00, ore 03:00, 06:00 e 21:59
+	 Atteso: Solo le 03:00 sono nella fascia
+	 */
+	@Test
+	void testInFascia_ScavalcaMezzanotte() {
+		assertTrue(archiviazione(true, LocalDateTime.of(2026, 3, 11, 3, 0)).inFascia());
+		assertFalse(archiviazione(true, LocalDateTime.of(2026, 3, 11, 6, 0)).inFascia());
+		assertFalse(archiviazione(true, LocalDateTime.of(2026, 3, 10, 21, 59)).inFascia());
+	}
+
+	/*
+	 TEST 5: esegui - Archiviazione disabilitata
+	 CE: bugboard.archiviazione.abilitata=false, dentro la fascia
+	 Atteso: Nessuna query eseguita
+	 */
+	@Test
+	void testEsegui_Disabilitata_NessunLotto() {
+		archiviazione(false, NOTTE).esegui();
+
+		verifyNoInteractions(issueDAO, allegatoDAO, transactionTemplate);
+	}
+
+	private void eseguiInTransazione() {
+		when(transactionTemplate.execute(any())).thenAnswer(
+				invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+	}
+
+	private ArchiviazioneAutomatica archiviazione(boolean abilitata, LocalDateTime ora) {
+		Clock clock = Clock.fixed(ora.toInstant(ZoneOffset.UTC), ZoneId.of("UTC"));
+		ArchiviazioneAutomatica.Parametri parametri = new ArchiviazioneAutomatica.Parametri(abilitata,
+				Duration.ofDays(30), Duration.ofDays(730), LOTTO, LOTTO_ALLEGATI, Duration.ZERO, 0,
+				Duration.ofMinutes(8), LocalTime.of(22, 0), LocalTime.of(6, 0));
+		return new ArchiviazioneAutomatica(issueDAO, allegatoDAO, transactionTemplate, clock, parametri,
+				meterRegistry);
+	}
+}
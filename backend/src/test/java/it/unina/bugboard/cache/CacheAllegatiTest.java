@@ -0,0 +1,132 @@
+package it.unina.bugboard.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheAllegatiTest {
+
+	private static final int KB = 1024;
+
+	@TempDir
+	Path directory;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	/*
+	 TEST 1: apri - Voce salvata in precedenza
+	 CE: Un miss, poi salva e apri dello stesso allegato
+	 Atteso: Contenuto identico, hit ratio 0.5, byte risparmiati pari alla dimensione
+	 */
+	@Test
+	void testApri_DopoSalva_HitEMetriche() throws Exception {
+		CacheAllegati cache = cache(true, 10 * KB, 10 * KB);
+		byte[] contenuto = contenuto(3 * KB, 7);
+
+		assertTrue(cache.apri(1).isEmpty());
+		cache.salva(1, contenuto);
+
+		assertArrayEquals(contenuto, leggi(cache.apri(1)));
+		assertEquals(0.5, cache.getHitRatio());
+		assertEquals(3 * KB, meterRegistry.get("bugboard.allegati.cache.bytes_risparmiati").counter().count());
+	}
+
+	/*
+	 TEST 2: salva - Oltre la dimensione massima
+	 CE: Cache da 10KB con voci da 4KB, l'allegato 1 letto dopo il 2
+	 Atteso: Esce il 2, meno usato di recente; occupazione sotto il limite
+	 */
+	@Test
+	void testSalva_OltreDimensioneMassima_EliminaMenoUsato() throws Exception {
+		CacheAllegati cache = cache(true, 10 * KB, 10 * KB);
+		cache.salva(1, contenuto(4 * KB, 1));
+		cache.salva(2, contenuto(4 * KB, 2));
+		leggi(cache.apri(1));
+
+		cache.salva(3, contenuto(4 * KB, 3));
+
+		assertTrue(cache.apri(2).isEmpty());
+		assertFalse(Files.exists(directory.resolve("2.bin")));
+		assertEquals(2, cache.numeroVoci());
+		assertEquals(8 * KB, cache.getOccupazione());
+		assertEquals(1, meterRegistry.get("bugboard.allegati.cache.eliminazioni").counter().count());
+	}
+
+	/*
+	 TEST 3: invalida - Allegato eliminato
+	 CE: Voce in cache invalidata
+	 Atteso: Miss, file rimosso, occupazione a zero
+	 */
+	@Test
+	void testInvalida_VoceRimossa() {
+		CacheAllegati cache = cache(true, 10 * KB, 10 * KB);
+		cache.salva(1, contenuto(2 * KB, 1));
+
+		cache.invalida(1);
+
+		assertTrue(cache.apri(1).isEmpty());
+		assertFalse(Files.exists(directory.resolve("1.bin")));
+		assertEquals(0, cache.getOccupazione());
+	}
+
+	/*
+	 TEST 4: salva - Voce troppo grande o cache disabilitata
+	 CE: Allegato oltre dimensione-massima-voce; cache con abilitata=false
+	 Atteso: Nulla salvato su disco
+	 */
+	@Test
+	void testSalva_VoceTroppoGrandeODisabilitata_NonSalva() throws IOException {
+		CacheAllegati cache = cache(true, 10 * KB, 2 * KB);
+		cache.salva(1, contenuto(3 * KB, 1));
+		assertEquals(0, cache.numeroVoci());
+
+		CacheAllegati disabilitata = cache(false, 10 * KB, 10 * KB);
+		disabilitata.salva(2, contenuto(KB, 2));
+		assertTrue(disabilitata.apri(2).isEmpty());
+
+		try (var file = Files.list(directory)) {
+			assertEquals(0, file.count());
+		}
+	}
+
+	private CacheAllegati cache(boolean abilitata, long dimensioneMassima, long dimensioneMassimaVoce) {
+		try {
+			return new CacheAllegati(
+					new CacheAllegati.Parametri(abilitata, directory, dimensioneMassima, dimensioneMassimaVoce),
+					meterRegistry);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] leggi(Optional<FileChannel> voce) throws IOException {
+		try (FileChannel canale = voce.orElseThrow()) {
+			ByteBuffer buffer = ByteBuffer.allocate((int) canale.size());
+			while (buffer.hasRemaining() && canale.read(buffer) >= 0) {
+				// Legge fino alla fine
+			}
+			return buffer.array();
+		}
+	}
+
+	private static byte[] contenuto(int dimensione, int valore) {
+		byte[] dati = new byte[dimensione];
+		java.util.Arrays.fill(dati, (byte) valore);
+		return dati;
+	}
+}
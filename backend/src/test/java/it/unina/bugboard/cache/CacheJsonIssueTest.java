@@ -0,0 +1,146 @@
+package it.unina.bugboard.cache;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.unina.bugboard.model.Issue;
+import it.unina.bugboard.model.Priorita;
+import it.unina.bugboard.model.Ruolo;
+import it.unina.bugboard.model.Stato;
+import it.unina.bugboard.model.Tipo;
+import it.unina.bugboard.model.Utenza;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.RecordComponent;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheJsonIssueTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private CacheJsonIssue cache;
+	private ObjectMapper jackson;
+	private ObjectMapper conCache;
+	private Utenza mario;
+	private Utenza luigi;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		cache = new CacheJsonIssue(new CacheJsonIssue.Parametri(true, 100), meterRegistry);
+		jackson = mapper().build();
+		conCache = mapper().modulesToInstall(cache.modulo()).build();
+		mario = utente(1, "Mario");
+		luigi = utente(2, "Luigi");
+	}
+
+	/*
+	 TEST 1: writeValueAsBytes - Lista e dettaglio serializzati due volte
+	 CE: Due issue, una archiviata da un altro utente e con descrizione da escapare
+	 Atteso: Byte identici a quelli di Jackson, nella lista e dentro una mappa; la seconda volta solo hit
+	 */
+	@Test
+	void testSerializza_DueVolte_StessiByteDiJackson() throws Exception {
+		List<Issue> issues = List.of(issue(1, "Login lento"), issue(2, "Crash \"all'avvio\"\n\tà è"));
+		issues.get(1).setArchiviata(true);
+		issues.get(1).setArchiviatore(luigi);
+		issues.get(1).setDataArchiviazione(LocalDateTime.of(2026, 3, 2, 8, 0));
+		Map<String, Object> dettaglio = Map.of("issue", issues.get(1), "numeroAllegati", 0);
+
+		assertArrayEquals(jackson.writeValueAsBytes(issues), conCache.writeValueAsBytes(issues));
+		assertArrayEquals(jackson.writeValueAsBytes(issues), conCache.writeValueAsBytes(issues));
+		assertArrayEquals(jackson.writeValueAsBytes(dettaglio), conCache.writeValueAsBytes(dettaglio));
+
+		assertEquals(2, richieste("miss"));
+		assertEquals(3, richieste("hit"));
+	}
+
+	/*
+	 TEST 2: writeValueAsBytes - Creatore modificato dopo la prima serializzazione
+	 CE: Stessa issue riletta con il nome del creatore cambiato
+	 Atteso: JSON riscritto con il nuovo nome alla prima lettura successiva, poi servito dalla cache
+	 */
+	@Test
+	void testSerializza_CreatoreModificato_VoceRiscritta() throws Exception {
+		Issue issue = issue(1, "Login lento");
+		conCache.writeValueAsBytes(issue);
+
+		mario.setNome("Marco");
+
+		assertArrayEquals(jackson.writeValueAsBytes(issue), conCache.writeValueAsBytes(issue));
+		assertTrue(conCache.writeValueAsString(issue).contains("\"nome\":\"Marco\""));
+		assertEquals(2, richieste("miss"));
+		assertEquals(1, richieste("hit"));
+	}
+
+	/*
+	 TEST 3: writeValueAsBytes - CBOR
+	 CE: ObjectMapper CBOR con lo stesso modulo
+	 Atteso: Stessi byte del CBOR di Jackson, nessuna voce in cache
+	 */
+	@Test
+	void testSerializza_Cbor_SerializzatoreDiJackson() throws Exception {
+		List<Issue> issues = List.of(issue(1, "Login lento"));
+		ObjectMapper cbor = mapper().factory(new CBORFactory()).build();
+		ObjectMapper cborConCache = mapper().factory(new CBORFactory()).modulesToInstall(cache.modulo()).build();
+
+		assertArrayEquals(cbor.writeValueAsBytes(issues), cborConCache.writeValueAsBytes(issues));
+		assertEquals(0, cache.numeroVoci());
+	}
+
+	/*
+	 TEST 4: Impronta - Proprietà JSON di Issue e Utenza
+	 CE: Proprietà serializzate da Jackson per le due entity
+	 Atteso: Gli stessi nomi dei componenti di Impronta e ImprontaUtente
+	 */
+	@Test
+	void testImpronta_ProprietaJson_TutteNellImpronta() {
+		assertEquals(proprieta(Issue.class), componenti(CacheJsonIssue.Impronta.class));
+		assertEquals(proprieta(Utenza.class), componenti(CacheJsonIssue.ImprontaUtente.class));
+	}
+
+	private double richieste(String esito) {
+		return meterRegistry.get("bugboard.cache-json.richieste").tag("esito", esito).functionCounter().count();
+	}
+
+	private Set<String> proprieta(Class<?> classe) {
+		BeanDescription descrizione = jackson.getSerializationConfig()
+				.introspect(jackson.constructType(classe));
+		return descrizione.findProperties().stream().filter(BeanPropertyDefinition::couldSerialize)
+				.map(BeanPropertyDefinition::getName).collect(Collectors.toSet());
+	}
+
+	private static Set<String> componenti(Class<? extends Record> classe) {
+		return Arrays.stream(classe.getRecordComponents()).map(RecordComponent::getName).collect(Collectors.toSet());
+	}
+
+	private static Jackson2ObjectMapperBuilder mapper() {
+		return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS,
+				SerializationFeature.FAIL_ON_EMPTY_BEANS);
+	}
+
+	private Issue issue(int id, String titolo) {
+		Issue issue = new Issue(titolo, "Descrizione di " + titolo, Priorita.high, Stato.Todo, Tipo.bug, mario);
+		issue.setIdIssue(id);
+		issue.setDataCreazione(LocalDateTime.of(2026, 3, 1, 10, 0));
+		return issue;
+	}
+
+	private static Utenza utente(int id, String nome) {
+		Utenza utenza = new Utenza(nome, "Rossi", nome.toLowerCase() + "@bugboard.it", "password", Ruolo.Utente, null);
+		ReflectionTestUtils.setField(utenza, "idUtente", id);
+		return utenza;
+	}
+}
@@ -0,0 +1,288 @@
+package it.unina.bugboard.caricamento;
+
+import it.unina.bugboard.exception.AlreadyExistsException;
+import it.unina.bugboard.exception.InvalidFieldException;
+import it.unina.bugboard.exception.NotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaricamentiRiprendibiliTest {
+
+	private static final int PORZIONE = 1024;
+	private static final Instant ORA = Instant.parse("2026-03-10T10:00:00Z");
+
+	@TempDir
+	Path directory;
+
+	/*
+	 TEST 1: scrivi - Porzioni in parallelo e fuori ordine
+	 CE: File da 10 porzioni, inviate da 4 thread in ordine inverso
+	 Atteso: Un solo intervallo ricevuto, file su disco identico all'originale
+	 */
+	@Test
+	void testScrivi_PorzioniParallele_FileRicomposto() throws Exception {
+		CaricamentiRiprendibili caricamenti = caricamenti(ORA);
+		byte[] contenuto = casuali(10 * PORZIONE);
+		SessioneCaricamento sessione = caricamenti.apri(1, 2, "log.pdf", "application/pdf", contenuto.length);
+
+		ExecutorService esecutore = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Long>> invii = new ArrayList<>();
+			for (int offset = contenuto.length - PORZIONE; offset >= 0; offset -= PORZIONE) {
+				int inizio = offset;
+				invii.add(esecutore.submit(() -> caricamenti.scrivi(sessione.getIdCaricamento(), inizio,
+						porzione(contenuto, inizio, inizio + PORZIONE))));
+			}
+			for (Future<Long> invio : invii) {
+				assertEquals(PORZIONE, invio.get());
+			}
+		} finally {
+			esecutore.shutdown();
+		}
+
+		assertTrue(sessione.isCompleto());
+		assertEquals(1, sessione.getIntervalliRicevuti().size());
+		assertArrayEquals(contenuto, Files.readAllBytes(sessione.getFile()));
+	}
+
+	/*
+	 TEST 2: scrivi - Connessione interrotta a metà porzione
+	 CE: Porzione da 1024 byte di cui ne arrivano 300, poi porzione successiva
+	 Atteso: Intervalli [0,300) e [1024,2048), sessione non completa
+	 */
+	@Test
+	void testScrivi_PorzioneInterrotta_RegistraParteArrivata() throws Exception {
+		CaricamentiRiprendibili caricamenti = caricamenti(ORA);
+		byte[] contenuto = casuali(3 * PORZIONE);
+		SessioneCaricamento sessione = caricamenti.apri(1, 2, "log.pdf", "application/pdf", contenuto.length);
+
+		InputStream interrotta = new InputStream() {
+			private final InputStream dati = porzione(contenuto, 0, 300);
+
+			@Override
+			public int read() throws IOException {
+				return dati.read();
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int letti = dati.read(b, off, len);
+				if (letti == -1) {
+					throw new IOException("Connessione chiusa dal client");
+				}
+				return letti;
+			}
+		};
+		String id = sessione.getIdCaricamento();
+		assertThrows(IOException.class, () -> caricamenti.scrivi(id, 0, interrotta));
+		caricamenti.scrivi(id, PORZIONE, porzione(contenuto, PORZIONE, 2 * PORZIONE));
+
+		List<long[]> ricevuti = sessione.getIntervalliRicevuti();
+		assertArrayEquals(new long[] { 0, 300 }, ricevuti.get(0));
+		assertArrayEquals(new long[] { PORZIONE, 2 * PORZIONE }, ricevuti.get(1));
+		assertEquals(300 + PORZIONE, sessione.getByteRicevuti());
+		assertFalse(sessione.isCompleto());
+		assertThrows(InvalidFieldException.class, () -> caricamenti.avviaCompletamento(id));
+	}
+
+	/*
+	 TEST 3: scrivi - Porzione oltre i limiti
+	 CE: Porzione più grande del massimo e porzione oltre la fine dichiarata
+	 Atteso: InvalidFieldException in entrambi i casi
+	 */
+	@Test
+	void testScrivi_OltreILimiti_ThrowsInvalidFieldException() throws Exception {
+		CaricamentiRiprendibili caricamenti = caricamenti(ORA);
+		byte[] contenuto = casuali(3 * PORZIONE);
+		String id = caricamenti.apri(1, 2, "log.pdf", "application/pdf", 2 * PORZIONE).getIdCaricamento();
+
+		assertThrows(InvalidFieldException.class,
+				() -> caricamenti.scrivi(id, 0, porzione(contenuto, 0, PORZIONE + 1)));
+		assertThrows(InvalidFieldException.class,
+				() -> caricamenti.scrivi(id, PORZIONE + 1, porzione(contenuto, 0, PORZIONE)));
+		assertThrows(InvalidFieldException.class, () -> caricamenti.scrivi(id, -1, porzione(contenuto, 0, 1)));
+	}
+
+	/*
+	 TEST 4: avviaCompletamento - Richieste concorrenti
+	 CE: Sessione completa, due richieste di completamento
+	 Atteso: La seconda riceve AlreadyExistsException finché la prima non annulla
+	 */
+	@Test
+	void testAvviaCompletamento_DueRichieste_UnaSola() throws Exception {
+		CaricamentiRiprendibili caricamenti = caricamenti(ORA);
+		byte[] contenuto = casuali(PORZIONE);
+		SessioneCaricamento sessione = caricamenti.apri(1, 2, "a.png", "image/png", contenuto.length);
+		String id = sessione.getIdCaricamento();
+		caricamenti.scrivi(id, 0, porzione(contenuto, 0, PORZIONE));
+
+		assertSame(sessione, caricamenti.avviaCompletamento(id));
+		assertThrows(AlreadyExistsException.class, () -> caricamenti.avviaCompletamento(id));
+		sessione.annullaCompletamento();
+		assertSame(sessione, caricamenti.avviaCompletamento(id));
+
+		caricamenti.chiudi(sessione);
+		assertFalse(Files.exists(sessione.getFile()));
+		assertThrows(NotFoundException.class, () -> caricamenti.trova(id));
+	}
+
+	/*
+	 TEST 5: eliminaScadute - Sessioni inattive
+	 CE: Una sessione ferma da 25 ore e una toccata da 1 ora, scadenza 24 ore
+	 Atteso: Eliminata solo la prima, con il suo file
+	 */
+	@Test
+	void testEliminaScadute_SoloInattive() throws Exception {
+		AtomicReference<Instant> ora = new AtomicReference<>(ORA.minus(Duration.ofHours(25)));
+		CaricamentiRiprendibili caricamenti = caricamenti(orologio(ora));
+		SessioneCaricamento ferma = caricamenti.apri(1, 2, "a.png", "image/png", 10);
+		SessioneCaricamento recente = caricamenti.apri(1, 2, "b.png", "image/png", 10);
+		ora.set(ORA.minus(Duration.ofHours(1)));
+		caricamenti.trova(recente.getIdCaricamento());
+		ora.set(ORA);
+
+		caricamenti.eliminaScadute();
+
+		assertEquals(1, caricamenti.sessioniAperte());
+		assertFalse(Files.exists(ferma.getFile()));
+		assertTrue(Files.exists(recente.getFile()));
+		assertThrows(NotFoundException.class, () -> caricamenti.trova(ferma.getIdCaricamento()));
+	}
+
+	/*
+	 TEST 6: apri - Limiti della sessione
+	 CE: Dimensione zero, dimensione oltre il massimo, sessioni esaurite
+	 Atteso: InvalidFieldException
+	 */
+	@Test
+	void testApri_OltreILimiti_ThrowsInvalidFieldException() throws Exception {
+		CaricamentiRiprendibili caricamenti = caricamenti(ORA);
+
+		assertThrows(InvalidFieldException.class, () -> caricamenti.apri(1, 2, "a.png", "image/png", 0));
+		assertThrows(InvalidFieldException.class, () -> caricamenti.apri(1, 2, "a.png", "image/png", 64 * PORZIONE + 1));
+		caricamenti.apri(1, 2, "a.png", "image/png", 1);
+		caricamenti.apri(1, 2, "b.png", "image/png", 1);
+		assertThrows(InvalidFieldException.class, () -> caricamenti.apri(1, 2, "c.png", "image/png", 1));
+	}
+
+	/*
+	 TEST 7: scrivi/avviaCompletamento - Scritture e completamento si escludono
+	 CE: Porzione ferma a metà mentre si chiede il completamento; porzione reinviata a completamento avviato
+	 Atteso: AlreadyExistsException in entrambi i casi; file invariato durante il completamento
+	 */
+	@Test
+	void testScrivi_DuranteCompletamento_ThrowsAlreadyExistsException() throws Exception {
+		CaricamentiRiprendibili caricamenti = caricamenti(ORA);
+		byte[] contenuto = casuali(PORZIONE);
+		SessioneCaricamento sessione = caricamenti.apri(1, 2, "a.png", "image/png", contenuto.length);
+		String id = sessione.getIdCaricamento();
+		caricamenti.scrivi(id, 0, porzione(contenuto, 0, PORZIONE));
+
+		CountDownLatch iniziata = new CountDownLatch(1);
+		CountDownLatch sblocca = new CountDownLatch(1);
+		InputStream ferma = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				iniziata.countDown();
+				try {
+					sblocca.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return -1;
+			}
+		};
+		ExecutorService esecutore = Executors.newSingleThreadExecutor();
+		try {
+			Future<Long> invio = esecutore.submit(() -> caricamenti.scrivi(id, 0, ferma));
+			iniziata.await();
+			assertThrows(AlreadyExistsException.class, () -> caricamenti.avviaCompletamento(id));
+			sblocca.countDown();
+			assertEquals(0, invio.get());
+		} finally {
+			esecutore.shutdown();
+		}
+
+		assertSame(sessione, caricamenti.avviaCompletamento(id));
+		byte[] altro = casuali(2 * PORZIONE);
+		assertThrows(AlreadyExistsException.class,
+				() -> caricamenti.scrivi(id, 0, porzione(altro, PORZIONE, 2 * PORZIONE)));
+		assertArrayEquals(contenuto, Files.readAllBytes(sessione.getFile()));
+	}
+
+	/*
+	 TEST 8: scrivi - File della sessione già eliminato
+	 CE: File .part rimosso tra la ricerca della sessione e la scrittura
+	 Atteso: NotFoundException, non un errore di I/O
+	 */
+	@Test
+	void testScrivi_FileEliminato_ThrowsNotFoundException() throws Exception {
+		CaricamentiRiprendibili caricamenti = caricamenti(ORA);
+		byte[] contenuto = casuali(PORZIONE);
+		SessioneCaricamento sessione = caricamenti.apri(1, 2, "a.png", "image/png", contenuto.length);
+		Files.delete(sessione.getFile());
+
+		assertThrows(NotFoundException.class,
+				() -> caricamenti.scrivi(sessione.getIdCaricamento(), 0, porzione(contenuto, 0, PORZIONE)));
+	}
+
+	private CaricamentiRiprendibili caricamenti(Instant ora) throws IOException {
+		return caricamenti(Clock.fixed(ora, ZoneId.of("UTC")));
+	}
+
+	private CaricamentiRiprendibili caricamenti(Clock clock) throws IOException {
+		CaricamentiRiprendibili.Parametri parametri = new CaricamentiRiprendibili.Parametri(directory,
+				64 * PORZIONE, PORZIONE, Duration.ofHours(24), 2);
+		return new CaricamentiRiprendibili(parametri, clock);
+	}
+
+	private static Clock orologio(AtomicReference<Instant> ora) {
+		return new Clock() {
+			@Override
+			public ZoneId getZone() {
+				return ZoneId.of("UTC");
+			}
+
+			@Override
+			public Clock withZone(ZoneId zone) {
+				return this;
+			}
+
+			@Override
+			public Instant instant() {
+				return ora.get();
+			}
+		};
+	}
+
+	private static byte[] casuali(int n) {
+		byte[] dati = new byte[n];
+		new Random(42).nextBytes(dati);
+		return dati;
+	}
+
+	private static InputStream porzione(byte[] contenuto, int inizio, int fine) {
+		return new ByteArrayInputStream(Arrays.copyOfRange(contenuto, inizio, Math.min(fine, contenuto.length)));
+	}
+}
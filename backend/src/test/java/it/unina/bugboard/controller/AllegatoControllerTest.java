@@ -1,24 +1,62 @@
 package it.unina.bugboard.controller;
 
+import it.unina.bugboard.cache.CacheAllegati;
+import it.unina.bugboard.caricamento.CaricamentiRiprendibili;
+import it.unina.bugboard.caricamento.SessioneCaricamento;
 import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.InfoAllegato;
 import it.unina.bugboard.dao.IssueDAO;
+import it.unina.bugboard.dao.NuovoAllegato;
+import it.unina.bugboard.dao.RiepilogoAllegati;
+import it.unina.bugboard.dao.RisultatoRicercaAllegati;
 import it.unina.bugboard.model.*;
 import it.unina.bugboard.exception.*;
+import it.unina.bugboard.metrics.MetricheAllegati;
+import it.unina.bugboard.quote.QuoteAllegati;
+import it.unina.bugboard.storage.ArchivioOggetti;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +68,21 @@ class AllegatoControllerTest {
 	@Mock
 	private IssueDAO issueDAO;
 
+	@Mock
+	private MetricheAllegati metricheAllegati;
+
+	@Mock
+	private CaricamentiRiprendibili caricamenti;
+
+	@Mock
+	private ArchivioOggetti archivioOggetti;
+
+	@Mock
+	private CacheAllegati cacheAllegati;
+
+	@Mock
+	private QuoteAllegati quoteAllegati;
+
 	@InjectMocks
 	private AllegatoController allegatoController;
 
@@ -56,6 +109,10 @@ class AllegatoControllerTest {
 		issueValida.setStato(Stato.Todo);
 		issueValida.setTipo(Tipo.bug);
 		issueValida.setCreatore(creatore);
+
+		// Quote sempre rispettate, salvo nei test che le superano
+		lenient().when(quoteAllegati.inserisci(any(), any(), anyLong(), any()))
+				.thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
 	}
 
 	/*
@@ -80,7 +137,7 @@ class AllegatoControllerTest {
 
 		when(allegatoDAO.save(any(Allegato.class))).thenReturn(allegatoSalvato);
 
-		Map<String, Object> result = allegatoController.uploadAllegato(file, idIssue);
+		Map<String, Object> result = allegatoController.uploadAllegato(file, idIssue, null);
 
 		assertNotNull(result);
 		assertEquals(100, result.get("idAllegato"));
@@ -111,7 +168,7 @@ class AllegatoControllerTest {
 		MultipartFile fileNull = null;
 		Integer idIssue = 1;
 
-		assertThrows(InvalidFieldException.class, () -> allegatoController.uploadAllegato(fileNull, idIssue));
+		assertThrows(InvalidFieldException.class, () -> allegatoController.uploadAllegato(fileNull, idIssue, null));
 
 		verify(issueDAO, never()).findById(any());
 		verify(allegatoDAO, never()).save(any());
@@ -128,7 +185,7 @@ class AllegatoControllerTest {
 		MockMultipartFile fileVuoto = new MockMultipartFile("file", "empty.jpg", "image/jpeg", new byte[0]);
 		Integer idIssue = 1;
 
-		assertThrows(InvalidFieldException.class, () -> allegatoController.uploadAllegato(fileVuoto, idIssue));
+		assertThrows(InvalidFieldException.class, () -> allegatoController.uploadAllegato(fileVuoto, idIssue, null));
 
 		verify(issueDAO, never()).findById(any());
 		verify(allegatoDAO, never()).save(any());
@@ -147,7 +204,7 @@ class AllegatoControllerTest {
 		Integer idIssue = 1;
 
 		InvalidFieldException exception = assertThrows(InvalidFieldException.class,
-				() -> allegatoController.uploadAllegato(fileTroppoGrande, idIssue));
+				() -> allegatoController.uploadAllegato(fileTroppoGrande, idIssue, null));
 
 		assertTrue(exception.getMessage().contains("dimensione massima"));
 		verify(issueDAO, never()).findById(any());
@@ -166,7 +223,7 @@ class AllegatoControllerTest {
 		Integer idIssue = 1;
 
 		InvalidFieldException exception = assertThrows(InvalidFieldException.class,
-				() -> allegatoController.uploadAllegato(fileNonSupportato, idIssue));
+				() -> allegatoController.uploadAllegato(fileNonSupportato, idIssue, null));
 
 		assertTrue(exception.getMessage().contains("non supportato"));
 		verify(issueDAO, never()).findById(any());
@@ -187,7 +244,7 @@ class AllegatoControllerTest {
 		when(issueDAO.findById(idIssueNonEsistente)).thenReturn(Optional.empty());
 
 		NotFoundException exception = assertThrows(NotFoundException.class,
-				() -> allegatoController.uploadAllegato(file, idIssueNonEsistente));
+				() -> allegatoController.uploadAllegato(file, idIssueNonEsistente, null));
 
 		assertTrue(exception.getMessage().contains("Issue non trovata"));
 		assertTrue(exception.getMessage().contains("999"));
@@ -217,7 +274,7 @@ class AllegatoControllerTest {
 
 		when(allegatoDAO.save(any(Allegato.class))).thenReturn(allegatoSalvato);
 
-		Map<String, Object> result = allegatoController.uploadAllegato(filePdf, idIssue);
+		Map<String, Object> result = allegatoController.uploadAllegato(filePdf, idIssue, null);
 
 		assertNotNull(result);
 		assertEquals(200, result.get("idAllegato"));
@@ -252,7 +309,7 @@ class AllegatoControllerTest {
 
 		when(allegatoDAO.save(any(Allegato.class))).thenReturn(allegatoSalvato);
 
-		Map<String, Object> result = allegatoController.uploadAllegato(fileAlLimite, idIssue);
+		Map<String, Object> result = allegatoController.uploadAllegato(fileAlLimite, idIssue, null);
 
 		assertNotNull(result);
 		assertEquals(300, result.get("idAllegato"));
@@ -277,7 +334,7 @@ class AllegatoControllerTest {
 		when(issueDAO.findById(null)).thenThrow(new IllegalArgumentException("L'ID fornito non deve essere nullo"));
 
 		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
-				() -> allegatoController.uploadAllegato(file, null));
+				() -> allegatoController.uploadAllegato(file, null, null));
 
 		assertTrue(exception.getMessage().contains("nullo") || exception.getMessage().contains("null"));
 
@@ -308,7 +365,7 @@ class AllegatoControllerTest {
 
 		when(allegatoDAO.save(any(Allegato.class))).thenReturn(allegatoSalvato);
 
-		Map<String, Object> result = allegatoController.uploadAllegato(fileDocx, idIssue);
+		Map<String, Object> result = allegatoController.uploadAllegato(fileDocx, idIssue, null);
 
 		assertNotNull(result);
 		assertEquals(400, result.get("idAllegato"));
@@ -328,7 +385,7 @@ class AllegatoControllerTest {
 		MockMultipartFile file = new MockMultipartFile("file", "test.jpg", null, "contenuto".getBytes());
 
 		InvalidFieldException exception = assertThrows(InvalidFieldException.class,
-				() -> allegatoController.uploadAllegato(file, 1));
+				() -> allegatoController.uploadAllegato(file, 1, null));
 
 		assertTrue(exception.getMessage().contains("non supportato"));
 
@@ -347,7 +404,7 @@ class AllegatoControllerTest {
 		MockMultipartFile file = new MockMultipartFile("file", "big.jpg", "image/jpeg", oversized);
 
 		InvalidFieldException exception = assertThrows(InvalidFieldException.class,
-				() -> allegatoController.uploadAllegato(file, 1));
+				() -> allegatoController.uploadAllegato(file, 1, null));
 
 		assertTrue(exception.getMessage().contains("dimensione massima"));
 
@@ -365,7 +422,7 @@ class AllegatoControllerTest {
 		MockMultipartFile file = new MockMultipartFile("file", null, "image/jpeg", "content".getBytes());
 
 		InvalidFieldException exception = assertThrows(InvalidFieldException.class,
-				() -> allegatoController.uploadAllegato(file, 1));
+				() -> allegatoController.uploadAllegato(file, 1, null));
 
 		assertTrue(exception.getMessage().contains("Nome file mancante"));
 
@@ -373,4 +430,497 @@ class AllegatoControllerTest {
 		verify(issueDAO, never()).findById(any());
 		verify(allegatoDAO, never()).save(any());
 	}
-}
\ No newline at end of file
+
+	/*
+	 TEST 14: riepilogoAllegati - Più issue in una richiesta
+	 CE: Issue 1 con 3 allegati, issue 2 senza allegati
+	 Atteso: Una sola query aggregata, issue 2 con zero, nessuna verifica di esistenza
+	 */
+	@Test
+	void testRiepilogoAllegati_PiuIssue_UnaSolaQuery() {
+		RiepilogoAllegati riepilogoIssue1 = mock(RiepilogoAllegati.class);
+		when(riepilogoIssue1.getIdIssue()).thenReturn(1);
+		when(riepilogoIssue1.getNumeroAllegati()).thenReturn(3L);
+		when(riepilogoIssue1.getDimensioneTotale()).thenReturn(4096L);
+		when(allegatoDAO.riepilogoByIssue(new Integer[] { 1, 2 })).thenReturn(List.of(riepilogoIssue1));
+
+		Map<Integer, Map<String, Object>> riepilogo = allegatoController.riepilogoAllegati(List.of(1, 2));
+
+		assertEquals(3L, riepilogo.get(1).get("numeroAllegati"));
+		assertEquals(4096L, riepilogo.get(1).get("dimensioneTotaleBytes"));
+		assertEquals(0L, riepilogo.get(2).get("numeroAllegati"));
+		verifyNoInteractions(issueDAO);
+	}
+
+	/*
+	 TEST 15: riepilogoAllegati - Troppe issue
+	 CE: 1001 id
+	 Atteso: InvalidFieldException, nessun accesso al DB
+	 */
+	@Test
+	void testRiepilogoAllegati_TroppeIssue_ThrowsInvalidFieldException() {
+		List<Integer> idIssue = IntStream.rangeClosed(1, 1001).boxed().toList();
+
+		assertThrows(InvalidFieldException.class, () -> allegatoController.riepilogoAllegati(idIssue));
+
+		verifyNoInteractions(allegatoDAO, issueDAO);
+	}
+
+	/*
+	 TEST 16: scaricaZip - Allegati letti a porzioni
+	 CE: Issue 1 con un PNG da 300KB e due PDF con lo stesso nome
+	 Atteso: Tre voci con nomi distinti e contenuto integro, il PNG letto in due porzioni da 256KB
+	 */
+	@Test
+	void testScaricaZip_AllegatiAPorzioni_ZipCompleto() throws Exception {
+		byte[] immagine = new byte[300 * 1024];
+		Arrays.fill(immagine, (byte) 7);
+		byte[] documento = "contenuto pdf".getBytes();
+		List<InfoAllegato> allegati = List.of(infoAllegato(10, "schermata.png", "image/png", immagine.length),
+				infoAllegato(11, "log.pdf", "application/pdf", documento.length),
+				infoAllegato(12, "log.pdf", "application/pdf", documento.length));
+		when(issueDAO.existsById(1)).thenReturn(true);
+		when(allegatoDAO.findInfoByIssue(1)).thenReturn(allegati);
+		when(allegatoDAO.leggiPorzione(eq(10), anyInt(), anyInt())).thenAnswer(invocation -> {
+			int inizio = invocation.<Integer>getArgument(1) - 1;
+			int fine = Math.min(immagine.length, inizio + invocation.<Integer>getArgument(2));
+			return Arrays.copyOfRange(immagine, inizio, fine);
+		});
+		when(allegatoDAO.leggiPorzione(eq(11), anyInt(), anyInt())).thenReturn(documento);
+		when(allegatoDAO.leggiPorzione(eq(12), anyInt(), anyInt())).thenReturn(documento);
+
+		ResponseEntity<StreamingResponseBody> risposta = allegatoController.scaricaZip(1);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		risposta.getBody().writeTo(out);
+
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			ZipEntry voce = zip.getNextEntry();
+			assertEquals("schermata.png", voce.getName());
+			assertArrayEquals(immagine, zip.readAllBytes());
+			assertEquals("log.pdf", zip.getNextEntry().getName());
+			assertArrayEquals(documento, zip.readAllBytes());
+			assertEquals("log (2).pdf", zip.getNextEntry().getName());
+			assertNull(zip.getNextEntry());
+		}
+		verify(allegatoDAO, times(2)).leggiPorzione(eq(10), anyInt(), eq(256 * 1024));
+		verify(allegatoDAO, never()).findById(any());
+		verify(metricheAllegati).registraZip(immagine.length);
+	}
+
+	/*
+	 TEST 17: scaricaZip - Issue inesistente
+	 CE: Issue con id 999 non presente
+	 Atteso: NotFoundException prima di iniziare lo ZIP
+	 */
+	@Test
+	void testScaricaZip_IssueInesistente_ThrowsNotFoundException() {
+		when(issueDAO.existsById(999)).thenReturn(false);
+
+		assertThrows(NotFoundException.class, () -> allegatoController.scaricaZip(999));
+
+		verifyNoInteractions(allegatoDAO);
+	}
+
+	/*
+	 TEST 18: completaCaricamento - Caricamento riprendibile completo
+	 CE: Sessione con tutte le porzioni ricevute, issue esistente
+	 Atteso: Allegato inserito dal file temporaneo, sessione chiusa
+	 */
+	@Test
+	void testCompletaCaricamento_Completo_InserisceDaFile() {
+		SessioneCaricamento sessione = sessioneCaricamento();
+		when(caricamenti.avviaCompletamento("abc")).thenReturn(sessione);
+		when(issueDAO.existsById(1)).thenReturn(true);
+		when(allegatoDAO.inserisciDaFile("video.pdf", "application/pdf", 30_000_000L, Path.of("/tmp/abc.part"), 1, 2))
+				.thenReturn(42);
+
+		Map<String, Object> risultato = allegatoController.completaCaricamento("abc");
+
+		assertEquals(42, risultato.get("idAllegato"));
+		verify(caricamenti).chiudi(sessione);
+		verify(sessione, never()).annullaCompletamento();
+		verify(allegatoDAO, never()).save(any());
+	}
+
+	/*
+	 TEST 19: completaCaricamento - Errore durante l'inserimento
+	 CE: Sessione completa, issue eliminata nel frattempo
+	 Atteso: NotFoundException, sessione non chiusa e di nuovo completabile
+	 */
+	@Test
+	void testCompletaCaricamento_IssueEliminata_SessioneRiprendibile() {
+		SessioneCaricamento sessione = sessioneCaricamento();
+		when(caricamenti.avviaCompletamento("abc")).thenReturn(sessione);
+		when(issueDAO.existsById(1)).thenReturn(false);
+
+		assertThrows(NotFoundException.class, () -> allegatoController.completaCaricamento("abc"));
+
+		verify(sessione).annullaCompletamento();
+		verify(caricamenti, never()).chiudi(any());
+		verifyNoInteractions(allegatoDAO);
+	}
+
+	/*
+	 TEST 20: apriCaricamento - Tipo di file non consentito
+	 CE: tipoFile application/zip
+	 Atteso: InvalidFieldException, nessuna sessione aperta
+	 */
+	@Test
+	void testApriCaricamento_TipoNonConsentito_ThrowsInvalidFieldException() {
+		assertThrows(InvalidFieldException.class,
+				() -> allegatoController.apriCaricamento(1, "archivio.zip", "application/zip", 1024, null));
+
+		verifyNoInteractions(caricamenti, issueDAO);
+	}
+
+	/*
+	 TEST 21: uploadMultiplo - File validi, duplicati e non consentiti
+	 CE: Due file validi, una copia del primo, un file zip
+	 Atteso: Un solo batch con i due validi, esiti per file nell'ordine di invio
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	void testUploadMultiplo_EsitiPerFile_UnSoloBatch() {
+		List<MultipartFile> file = List.of(new MockMultipartFile("file", "a.png", "image/png", "aaa".getBytes()),
+				new MockMultipartFile("file", "b.pdf", "application/pdf", "bbb".getBytes()),
+				new MockMultipartFile("file", "copia.png", "image/png", "aaa".getBytes()),
+				new MockMultipartFile("file", "x.zip", "application/zip", "zzz".getBytes()));
+		when(issueDAO.existsById(1)).thenReturn(true);
+		when(allegatoDAO.inserisciTutti(eq(1), eq(2), any())).thenReturn(List.of(100, 101));
+
+		ExecutorService esecutore = Executors.newFixedThreadPool(2);
+		Map<String, Object> risultato;
+		try {
+			risultato = new AllegatoController(allegatoDAO, issueDAO, metricheAllegati, caricamenti, esecutore,
+					archivioOggetti, cacheAllegati, quoteAllegati)
+					.uploadMultiplo(file, 1, 2);
+		} finally {
+			esecutore.shutdown();
+		}
+
+		ArgumentCaptor<List<NuovoAllegato>> inseriti = ArgumentCaptor.forClass(List.class);
+		verify(allegatoDAO).inserisciTutti(eq(1), eq(2), inseriti.capture());
+		verify(quoteAllegati).inserisci(eq(1), eq(2), eq(6L), any());
+		assertEquals(List.of("a.png", "b.pdf"), inseriti.getValue().stream().map(NuovoAllegato::nomeFile).toList());
+		verify(issueDAO, never()).findById(any());
+
+		List<Map<String, Object>> esiti = (List<Map<String, Object>>) risultato.get("risultati");
+		assertEquals(2, risultato.get("caricati"));
+		assertEquals(100, esiti.get(0).get("idAllegato"));
+		assertEquals("9834876dcfb05cb167a5c24953eba58c4ac89b1adf57f28f2f9d09af107ee8f0", esiti.get(0).get("sha256"));
+		assertEquals(101, esiti.get(1).get("idAllegato"));
+		assertEquals("Contenuto identico a a.png", esiti.get(2).get("errore"));
+		assertEquals("scartato", esiti.get(3).get("esito"));
+	}
+
+	/*
+	 TEST 22: uploadMultiplo - Troppi file
+	 CE: 11 file
+	 Atteso: InvalidFieldException, nessun accesso al DB
+	 */
+	@Test
+	void testUploadMultiplo_TroppiFile_ThrowsInvalidFieldException() {
+		List<MultipartFile> file = IntStream.rangeClosed(1, 11)
+				.mapToObj(i -> (MultipartFile) new MockMultipartFile("file", i + ".png", "image/png", new byte[] { 1 }))
+				.toList();
+
+		assertThrows(InvalidFieldException.class, () -> allegatoController.uploadMultiplo(file, 1, null));
+
+		verifyNoInteractions(allegatoDAO, issueDAO);
+	}
+
+	/*
+	 TEST 23: confermaCaricamentoOggetto - Oggetto presente sullo storage
+	 CE: HEAD restituisce 2MB image/png per la chiave dell'issue 1
+	 Atteso: Allegato salvato con chiave, tipo e dimensione letti dallo storage, senza byte
+	 */
+	@Test
+	void testConfermaCaricamentoOggetto_OggettoPresente_SalvaMetadati() throws Exception {
+		String chiave = "issue/1/6f1c2a";
+		when(archivioOggetti.appartieneAIssue(chiave, 1)).thenReturn(true);
+		when(archivioOggetti.leggiMetadati(chiave))
+				.thenReturn(Optional.of(new ArchivioOggetti.Oggetto(2_000_000L, "image/png")));
+		when(archivioOggetti.getDimensioneMassima()).thenReturn(100L * 1024 * 1024);
+		when(issueDAO.findById(1)).thenReturn(Optional.of(issueValida));
+		java.lang.reflect.Field idAllegatoField = Allegato.class.getDeclaredField("idAllegato");
+		idAllegatoField.setAccessible(true);
+		when(allegatoDAO.saveAndFlush(any(Allegato.class))).thenAnswer(invocation -> {
+			idAllegatoField.set(invocation.getArgument(0), 100);
+			return invocation.getArgument(0);
+		});
+		when(allegatoDAO.rimuoviOggettoInCaricamento(chiave)).thenReturn(1);
+
+		Map<String, Object> result = allegatoController.confermaCaricamentoOggetto(1, chiave, "schermata.png", null);
+
+		assertEquals(100, result.get("idAllegato"));
+
+		ArgumentCaptor<Allegato> salvato = ArgumentCaptor.forClass(Allegato.class);
+		verify(allegatoDAO).saveAndFlush(salvato.capture());
+		assertEquals(chiave, salvato.getValue().getChiaveOggetto());
+		assertEquals("image/png", salvato.getValue().getTipoFile());
+		assertEquals(2_000_000, salvato.getValue().getDimensione());
+		assertNull(salvato.getValue().getFileData());
+	}
+
+	/*
+	 TEST 24: confermaCaricamentoOggetto - Oggetto non ancora caricato
+	 CE: HEAD restituisce 404
+	 Atteso: InvalidFieldException, nessun salvataggio
+	 */
+	@Test
+	void testConfermaCaricamentoOggetto_OggettoAssente_ThrowsInvalidFieldException() throws Exception {
+		when(archivioOggetti.appartieneAIssue("issue/1/6f1c2a", 1)).thenReturn(true);
+		when(archivioOggetti.leggiMetadati("issue/1/6f1c2a")).thenReturn(Optional.empty());
+
+		assertThrows(InvalidFieldException.class,
+				() -> allegatoController.confermaCaricamentoOggetto(1, "issue/1/6f1c2a", "schermata.png", null));
+
+		verifyNoInteractions(allegatoDAO, issueDAO);
+	}
+
+	/*
+	 TEST 25: downloadAllegato - Allegato su object storage
+	 CE: Allegato con chiave oggetto
+	 Atteso: 302 verso l'URL presigned, nessun byte letto dal DB
+	 */
+	@Test
+	void testDownloadAllegato_Remoto_RedirectUrlPresigned() {
+		InfoAllegato allegato = mock(InfoAllegato.class);
+		when(allegato.getNomeFile()).thenReturn("schermata.png");
+		when(allegato.getChiaveOggetto()).thenReturn("issue/1/6f1c2a");
+		URI url = URI.create("http://127.0.0.1:9000/bugboard-allegati/issue/1/6f1c2a?X-Amz-Signature=abc");
+		when(allegatoDAO.findInfoById(5)).thenReturn(Optional.of(allegato));
+		when(archivioOggetti.urlScaricamento("issue/1/6f1c2a", "schermata.png", false))
+				.thenReturn(new ArchivioOggetti.UrlPresigned(url, Instant.now()));
+
+		ResponseEntity<?> risposta = allegatoController.downloadAllegato(5);
+
+		assertEquals(HttpStatus.FOUND, risposta.getStatusCode());
+		assertEquals(url, risposta.getHeaders().getLocation());
+		verify(metricheAllegati, never()).registraDownload(anyLong());
+		verifyNoInteractions(cacheAllegati);
+	}
+
+	/*
+	 TEST 26: previewAllegato - Contenuto non in cache
+	 CE: Allegato nel database, cache vuota
+	 Atteso: Contenuto letto dal database, salvato in cache e inviato inline
+	 */
+	@Test
+	void testPreviewAllegato_NonInCache_LeggeDalDbESalva() throws Exception {
+		byte[] contenuto = "contenuto png".getBytes();
+		InfoAllegato allegato = infoAllegato(5, "schermata.png", "image/png");
+		when(allegatoDAO.findInfoById(5)).thenReturn(Optional.of(allegato));
+		when(cacheAllegati.apri(5)).thenReturn(Optional.empty());
+		when(allegatoDAO.findFileDataById(5)).thenReturn(contenuto);
+
+		ResponseEntity<StreamingResponseBody> risposta = allegatoController.previewAllegato(5);
+
+		verify(cacheAllegati).salva(5, contenuto);
+		assertEquals("inline; filename=\"schermata.png\"",
+				risposta.getHeaders().getFirst("Content-Disposition"));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		risposta.getBody().writeTo(out);
+		assertArrayEquals(contenuto, out.toByteArray());
+	}
+
+	/*
+	 TEST 27: downloadAllegato - Contenuto in cache
+	 CE: Allegato con il contenuto già nella cache su disco
+	 Atteso: Nessuna lettura del bytea dal database, contenuto inviato dal file in cache
+	 */
+	@Test
+	void testDownloadAllegato_InCache_NessunaLetturaDalDb(@TempDir Path directory) throws Exception {
+		byte[] contenuto = "contenuto pdf".getBytes();
+		Path file = Files.write(directory.resolve("5.bin"), contenuto);
+		InfoAllegato allegato = infoAllegato(5, "report.pdf", "application/pdf");
+		when(allegatoDAO.findInfoById(5)).thenReturn(Optional.of(allegato));
+		when(cacheAllegati.apri(5)).thenReturn(Optional.of(FileChannel.open(file, StandardOpenOption.READ)));
+
+		ResponseEntity<StreamingResponseBody> risposta = allegatoController.downloadAllegato(5);
+
+		assertEquals(contenuto.length, risposta.getHeaders().getContentLength());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		risposta.getBody().writeTo(out);
+		assertArrayEquals(contenuto, out.toByteArray());
+		verify(allegatoDAO, never()).findFileDataById(any());
+		verify(metricheAllegati).registraDownload(contenuto.length);
+	}
+
+	/*
+	 TEST 28: uploadAllegato - Quota superata
+	 CE: File valido per un'issue esistente, quota dell'issue già piena
+	 Atteso: InvalidFieldException, nessun allegato salvato
+	 */
+	@Test
+	void testUploadAllegato_QuotaSuperata_ThrowsInvalidFieldException() {
+		MockMultipartFile file = new MockMultipartFile("file", "log.pdf", "application/pdf", new byte[2048]);
+		when(issueDAO.findById(1)).thenReturn(Optional.of(issueValida));
+		doThrow(new InvalidFieldException("Quota allegati dell'issue superata")).when(quoteAllegati)
+				.inserisci(eq(1), eq(7), eq(2048L), any());
+
+		assertThrows(InvalidFieldException.class, () -> allegatoController.uploadAllegato(file, 1, 7));
+
+		verify(allegatoDAO, never()).save(any());
+		verify(metricheAllegati, never()).registraUpload(anyLong());
+	}
+
+	/*
+	 TEST 29: cercaNegliAllegati - Più allegati della stessa issue
+	 CE: Tre corrispondenze, le prime due e la terza su issue diverse, in ordine di rilevanza
+	 Atteso: Due issue nell'ordine del primo allegato, allegati raggruppati con l'estratto
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	void testCercaNegliAllegati_RaggruppaPerIssue() {
+		List<RisultatoRicercaAllegati> risultati = List.of(risultatoRicerca(4, 40, 0.9),
+				risultatoRicerca(4, 41, 0.5), risultatoRicerca(2, 20, 0.3));
+		when(allegatoDAO.cercaNelTesto("timeout connessione", 20)).thenReturn(risultati);
+
+		List<Map<String, Object>> issue = allegatoController.cercaNegliAllegati("  timeout connessione ", 20);
+
+		assertEquals(List.of(4, 2), issue.stream().map(i -> i.get("idIssue")).toList());
+		List<Map<String, Object>> allegati = (List<Map<String, Object>>) issue.get(0).get("allegati");
+		assertEquals(List.of(40, 41), allegati.stream().map(a -> a.get("idAllegato")).toList());
+		assertEquals("... <b>timeout</b> ...", allegati.get(0).get("estratto"));
+	}
+
+	/*
+	 TEST 30: cercaNegliAllegati - Testo vuoto
+	 CE: Solo spazi
+	 Atteso: InvalidFieldException, nessuna query
+	 */
+	@Test
+	void testCercaNegliAllegati_TestoVuoto_ThrowsInvalidFieldException() {
+		assertThrows(InvalidFieldException.class, () -> allegatoController.cercaNegliAllegati("   ", 20));
+
+		verifyNoInteractions(allegatoDAO);
+	}
+
+	private RisultatoRicercaAllegati risultatoRicerca(int idIssue, int idAllegato, double rilevanza) {
+		RisultatoRicercaAllegati risultato = mock(RisultatoRicercaAllegati.class);
+		when(risultato.getIdIssue()).thenReturn(idIssue);
+		lenient().when(risultato.getTitolo()).thenReturn("Issue " + idIssue);
+		lenient().when(risultato.getStato()).thenReturn("Todo");
+		when(risultato.getIdAllegato()).thenReturn(idAllegato);
+		when(risultato.getNomeFile()).thenReturn(idAllegato + ".pdf");
+		when(risultato.getEstratto()).thenReturn("... <b>timeout</b> ...");
+		when(risultato.getRilevanza()).thenReturn(rilevanza);
+		return risultato;
+	}
+
+	/*
+	 TEST 31: preparaCaricamentoOggetto - Chiave in attesa di conferma
+	 CE: Object storage abilitato, URL valido 5 minuti e attesa della conferma di 1 ora
+	 Atteso: Chiave registrata in oggetto_in_caricamento con scadenza a 65 minuti, poi URL presigned
+	 */
+	@Test
+	void testPreparaCaricamentoOggetto_RegistraChiaveInAttesa() throws Exception {
+		String chiave = "issue/1/6f1c2a";
+		when(archivioOggetti.isAbilitato()).thenReturn(true);
+		when(archivioOggetti.getDimensioneMassima()).thenReturn(100L * 1024 * 1024);
+		when(issueDAO.existsById(1)).thenReturn(true);
+		when(archivioOggetti.nuovaChiave(1)).thenReturn(chiave);
+		when(archivioOggetti.getScadenzaConferma()).thenReturn(Duration.ofMinutes(65));
+		when(archivioOggetti.urlCaricamento(chiave, "image/png", 2048L)).thenReturn(
+				new ArchivioOggetti.UrlPresigned(URI.create("https://s3.example/" + chiave), Instant.now()));
+
+		Map<String, Object> result = allegatoController.preparaCaricamentoOggetto(1, "a.png", "image/png", 2048L, null);
+
+		assertEquals(chiave, result.get("chiave"));
+		verify(allegatoDAO).registraOggettoInCaricamento(chiave, 3900L);
+	}
+
+	/*
+	 TEST 32: confermaCaricamentoOggetto - Violazioni dei vincoli
+	 CE: saveAndFlush fallisce per chiave già confermata (23505) e per issue eliminata nel frattempo (23503)
+	 Atteso: AlreadyExistsException solo per la prima; la seconda non è scambiata per un duplicato
+	 */
+	@Test
+	void testConfermaCaricamentoOggetto_Violazioni_SoloUnicitaComeDuplicato() throws Exception {
+		String chiave = "issue/1/6f1c2a";
+		when(archivioOggetti.appartieneAIssue(chiave, 1)).thenReturn(true);
+		when(archivioOggetti.leggiMetadati(chiave))
+				.thenReturn(Optional.of(new ArchivioOggetti.Oggetto(2_000_000L, "image/png")));
+		when(archivioOggetti.getDimensioneMassima()).thenReturn(100L * 1024 * 1024);
+		when(issueDAO.findById(1)).thenReturn(Optional.of(issueValida));
+		when(allegatoDAO.saveAndFlush(any(Allegato.class))).thenThrow(violazione("23505", "ux_allegato_chiaveoggetto"))
+				.thenThrow(violazione("23503", "allegato_idissue_fkey"));
+
+		assertThrows(AlreadyExistsException.class,
+				() -> allegatoController.confermaCaricamentoOggetto(1, chiave, "schermata.png", null));
+		assertThrows(DataIntegrityViolationException.class,
+				() -> allegatoController.confermaCaricamentoOggetto(1, chiave, "schermata.png", null));
+		verify(allegatoDAO, never()).rimuoviOggettoInCaricamento(any());
+	}
+
+	/*
+	 TEST 33: confermaCaricamentoOggetto - Attesa della conferma scaduta
+	 CE: Nessuna riga in oggetto_in_caricamento: la chiave è già accodata per l'eliminazione
+	 Atteso: InvalidFieldException, nessuna metrica di upload
+	 */
+	@Test
+	void testConfermaCaricamentoOggetto_Scaduto_ThrowsInvalidFieldException() throws Exception {
+		String chiave = "issue/1/6f1c2a";
+		when(archivioOggetti.appartieneAIssue(chiave, 1)).thenReturn(true);
+		when(archivioOggetti.leggiMetadati(chiave))
+				.thenReturn(Optional.of(new ArchivioOggetti.Oggetto(2_000_000L, "image/png")));
+		when(archivioOggetti.getDimensioneMassima()).thenReturn(100L * 1024 * 1024);
+		when(issueDAO.findById(1)).thenReturn(Optional.of(issueValida));
+		when(allegatoDAO.saveAndFlush(any(Allegato.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		when(allegatoDAO.rimuoviOggettoInCaricamento(chiave)).thenReturn(0);
+
+		assertThrows(InvalidFieldException.class,
+				() -> allegatoController.confermaCaricamentoOggetto(1, chiave, "schermata.png", null));
+		verifyNoInteractions(metricheAllegati);
+	}
+
+	/*
+	 TEST 34: scaricaZip - Porzione mancante a metà file
+	 CE: PNG registrato da 300KB, la seconda porzione non restituisce righe
+	 Atteso: IOException durante la scrittura, nessun trasferimento registrato
+	 */
+	@Test
+	void testScaricaZip_PorzioneMancante_ThrowsIOException() {
+		List<InfoAllegato> allegati = List.of(infoAllegato(10, "schermata.png", "image/png", 300 * 1024));
+		when(issueDAO.existsById(1)).thenReturn(true);
+		when(allegatoDAO.findInfoByIssue(1)).thenReturn(allegati);
+		when(allegatoDAO.leggiPorzione(eq(10), anyInt(), anyInt())).thenReturn(new byte[256 * 1024], (byte[]) null);
+
+		ResponseEntity<StreamingResponseBody> risposta = allegatoController.scaricaZip(1);
+
+		assertThrows(IOException.class, () -> risposta.getBody().writeTo(new ByteArrayOutputStream()));
+		verify(metricheAllegati, never()).registraZip(anyLong());
+	}
+
+	private DataIntegrityViolationException violazione(String sqlState, String vincolo) {
+		SQLException sqlException = new SQLException("violazione vincolo " + vincolo, sqlState);
+		return new DataIntegrityViolationException("violazione vincolo",
+				new ConstraintViolationException("violazione vincolo", sqlException, vincolo));
+	}
+
+	private SessioneCaricamento sessioneCaricamento() {
+		SessioneCaricamento sessione = mock(SessioneCaricamento.class);
+		when(sessione.getIdIssue()).thenReturn(1);
+		lenient().when(sessione.getNomeFile()).thenReturn("video.pdf");
+		lenient().when(sessione.getTipoFile()).thenReturn("application/pdf");
+		lenient().when(sessione.getDimensione()).thenReturn(30_000_000L);
+		lenient().when(sessione.getFile()).thenReturn(Path.of("/tmp/abc.part"));
+		lenient().when(sessione.getIdCaricatore()).thenReturn(2);
+		return sessione;
+	}
+
+	private InfoAllegato infoAllegato(int id, String nomeFile, String tipoFile) {
+		InfoAllegato info = mock(InfoAllegato.class);
+		lenient().when(info.getIdAllegato()).thenReturn(id);
+		when(info.getNomeFile()).thenReturn(nomeFile);
+		when(info.getTipoFile()).thenReturn(tipoFile);
+		return info;
+	}
+
+	private InfoAllegato infoAllegato(int id, String nomeFile, String tipoFile, int dimensione) {
+		InfoAllegato info = infoAllegato(id, nomeFile, tipoFile);
+		when(info.getDimensione()).thenReturn(dimensione);
+		return info;
+	}
+}
@@ -0,0 +1,257 @@
+package it.unina.bugboard.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.unina.bugboard.cache.CacheAllegati;
+import it.unina.bugboard.caricamento.CaricamentiRiprendibili;
+import it.unina.bugboard.config.FormatiRispostaConfig;
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.IssueDAO;
+import it.unina.bugboard.dao.UtenzaDAO;
+import it.unina.bugboard.indici.IndiciConfig;
+import it.unina.bugboard.indici.IstantaneaIssue;
+import it.unina.bugboard.metrics.MetricheAllegati;
+import it.unina.bugboard.model.*;
+import it.unina.bugboard.quote.QuoteAllegati;
+import it.unina.bugboard.storage.ArchivioOggetti;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/*
+ Negoziazione del formato (FormatiRispostaConfig) e compressione (server.compression.* di
+ application.properties) sui controller veri, con Tomcat su una porta casuale e DAO finti
+ */
+@SpringBootTest(classes = FormatiRispostaTest.Contesto.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ImportAutoConfiguration(exclude = { SecurityAutoConfiguration.class, SecurityFilterAutoConfiguration.class,
+		UserDetailsServiceAutoConfiguration.class })
+class FormatiRispostaTest {
+
+	private static final String CBOR = "application/cbor";
+	private static final LocalDateTime OGGI = LocalDateTime.of(2026, 3, 10, 12, 0);
+	private static final TypeReference<List<Map<String, Object>>> LISTA = new TypeReference<>() {
+	};
+
+	@Configuration
+	@ImportAutoConfiguration({ ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+			WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class })
+	@Import({ FormatiRispostaConfig.class, IndiciConfig.class, IssueController.class, AllegatoController.class })
+	static class Contesto {
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@MockBean
+	private IssueDAO issueDAO;
+
+	@MockBean
+	private UtenzaDAO utenzaDAO;
+
+	@MockBean
+	private AllegatoDAO allegatoDAO;
+
+	@MockBean
+	private MetricheAllegati metricheAllegati;
+
+	@MockBean
+	private CaricamentiRiprendibili caricamenti;
+
+	@MockBean(name = "esecutoreAllegati")
+	private ExecutorService esecutoreAllegati;
+
+	@MockBean
+	private ArchivioOggetti archivioOggetti;
+
+	@MockBean
+	private CacheAllegati cacheAllegati;
+
+	@MockBean
+	private QuoteAllegati quoteAllegati;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private IstantaneaIssue istantaneaIssue;
+
+	@LocalServerPort
+	private int porta;
+
+	private final ObjectMapper json = new ObjectMapper();
+	private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+	private Utenza creatore;
+
+	@BeforeEach
+	void setUp() {
+		creatore = new Utenza();
+		creatore.setNome("Mario");
+		creatore.setCognome("Rossi");
+		creatore.setEmail("mario@test.com");
+		creatore.setPassword("password123");
+		creatore.setRuolo(Ruolo.Utente);
+
+		IntStream.rangeClosed(1, 100).forEach(i -> istantaneaIssue.aggiornaDopoCommit(
+				issue(i, "Issue di prova numero " + i, Priorita.values()[i % Priorita.values().length])));
+		istantaneaIssue.pubblica();
+	}
+
+	/*
+	 TEST 1: filtraAvanzato - Issue attive, Accept application/cbor
+	 CE: Istantanea di 100 issue; stessa richiesta in JSON e in CBOR
+	 Atteso: Il JSON dai byte già pronti di SchedeJson, con Content-Length; il CBOR dal converter di
+	     Jackson, come lista con gli stessi campi e valori
+	 */
+	@Test
+	void testFiltraAvanzato_Cbor_StesseSchedeDelJson() throws Exception {
+		MockHttpServletResponse rispostaJson = mockMvc.perform(get("/api/issue/filtra-avanzato")).andReturn()
+				.getResponse();
+		MockHttpServletResponse rispostaCbor = mockMvc.perform(get("/api/issue/filtra-avanzato").accept(CBOR))
+				.andReturn().getResponse();
+
+		assertEquals(200, rispostaJson.getStatus());
+		assertTrue(rispostaJson.getContentType().startsWith("application/json"));
+		assertEquals(rispostaJson.getContentAsByteArray().length, rispostaJson.getContentLength());
+		assertEquals(200, rispostaCbor.getStatus());
+		assertEquals(CBOR, rispostaCbor.getContentType());
+
+		List<Map<String, Object>> daJson = json.readValue(rispostaJson.getContentAsByteArray(), LISTA);
+		List<Map<String, Object>> daCbor = cbor.readValue(rispostaCbor.getContentAsByteArray(), LISTA);
+		assertEquals(100, daCbor.size());
+		assertEquals(daJson, daCbor);
+		assertEquals(1, daCbor.get(0).get("idIssue"));
+		assertEquals("2026-03-09T12:00:00", daCbor.get(0).get("dataCreazione"));
+	}
+
+	/*
+	 TEST 2: filtraAvanzato - Issue archiviate, Accept application/cbor
+	 CE: Una issue archiviata letta dal database
+	 Atteso: Lista CBOR di Issue, con la descrizione che le schede non hanno
+	 */
+	@Test
+	void testFiltraAvanzato_ArchiviateCbor_ListaDiIssue() throws Exception {
+		Issue archiviata = issue(500, "Vecchio crash", Priorita.high);
+		archiviata.setArchiviata(true);
+		when(issueDAO.findByArchiviataOrderByDataCreazioneDesc(true)).thenReturn(List.of(archiviata));
+
+		MockHttpServletResponse risposta = mockMvc.perform(get("/api/issue/filtra-avanzato")
+				.param("archiviata", "true").accept(CBOR)).andReturn().getResponse();
+
+		assertEquals(CBOR, risposta.getContentType());
+		List<Map<String, Object>> issues = cbor.readValue(risposta.getContentAsByteArray(), LISTA);
+		assertEquals(1, issues.size());
+		assertEquals("Vecchio crash", issues.get(0).get("titolo"));
+		assertEquals("Descrizione dell'issue", issues.get(0).get("descrizione"));
+		assertEquals(true, issues.get(0).get("archiviata"));
+	}
+
+	/*
+	 TEST 3: getAllegatiByIssue - Accept application/cbor
+	 CE: Issue esistente con un allegato
+	 Atteso: Lista CBOR con i metadati dell'allegato
+	 */
+	@Test
+	void testGetAllegatiByIssue_Cbor() throws Exception {
+		Allegato allegato = new Allegato("log.txt", "text/plain", 2048, new byte[2048], issue(7, "Crash", Priorita.low));
+		allegato.setIdAllegato(3);
+		when(issueDAO.existsById(7)).thenReturn(true);
+		when(allegatoDAO.findByIssueIdIssue(7)).thenReturn(List.of(allegato));
+
+		MockHttpServletResponse risposta = mockMvc.perform(get("/api/allegato/issue/7").accept(CBOR)).andReturn()
+				.getResponse();
+
+		assertEquals(200, risposta.getStatus());
+		assertEquals(CBOR, risposta.getContentType());
+		List<Map<String, Object>> allegati = cbor.readValue(risposta.getContentAsByteArray(), LISTA);
+		assertEquals(1, allegati.size());
+		assertEquals(3, allegati.get(0).get("idAllegato"));
+		assertEquals("log.txt", allegati.get(0).get("nomeFile"));
+		assertEquals(false, allegati.get(0).get("remoto"));
+	}
+
+	/*
+	 TEST 4: filtraAvanzato - Compressione sul server vero
+	 CE: Accept-Encoding gzip; 100 issue in JSON e in CBOR (oltre 2KB), una sola issue in JSON (sotto)
+	 Atteso: gzip sopra la soglia, in entrambi i formati; sotto la soglia il corpo resta in chiaro
+	 */
+	@Test
+	void testFiltraAvanzato_GzipSopraLaSoglia() throws Exception {
+		HttpResponse<byte[]> grandeJson = richiesta("/api/issue/filtra-avanzato", "application/json");
+		HttpResponse<byte[]> grandeCbor = richiesta("/api/issue/filtra-avanzato", CBOR);
+		HttpResponse<byte[]> piccola = richiesta("/api/issue/filtra-avanzato?ricerca=numero%2042", "application/json");
+
+		assertEquals("gzip", grandeJson.headers().firstValue("Content-Encoding").orElse(null));
+		assertEquals(100, json.readValue(gunzip(grandeJson.body()), LISTA).size());
+		assertEquals("gzip", grandeCbor.headers().firstValue("Content-Encoding").orElse(null));
+		assertEquals(100, cbor.readValue(gunzip(grandeCbor.body()), LISTA).size());
+
+		assertTrue(piccola.headers().firstValue("Content-Encoding").isEmpty());
+		List<Map<String, Object>> una = json.readValue(piccola.body(), LISTA);
+		assertEquals(List.of(42), una.stream().map(scheda -> scheda.get("idIssue")).toList());
+	}
+
+	private HttpResponse<byte[]> richiesta(String percorso, String formato) throws IOException, InterruptedException {
+		HttpRequest richiesta = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + percorso))
+				.header("Accept", formato).header("Accept-Encoding", "gzip").build();
+		try (HttpClient client = HttpClient.newHttpClient()) {
+			HttpResponse<byte[]> risposta = client.send(richiesta, HttpResponse.BodyHandlers.ofByteArray());
+			assertEquals(200, risposta.statusCode());
+			return risposta;
+		}
+	}
+
+	private static byte[] gunzip(byte[] compressi) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressi))) {
+			return in.readAllBytes();
+		}
+	}
+
+	private Issue issue(int idIssue, String titolo, Priorita priorita) {
+		Issue issue = new Issue(titolo, "Descrizione dell'issue", priorita, Stato.Todo, Tipo.bug, creatore);
+		issue.setIdIssue(idIssue);
+		issue.setDataCreazione(OGGI.minusDays(idIssue));
+		return issue;
+	}
+}
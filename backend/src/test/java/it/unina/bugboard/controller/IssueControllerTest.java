@@ -0,0 +1,443 @@
+package it.unina.bugboard.controller;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.InfoAllegato;
+import it.unina.bugboard.dao.IssueDAO;
+import it.unina.bugboard.dao.SchedaBoard;
+import it.unina.bugboard.dao.UtenzaDAO;
+import it.unina.bugboard.indici.IndiceDuplicati;
+import it.unina.bugboard.indici.IndiceTitoli;
+import it.unina.bugboard.indici.IstantaneaIssue;
+import it.unina.bugboard.indici.SchedeJson;
+import it.unina.bugboard.model.*;
+import it.unina.bugboard.exception.*;
+import it.unina.bugboard.util.CursoreBoard;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IssueControllerTest {
+
+	@Mock
+	private IssueDAO issueDAO;
+
+	@Mock
+	private UtenzaDAO utenzaDAO;
+
+	@Mock
+	private AllegatoDAO allegatoDAO;
+
+	@Mock
+	private IndiceDuplicati indiceDuplicati;
+
+	@Mock
+	private IndiceTitoli indiceTitoli;
+
+	@Mock
+	private IstantaneaIssue istantaneaIssue;
+
+	@InjectMocks
+	private IssueController issueController;
+
+	private Utenza creatore;
+	private Map<String, Object> payloadValido;
+
+	@BeforeEach
+	void setUp() {
+		creatore = new Utenza();
+		creatore.setNome("Mario");
+		creatore.setCognome("Rossi");
+		creatore.setEmail("mario@test.com");
+		creatore.setPassword("password123");
+		creatore.setRuolo(Ruolo.Utente);
+
+		payloadValido = new HashMap<>();
+		payloadValido.put("titolo", "Crash al login");
+		payloadValido.put("descrizione", "L'app si chiude dopo il login");
+		payloadValido.put("priorita", "high");
+		payloadValido.put("stato", "Todo");
+		payloadValido.put("tipo", "bug");
+		payloadValido.put("idCreatore", 1);
+	}
+
+	/*
+	 TEST 1: creaIssue - Dati validi
+	 CE: Payload completo, creatore esistente
+	 Atteso: Issue salvata con un solo inserimento, creatore agganciato per riferimento
+	 */
+	@Test
+	void testCreaIssue_DatiValidi_Success() {
+		when(utenzaDAO.getReferenceById(1)).thenReturn(creatore);
+		when(issueDAO.saveAndFlush(any(Issue.class))).thenAnswer(inv -> inv.getArgument(0));
+
+		Issue result = issueController.creaIssue(payloadValido);
+
+		assertEquals("Crash al login", result.getTitolo());
+		assertEquals(Priorita.high, result.getPriorita());
+		assertEquals(Stato.Todo, result.getStato());
+		assertEquals(Tipo.bug, result.getTipo());
+
+		ArgumentCaptor<Issue> captor = ArgumentCaptor.forClass(Issue.class);
+		verify(issueDAO).saveAndFlush(captor.capture());
+		assertSame(creatore, captor.getValue().getCreatore());
+
+		verify(issueDAO, never()).findByTitolo(any());
+		verify(utenzaDAO, never()).findById(any());
+		verify(istantaneaIssue).aggiornaDopoCommit(result);
+	}
+
+	/*
+	 TEST 2: creaIssue - Titolo duplicato
+	 CE: Violazione dell'indice univoco sul titolo
+	 Atteso: AlreadyExistsException
+	 */
+	@Test
+	void testCreaIssue_TitoloDuplicato_ThrowsAlreadyExistsException() {
+		when(utenzaDAO.getReferenceById(1)).thenReturn(creatore);
+		when(issueDAO.saveAndFlush(any(Issue.class))).thenThrow(violazione("23505", "uk_issue_titolo"));
+
+		AlreadyExistsException exception = assertThrows(AlreadyExistsException.class,
+				() -> issueController.creaIssue(payloadValido));
+
+		assertTrue(exception.getMessage().contains("titolo"));
+	}
+
+	/*
+	 TEST 3: creaIssue - Creatore inesistente
+	 CE: Violazione della FK verso utenza
+	 Atteso: NotFoundException
+	 */
+	@Test
+	void testCreaIssue_CreatoreInesistente_ThrowsNotFoundException() {
+		when(utenzaDAO.getReferenceById(1)).thenReturn(creatore);
+		when(issueDAO.saveAndFlush(any(Issue.class))).thenThrow(violazione("23503", "issue_idcreatore_fkey"));
+
+		NotFoundException exception = assertThrows(NotFoundException.class,
+				() -> issueController.creaIssue(payloadValido));
+
+		assertTrue(exception.getMessage().contains("1"));
+	}
+
+	/*
+	 TEST 4: creaIssue - Titolo mancante
+	 CE: Titolo vuoto
+	 Atteso: InvalidFieldException, nessun accesso al DB
+	 */
+	@Test
+	void testCreaIssue_TitoloVuoto_ThrowsInvalidFieldException() {
+		payloadValido.put("titolo", " ");
+
+		assertThrows(InvalidFieldException.class, () -> issueController.creaIssue(payloadValido));
+
+		verifyNoInteractions(issueDAO, utenzaDAO);
+	}
+
+	/*
+	 TEST 5: visualizzaArchiviate - Pagina intermedia
+	 CE: pagina 2 da 10, ordinamento meno recente, altre issue dopo questa pagina
+	 Atteso: Richiesta al DAO con offset 20 ordinata per data di archiviazione crescente, successiva = true
+	 */
+	@Test
+	void testVisualizzaArchiviate_PaginaIntermedia_Success() {
+		Issue archiviata = new Issue("Vecchio crash", "Risolto", Priorita.low, Stato.Done, Tipo.bug, creatore);
+		archiviata.setArchiviata(true);
+		when(issueDAO.findByArchiviataTrue(any(Pageable.class)))
+				.thenReturn(new SliceImpl<>(List.of(archiviata), PageRequest.of(2, 10), true));
+
+		Map<String, Object> risultato = issueController.visualizzaArchiviate(2, 10, "data_vecchio");
+
+		ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+		verify(issueDAO).findByArchiviataTrue(captor.capture());
+		assertEquals(20, captor.getValue().getOffset());
+		assertEquals(Sort.Direction.ASC, captor.getValue().getSort().getOrderFor("dataArchiviazione").getDirection());
+		assertEquals(List.of(archiviata), risultato.get("issue"));
+		assertEquals(true, risultato.get("successiva"));
+	}
+
+	/*
+	 TEST 6: visualizzaArchiviate - Dimensione fuori limite
+	 CE: dimensione 500
+	 Atteso: InvalidFieldException, nessun accesso al DB
+	 */
+	@Test
+	void testVisualizzaArchiviate_DimensioneEccessiva_ThrowsInvalidFieldException() {
+		assertThrows(InvalidFieldException.class, () -> issueController.visualizzaArchiviate(0, 500, "data_recente"));
+
+		verifyNoInteractions(issueDAO);
+	}
+
+	/*
+	 TEST 7: visualizzaBoard - Colonne con totali
+	 CE: limite 2, 5 issue Todo, 1 Done, nessuna inProgress
+	 Atteso: Colonne nell'ordine Todo, inProgress, Done; cursore solo per Todo, che ha altre schede
+	 */
+	@Test
+	void testVisualizzaBoard_ColonneConTotali_Success() {
+		LocalDateTime ora = LocalDateTime.of(2026, 3, 10, 9, 0);
+		List<SchedaBoard.ConTotale> schede = List.of(scheda(7, "Todo", 4, ora, 5L), scheda(3, "Todo", 2, ora, 5L),
+				scheda(9, "Done", 0, ora, 1L));
+		when(issueDAO.findBoard(new String[] { "Todo", "inProgress", "Done" }, 2)).thenReturn(schede);
+
+		Map<String, Object> board = issueController.visualizzaBoard(2);
+
+		Map<String, Map<String, Object>> colonne = colonne(board);
+		assertEquals(List.of("Todo", "inProgress", "Done"), List.copyOf(colonne.keySet()));
+		assertEquals(5L, colonne.get("Todo").get("totale"));
+		assertEquals(new CursoreBoard(2, ora, 3), CursoreBoard.decodifica((String) colonne.get("Todo").get("cursore")));
+		assertEquals(0L, colonne.get("inProgress").get("totale"));
+		assertEquals(List.of(), colonne.get("inProgress").get("issue"));
+		assertNull(colonne.get("Done").get("cursore"));
+	}
+
+	/*
+	 TEST 8: caricaColonnaBoard - Pagina successiva
+	 CE: cursore dopo la scheda 3, limite 2, il DAO restituisce 3 schede
+	 Atteso: DAO interrogato dal cursore con una scheda in più, 2 schede restituite e nuovo cursore sulla seconda
+	 */
+	@Test
+	void testCaricaColonnaBoard_AltreSchede_RestituisceCursore() {
+		LocalDateTime ora = LocalDateTime.of(2026, 3, 10, 9, 0);
+		String cursore = new CursoreBoard(2, ora, 3).codifica();
+		List<SchedaBoard> schede = List.of(scheda(2, "inProgress", 2, ora, null), scheda(1, "inProgress", 1, ora, null),
+				scheda(8, "inProgress", 0, ora, null));
+		when(issueDAO.findColonnaBoardDopo("inProgress", 2, ora, 3, 3)).thenReturn(schede);
+
+		Map<String, Object> colonna = issueController.caricaColonnaBoard("inprogress", cursore, 2);
+
+		assertEquals(2, ((List<?>) colonna.get("issue")).size());
+		assertEquals(new CursoreBoard(1, ora, 1), CursoreBoard.decodifica((String) colonna.get("cursore")));
+		assertEquals("inProgress", colonna.get("stato"));
+	}
+
+	/*
+	 TEST 9: caricaColonnaBoard - Cursore non valido
+	 CE: cursore "non-un-cursore"
+	 Atteso: InvalidFieldException, nessun accesso al DB
+	 */
+	@Test
+	void testCaricaColonnaBoard_CursoreNonValido_ThrowsInvalidFieldException() {
+		assertThrows(InvalidFieldException.class, () -> issueController.caricaColonnaBoard("todo", "non-un-cursore", 20));
+
+		verifyNoInteractions(issueDAO);
+	}
+
+	/*
+	 TEST 10: visualizzaDettaglio - Issue con allegati
+	 CE: Issue esistente con due allegati da 1 MB e 512 KB
+	 Atteso: Issue, metadati degli allegati, numero 2 e dimensione totale calcolati senza altre query
+	 */
+	@Test
+	void testVisualizzaDettaglio_ConAllegati_Success() {
+		Issue issue = new Issue("Crash al login", "L'app si chiude", Priorita.high, Stato.Todo, Tipo.bug, creatore);
+		when(issueDAO.findDettaglioById(4)).thenReturn(Optional.of(issue));
+		List<InfoAllegato> allegati = List.of(infoAllegato(1, 1024 * 1024), infoAllegato(2, 512 * 1024));
+		when(allegatoDAO.findInfoByIssue(4)).thenReturn(allegati);
+
+		Map<String, Object> dettaglio = issueController.visualizzaDettaglio(4);
+
+		assertSame(issue, dettaglio.get("issue"));
+		assertEquals(2, dettaglio.get("numeroAllegati"));
+		assertEquals(1536L * 1024, dettaglio.get("dimensioneTotaleBytes"));
+		assertEquals(String.format("%.2f", 1.5), dettaglio.get("dimensioneTotaleMB"));
+		assertEquals(2, ((List<?>) dettaglio.get("allegati")).size());
+		verifyNoMoreInteractions(issueDAO, allegatoDAO);
+	}
+
+	/*
+	 TEST 11: visualizzaDettaglio - Issue inesistente
+	 CE: id 999 non presente
+	 Atteso: NotFoundException, allegati non letti
+	 */
+	@Test
+	void testVisualizzaDettaglio_IssueInesistente_ThrowsNotFoundException() {
+		when(issueDAO.findDettaglioById(999)).thenReturn(Optional.empty());
+
+		assertThrows(NotFoundException.class, () -> issueController.visualizzaDettaglio(999));
+
+		verifyNoInteractions(allegatoDAO);
+	}
+
+	/*
+	 TEST 12: trovaSimili - Possibili duplicati
+	 CE: Titolo e descrizione in scrittura, indice con due issue simili
+	 Atteso: id, titolo e somiglianza a due decimali, nell'ordine dell'indice, senza query
+	 */
+	@Test
+	void testTrovaSimili_RestituisceSimili() {
+		when(indiceDuplicati.cerca("Crash login", "L'app si chiude", 5)).thenReturn(List.of(
+				new IndiceDuplicati.Simile(4, "Crash al login", 0.8333), new IndiceDuplicati.Simile(9, "Crash login Google", 0.5)));
+
+		List<Map<String, Object>> simili = issueController.trovaSimili("Crash login", "L'app si chiude", 5);
+
+		assertEquals(2, simili.size());
+		assertEquals(4, simili.get(0).get("idIssue"));
+		assertEquals("Crash al login", simili.get(0).get("titolo"));
+		assertEquals(0.83, simili.get(0).get("somiglianza"));
+		assertEquals(9, simili.get(1).get("idIssue"));
+		verifyNoInteractions(issueDAO);
+	}
+
+	/*
+	 TEST 13: trovaSimili - Parametri non validi
+	 CE: Titolo vuoto; limite 0 e 21
+	 Atteso: InvalidFieldException, indice non interrogato
+	 */
+	@Test
+	void testTrovaSimili_ParametriNonValidi_ThrowsInvalidFieldException() {
+		assertThrows(InvalidFieldException.class, () -> issueController.trovaSimili(" ", null, 5));
+		assertThrows(InvalidFieldException.class, () -> issueController.trovaSimili("Crash", null, 0));
+		assertThrows(InvalidFieldException.class, () -> issueController.trovaSimili("Crash", null, 21));
+
+		verifyNoInteractions(indiceDuplicati);
+	}
+
+	/*
+	 TEST 14: autocompleta - Suggerimenti dall'indice dei titoli
+	 CE: "cras lo", limite predefinito 8, indice con un titolo
+	 Atteso: id, titolo, priorità e data del suggerimento, senza query
+	 */
+	@Test
+	void testAutocompleta_RestituisceSuggerimenti() {
+		LocalDateTime data = LocalDateTime.of(2026, 3, 10, 9, 30);
+		when(indiceTitoli.suggerisci("cras lo", 8))
+				.thenReturn(List.of(new IndiceTitoli.Suggerimento(4, "Crash al login", "high", data)));
+
+		List<Map<String, Object>> suggerimenti = issueController.autocompleta("cras lo", 8);
+
+		assertEquals(1, suggerimenti.size());
+		assertEquals(4, suggerimenti.get(0).get("idIssue"));
+		assertEquals("Crash al login", suggerimenti.get(0).get("titolo"));
+		assertEquals("high", suggerimenti.get(0).get("priorita"));
+		assertEquals(data, suggerimenti.get(0).get("dataCreazione"));
+		verifyNoInteractions(issueDAO);
+	}
+
+	/*
+	 TEST 15: autocompleta - Parametri non validi
+	 CE: Testo vuoto, testo di 101 caratteri, limite 21
+	 Atteso: InvalidFieldException, indice non interrogato
+	 */
+	@Test
+	void testAutocompleta_ParametriNonValidi_ThrowsInvalidFieldException() {
+		assertThrows(InvalidFieldException.class, () -> issueController.autocompleta("", 8));
+		assertThrows(InvalidFieldException.class, () -> issueController.autocompleta("a".repeat(101), 8));
+		assertThrows(InvalidFieldException.class, () -> issueController.autocompleta("crash", 21));
+
+		verifyNoInteractions(indiceTitoli);
+	}
+
+	/*
+	 TEST 16: filtraAvanzato - Issue attive dall'istantanea
+	 CE: Istantanea pronta, stato "todo", priorità "HIGH", ricerca e ordinamento
+	 Atteso: Filtri convertiti negli enum e schede dell'istantanea, senza query
+	 */
+	@Test
+	void testFiltraAvanzato_Attive_DallIstantanea() {
+		SchedeJson schede = mock(SchedeJson.class);
+		when(istantaneaIssue.pronta()).thenReturn(true);
+		when(istantaneaIssue.filtra(Stato.Todo, Priorita.high, null, "login", "titolo_az")).thenReturn(schede);
+
+		assertSame(schede, issueController.filtraAvanzato("todo", "HIGH", null, "login", "titolo_az"));
+		verifyNoInteractions(issueDAO);
+	}
+
+	/*
+	 TEST 17: filtraArchiviate - Archiviate dal database
+	 CE: Tipo bug e ordinamento per priorità; poi tipo non valido
+	 Atteso: Lista di Issue complete filtrata e ordinata; InvalidFieldException
+	 */
+	@Test
+	void testFiltraAvanzato_Archiviate_DalDatabase() {
+		Issue bassa = new Issue("Guida obsoleta", "Da rifare", Priorita.low, Stato.Done, Tipo.bug, creatore);
+		bassa.setIdIssue(1);
+		Issue alta = new Issue("Crash al login", "L'app si chiude", Priorita.critical, Stato.Done, Tipo.bug, creatore);
+		alta.setIdIssue(2);
+		Issue altroTipo = new Issue("Export CSV", "Manca", Priorita.high, Stato.Done, Tipo.features, creatore);
+		altroTipo.setIdIssue(3);
+		when(issueDAO.findByArchiviataOrderByDataCreazioneDesc(true))
+				.thenReturn(new ArrayList<>(List.of(bassa, alta, altroTipo)));
+
+		List<Issue> issues = issueController.filtraArchiviate(null, null, "bug", null, "priorita_alta");
+
+		assertEquals(List.of(alta, bassa), issues);
+		verifyNoInteractions(istantaneaIssue);
+		assertThrows(InvalidFieldException.class,
+				() -> issueController.filtraArchiviate(null, null, "epic", null, null));
+	}
+
+	/*
+	 TEST 18: filtraAvanzato - Attive prima che l'istantanea sia pronta
+	 CE: Istantanea non pronta, ricerca "login"; poi tipo non valido
+	 Atteso: Schede dal database, le stesse sei colonne dell'istantanea; InvalidFieldException
+	 */
+	@Test
+	void testFiltraAvanzato_IstantaneaNonPronta_SchedeDalDatabase() {
+		Issue login = new Issue("Crash al login", "L'app si chiude", Priorita.critical, Stato.Todo, Tipo.bug, creatore);
+		login.setIdIssue(2);
+		Issue altra = new Issue("Export CSV", "Manca", Priorita.high, Stato.Todo, Tipo.features, creatore);
+		altra.setIdIssue(3);
+		when(issueDAO.findByArchiviataOrderByDataCreazioneDesc(false)).thenReturn(new ArrayList<>(List.of(login, altra)));
+
+		List<IstantaneaIssue.Scheda> schede = issueController.filtraAvanzato(null, null, null, "login", null);
+
+		assertEquals(List.of(IstantaneaIssue.Scheda.di(login)), schede);
+		verify(istantaneaIssue, never()).filtra(any(), any(), any(), any(), any());
+		assertThrows(InvalidFieldException.class,
+				() -> issueController.filtraAvanzato(null, null, "epic", null, null));
+	}
+
+	private InfoAllegato infoAllegato(int idAllegato, int dimensione) {
+		InfoAllegato allegato = mock(InfoAllegato.class);
+		lenient().when(allegato.getIdAllegato()).thenReturn(idAllegato);
+		lenient().when(allegato.getNomeFile()).thenReturn("file-" + idAllegato + ".png");
+		lenient().when(allegato.getTipoFile()).thenReturn("image/png");
+		lenient().when(allegato.getDimensione()).thenReturn(dimensione);
+		lenient().when(allegato.getDataCaricamento()).thenReturn(LocalDate.of(2026, 3, 10));
+		return allegato;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Map<String, Object>> colonne(Map<String, Object> board) {
+		return (Map<String, Map<String, Object>>) board.get("colonne");
+	}
+
+	private SchedaBoard.ConTotale scheda(int idIssue, String stato, int peso, LocalDateTime dataCreazione, Long totale) {
+		SchedaBoard.ConTotale scheda = mock(SchedaBoard.ConTotale.class);
+		lenient().when(scheda.getIdIssue()).thenReturn(idIssue);
+		lenient().when(scheda.getStato()).thenReturn(stato);
+		lenient().when(scheda.getPesoPriorita()).thenReturn(peso);
+		lenient().when(scheda.getDataCreazione()).thenReturn(dataCreazione);
+		lenient().when(scheda.getTotale()).thenReturn(totale);
+		return scheda;
+	}
+
+	private DataIntegrityViolationException violazione(String sqlState, String vincolo) {
+		SQLException sqlException = new SQLException("violazione vincolo " + vincolo, sqlState);
+		return new DataIntegrityViolationException("violazione vincolo",
+				new ConstraintViolationException("violazione vincolo", sqlException, vincolo));
+	}
+}
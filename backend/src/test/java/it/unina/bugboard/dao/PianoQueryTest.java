@@ -0,0 +1,375 @@
+package it.unina.bugboard.dao;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unina.bugboard.model.Priorita;
+import it.unina.bugboard.model.Stato;
+import it.unina.bugboard.model.Tipo;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Esegue EXPLAIN del piano generico di ogni query dei DAO e fallisce se una tabella oltre
+ * {@link #SOGLIA_RIGHE} righe viene letta per intero. Gira con enable_seqscan = off: un
+ * Seq Scan rimasto nel piano significa che nessun indice può servire la query.
+ * Richiede PostgreSQL 16+; i dati di prova vengono inseriti e annullati a fine test.
+ *
+ *   BUGBOARD_TEST_DB_URL=jdbc:postgresql://localhost:5433/bugboard mvn test -Dtest=PianoQueryTest
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=${BUGBOARD_TEST_DB_URL}",
+		"spring.datasource.username=${BUGBOARD_TEST_DB_USER:bugboard}",
+		"spring.datasource.password=${BUGBOARD_TEST_DB_PASSWORD:bugboard}",
+		"spring.jpa.hibernate.ddl-auto=validate",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=it.unina.bugboard.dao.PianoQueryTest$CatturaSql" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "BUGBOARD_TEST_DB_URL", matches = ".+")
+class PianoQueryTest {
+
+	private static final long SOGLIA_RIGHE = 1000;
+	private static final long RIGHE_ESTERNE_MERGE = 10;
+	private static final Set<String> TABELLE = Set.of("utenza", "issue_attive", "issue_archiviate", "allegato");
+	private static final Set<String> SCANSIONI_INDICE = Set.of("Index Scan", "Index Only Scan", "Bitmap Index Scan");
+
+	@Autowired
+	private IssueDAO issueDAO;
+
+	@Autowired
+	private AllegatoDAO allegatoDAO;
+
+	@Autowired
+	private UtenzaDAO utenzaDAO;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private Integer idIssue;
+
+	public static class CatturaSql implements StatementInspector {
+
+		static final List<String> ESEGUITE = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			ESEGUITE.add(sql);
+			return sql;
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		eseguiSql(
+				"INSERT INTO utenza (nome, cognome, email, password, ruolo, stato) "
+						+ "SELECT 'Nome', 'Cognome', 'piano' || g || '@test.bugboard.it', 'x', "
+						+ "CASE WHEN g % 10 = 0 THEN 'Amministratore' ELSE 'Utente' END, true "
+						+ "FROM generate_series(1, 2000) g",
+				"INSERT INTO issue (titolo, descrizione, priorita, stato, tipo, archiviata, dataarchiviazione, "
+						+ "datacreazione, datachiusura, idcreatore) "
+						+ "SELECT 'piano-' || g, 'descrizione', "
+						+ "(ARRAY['critical','high','medium','low','none'])[1 + g % 5], "
+						+ "(ARRAY['Todo','inProgress','Done'])[1 + g % 3], "
+						+ "(ARRAY['question','features','bug','documentation'])[1 + g % 4], "
+						+ "g % 5 = 0, CASE WHEN g % 5 = 0 THEN now() - g * interval '30 seconds' END, "
+						+ "now() - g * interval '1 minute', CASE WHEN g % 3 = 2 THEN now() - g * interval '1 minute' END, "
+						+ "(SELECT min(idutente) FROM utenza WHERE email LIKE 'piano%@test.bugboard.it') "
+						+ "FROM generate_series(1, 20000) g",
+				"INSERT INTO allegato (nomefile, tipofile, dimensione, filedata, datacaricamento, idissue) "
+						+ "SELECT 'file-' || g || '.txt', 'text/plain', 4 + g, '\\x00000000'::bytea, current_date, i.idissue "
+						+ "FROM (SELECT idissue FROM issue WHERE titolo LIKE 'piano-%' LIMIT 2500) i "
+						+ "CROSS JOIN generate_series(1, 2) g",
+				"ANALYZE utenza", "ANALYZE issue", "ANALYZE allegato");
+		idIssue = issueDAO.findByTitolo("piano-1").orElseThrow().getIdIssue();
+		entityManager.clear();
+	}
+
+	/*
+	 TEST 1: Piani di esecuzione delle query dei DAO
+	 CE: 2000 utenze, 20000 issue, 5000 allegati; ogni metodo di query eseguito una volta
+	 Atteso: Nessuna lettura completa di utenza, issue o allegato
+	 */
+	@Test
+	void testQueryDao_NessunaScansioneCompleta() throws SQLException {
+		Map<String, Long> righe = righePerTabella();
+		List<String> violazioni = new ArrayList<>();
+
+		for (Map.Entry<String, Runnable> query : queryDao().entrySet()) {
+			CatturaSql.ESEGUITE.clear();
+			query.getValue().run();
+			entityManager.clear();
+			assertFalse(CatturaSql.ESEGUITE.isEmpty(), query.getKey() + " non ha eseguito SQL");
+			for (String sql : List.copyOf(CatturaSql.ESEGUITE)) {
+				for (String scansione : scansioniComplete(piano(sql), righe)) {
+					violazioni.add(query.getKey() + ": " + scansione + "\n    " + sql);
+				}
+			}
+		}
+
+		assertTrue(violazioni.isEmpty(), "Query senza indice adatto:\n" + String.join("\n", violazioni));
+	}
+
+	/*
+	 TEST 2: Copertura dei metodi dei DAO
+	 CE: Metodi dichiarati in IssueDAO, AllegatoDAO, UtenzaDAO
+	 Atteso: Ognuno compare in queryDao(), così un nuovo metodo non sfugge al controllo
+	 */
+	@Test
+	void testQueryDao_TuttiIMetodiVerificati() {
+		Set<String> dichiarati = new TreeSet<>();
+		for (Class<?> dao : List.of(IssueDAO.class, AllegatoDAO.class, UtenzaDAO.class)) {
+			Arrays.stream(dao.getDeclaredMethods()).map(Method::getName)
+					.forEach(nome -> dichiarati.add(dao.getSimpleName() + "." + nome));
+		}
+
+		assertEquals(dichiarati, new TreeSet<>(queryDao().keySet()));
+	}
+
+	/*
+	 TEST 3: Partizionamento delle issue attive
+	 CE: Query della board, delle urgenti e dei conteggi delle attive, eseguite con i parametri reali
+	 Atteso: Nessuna lettura di issue_archiviate
+	 */
+	@Test
+	void testQueryAttive_SoloPartizioneAttive() {
+		Map<String, Runnable> attive = new LinkedHashMap<>();
+		attive.put("findByArchiviataFalse", () -> issueDAO.findByArchiviataFalse());
+		attive.put("findByArchiviataOrderByDataCreazioneDesc", () -> issueDAO.findByArchiviataOrderByDataCreazioneDesc(false));
+		attive.put("countByArchiviataFalse", () -> issueDAO.countByArchiviataFalse());
+		attive.put("findIssueUrgenti", () -> issueDAO.findIssueUrgenti(List.of(Priorita.critical, Priorita.high)));
+		attive.put("findBoard", () -> issueDAO.findBoard(new String[] { "Todo", "inProgress", "Done" }, 20));
+		attive.put("findColonnaBoardDopo", () -> issueDAO.findColonnaBoardDopo(Stato.Done.name(), 4,
+				LocalDateTime.now(), Integer.MAX_VALUE, 21));
+
+		for (Map.Entry<String, Runnable> query : attive.entrySet()) {
+			long prima = scansioni("issue_archiviate");
+			query.getValue().run();
+			entityManager.clear();
+			assertEquals(prima, scansioni("issue_archiviate"), query.getKey() + " legge le issue archiviate");
+		}
+	}
+
+	/*
+	 TEST 4: Partizionamento delle issue archiviate
+	 CE: Pagina di ListaIssueArchiviate
+	 Atteso: Nessuna lettura di issue_attive
+	 */
+	@Test
+	void testPaginaArchiviate_SoloPartizioneArchiviate() {
+		long prima = scansioni("issue_attive");
+
+		issueDAO.findByArchiviataTrue(PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "dataArchiviazione", "idIssue")));
+		entityManager.clear();
+
+		assertEquals(prima, scansioni("issue_attive"));
+	}
+
+	private Map<String, Runnable> queryDao() {
+		Map<String, Runnable> query = new LinkedHashMap<>();
+		query.put("IssueDAO.findByTitolo", () -> issueDAO.findByTitolo("piano-42"));
+		query.put("IssueDAO.findByStato", () -> issueDAO.findByStato(Stato.Todo));
+		query.put("IssueDAO.findByPriorita", () -> issueDAO.findByPriorita(Priorita.high));
+		query.put("IssueDAO.findByTipo", () -> issueDAO.findByTipo(Tipo.bug));
+		query.put("IssueDAO.findByArchiviata", () -> issueDAO.findByArchiviata(true));
+		query.put("IssueDAO.findByArchiviataFalse", () -> issueDAO.findByArchiviataFalse());
+		query.put("IssueDAO.findByArchiviataOrderByDataCreazioneDesc",
+				() -> issueDAO.findByArchiviataOrderByDataCreazioneDesc(false));
+		query.put("IssueDAO.findByArchiviataTrue", () -> issueDAO.findByArchiviataTrue(
+				PageRequest.of(3, 20, Sort.by(Sort.Direction.DESC, "dataArchiviazione", "idIssue"))));
+		query.put("IssueDAO.findByStatoAndPriorita", () -> issueDAO.findByStatoAndPriorita(Stato.Todo, Priorita.high));
+		query.put("IssueDAO.countByStato", () -> issueDAO.countByStato(Stato.Done));
+		query.put("IssueDAO.countByArchiviataFalse", () -> issueDAO.countByArchiviataFalse());
+		query.put("IssueDAO.findByTitoloContainingIgnoreCase", () -> issueDAO.findByTitoloContainingIgnoreCase("ano-123"));
+		query.put("IssueDAO.findIssueUrgenti",
+				() -> issueDAO.findIssueUrgenti(List.of(Priorita.critical, Priorita.high)));
+		query.put("IssueDAO.findDettaglioById", () -> issueDAO.findDettaglioById(idIssue));
+		query.put("IssueDAO.findBoard", () -> issueDAO.findBoard(new String[] { "Todo", "inProgress", "Done" }, 20));
+		query.put("IssueDAO.findColonnaBoardDopo", () -> issueDAO.findColonnaBoardDopo(Stato.Todo.name(), 3,
+				LocalDateTime.now().minusDays(2), Integer.MAX_VALUE, 21));
+		query.put("IssueDAO.archiviaDoneChiusePrima",
+				() -> issueDAO.archiviaDoneChiusePrima(LocalDateTime.now().minusDays(30), LocalDateTime.now(), 200));
+		query.put("IssueDAO.eliminaArchiviatePrima",
+				() -> issueDAO.eliminaArchiviatePrima(LocalDateTime.now().minusDays(730), 200));
+		query.put("IssueDAO.findTestiAttiviDopo", () -> issueDAO.findTestiAttiviDopo(idIssue, 1000, 2000));
+		query.put("IssueDAO.findModificheDal",
+				() -> issueDAO.findModificheDal(LocalDateTime.now().minusMinutes(2), 1000));
+		query.put("IssueDAO.oraDatabase", () -> issueDAO.oraDatabase());
+		query.put("IssueDAO.eliminaModifichePrima",
+				() -> issueDAO.eliminaModifichePrima(LocalDateTime.now().minusHours(1)));
+		query.put("AllegatoDAO.findByIssueIdIssue", () -> allegatoDAO.findByIssueIdIssue(idIssue));
+		query.put("AllegatoDAO.findAllegatiByIssueOrderByDimensioneDesc",
+				() -> allegatoDAO.findAllegatiByIssueOrderByDimensioneDesc(idIssue));
+		query.put("AllegatoDAO.findInfoByIssue", () -> allegatoDAO.findInfoByIssue(idIssue));
+		query.put("AllegatoDAO.riepilogoByIssue", () -> allegatoDAO.riepilogoByIssue(new Integer[] { idIssue, idIssue + 1 }));
+		query.put("AllegatoDAO.leggiPorzione", () -> allegatoDAO.leggiPorzione(idIssue, 262145, 262144));
+		query.put("AllegatoDAO.findInfoById", () -> allegatoDAO.findInfoById(idIssue));
+		query.put("AllegatoDAO.findFileDataById", () -> allegatoDAO.findFileDataById(idIssue));
+		query.put("AllegatoDAO.findOggettiDaEliminare", () -> allegatoDAO.findOggettiDaEliminare(100));
+		query.put("AllegatoDAO.rimuoviOggettiEliminati",
+				() -> allegatoDAO.rimuoviOggettiEliminati(new String[] { "issue/1/a", "issue/1/b" }));
+		query.put("AllegatoDAO.registraOggettoInCaricamento",
+				() -> allegatoDAO.registraOggettoInCaricamento("issue/1/a", 3900));
+		query.put("AllegatoDAO.rimuoviOggettoInCaricamento", () -> allegatoDAO.rimuoviOggettoInCaricamento("issue/1/a"));
+		query.put("AllegatoDAO.accodaCaricamentiScaduti", () -> allegatoDAO.accodaCaricamentiScaduti(100));
+		query.put("AllegatoDAO.findOccupazioni", () -> allegatoDAO.findOccupazioni(
+				new String[] { "globale", "issue", "utente" }, new Integer[] { 0, idIssue, idIssue }));
+		query.put("AllegatoDAO.creaOccupazioni",
+				() -> allegatoDAO.creaOccupazioni(new String[] { "issue" }, new Integer[] { idIssue }));
+		query.put("AllegatoDAO.bloccaOccupazioni",
+				() -> allegatoDAO.bloccaOccupazioni(new String[] { "issue" }, new Integer[] { idIssue }));
+		query.put("AllegatoDAO.bloccaOccupazioniIntervallo",
+				() -> allegatoDAO.bloccaOccupazioniIntervallo("issue", 1, 5000));
+		query.put("AllegatoDAO.riconciliaOccupazioneIssue", () -> allegatoDAO.riconciliaOccupazioneIssue(1, 5000));
+		query.put("AllegatoDAO.riconciliaOccupazioneUtenti", () -> allegatoDAO.riconciliaOccupazioneUtenti(1, 5000));
+		query.put("AllegatoDAO.riconciliaOccupazioneGlobale", () -> allegatoDAO.riconciliaOccupazioneGlobale());
+		query.put("AllegatoDAO.findMaxIdIssueConAllegati", () -> allegatoDAO.findMaxIdIssueConAllegati());
+		query.put("AllegatoDAO.findMaxIdCaricatore", () -> allegatoDAO.findMaxIdCaricatore());
+		query.put("AllegatoDAO.prenotaEstrazioni", () -> allegatoDAO.prenotaEstrazioni(2, 120));
+		query.put("AllegatoDAO.salvaTestoEstratto",
+				() -> allegatoDAO.salvaTestoEstratto(idIssue, "testo estratto", false));
+		query.put("AllegatoDAO.registraErroreEstrazione",
+				() -> allegatoDAO.registraErroreEstrazione(idIssue, "errore", 3, 300));
+		query.put("AllegatoDAO.cercaNelTesto", () -> allegatoDAO.cercaNelTesto("timeout connessione", 20));
+		query.put("AllegatoDAO.eliminaAllegatiArchiviatePrima",
+				() -> allegatoDAO.eliminaAllegatiArchiviatePrima(LocalDateTime.now().minusDays(730), 20));
+		query.put("UtenzaDAO.findByEmail", () -> utenzaDAO.findByEmail("piano7@test.bugboard.it"));
+		query.put("UtenzaDAO.existsByEmail", () -> utenzaDAO.existsByEmail("piano7@test.bugboard.it"));
+		return query;
+	}
+
+	// PREPARE + plan_cache_mode = force_generic_plan equivale a EXPLAIN (GENERIC_PLAN), che il
+	// protocollo esteso del driver JDBC non accetta: i valori NULL passati a EXECUTE non contano
+	private JsonNode piano(String sql) {
+		return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+			StringBuilder sqlNumerato = new StringBuilder(sql.length() + 8);
+			int parametri = numeraParametri(sql, sqlNumerato);
+			String argomenti = parametri == 0 ? "" : "(" + String.join(", ", Collections.nCopies(parametri, "NULL")) + ")";
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("SET LOCAL enable_seqscan = off");
+				statement.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+				statement.execute("PREPARE piano_query AS " + sqlNumerato);
+				try (ResultSet rs = statement.executeQuery("EXPLAIN (FORMAT JSON) EXECUTE piano_query" + argomenti)) {
+					rs.next();
+					return objectMapper.readTree(rs.getString(1)).get(0).get("Plan");
+				} catch (JsonProcessingException e) {
+					throw new SQLException(e);
+				} finally {
+					statement.execute("DEALLOCATE piano_query");
+					statement.execute("RESET plan_cache_mode");
+					statement.execute("RESET enable_seqscan");
+				}
+			}
+		});
+	}
+
+	// Seq Scan, o scansione di un indice senza Index Cond, su una tabella oltre la soglia. Sotto
+	// un Limit la scansione di un indice senza condizione legge solo le righe della pagina; lo stesso
+	// vale per il lato interno di un Merge Join con poche righe esterne, che si ferma alla chiave più alta
+	private static List<String> scansioniComplete(JsonNode nodo, Map<String, Long> righe) {
+		return scansioniComplete(nodo, righe, false);
+	}
+
+	private static List<String> scansioniComplete(JsonNode nodo, Map<String, Long> righe, boolean sottoLimit) {
+		List<String> trovate = new ArrayList<>();
+		String tipo = nodo.path("Node Type").asText();
+		String tabella = nodo.path("Relation Name").asText(null);
+		boolean completa = "Seq Scan".equals(tipo)
+				|| (SCANSIONI_INDICE.contains(tipo) && !nodo.has("Index Cond") && !sottoLimit);
+		if (completa && tabella != null && righe.getOrDefault(tabella, 0L) > SOGLIA_RIGHE) {
+			trovate.add(tipo + " su " + tabella + " (" + righe.get(tabella) + " righe)");
+		}
+		boolean esternoLimitato = "Merge Join".equals(tipo)
+				&& nodo.path("Plans").path(0).path("Plan Rows").asLong(Long.MAX_VALUE) <= RIGHE_ESTERNE_MERGE;
+		int posizione = 0;
+		for (JsonNode figlio : nodo.path("Plans")) {
+			// Un Sort intermedio legge tutto prima che il Limit tagli
+			boolean limitato = sottoLimit || "Limit".equals(tipo) || (esternoLimitato && posizione++ == 1);
+			trovate.addAll(scansioniComplete(figlio, righe, limitato && !"Sort".equals(tipo)));
+		}
+		return trovate;
+	}
+
+	// I parametri JDBC "?" diventano $1, $2... come richiesto da PREPARE
+	private static int numeraParametri(String sql, StringBuilder risultato) {
+		boolean inStringa = false;
+		int parametro = 0;
+		for (char c : sql.toCharArray()) {
+			if (c == '\'') {
+				inStringa = !inStringa;
+			}
+			if (c == '?' && !inStringa) {
+				risultato.append('$').append(++parametro);
+			} else {
+				risultato.append(c);
+			}
+		}
+		return parametro;
+	}
+
+	private Map<String, Long> righePerTabella() {
+		return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+			Map<String, Long> righe = new HashMap<>();
+			try (PreparedStatement statement = connection.prepareStatement(
+					"SELECT relname, reltuples::bigint FROM pg_class WHERE relkind = 'r' AND relname = ANY (?)")) {
+				statement.setArray(1, connection.createArrayOf("text", TABELLE.toArray()));
+				try (ResultSet rs = statement.executeQuery()) {
+					while (rs.next()) {
+						righe.put(rs.getString(1), rs.getLong(2));
+					}
+				}
+			}
+			return righe;
+		});
+	}
+
+	// Contatori della transazione corrente, aggiornati subito a differenza di pg_stat_user_tables
+	private long scansioni(String tabella) {
+		return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(
+					"SELECT seq_scan + coalesce(idx_scan, 0) FROM pg_stat_xact_user_tables WHERE relname = ?")) {
+				statement.setString(1, tabella);
+				try (ResultSet rs = statement.executeQuery()) {
+					return rs.next() ? rs.getLong(1) : 0L;
+				}
+			}
+		});
+	}
+
+	private void eseguiSql(String... istruzioni) {
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			try (Statement statement = connection.createStatement()) {
+				for (String istruzione : istruzioni) {
+					statement.execute(istruzione);
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,222 @@
+package it.unina.bugboard.estrazione;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EstrattoreTestoTest {
+
+	private static final String DOCUMENT_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"><w:body>%s"
+			+ "</w:body></w:document>";
+
+	@TempDir
+	Path directory;
+
+	/*
+	 TEST 1: estrai - DOCX con più paragrafi
+	 CE: Due paragrafi, il primo diviso in due run con una tabulazione
+	 Atteso: Testo dei run, tabulazione come spazio, un a capo per paragrafo
+	 */
+	@Test
+	void testEstrai_Docx_TestoDeiParagrafi() throws IOException {
+		byte[] docx = docx("<w:p><w:r><w:t>NullPointerException in</w:t></w:r><w:r><w:tab/><w:t>Board</w:t></w:r></w:p>"
+				+ "<w:p><w:r><w:t xml:space=\"preserve\">riga 42</w:t></w:r></w:p>");
+
+		EstrattoreTesto.Estrazione estrazione = estrattore(1000, 10).estrai(EstrattoreTesto.DOCX,
+				new ByteArrayInputStream(docx));
+
+		assertEquals("NullPointerException in Board\nriga 42\n", estrazione.testo());
+		assertFalse(estrazione.troncato());
+	}
+
+	/*
+	 TEST 2: estrai - DOCX oltre il limite di caratteri
+	 CE: Paragrafo da 50 caratteri, limite 20
+	 Atteso: Primi 20 caratteri, estrazione segnata come troncata
+	 */
+	@Test
+	void testEstrai_DocxOltreLimite_Troncato() throws IOException {
+		byte[] docx = docx("<w:p><w:r><w:t>" + "a".repeat(50) + "</w:t></w:r></w:p>");
+
+		EstrattoreTesto.Estrazione estrazione = estrattore(20, 10).estrai(EstrattoreTesto.DOCX,
+				new ByteArrayInputStream(docx));
+
+		assertEquals("a".repeat(20), estrazione.testo());
+		assertTrue(estrazione.troncato());
+	}
+
+	/*
+	 TEST 3: estrai - DOCX con DTD ed entità esterna
+	 CE: document.xml che dichiara un'entità verso un file locale
+	 Atteso: IOException, il file non viene letto
+	 */
+	@Test
+	void testEstrai_DocxConDtd_ThrowsIOException() throws IOException {
+		Path segreto = Files.writeString(directory.resolve("segreto.txt"), "riservato");
+		String xml = "<?xml version=\"1.0\"?><!DOCTYPE d [<!ENTITY x SYSTEM \"" + segreto.toUri() + "\">]>"
+				+ "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\">"
+				+ "<w:body><w:p><w:r><w:t>&x;</w:t></w:r></w:p></w:body></w:document>";
+
+		assertThrows(IOException.class, () -> estrattore(1000, 10).estrai(EstrattoreTesto.DOCX,
+				new ByteArrayInputStream(zip(xml))));
+	}
+
+	/*
+	 TEST 4: estrai - PDF oltre il limite di pagine
+	 CE: PDF di 3 pagine, limite 2 pagine
+	 Atteso: Testo delle prime due pagine, troncato, nessun file temporaneo rimasto
+	 */
+	@Test
+	void testEstrai_PdfOltreLimitePagine_PrimePagine() throws IOException {
+		byte[] pdf = pdf("Pagina uno", "Pagina due", "Pagina tre");
+
+		EstrattoreTesto.Estrazione estrazione = estrattore(1000, 2).estrai(EstrattoreTesto.PDF,
+				new ByteArrayInputStream(pdf));
+
+		assertTrue(estrazione.testo().contains("Pagina uno"));
+		assertTrue(estrazione.testo().contains("Pagina due"));
+		assertFalse(estrazione.testo().contains("Pagina tre"));
+		assertTrue(estrazione.troncato());
+		try (var file = Files.list(directory)) {
+			assertEquals(0, file.count());
+		}
+	}
+
+	/*
+	 TEST 5: Testo.write - caratteri U+0000 nel testo estratto
+	 CE: Testo con due NUL, limite 5 caratteri
+	 Atteso: NUL scartati e non contati nel limite
+	 */
+	@Test
+	void testWrite_CaratteriNul_Scartati() throws IOException {
+		EstrattoreTesto.Testo testo = new EstrattoreTesto.Testo(5, System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+
+		testo.write("ab\0c\0de");
+
+		assertEquals("abcde", testo.toString());
+	}
+
+	/*
+	 TEST 6: estrai - documento che non finisce mai di arrivare
+	 CE: Stream la cui lettura resta bloccata, durata massima 100ms
+	 Atteso: DocumentoNonValido dopo la scadenza, il thread di estrazione viene interrotto
+	 */
+	@Test
+	void testEstrai_OltreDurataMassima_Interrotta() throws InterruptedException {
+		CountDownLatch mai = new CountDownLatch(1);
+		CountDownLatch interrotto = new CountDownLatch(1);
+		InputStream bloccato = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				try {
+					mai.await();
+					return -1;
+				} catch (InterruptedException e) {
+					interrotto.countDown();
+					throw new InterruptedIOException();
+				}
+			}
+		};
+
+		assertThrows(EstrattoreTesto.DocumentoNonValido.class, () -> estrattore(1000, 10, Duration.ofMillis(100))
+				.estrai(EstrattoreTesto.PDF, bloccato));
+		assertTrue(interrotto.await(5, TimeUnit.SECONDS));
+	}
+
+	/*
+	 TEST 7: estrai - lettura che ignora l'interruzione
+	 CE: Stream che resta bloccato anche se interrotto, durata massima 100ms
+	 Atteso: EstrazioneScaduta dopo la scadenza; fine() si completa solo quando il thread esce davvero
+	 */
+	@Test
+	void testEstrai_InterruzioneIgnorata_FineAllUscitaDelThread() throws Exception {
+		CountDownLatch sblocca = new CountDownLatch(1);
+		InputStream sordo = new InputStream() {
+			@Override
+			public int read() {
+				while (true) {
+					try {
+						sblocca.await();
+						return -1;
+					} catch (InterruptedException e) {
+						// Come PDFBox: l'interruzione non ferma la lettura
+					}
+				}
+			}
+		};
+
+		EstrattoreTesto.EstrazioneScaduta scaduta = assertThrows(EstrattoreTesto.EstrazioneScaduta.class,
+				() -> estrattore(1000, 10, Duration.ofMillis(100)).estrai(EstrattoreTesto.PDF, sordo));
+		CompletableFuture<Void> fine = scaduta.fine().toCompletableFuture();
+		assertFalse(fine.isDone());
+
+		sblocca.countDown();
+		fine.get(5, TimeUnit.SECONDS);
+	}
+
+	private EstrattoreTesto estrattore(int caratteriMassimi, int pagineMassime) {
+		return estrattore(caratteriMassimi, pagineMassime, Duration.ofSeconds(10));
+	}
+
+	private EstrattoreTesto estrattore(int caratteriMassimi, int pagineMassime, Duration durataMassima) {
+		return new EstrattoreTesto(new EstrattoreTesto.Parametri(caratteriMassimi, pagineMassime, 1024 * 1024,
+				durataMassima, directory));
+	}
+
+	private static byte[] docx(String corpo) throws IOException {
+		return zip(String.format(DOCUMENT_XML, corpo));
+	}
+
+	private static byte[] zip(String documentXml) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(out)) {
+			zip.putNextEntry(new ZipEntry("[Content_Types].xml"));
+			zip.write("<Types/>".getBytes(StandardCharsets.UTF_8));
+			zip.putNextEntry(new ZipEntry("word/document.xml"));
+			zip.write(documentXml.getBytes(StandardCharsets.UTF_8));
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] pdf(String... pagine) throws IOException {
+		try (PDDocument documento = new PDDocument()) {
+			PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+			for (String testo : pagine) {
+				PDPage pagina = new PDPage();
+				documento.addPage(pagina);
+				try (PDPageContentStream contenuto = new PDPageContentStream(documento, pagina)) {
+					contenuto.beginText();
+					contenuto.setFont(font, 12);
+					contenuto.newLineAtOffset(72, 700);
+					contenuto.showText(testo);
+					contenuto.endText();
+				}
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			documento.save(out);
+			return out.toByteArray();
+		}
+	}
+}
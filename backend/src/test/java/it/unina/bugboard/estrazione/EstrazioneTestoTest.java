@@ -0,0 +1,81 @@
+package it.unina.bugboard.estrazione;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.InfoAllegato;
+import it.unina.bugboard.storage.ArchivioOggetti;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EstrazioneTestoTest {
+
+	@Mock
+	private AllegatoDAO allegatoDAO;
+
+	@Mock
+	private ArchivioOggetti archivioOggetti;
+
+	@Mock
+	private EstrattoreTesto estrattore;
+
+	@Mock
+	private ExecutorService esecutore;
+
+	@Mock
+	private InfoAllegato allegato;
+
+	private EstrazioneTesto estrazione;
+
+	@BeforeEach
+	void setUp() {
+		doAnswer(invocation -> {
+			invocation.<Runnable>getArgument(0).run();
+			return null;
+		}).when(esecutore).execute(any());
+		estrazione = new EstrazioneTesto(allegatoDAO, archivioOggetti, estrattore, esecutore,
+				new EstrazioneTesto.Parametri(true, 1, Duration.ofMinutes(2), 3, Duration.ofMinutes(5)),
+				new SimpleMeterRegistry());
+	}
+
+	/*
+	 TEST 1: esegui - Estrazione scaduta con il thread del parsing ancora vivo
+	 CE: Un solo thread; il PDF 5 supera la durata massima e il suo parsing non si ferma
+	 Atteso: Allegato segnato come non valido; nessuna nuova prenotazione finché il parsing non esce,
+	     poi il thread torna disponibile
+	 */
+	@Test
+	void testEsegui_EstrazioneScaduta_PermessoTenutoFinoAllUscita() throws Exception {
+		CompletableFuture<Void> fine = new CompletableFuture<>();
+		when(allegatoDAO.prenotaEstrazioni(eq(1), anyLong())).thenReturn(List.of(5), List.of());
+		when(allegatoDAO.findInfoById(5)).thenReturn(Optional.of(allegato));
+		when(allegato.getIdAllegato()).thenReturn(5);
+		when(allegato.getTipoFile()).thenReturn(EstrattoreTesto.PDF);
+		when(estrattore.estrai(eq(EstrattoreTesto.PDF), any(InputStream.class)))
+				.thenThrow(new EstrattoreTesto.EstrazioneScaduta("Estrazione interrotta dopo 45s", fine));
+
+		estrazione.esegui();
+		estrazione.esegui();
+
+		verify(allegatoDAO).registraErroreEstrazione(5, "Estrazione interrotta dopo 45s", 0, 0);
+		verify(allegatoDAO, times(1)).prenotaEstrazioni(anyInt(), anyLong());
+
+		fine.complete(null);
+		estrazione.esegui();
+
+		verify(allegatoDAO, times(2)).prenotaEstrazioni(anyInt(), anyLong());
+	}
+}
@@ -0,0 +1,60 @@
+package it.unina.bugboard.exception;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobalExceptionHandlerTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private GlobalExceptionHandler handler;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		handler = new GlobalExceptionHandler(meterRegistry);
+	}
+
+	/*
+	 TEST 1: conta - Eccezioni di tipi diversi
+	 CE: Due NotFoundException, una InvalidFieldException, una IOException
+	 Atteso: Stato HTTP del tipo; bugboard.eccezioni a 2, 1 e 1 per tag tipo
+	 */
+	@Test
+	void testHandler_TipiDiversi_ContaPerTipo() {
+		assertEquals(HttpStatus.NOT_FOUND, handler.handleNotFound(new NotFoundException("Issue 1")).getStatusCode());
+		handler.handleNotFound(new NotFoundException("Issue 2"));
+		assertEquals(HttpStatus.BAD_REQUEST,
+				handler.handleInvalidField(new InvalidFieldException("Titolo vuoto")).getStatusCode());
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR,
+				handler.handleIOException(new IOException("Disco pieno")).getStatusCode());
+
+		assertEquals(2, conteggio("NotFoundException"));
+		assertEquals(1, conteggio("InvalidFieldException"));
+		assertEquals(1, conteggio("IOException"));
+		assertNull(meterRegistry.find("bugboard.eccezioni").tag("tipo", "AlreadyExistsException").counter());
+	}
+
+	/*
+	 TEST 2: handleGeneric - Eccezione non prevista
+	 CE: IllegalStateException
+	 Atteso: 500 e contatore con il nome semplice della classe concreta
+	 */
+	@Test
+	void testHandleGeneric_EccezioneNonPrevista_ContaClasseConcreta() {
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR,
+				handler.handleGeneric(new IllegalStateException("stato")).getStatusCode());
+
+		assertEquals(1, conteggio("IllegalStateException"));
+		assertNull(meterRegistry.find("bugboard.eccezioni").tag("tipo", "Exception").counter());
+	}
+
+	private double conteggio(String tipo) {
+		return meterRegistry.get("bugboard.eccezioni").tag("tipo", tipo).counter().count();
+	}
+}
@@ -0,0 +1,82 @@
+package it.unina.bugboard.indici;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceDuplicatiTest {
+
+	private IndiceDuplicati indice;
+
+	@BeforeEach
+	void setUp() {
+		indice = new IndiceDuplicati(new IndiceDuplicati.Parametri(0.5, 1000));
+		indice.aggiorna(1, "Crash dell'app al login con Google", "L'app si chiude premendo Accedi con Google");
+		indice.aggiorna(2, "Traduzione errata nella pagina del profilo", "La voce Impostazioni compare in inglese");
+		indice.aggiorna(3, "Esportazione CSV lenta con molte issue", "Oltre 5000 issue l'esportazione impiega minuti");
+	}
+
+	/*
+	 TEST 1: cerca - Titolo riformulato con refuso e accenti diversi
+	 CE: "crash app durante il logín google" contro tre issue indicizzate
+	 Atteso: Solo l'issue 1, con somiglianza tra soglia e 1
+	 */
+	@Test
+	void testCerca_TitoloRiformulato_TrovaDuplicato() {
+		List<IndiceDuplicati.Simile> simili = indice.cerca("crash app durante il logín google", null, 5);
+
+		assertEquals(1, simili.size());
+		assertEquals(1, simili.get(0).idIssue());
+		assertEquals("Crash dell'app al login con Google", simili.get(0).titolo());
+		assertTrue(simili.get(0).somiglianza() >= 0.5 && simili.get(0).somiglianza() < 1);
+	}
+
+	/*
+	 TEST 2: cerca - Nessuna issue simile
+	 CE: Titolo senza parole in comune con le issue indicizzate; titolo di sole parole vuote
+	 Atteso: Liste vuote
+	 */
+	@Test
+	void testCerca_TitoloDiverso_NessunRisultato() {
+		assertTrue(indice.cerca("Notifiche push duplicate su iOS", null, 5).isEmpty());
+		assertTrue(indice.cerca("il la di", null, 5).isEmpty());
+	}
+
+	/*
+	 TEST 3: aggiorna/rimuovi - Aggiornamento incrementale
+	 CE: Issue 1 rimossa (archiviata), issue 4 aggiunta, issue 2 con nuovo titolo
+	 Atteso: Le ricerche vedono subito lo stato nuovo, senza ricostruire l'indice
+	 */
+	@Test
+	void testAggiornaRimuovi_IndiceIncrementale() {
+		indice.rimuovi(1);
+		indice.aggiorna(4, "Crash al login con Google su Android", "");
+		indice.aggiorna(2, "Pulsante salva disabilitato nel profilo", "");
+
+		List<IndiceDuplicati.Simile> login = indice.cerca("Crash login Google", null, 5);
+		assertEquals(List.of(4), login.stream().map(IndiceDuplicati.Simile::idIssue).toList());
+		assertTrue(indice.cerca("Traduzione errata pagina profilo", null, 5).isEmpty());
+		assertEquals(3, indice.dimensione());
+	}
+
+	/*
+	 TEST 4: cerca - Stessa descrizione, titolo diverso
+	 CE: Titolo poco simile all'issue 3, prima da solo e poi con la sua descrizione; limite 1 con due issue simili
+	 Atteso: Issue 3 trovata solo con la descrizione; un solo risultato, il più simile
+	 */
+	@Test
+	void testCerca_DescrizioneSimile_PesaNelPunteggio() {
+		String descrizione = "Oltre 5000 issue l'esportazione impiega minuti";
+		assertTrue(indice.cerca("Esportazione CSV bloccata", null, 5).isEmpty());
+		List<IndiceDuplicati.Simile> simili = indice.cerca("Esportazione CSV bloccata", descrizione, 5);
+		assertEquals(List.of(3), simili.stream().map(IndiceDuplicati.Simile::idIssue).toList());
+
+		indice.aggiorna(5, "Crash dell'app al login con Google!", "");
+		List<IndiceDuplicati.Simile> primo = indice.cerca("Crash dell'app al login con Google", null, 1);
+		assertEquals(1, primo.size());
+		assertEquals(1.0, primo.get(0).somiglianza());
+	}
+}
@@ -0,0 +1,80 @@
+package it.unina.bugboard.indici;
+
+import it.unina.bugboard.dao.TestoIssue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IndiceTitoliTest {
+
+	private static final LocalDateTime OGGI = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+	private IndiceTitoli indice;
+
+	@BeforeEach
+	void setUp() {
+		indice = new IndiceTitoli();
+		indice.aggiorna(issue(1, "Crash al login con Google", "low", 1, OGGI.minusDays(3)));
+		indice.aggiorna(issue(2, "Login lento su Android", "critical", 4, OGGI.minusDays(10)));
+		indice.aggiorna(issue(3, "Logout non cancella la sessione", "low", 1, OGGI));
+		indice.aggiorna(issue(4, "Perché l'esportazione è lenta?", "medium", 2, OGGI.minusDays(1)));
+	}
+
+	/*
+	 TEST 1: suggerisci - Prefisso di una parola
+	 CE: "LOG" contro tre titoli con login/logout e uno senza
+	 Atteso: I tre titoli, prima la priorità più alta e poi il più recente
+	 */
+	@Test
+	void testSuggerisci_Prefisso_OrdinatiPerPrioritaEData() {
+		List<IndiceTitoli.Suggerimento> suggerimenti = indice.suggerisci("LOG", 10);
+
+		assertEquals(List.of(2, 3, 1), suggerimenti.stream().map(IndiceTitoli.Suggerimento::idIssue).toList());
+		assertEquals("critical", suggerimenti.get(0).priorita());
+		assertEquals(1, indice.suggerisci("LOG", 1).size());
+	}
+
+	/*
+	 TEST 2: suggerisci - Più parole, in qualunque ordine, senza accenti
+	 CE: "goo log"; "perche esport"; "login xyz"
+	 Atteso: Issue 1; issue 4; nessun risultato
+	 */
+	@Test
+	void testSuggerisci_PiuParoleEAccenti() {
+		assertEquals(List.of(1), indice.suggerisci("goo log", 10).stream().map(IndiceTitoli.Suggerimento::idIssue).toList());
+		assertEquals(List.of(4), indice.suggerisci("perche esport", 10).stream().map(IndiceTitoli.Suggerimento::idIssue).toList());
+		assertTrue(indice.suggerisci("login xyz", 10).isEmpty());
+		assertTrue(indice.suggerisci("  ?! ", 10).isEmpty());
+	}
+
+	/*
+	 TEST 3: aggiorna/rimuovi - Aggiornamento incrementale
+	 CE: Issue 2 rinominata e abbassata a low, issue 3 rimossa (archiviata)
+	 Atteso: Il vecchio titolo non si trova più, il nuovo sì; l'issue rimossa sparisce
+	 */
+	@Test
+	void testAggiornaRimuovi_IndiceIncrementale() {
+		indice.aggiorna(issue(2, "Accesso lento su Android", "low", 1, OGGI.minusDays(10)));
+		indice.rimuovi(3);
+
+		assertEquals(List.of(1), indice.suggerisci("login", 10).stream().map(IndiceTitoli.Suggerimento::idIssue).toList());
+		assertEquals(List.of(2), indice.suggerisci("acc", 10).stream().map(IndiceTitoli.Suggerimento::idIssue).toList());
+		assertEquals("low", indice.suggerisci("acc", 10).get(0).priorita());
+		assertEquals(3, indice.dimensione());
+	}
+
+	private TestoIssue issue(int idIssue, String titolo, String priorita, int peso, LocalDateTime dataCreazione) {
+		TestoIssue issue = mock(TestoIssue.class);
+		when(issue.getIdIssue()).thenReturn(idIssue);
+		when(issue.getTitolo()).thenReturn(titolo);
+		when(issue.getPriorita()).thenReturn(priorita);
+		when(issue.getPesoPriorita()).thenReturn(peso);
+		when(issue.getDataCreazione()).thenReturn(dataCreazione);
+		return issue;
+	}
+}
@@ -0,0 +1,233 @@
+package it.unina.bugboard.indici;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import it.unina.bugboard.dao.TestoIssue;
+import it.unina.bugboard.model.Issue;
+import it.unina.bugboard.model.Priorita;
+import it.unina.bugboard.model.Stato;
+import it.unina.bugboard.model.Tipo;
+import it.unina.bugboard.model.Utenza;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IstantaneaIssueTest {
+
+	private static final LocalDateTime OGGI = LocalDateTime.of(2026, 3, 10, 12, 0);
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules()
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+	private IstantaneaIssue istantanea;
+
+	@BeforeEach
+	void setUp() {
+		istantanea = new IstantaneaIssue(OBJECT_MAPPER);
+		istantanea.aggiorna(issue(1, "Crash al login", "Todo", "bug", "high", OGGI.minusDays(3)));
+		istantanea.aggiorna(issue(2, "aggiornare la guida", "Done", "documentation", "low", OGGI.minusDays(10)));
+		istantanea.aggiorna(issue(3, "Login lento", "Todo", "bug", "critical", OGGI));
+		istantanea.aggiorna(issue(4, "Esportazione CSV", "inProgress", "features", "high", OGGI.minusDays(1)));
+	}
+
+	/*
+	 TEST 1: filtra - Prima della pubblicazione e senza filtri
+	 CE: Quattro issue aggiornate, poi pubblica()
+	 Atteso: Non pronta prima; dopo tutte, dalla più recente
+	 */
+	@Test
+	void testFiltra_SenzaFiltri_DallaPiuRecente() {
+		assertFalse(istantanea.pronta());
+		assertEquals(0, istantanea.dimensione());
+
+		istantanea.pubblica();
+
+		assertTrue(istantanea.pronta());
+		assertEquals(4, istantanea.dimensione());
+		assertEquals(List.of(3, 4, 1, 2), ids(istantanea.filtra(null, null, null, null, null)));
+		assertEquals(List.of(2, 1, 4, 3), ids(istantanea.filtra(null, null, null, null, "DATA_VECCHIO")));
+	}
+
+	/*
+	 TEST 2: filtra - Filtri combinati e ricerca nel titolo
+	 CE: stato Todo + tipo bug; priorità high; ricerca "LOGIN"; stato Done + priorità high
+	 Atteso: Issue 3 e 1; issue 4 e 1; issue 3 e 1; nessuna
+	 */
+	@Test
+	void testFiltra_FiltriERicerca() {
+		istantanea.pubblica();
+
+		assertEquals(List.of(3, 1), ids(istantanea.filtra(Stato.Todo, null, Tipo.bug, null, null)));
+		assertEquals(List.of(4, 1), ids(istantanea.filtra(null, Priorita.high, null, null, "data_recente")));
+		assertEquals(List.of(3, 1), ids(istantanea.filtra(null, null, null, "LOGIN", null)));
+		assertTrue(istantanea.filtra(Stato.Done, Priorita.high, null, null, null).isEmpty());
+	}
+
+	/*
+	 TEST 3: filtra - Ordinamenti per titolo e priorità
+	 CE: titolo_az, titolo_za, priorita_alta, priorita_bassa
+	 Atteso: Alfabetico senza distinguere maiuscole; per priorità a parità la più recente prima
+	 */
+	@Test
+	void testFiltra_OrdinamentiPerTitoloEPriorita() {
+		istantanea.pubblica();
+
+		assertEquals(List.of(2, 1, 4, 3), ids(istantanea.filtra(null, null, null, null, "titolo_az")));
+		assertEquals(List.of(3, 4, 1, 2), ids(istantanea.filtra(null, null, null, null, "titolo_za")));
+		assertEquals(List.of(3, 4, 1, 2), ids(istantanea.filtra(null, null, null, null, "priorita_alta")));
+		assertEquals(List.of(2, 4, 1, 3), ids(istantanea.filtra(null, null, null, null, "priorita_bassa")));
+	}
+
+	/*
+	 TEST 4: aggiorna/rimuovi/svuota - Pubblicazione a blocchi
+	 CE: Issue 1 passata a Done e issue 3 rimossa, prima e dopo pubblica(); poi svuota() senza pubblica()
+	 Atteso: Le colonne cambiano solo alla pubblicazione; svuotata restano le ultime pubblicate
+	 */
+	@Test
+	void testAggiornaRimuovi_VisibiliAllaPubblicazione() {
+		istantanea.pubblica();
+		istantanea.aggiorna(issue(1, "Crash al login", "Done", "bug", "high", OGGI.minusDays(3)));
+		istantanea.rimuovi(3);
+
+		assertEquals(List.of(3, 1), ids(istantanea.filtra(Stato.Todo, null, null, null, null)));
+
+		istantanea.pubblica();
+
+		assertTrue(istantanea.filtra(Stato.Todo, null, null, null, null).isEmpty());
+		assertEquals(List.of(1, 2), ids(istantanea.filtra(Stato.Done, null, null, null, null)));
+		assertEquals(3, istantanea.dimensione());
+
+		istantanea.svuota();
+		istantanea.rimuoviDopoCommit(4);
+
+		assertEquals(3, istantanea.dimensione());
+	}
+
+	/*
+	 TEST 5: filtra - Più di una parola del bitset
+	 CE: 130 issue, stato alternato Todo/Done
+	 Atteso: 65 Todo, dalla più recente alla più vecchia senza righe oltre la fine
+	 */
+	@Test
+	void testFiltra_PiuParoleDelBitset() {
+		istantanea.svuota();
+		for (int id = 1; id <= 130; id++) {
+			istantanea.aggiorna(issue(id, "Issue " + id, id % 2 == 0 ? "Todo" : "Done", "bug", "none", OGGI.plusMinutes(id)));
+		}
+		istantanea.pubblica();
+
+		List<Integer> todo = ids(istantanea.filtra(Stato.Todo, null, null, null, null));
+		assertEquals(65, todo.size());
+		assertEquals(130, todo.get(0));
+		assertEquals(2, todo.get(64));
+		assertEquals(130, istantanea.filtra(null, null, null, null, "data_vecchio").size());
+	}
+
+	/*
+	 TEST 6: filtra - JSON dai byte già serializzati
+	 CE: Filtro per tipo bug ordinato per titolo; titolo con accenti e virgolette; nessun risultato
+	 Atteso: Stessi byte e lunghezza di Jackson sulla stessa lista; "[]" senza risultati
+	 */
+	@Test
+	void testFiltra_JsonComeJackson() throws Exception {
+		istantanea.aggiorna(issue(5, "Perché \"Salva\" non funziona?", "Todo", "bug", "medium", OGGI.minusHours(2)));
+		istantanea.pubblica();
+
+		SchedeJson schede = istantanea.filtra(null, null, Tipo.bug, null, "titolo_za");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		schede.scriviJson(out);
+
+		byte[] atteso = OBJECT_MAPPER.writeValueAsBytes(new ArrayList<>(schede));
+		assertEquals(List.of(5, 3, 1), ids(schede));
+		assertEquals(new String(atteso, StandardCharsets.UTF_8), out.toString(StandardCharsets.UTF_8));
+		assertEquals(atteso.length, schede.lunghezzaJson());
+
+		SchedeJson vuota = istantanea.filtra(Stato.Done, Priorita.critical, null, null, null);
+		out.reset();
+		vuota.scriviJson(out);
+		assertEquals("[]", out.toString(StandardCharsets.UTF_8));
+		assertEquals(2, vuota.lunghezzaJson());
+	}
+
+	/*
+	 TEST 7: filtra - Titoli uguali a meno delle maiuscole
+	 CE: Issue 5 "login LENTO" più vecchia della 3 "Login lento"; titolo_az e titolo_za
+	 Atteso: In entrambi i versi a parità di titolo prima la più recente
+	 */
+	@Test
+	void testFiltra_TitoliUguali_OrdineStabile() {
+		istantanea.aggiorna(issue(5, "login LENTO", "Todo", "bug", "low", OGGI.minusDays(5)));
+		istantanea.pubblica();
+
+		assertEquals(List.of(2, 1, 4, 3, 5), ids(istantanea.filtra(null, null, null, null, "titolo_az")));
+		assertEquals(List.of(3, 5, 4, 1, 2), ids(istantanea.filtra(null, null, null, null, "titolo_za")));
+	}
+
+	/*
+	 TEST 8: aggiornaDopoCommit/rimuoviDopoCommit - Solo la riga dell'issue, senza pubblica()
+	 CE: Nuova issue con un titolo già presente, titolo e stato cambiati, un'archiviata, una eliminata
+	 Atteso: Subito visibili, e ogni ordinamento uguale a quello di un'istantanea ricostruita da capo
+	 */
+	@Test
+	void testDopoCommit_SoloLaRiga_ComeRicostruita() throws IOException {
+		istantanea.pubblica();
+		istantanea.aggiornaDopoCommit(entita(5, "login LENTO", Stato.Todo, Tipo.bug, Priorita.low, OGGI.minusDays(2)));
+		istantanea.aggiornaDopoCommit(entita(1, "Zeta crash", Stato.Done, Tipo.bug, Priorita.high, OGGI.minusDays(3)));
+		Issue archiviata = entita(4, "Esportazione CSV", Stato.inProgress, Tipo.features, Priorita.high,
+				OGGI.minusDays(1));
+		archiviata.setArchiviata(true);
+		istantanea.aggiornaDopoCommit(archiviata);
+		istantanea.rimuoviDopoCommit(2);
+
+		IstantaneaIssue ricostruita = new IstantaneaIssue(OBJECT_MAPPER);
+		ricostruita.aggiorna(issue(1, "Zeta crash", "Done", "bug", "high", OGGI.minusDays(3)));
+		ricostruita.aggiorna(issue(3, "Login lento", "Todo", "bug", "critical", OGGI));
+		ricostruita.aggiorna(issue(5, "login LENTO", "Todo", "bug", "low", OGGI.minusDays(2)));
+		ricostruita.pubblica();
+
+		assertEquals(List.of(3, 5, 1), ids(istantanea.filtra(null, null, null, null, null)));
+		for (String ordinamento : List.of("data_recente", "data_vecchio", "titolo_az", "titolo_za", "priorita_alta",
+				"priorita_bassa")) {
+			assertEquals(ids(ricostruita.filtra(null, null, null, null, ordinamento)),
+					ids(istantanea.filtra(null, null, null, null, ordinamento)), ordinamento);
+		}
+		assertEquals(List.of(3, 5), ids(istantanea.filtra(Stato.Todo, null, null, "login", "titolo_az")));
+		ByteArrayOutputStream patch = new ByteArrayOutputStream();
+		istantanea.filtra(null, null, null, null, null).scriviJson(patch);
+		ByteArrayOutputStream attese = new ByteArrayOutputStream();
+		ricostruita.filtra(null, null, null, null, null).scriviJson(attese);
+		assertEquals(attese.toString(StandardCharsets.UTF_8), patch.toString(StandardCharsets.UTF_8));
+	}
+
+	private static List<Integer> ids(List<IstantaneaIssue.Scheda> schede) {
+		return schede.stream().map(IstantaneaIssue.Scheda::idIssue).toList();
+	}
+
+	private static Issue entita(int idIssue, String titolo, Stato stato, Tipo tipo, Priorita priorita,
+			LocalDateTime dataCreazione) {
+		Issue issue = new Issue(titolo, "Descrizione", priorita, stato, tipo, mock(Utenza.class));
+		issue.setIdIssue(idIssue);
+		issue.setDataCreazione(dataCreazione);
+		return issue;
+	}
+
+	private TestoIssue issue(int idIssue, String titolo, String stato, String tipo, String priorita,
+			LocalDateTime dataCreazione) {
+		TestoIssue issue = mock(TestoIssue.class);
+		when(issue.getIdIssue()).thenReturn(idIssue);
+		when(issue.getTitolo()).thenReturn(titolo);
+		when(issue.getStato()).thenReturn(stato);
+		when(issue.getTipo()).thenReturn(tipo);
+		when(issue.getPriorita()).thenReturn(priorita);
+		when(issue.getDataCreazione()).thenReturn(dataCreazione);
+		return issue;
+	}
+}
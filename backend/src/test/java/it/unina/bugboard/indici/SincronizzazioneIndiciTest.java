@@ -0,0 +1,75 @@
+package it.unina.bugboard.indici;
+
+import it.unina.bugboard.dao.IssueDAO;
+import it.unina.bugboard.dao.TestoIssue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SincronizzazioneIndiciTest {
+
+	private static final LocalDateTime OGGI = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+	private IssueDAO issueDAO;
+	private IndiceTitoli indice;
+	private SincronizzazioneIndici sincronizzazione;
+
+	@BeforeEach
+	void setUp() {
+		issueDAO = mock(IssueDAO.class);
+		indice = spy(new IndiceTitoli());
+		sincronizzazione = new SincronizzazioneIndici(issueDAO, List.of(indice), new SincronizzazioneIndici.Parametri(
+				true, 1000, 100, Duration.ofMinutes(2), Duration.ofHours(1), Duration.ofMinutes(15),
+				Duration.ofMinutes(10)));
+	}
+
+	/*
+	 TEST 1: esegui - Modifiche sfuggite alla finestra di sovrapposizione
+	 CE: Issue 2 archiviata e issue 4 creata senza righe in modifica_issue; issue 9 aggiunta all'indice
+	     dopo l'ultimo lotto; giri a +5s e a +16m
+	 Atteso: A +5s indice invariato; a +16m riletta la partizione attiva senza svuotare l'indice: via la 2,
+	     dentro la 4, la 9 resta
+	 */
+	@Test
+	void testEsegui_Riallineamento_RecuperaModificheSfuggite() {
+		when(issueDAO.oraDatabase()).thenReturn(OGGI, OGGI.plusSeconds(5), OGGI.plusMinutes(16));
+		List<TestoIssue> prima = List.of(issue(1), issue(2), issue(3));
+		List<TestoIssue> dopo = List.of(issue(1), issue(3), issue(4));
+		when(issueDAO.findTestiAttiviDopo(eq(0), anyInt(), anyInt())).thenReturn(prima, dopo);
+
+		sincronizzazione.esegui();
+		assertEquals(List.of(1, 2, 3), ids());
+
+		sincronizzazione.esegui();
+		assertEquals(List.of(1, 2, 3), ids());
+		verify(issueDAO, times(1)).findTestiAttiviDopo(anyInt(), anyInt(), anyInt());
+
+		indice.aggiorna(issue(9));
+		sincronizzazione.esegui();
+
+		assertEquals(List.of(1, 3, 4, 9), ids());
+		verify(indice, times(1)).svuota();
+		verify(issueDAO, times(2)).findTestiAttiviDopo(anyInt(), anyInt(), anyInt());
+	}
+
+	private List<Integer> ids() {
+		return indice.suggerisci("login", 10).stream().map(IndiceTitoli.Suggerimento::idIssue).sorted().toList();
+	}
+
+	private static TestoIssue issue(int idIssue) {
+		TestoIssue issue = mock(TestoIssue.class);
+		when(issue.getIdIssue()).thenReturn(idIssue);
+		when(issue.getTitolo()).thenReturn("Login lento " + idIssue);
+		when(issue.getPriorita()).thenReturn("low");
+		when(issue.getPesoPriorita()).thenReturn(1);
+		when(issue.getDataCreazione()).thenReturn(OGGI.minusDays(idIssue));
+		return issue;
+	}
+}
@@ -0,0 +1,50 @@
+package it.unina.bugboard.jfr;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DataSourceJfrPostProcessorTest {
+
+	private MockEnvironment environment;
+	private DataSourceJfrPostProcessor postProcessor;
+	private DataSource dataSource;
+
+	@BeforeEach
+	void setUp() {
+		environment = new MockEnvironment();
+		postProcessor = new DataSourceJfrPostProcessor();
+		postProcessor.setEnvironment(environment);
+		dataSource = mock(DataSource.class);
+	}
+
+	/*
+	 TEST 1: postProcessAfterInitialization - Proprietà assente
+	 CE: bugboard.jfr.statement-sql non impostata
+	 Atteso: Il DataSource viene avvolto nel proxy
+	 */
+	@Test
+	void testPostProcess_ProprietaAssente_Avvolge() {
+		Object risultato = postProcessor.postProcessAfterInitialization(dataSource, "dataSource");
+
+		assertTrue(Proxy.isProxyClass(risultato.getClass()));
+	}
+
+	/*
+	 TEST 2: postProcessAfterInitialization - Proxy disattivato
+	 CE: bugboard.jfr.statement-sql=false
+	 Atteso: Restituito lo stesso DataSource, senza proxy
+	 */
+	@Test
+	void testPostProcess_Disattivato_NonAvvolge() {
+		environment.setProperty("bugboard.jfr.statement-sql", "false");
+
+		assertSame(dataSource, postProcessor.postProcessAfterInitialization(dataSource, "dataSource"));
+	}
+}
@@ -0,0 +1,56 @@
+package it.unina.bugboard.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricheAllegatiTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private MetricheAllegati metriche;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		metriche = new MetricheAllegati(meterRegistry);
+	}
+
+	/*
+	 TEST 1: registra* - Byte per operazione
+	 CE: Upload di 1000 e 24 byte, download di 512, anteprima di 2048, zip di 4096
+	 Atteso: Ogni contatore somma solo i propri byte, con la direzione giusta
+	 */
+	@Test
+	void testRegistra_OperazioniDiverse_ContatoriSeparati() {
+		metriche.registraUpload(1000);
+		metriche.registraUpload(24);
+		metriche.registraDownload(512);
+		metriche.registraAnteprima(2048);
+		metriche.registraZip(4096);
+
+		assertEquals(1024, bytes("in", "upload"));
+		assertEquals(512, bytes("out", "download"));
+		assertEquals(2048, bytes("out", "preview"));
+		assertEquals(4096, bytes("out", "zip"));
+		assertEquals("bytes", meterRegistry.get("bugboard.allegati.bytes").tag("operazione", "zip").counter()
+				.getId().getBaseUnit());
+	}
+
+	/*
+	 TEST 2: costruttore - Nessun trasferimento
+	 CE: MetricheAllegati appena creato
+	 Atteso: I quattro contatori esistono già a zero
+	 */
+	@Test
+	void testCostruttore_NessunTrasferimento_ContatoriAZero() {
+		assertEquals(4, meterRegistry.get("bugboard.allegati.bytes").counters().size());
+		assertEquals(0, bytes("out", "download"));
+	}
+
+	private double bytes(String direzione, String operazione) {
+		return meterRegistry.get("bugboard.allegati.bytes").tag("direzione", direzione)
+				.tag("operazione", operazione).counter().count();
+	}
+}
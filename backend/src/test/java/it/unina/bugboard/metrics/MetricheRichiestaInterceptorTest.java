@@ -0,0 +1,125 @@
+package it.unina.bugboard.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsProperties;
+import org.springframework.boot.actuate.autoconfigure.metrics.PropertiesMeterFilter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricheRichiestaInterceptorTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private MetricheRichiestaInterceptor interceptor;
+	private ContatoreStatementJpa contatore;
+	private MockHttpServletResponse response;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		interceptor = new MetricheRichiestaInterceptor(meterRegistry);
+		contatore = new ContatoreStatementJpa();
+		response = new MockHttpServletResponse();
+	}
+
+	/*
+	 TEST 1: afterCompletion - Richiesta con StreamingResponseBody
+	 CE: 3 statement nel primo dispatch, 1 nel dispatch asincrono
+	 Atteso: Una sola osservazione per l'endpoint, con 4 statement
+	 */
+	@Test
+	void testAfterCompletion_DispatchAsincrono_SommaIConteggi() {
+		MockHttpServletRequest request = richiesta("GET", "/api/allegato/issue/{idIssue}/zip");
+
+		interceptor.preHandle(request, response, null);
+		esegui(3);
+		interceptor.afterConcurrentHandlingStarted(request, response, null);
+
+		request.setDispatcherType(DispatcherType.ASYNC);
+		interceptor.preHandle(request, response, null);
+		esegui(1);
+		interceptor.afterCompletion(request, response, null, null);
+
+		DistributionSummary statement = meterRegistry.get("bugboard.jpa.statements")
+				.tag("uri", "/api/allegato/issue/{idIssue}/zip").summary();
+		assertEquals(1, statement.count());
+		assertEquals(4, statement.totalAmount());
+	}
+
+	/*
+	 TEST 2: afterCompletion - Richieste sincrone in sequenza sullo stesso thread
+	 CE: GET /api/issue con 2 statement, poi GET /api/issue/{id} con 5 statement
+	 Atteso: Conteggio azzerato tra le richieste, una osservazione per endpoint con i propri statement
+	 */
+	@Test
+	void testAfterCompletion_RichiesteInSequenza_ContaPerRichiesta() {
+		completa(richiesta("GET", "/api/issue"), 2);
+		completa(richiesta("GET", "/api/issue/{id}"), 5);
+
+		DistributionSummary lista = statement("GET", "/api/issue");
+		DistributionSummary dettaglio = statement("GET", "/api/issue/{id}");
+		assertEquals(1, lista.count());
+		assertEquals(2, lista.totalAmount());
+		assertEquals(1, dettaglio.count());
+		assertEquals(5, dettaglio.totalAmount());
+	}
+
+	/*
+	 TEST 3: afterCompletion - Istogramma per endpoint
+	 CE: Filtro con percentiles-histogram.bugboard.jpa.statements=true come in application.properties;
+	     GET /api/issue con 2 e 40 statement, POST /api/issue con 1 statement; richiesta senza pattern
+	 Atteso: Un istogramma per method e uri, con il proprio conteggio e massimo; la richiesta senza
+	     pattern finisce su uri UNKNOWN
+	 */
+	@Test
+	void testAfterCompletion_IstogrammaPerEndpoint_SerieSeparate() {
+		MetricsProperties proprieta = new MetricsProperties();
+		proprieta.getDistribution().getPercentilesHistogram().put("bugboard.jpa.statements", true);
+		PropertiesMeterFilter filtro = new PropertiesMeterFilter(proprieta);
+		meterRegistry.config().meterFilter(filtro);
+
+		completa(richiesta("GET", "/api/issue"), 2);
+		completa(richiesta("GET", "/api/issue"), 40);
+		completa(richiesta("POST", "/api/issue"), 1);
+		completa(new MockHttpServletRequest("GET", "/api/sconosciuto"), 0);
+
+		DistributionSummary get = statement("GET", "/api/issue");
+		DistributionSummary post = statement("POST", "/api/issue");
+		assertTrue(filtro.configure(get.getId(), DistributionStatisticConfig.DEFAULT).isPercentileHistogram());
+		assertEquals(2, get.count());
+		assertEquals(40, get.max());
+		assertEquals(1, post.count());
+		assertEquals(1, post.max());
+		assertEquals(1, statement("GET", "UNKNOWN").count());
+		assertEquals(3, meterRegistry.get("bugboard.jpa.statements").summaries().size());
+	}
+
+	private void completa(MockHttpServletRequest request, int statement) {
+		interceptor.preHandle(request, response, null);
+		esegui(statement);
+		interceptor.afterCompletion(request, response, null, null);
+	}
+
+	private DistributionSummary statement(String metodo, String uri) {
+		return meterRegistry.get("bugboard.jpa.statements").tag("method", metodo).tag("uri", uri).summary();
+	}
+
+	private void esegui(int statement) {
+		for (int i = 0; i < statement; i++) {
+			contatore.inspect("select 1");
+		}
+	}
+
+	private static MockHttpServletRequest richiesta(String metodo, String pattern) {
+		MockHttpServletRequest request = new MockHttpServletRequest(metodo, pattern);
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+		return request;
+	}
+}
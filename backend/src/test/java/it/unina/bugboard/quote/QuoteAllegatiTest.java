@@ -0,0 +1,120 @@
+package it.unina.bugboard.quote;
+
+import it.unina.bugboard.dao.AllegatoDAO;
+import it.unina.bugboard.dao.Occupazione;
+import it.unina.bugboard.exception.InvalidFieldException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuoteAllegatiTest {
+
+	private static final long MB = 1024 * 1024L;
+
+	@Mock
+	private AllegatoDAO allegatoDAO;
+
+	@Mock
+	private PlatformTransactionManager transactionManager;
+
+	@Mock
+	private Supplier<Integer> inserimento;
+
+	/*
+	 TEST 1: inserisci - Spazio sufficiente
+	 CE: Quota issue 10MB con 4MB occupati, quota utente 5MB con 1MB occupato, 2MB in arrivo
+	 Atteso: Contatori creati e bloccati in ordine di ambito, inserimento eseguito
+	 */
+	@Test
+	void testInserisci_EntroQuota_BloccaEInserisce() {
+		QuoteAllegati quote = quote(10 * MB, 5 * MB, 0);
+		String[] ambiti = { "issue", "utente" };
+		Integer[] id = { 1, 7 };
+		List<Occupazione> occupazioni = List.of(occupazione("issue", 4 * MB), occupazione("utente", MB));
+		when(allegatoDAO.bloccaOccupazioni(ambiti, id)).thenReturn(occupazioni);
+		when(inserimento.get()).thenReturn(42);
+
+		assertEquals(42, quote.inserisci(1, 7, 2 * MB, inserimento));
+
+		var ordine = inOrder(allegatoDAO, inserimento);
+		ordine.verify(allegatoDAO).creaOccupazioni(ambiti, id);
+		ordine.verify(allegatoDAO).bloccaOccupazioni(ambiti, id);
+		ordine.verify(inserimento).get();
+	}
+
+	/*
+	 TEST 2: inserisci - Quota dell'utente superata
+	 CE: Quota utente 5MB con 4MB occupati, 2MB in arrivo
+	 Atteso: InvalidFieldException, inserimento non eseguito
+	 */
+	@Test
+	void testInserisci_QuotaUtenteSuperata_ThrowsInvalidFieldException() {
+		QuoteAllegati quote = quote(0, 5 * MB, 0);
+		List<Occupazione> occupazioni = List.of(occupazione("utente", 4 * MB));
+		when(allegatoDAO.bloccaOccupazioni(new String[] { "utente" }, new Integer[] { 7 })).thenReturn(occupazioni);
+
+		InvalidFieldException e = assertThrows(InvalidFieldException.class,
+				() -> quote.inserisci(1, 7, 2 * MB, inserimento));
+
+		assertTrue(e.getMessage().contains("dell'utente"));
+		verifyNoInteractions(inserimento);
+	}
+
+	/*
+	 TEST 3: inserisci - Quote non configurate
+	 CE: Tutte le quote a 0
+	 Atteso: Inserimento eseguito senza leggere né bloccare contatori
+	 */
+	@Test
+	void testInserisci_SenzaQuote_NessunBlocco() {
+		QuoteAllegati quote = quote(0, 0, 0);
+		when(inserimento.get()).thenReturn(42);
+
+		assertEquals(42, quote.inserisci(1, 7, 100 * MB, inserimento));
+
+		verifyNoInteractions(allegatoDAO);
+	}
+
+	/*
+	 TEST 4: riepilogo - Issue senza allegati
+	 CE: Contatore globale presente, nessun contatore per l'issue 3
+	 Atteso: Issue con zero allegati, quote riportate per ogni ambito
+	 */
+	@Test
+	void testRiepilogo_IssueSenzaContatore_Zero() {
+		QuoteAllegati quote = quote(10 * MB, 0, 0);
+		List<Occupazione> occupazioni = List.of(occupazione("globale", 3 * MB));
+		when(allegatoDAO.findOccupazioni(any(), any())).thenReturn(occupazioni);
+
+		Map<String, Map<String, Object>> riepilogo = quote.riepilogo(3, null);
+
+		assertEquals(3 * MB, riepilogo.get("globale").get("dimensioneTotaleBytes"));
+		assertEquals(0L, riepilogo.get("issue").get("numeroAllegati"));
+		assertEquals(10 * MB, riepilogo.get("issue").get("quotaBytes"));
+		assertFalse(riepilogo.containsKey("utente"));
+	}
+
+	private QuoteAllegati quote(long quotaIssue, long quotaUtente, long quotaGlobale) {
+		return new QuoteAllegati(allegatoDAO, new TransactionTemplate(transactionManager),
+				new QuoteAllegati.Parametri(quotaIssue, quotaUtente, quotaGlobale));
+	}
+
+	private static Occupazione occupazione(String ambito, long dimensione) {
+		Occupazione occupazione = mock(Occupazione.class);
+		when(occupazione.getAmbito()).thenReturn(ambito);
+		lenient().when(occupazione.getDimensione()).thenReturn(dimensione);
+		return occupazione;
+	}
+}
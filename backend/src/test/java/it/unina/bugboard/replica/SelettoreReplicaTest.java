@@ -0,0 +1,244 @@
+package it.unina.bugboard.replica;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SelettoreReplicaTest {
+
+	private static final long RITARDO_MASSIMO_BYTES = 1024 * 1024;
+
+	@Mock
+	private DataSource primario;
+
+	@Mock
+	private DataSource dataSourceReplica1;
+
+	@Mock
+	private DataSource dataSourceReplica2;
+
+	@Mock
+	private Connection connessionePrimario;
+
+	@Mock
+	private Connection connessioneReplica1;
+
+	@Mock
+	private Connection connessioneReplica2;
+
+	@Mock
+	private TransactionExecution transazione;
+
+	private FinestraLetturaScrittura finestra;
+	private SelettoreReplica.Replica replica1;
+	private SelettoreReplica.Replica replica2;
+	private SelettoreReplica selettore;
+
+	@BeforeEach
+	void setUp() {
+		finestra = new FinestraLetturaScrittura(Duration.ofMinutes(1));
+		replica1 = new SelettoreReplica.Replica("replica-1", dataSourceReplica1);
+		replica2 = new SelettoreReplica.Replica("replica-2", dataSourceReplica2);
+		selettore = new SelettoreReplica(primario, List.of(replica1, replica2), finestra, RITARDO_MASSIMO_BYTES);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer token-mario");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	@AfterEach
+	void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	/*
+	 TEST 1: getConnection - Nessuna replica verificata
+	 CE: Repliche appena create, mai passate dal controllo di salute
+	 Atteso: Connessione dal primario, repliche non interrogate
+	 */
+	@Test
+	void testGetConnection_ReplicheNonVerificate_UsaPrimario() throws SQLException {
+		when(primario.getConnection()).thenReturn(connessionePrimario);
+
+		assertSame(connessionePrimario, selettore.getConnection());
+
+		verifyNoInteractions(dataSourceReplica1, dataSourceReplica2);
+	}
+
+	/*
+	 TEST 2: getConnection - Repliche disponibili
+	 CE: Due repliche allineate
+	 Atteso: Connessioni distribuite in round-robin, primario mai usato
+	 */
+	@Test
+	void testGetConnection_ReplicheDisponibili_RoundRobin() throws SQLException {
+		rendiDisponibile(dataSourceReplica1, 0);
+		rendiDisponibile(dataSourceReplica2, 0);
+		verificaRepliche();
+		when(dataSourceReplica1.getConnection()).thenReturn(connessioneReplica1);
+		when(dataSourceReplica2.getConnection()).thenReturn(connessioneReplica2);
+
+		Connection prima = selettore.getConnection();
+		Connection seconda = selettore.getConnection();
+		Connection terza = selettore.getConnection();
+
+		assertNotSame(prima, seconda);
+		assertSame(prima, terza);
+		verifyNoInteractions(primario);
+	}
+
+	/*
+	 TEST 3: getConnection - Replica che rifiuta la connessione
+	 CE: Unica replica disponibile lancia SQLException
+	 Atteso: Ripiego sul primario e replica esclusa dalle letture successive
+	 */
+	@Test
+	void testGetConnection_ReplicaInErrore_RipiegaSulPrimario() throws SQLException {
+		rendiDisponibile(dataSourceReplica1, 0);
+		when(dataSourceReplica2.getConnection()).thenThrow(new SQLException("connessione rifiutata"));
+		verificaRepliche();
+		when(dataSourceReplica1.getConnection()).thenThrow(new SQLException("replica spenta"));
+		when(primario.getConnection()).thenReturn(connessionePrimario);
+
+		assertSame(connessionePrimario, selettore.getConnection());
+
+		assertFalse(replica1.isDisponibile());
+		assertFalse(replica2.isDisponibile());
+	}
+
+	/*
+	 TEST 4: verificaRepliche - Ritardo oltre la soglia
+	 CE: replica-1 indietro di 8 MB di WAL rispetto al primario, replica-2 allineata
+	 Atteso: Solo replica-2 disponibile
+	 */
+	@Test
+	void testVerificaRepliche_RitardoOltreSoglia_ReplicaEsclusa() throws SQLException {
+		rendiDisponibile(dataSourceReplica1, 8L * 1024 * 1024);
+		rendiDisponibile(dataSourceReplica2, 0);
+
+		verificaRepliche();
+
+		assertFalse(replica1.isDisponibile());
+		assertEquals(8L * 1024 * 1024, replica1.getRitardoBytes());
+		assertTrue(replica2.isDisponibile());
+	}
+
+	/*
+	 TEST 5: getConnection - Lettura dopo una scrittura dello stesso client
+	 CE: Commit di una transazione read-write nella stessa richiesta
+	 Atteso: Connessione dal primario per tutta la finestra
+	 */
+	@Test
+	void testGetConnection_DopoScritturaDelClient_UsaPrimario() throws SQLException {
+		rendiDisponibile(dataSourceReplica1, 0);
+		rendiDisponibile(dataSourceReplica2, 0);
+		verificaRepliche();
+		when(transazione.isReadOnly()).thenReturn(false);
+		when(transazione.isNewTransaction()).thenReturn(true);
+		when(primario.getConnection()).thenReturn(connessionePrimario);
+
+		finestra.afterCommit(transazione, null);
+
+		assertSame(connessionePrimario, selettore.getConnection());
+	}
+
+	/*
+	 TEST 6: getConnection - Scrittura di un altro client
+	 CE: Commit read-write con token diverso da quello della lettura
+	 Atteso: La lettura resta sulle repliche
+	 */
+	@Test
+	void testGetConnection_ScritturaAltroClient_UsaReplica() throws SQLException {
+		rendiDisponibile(dataSourceReplica1, 0);
+		rendiDisponibile(dataSourceReplica2, 0);
+		verificaRepliche();
+		when(transazione.isReadOnly()).thenReturn(false);
+		when(transazione.isNewTransaction()).thenReturn(true);
+		when(dataSourceReplica1.getConnection()).thenReturn(connessioneReplica1);
+
+		finestra.afterCommit(transazione, null);
+		MockHttpServletRequest altraRichiesta = new MockHttpServletRequest();
+		altraRichiesta.addHeader("Authorization", "Bearer token-luigi");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(altraRichiesta));
+
+		assertSame(connessioneReplica1, selettore.getConnection());
+		verifyNoInteractions(primario);
+	}
+
+	/*
+	 TEST 7: afterCommit - Transazione read-only
+	 CE: Commit di una transazione in sola lettura
+	 Atteso: Nessuna finestra aperta
+	 */
+	@Test
+	void testAfterCommit_TransazioneReadOnly_NessunaFinestra() {
+		when(transazione.isReadOnly()).thenReturn(true);
+
+		finestra.afterCommit(transazione, null);
+
+		assertFalse(finestra.attiva());
+	}
+
+	/*
+	 TEST 8: getConnection - Nessuna replica configurata
+	 CE: bugboard.replica.urls vuota, selettore senza repliche
+	 Atteso: Connessione dal primario; la verifica periodica non interroga il database
+	 */
+	@Test
+	void testGetConnection_NessunaReplicaConfigurata_UsaPrimario() throws SQLException {
+		SelettoreReplica senzaRepliche = new SelettoreReplica(primario, List.of(), finestra, RITARDO_MASSIMO_BYTES);
+		when(primario.getConnection()).thenReturn(connessionePrimario);
+
+		assertSame(connessionePrimario, senzaRepliche.getConnection());
+		assertSame(connessionePrimario, senzaRepliche.getConnection());
+		senzaRepliche.verificaRepliche();
+
+		verify(primario, times(2)).getConnection();
+	}
+
+	private void verificaRepliche() throws SQLException {
+		Connection connection = mock(Connection.class);
+		Statement statement = mock(Statement.class);
+		ResultSet rs = mock(ResultSet.class);
+		when(primario.getConnection()).thenReturn(connection);
+		when(connection.createStatement()).thenReturn(statement);
+		when(statement.executeQuery(anyString())).thenReturn(rs);
+		when(rs.next()).thenReturn(true);
+		when(rs.getString(1)).thenReturn("0/A3C29B0");
+
+		selettore.verificaRepliche();
+		clearInvocations(primario);
+	}
+
+	private void rendiDisponibile(DataSource dataSource, long ritardoBytes) throws SQLException {
+		Connection connection = mock(Connection.class);
+		PreparedStatement statement = mock(PreparedStatement.class);
+		ResultSet rs = mock(ResultSet.class);
+		when(dataSource.getConnection()).thenReturn(connection);
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		when(statement.executeQuery()).thenReturn(rs);
+		when(rs.next()).thenReturn(true);
+		when(rs.getLong(1)).thenReturn(ritardoBytes);
+	}
+}
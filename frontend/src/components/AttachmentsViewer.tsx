@@ -2,26 +2,31 @@ import React, { useState, useEffect, useCallback } from 'react';
 import { allegatoService } from '../services/allegatoService';
 import styles from './AttachmentsViewer.module.css';
 
-interface Allegato {
+export interface Allegato {
   idAllegato: number;
   nomeFile: string;
   tipoFile: string;
   dimensione: number;
   dimensioneMB: string;
   dataCaricamento: string;
+  // Contenuto su object storage: si scarica direttamente da lì con un URL presigned
+  remoto?: boolean;
 }
 
 interface AttachmentsViewerProps {
   idIssue: number;
   canEdit: boolean;
+  // Già caricati dal dettaglio dell'issue: in quel caso nessuna richiesta aggiuntiva
+  allegati?: Allegato[];
 }
 
-const AttachmentsViewer: React.FC<AttachmentsViewerProps> = ({ idIssue }) => {
+const AttachmentsViewer: React.FC<AttachmentsViewerProps> = ({ idIssue, allegati: allegatiCaricati }) => {
   const [allegati, setAllegati] = useState<Allegato[]>([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
   const [success, setSuccess] = useState('');
   const [downloadingId, setDownloadingId] = useState<number | null>(null);
+  const [downloadingZip, setDownloadingZip] = useState(false);
 
   const loadAllegati = useCallback(async () => {
     try {
@@ -43,8 +48,13 @@ const AttachmentsViewer: React.FC<AttachmentsViewerProps> = ({ idIssue }) => {
   }, [idIssue]);
 
   useEffect(() => {
+    if (allegatiCaricati) {
+      setAllegati(allegatiCaricati);
+      setLoading(false);
+      return;
+    }
     loadAllegati();
-  }, [loadAllegati]);
+  }, [allegatiCaricati, loadAllegati]);
 
   const handleDownload = async (allegato: Allegato) => {
     try {
@@ -52,6 +62,15 @@ const AttachmentsViewer: React.FC<AttachmentsViewerProps> = ({ idIssue }) => {
       setError('');
       
       console.log('📥 Download allegato:', allegato.idAllegato);
+      if (allegato.remoto) {
+        const { url } = await allegatoService.getLink(allegato.idAllegato);
+        const link = document.createElement('a');
+        link.href = url;
+        document.body.appendChild(link);
+        link.click();
+        document.body.removeChild(link);
+        return;
+      }
       const response = await allegatoService.downloadAllegato(allegato.idAllegato);
       
       const blob = new Blob([response.data], { type: allegato.tipoFile });
@@ -78,6 +97,36 @@ const AttachmentsViewer: React.FC<AttachmentsViewerProps> = ({ idIssue }) => {
     }
   };
 
+  const handleDownloadZip = async () => {
+    try {
+      setDownloadingZip(true);
+      setError('');
+
+      const response = await allegatoService.downloadZip(idIssue);
+
+      const blob = new Blob([response.data], { type: 'application/zip' });
+      const url = window.URL.createObjectURL(blob);
+
+      const link = document.createElement('a');
+      link.href = url;
+      link.download = `issue-${idIssue}-allegati.zip`;
+      document.body.appendChild(link);
+      link.click();
+
+      document.body.removeChild(link);
+      window.URL.revokeObjectURL(url);
+
+      setSuccess('Allegati scaricati con successo');
+      setTimeout(() => setSuccess(''), 3000);
+    } catch (err: any) {
+      console.error('❌ Errore download ZIP:', err);
+      setError('Errore durante il download degli allegati');
+      setTimeout(() => setError(''), 5000);
+    } finally {
+      setDownloadingZip(false);
+    }
+  };
+
   const formatFileSize = (bytes: number): string => {
     if (bytes === 0) return '0 Bytes';
     const k = 1024;
@@ -152,6 +201,16 @@ const AttachmentsViewer: React.FC<AttachmentsViewerProps> = ({ idIssue }) => {
         <h3 className={styles.attachmentsTitle}>
           Allegati ({allegati.length})
         </h3>
+        {allegati.length > 1 && (
+          <button
+            onClick={handleDownloadZip}
+            disabled={downloadingZip}
+            className={`${styles.downloadButton} ${downloadingZip ? styles.downloading : ''}`}
+            aria-label="Scarica tutti gli allegati in un file ZIP"
+          >
+            {downloadingZip ? <>⏳ Preparando ZIP...</> : <>📦 Scarica tutti (ZIP)</>}
+          </button>
+        )}
       </div>
 
       <div className={styles.attachmentsList}>
@@ -14,6 +14,12 @@ interface ApiErrorResponse {
   message?: string;
 }
 
+interface IssueSimile {
+  idIssue: number;
+  titolo: string;
+  somiglianza: number;
+}
+
 interface Props {
   sidebarOpen: boolean;
   setSidebarOpen: (open: boolean) => void;
@@ -29,6 +35,7 @@ function CreaIssue({ sidebarOpen, setSidebarOpen }: Props) {
   const [error, setError] = useState<string>("");
   const [success, setSuccess] = useState<string>("");
   const [loading, setLoading] = useState<boolean>(false);
+  const [simili, setSimili] = useState<IssueSimile[]>([]);
 
   const fileInputRef = useRef<HTMLInputElement>(null);
 
@@ -41,6 +48,28 @@ function CreaIssue({ sidebarOpen, setSidebarOpen }: Props) {
     }
   }, [navigate]);
 
+  // Possibili duplicati mentre si scrive, con una pausa per non chiamare a ogni tasto
+  useEffect(() => {
+    if (titolo.trim().length < 4) {
+      setSimili([]);
+      return;
+    }
+    let annullata = false;
+    const timer = setTimeout(() => {
+      issueService.getSimilarIssues(titolo, descrizione)
+        .then((risultato: IssueSimile[]) => {
+          if (!annullata) setSimili(risultato);
+        })
+        .catch(() => {
+          if (!annullata) setSimili([]);
+        });
+    }, 300);
+    return () => {
+      annullata = true;
+      clearTimeout(timer);
+    };
+  }, [titolo, descrizione]);
+
   const handleFileChange = (newFiles: FileList | null) => {
     if (!newFiles) return;
     
@@ -112,13 +141,9 @@ function CreaIssue({ sidebarOpen, setSidebarOpen }: Props) {
       const nuovaIssue = await issueService.createIssue(dataToSend);
 
       if (files.length > 0) {
-        const uploadResults = await Promise.allSettled(
-          files.map(file => allegatoService.uploadAllegato(file, nuovaIssue.idIssue))
-        );
-
-        const failedUploads = uploadResults.filter(r => r.status === "rejected");
-        if (failedUploads.length > 0) {
-          console.warn(`${failedUploads.length} file non caricati`);
+        const failedUploads = await allegatoService.uploadAllegati(files, nuovaIssue.idIssue);
+        if (failedUploads > 0) {
+          console.warn(`${failedUploads} file non caricati`);
         }
       }
 
@@ -176,6 +201,23 @@ function CreaIssue({ sidebarOpen, setSidebarOpen }: Props) {
                   placeholder="Inserisci il titolo dell'issue"
                 />
                 <div className={styles.charCount}>{titolo.length}/200</div>
+                {simili.length > 0 && (
+                  <div className={styles.similiBox} role="status">
+                    <div className={styles.similiTitle}>Possibili duplicati già aperti:</div>
+                    {simili.map((simile) => (
+                      <a
+                        key={simile.idIssue}
+                        href={`/issues/${simile.idIssue}`}
+                        target="_blank"
+                        rel="noreferrer"
+                        className={styles.similiItem}
+                      >
+                        #{simile.idIssue} {simile.titolo}
+                        <span className={styles.similiScore}>{Math.round(simile.somiglianza * 100)}%</span>
+                      </a>
+                    ))}
+                  </div>
+                )}
               </div>
 
               <div className={styles.formGroup}>
@@ -3,7 +3,7 @@ import { useNavigate, useParams, useLocation } from "react-router-dom";
 import { issueService } from "../services/issueService";
 import { authService } from "../services/authService";
 import Sidebar from "./Sidebar";
-import AttachmentsViewer from "./AttachmentsViewer";
+import AttachmentsViewer, { Allegato } from "./AttachmentsViewer";
 import styles from "./DettagliIssue.module.css";
 
 interface Issue {
@@ -57,6 +57,7 @@ function DettagliIssue({ sidebarOpen, setSidebarOpen }: Props) {
   const location = useLocation();
   const { id } = useParams<{ id: string }>();
   const [issue, setIssue] = useState<Issue | null>(null);
+  const [allegati, setAllegati] = useState<Allegato[] | null>(null);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState("");
   const [success, setSuccess] = useState("");
@@ -90,8 +91,10 @@ function DettagliIssue({ sidebarOpen, setSidebarOpen }: Props) {
   const loadIssue = useCallback(async () => {
     try {
       setLoading(true);
-      const data = await issueService.getIssueById(Number(id));
-      setIssue(data);
+      // Issue, utenti e allegati in una sola richiesta invece di una per sezione
+      const data = await issueService.getIssueDetail(Number(id));
+      setIssue(data.issue);
+      setAllegati(data.allegati);
       setError("");
     } catch (err: any) {
       setError(err.response?.data?.message || "Errore nel caricamento dell'issue");
@@ -459,6 +462,7 @@ function DettagliIssue({ sidebarOpen, setSidebarOpen }: Props) {
             <AttachmentsViewer 
               idIssue={Number(id)} 
               canEdit={isAdmin && !isArchived} 
+              allegati={allegati ?? undefined}
             />
           </div>
         </div>
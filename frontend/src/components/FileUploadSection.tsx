@@ -15,7 +15,7 @@ const FileUploadSection: React.FC<FileUploadSectionProps> = ({
 
   const [error, setError] = useState<string>('');
 
-  const MAX_FILE_SIZE = 10 * 1024 * 1024;
+  const MAX_FILE_SIZE = 50 * 1024 * 1024;
   
 
   const ALLOWED_TYPES = [
@@ -39,7 +39,7 @@ const FileUploadSection: React.FC<FileUploadSectionProps> = ({
     for (const file of newFiles) {
       
       if (file.size > MAX_FILE_SIZE) {
-        return `File "${file.name}" troppo grande (max 10MB)`;
+        return `File "${file.name}" troppo grande (max 50MB)`;
       }
 
       if (!ALLOWED_TYPES.includes(file.type)) {
@@ -157,7 +157,7 @@ const FileUploadSection: React.FC<FileUploadSectionProps> = ({
             Carica File
           </p>
           <p className={styles.uploadHint}>
-            Formati: JPEG, PNG, GIF, WebP, PDF, DOC, DOCX - Max 10MB
+            Formati: JPEG, PNG, GIF, WebP, PDF, DOC, DOCX - Max 50MB
           </p>
     
           {files.length > 0 && (
@@ -5,17 +5,24 @@ import Sidebar from "./Sidebar";
 import { authService } from "../services/authService";
 import styles from "./Home.module.css";
 
-interface Issue {
+interface SchedaBoard {
   idIssue: number;
   titolo: string;
-  descrizione: string;
   stato: string;
   tipo: string;
   priorita: string;
   dataCreazione: string;
-  archiviata?: boolean;
 }
 
+interface ColonnaBoard {
+  issue: SchedaBoard[];
+  totale: number;
+  cursore: string | null;
+}
+
+const STATI_BOARD = ["Todo", "inProgress", "Done"];
+const SCHEDE_PER_COLONNA = 10;
+
 const ListIcon = () => (
   <svg width="24" height="24" viewBox="0 0 24 24" fill="none">
     <path d="M8 6H21" stroke="#3B82F6" strokeWidth="2" strokeLinecap="round"/>
@@ -62,10 +69,10 @@ interface Props {
 
 function Home({ sidebarOpen, setSidebarOpen }: Props) {
   const navigate = useNavigate();
-  const [issues, setIssues] = useState<Issue[]>([]);
-  const [allIssues, setAllIssues] = useState<Issue[]>([]);
+  const [colonne, setColonne] = useState<Record<string, ColonnaBoard>>({});
   const [error, setError] = useState<string>("");
   const [loading, setLoading] = useState<boolean>(true);
+  const [caricamentoColonna, setCaricamentoColonna] = useState<string>("");
   const [filterType, setFilterType] = useState<string>("");
 
   useEffect(() => {
@@ -75,60 +82,59 @@ function Home({ sidebarOpen, setSidebarOpen }: Props) {
     }
   }, [navigate]);
 
-  const loadFilteredIssues = useCallback(async () => {
+  // Una sola richiesta: prime schede e totale di ogni colonna, senza scaricare tutte le issue attive
+  const loadBoard = useCallback(async () => {
     try {
       setLoading(true);
-      const params: any = {
-        archiviata: false,
-        ordinamento: "data_recente"
-      };
-
-      if (filterType && filterType !== "all") {
-        params.stato = filterType;
-      }
-
-      const data = await issueService.filterIssuesAdvanced(params);
-      setIssues(data);
+      const data = await issueService.getBoard(SCHEDE_PER_COLONNA);
+      setColonne(data.colonne);
       setError("");
     } catch (err: any) {
-      console.error("Errore caricamento issues:", err);
+      console.error("Errore caricamento board:", err);
       setError(err.response?.data?.message || "Errore nel caricamento delle issue");
-      setIssues([]);
+      setColonne({});
     } finally {
       setLoading(false);
     }
-  }, [filterType]);
+  }, []);
+
+  useEffect(() => {
+    loadBoard();
+  }, [loadBoard]);
 
-  const loadAllIssuesForStats = useCallback(async () => {
+  const caricaAltre = async (stato: string) => {
+    const colonna = colonne[stato];
+    if (!colonna?.cursore) return;
     try {
-      const data = await issueService.filterIssuesAdvanced({
-        archiviata: false,
-        ordinamento: "data_recente"
-      });
-      setAllIssues(data);
+      setCaricamentoColonna(stato);
+      const data = await issueService.getBoardColumn(stato, colonna.cursore, SCHEDE_PER_COLONNA);
+      setColonne(prev => ({
+        ...prev,
+        [stato]: {
+          ...prev[stato],
+          issue: [...prev[stato].issue, ...data.issue],
+          cursore: data.cursore,
+        },
+      }));
     } catch (err: any) {
-      console.error("Errore caricamento statistiche:", err);
+      console.error("Errore caricamento colonna:", err);
+      setError(err.response?.data?.message || "Errore nel caricamento delle issue");
+    } finally {
+      setCaricamentoColonna("");
     }
-  }, []);
+  };
 
-  useEffect(() => {
-    loadFilteredIssues();
-  }, [loadFilteredIssues]);
-
-  useEffect(() => {
-    loadAllIssuesForStats();
-  }, [loadAllIssuesForStats]);
+  const totale = (stato: string) => colonne[stato]?.totale ?? 0;
 
   const issueStats = {
-    totali: allIssues.length,
-    todo: allIssues.filter(i => i.stato.toLowerCase() === 'todo').length,
-    inProgress: allIssues.filter(i => {
-      const stato = i.stato.toLowerCase();
-      return stato === 'inprogress' || stato === 'in_progress';
-    }).length,
-    done: allIssues.filter(i => i.stato.toLowerCase() === 'done').length,
+    totali: STATI_BOARD.reduce((somma, stato) => somma + totale(stato), 0),
+    todo: totale("Todo"),
+    inProgress: totale("inProgress"),
+    done: totale("Done"),
   };
 
+  const statiVisibili = filterType && filterType !== "all" ? [filterType] : STATI_BOARD;
+
   const getStatoBadgeClass = (stato: string): string => {
     switch (stato.toLowerCase()) {
       case "todo":
@@ -251,7 +257,7 @@ function Home({ sidebarOpen, setSidebarOpen }: Props) {
           </div>
 
           <div className={styles.statsGrid}>
-            {loading && allIssues.length === 0 ? (
+            {loading ? (
               <>
                 {[1, 2, 3, 4].map(i => (
                   <div key={i} className={styles.statCard}>
@@ -308,7 +314,7 @@ function Home({ sidebarOpen, setSidebarOpen }: Props) {
 
           <div className={styles.tableContainer}>
             <div className={styles.tableHeader}>
-              <h2 className={styles.tableTitle}>Issue Recenti</h2>
+              <h2 className={styles.tableTitle}>Board</h2>
               <button
                 onClick={() => navigate('/issues')}
                 className={styles.viewAllButton}
@@ -319,56 +325,58 @@ function Home({ sidebarOpen, setSidebarOpen }: Props) {
 
             {loading ? (
               <div className={styles.loadingState}>Caricamento in corso...</div>
-            ) : issues.length === 0 ? (
+            ) : issueStats.totali === 0 ? (
               <div className={styles.emptyState}>
-                {filterType && filterType !== "all"
-                  ? "Nessuna issue trovata con questo filtro."
-                  : "Nessuna issue trovata. Crea la tua prima issue!"}
+                Nessuna issue trovata. Crea la tua prima issue!
               </div>
             ) : (
-              <div className={styles.tableWrapper}>
-                <table className={styles.table}>
-                  <thead className={styles.tableHead}>
-                    <tr>
-                      <th className={styles.tableHeaderCell}>Titolo</th>
-                      <th className={styles.tableHeaderCell}>Stato</th>
-                      <th className={styles.tableHeaderCell}>Tipo</th>
-                      <th className={styles.tableHeaderCell}>Priorità</th>
-                      <th className={styles.tableHeaderCell}>Data Creazione</th>
-                    </tr>
-                  </thead>
-                  <tbody>
-                    {issues.slice(0, 5).map((issue) => (
-                      <tr
-                        key={issue.idIssue}
-                        className={styles.tableRow}
-                        onClick={() => navigate(`/issues/${issue.idIssue}`, { state: { from: "/home" } })}
-                      >
-                        <td className={`${styles.tableCell} ${styles.tableCellTitle}`}>
-                          {issue.titolo}
-                        </td>
-                        <td className={styles.tableCell}>
-                          <span className={`${styles.badge} ${getStatoBadgeClass(issue.stato)}`}>
-                            {formatStato(issue.stato)}
-                          </span>
-                        </td>
-                        <td className={styles.tableCell}>
-                          <span className={`${styles.badge} ${getTipoBadgeClass(issue.tipo)}`}>
-                            {issue.tipo}
-                          </span>
-                        </td>
-                        <td className={styles.tableCell}>
-                          <span className={`${styles.badge} ${getPrioritaBadgeClass(issue.priorita)}`}>
-                            {issue.priorita}
-                          </span>
-                        </td>
-                        <td className={`${styles.tableCell} ${styles.tableCellDate}`}>
-                          {formatDate(issue.dataCreazione)}
-                        </td>
-                      </tr>
-                    ))}
-                  </tbody>
-                </table>
+              <div className={styles.board}>
+                {statiVisibili.map((stato) => {
+                  const colonna = colonne[stato];
+                  return (
+                    <div key={stato} className={styles.boardColumn}>
+                      <div className={styles.boardColumnHeader}>
+                        <span className={`${styles.badge} ${getStatoBadgeClass(stato)}`}>
+                          {formatStato(stato)}
+                        </span>
+                        <span className={styles.boardColumnCount}>{totale(stato)}</span>
+                      </div>
+
+                      {!colonna || colonna.issue.length === 0 ? (
+                        <div className={styles.boardEmpty}>Nessuna issue</div>
+                      ) : (
+                        colonna.issue.map((issue) => (
+                          <div
+                            key={issue.idIssue}
+                            className={styles.boardCard}
+                            onClick={() => navigate(`/issues/${issue.idIssue}`, { state: { from: "/home" } })}
+                          >
+                            <div className={styles.boardCardTitle}>{issue.titolo}</div>
+                            <div className={styles.boardCardBadges}>
+                              <span className={`${styles.badge} ${getPrioritaBadgeClass(issue.priorita)}`}>
+                                {issue.priorita}
+                              </span>
+                              <span className={`${styles.badge} ${getTipoBadgeClass(issue.tipo)}`}>
+                                {issue.tipo}
+                              </span>
+                            </div>
+                            <div className={styles.boardCardDate}>{formatDate(issue.dataCreazione)}</div>
+                          </div>
+                        ))
+                      )}
+
+                      {colonna?.cursore && (
+                        <button
+                          onClick={() => caricaAltre(stato)}
+                          disabled={caricamentoColonna === stato}
+                          className={styles.boardLoadMore}
+                        >
+                          {caricamentoColonna === stato ? "Caricamento..." : "Carica altre"}
+                        </button>
+                      )}
+                    </div>
+                  );
+                })}
               </div>
             )}
           </div>
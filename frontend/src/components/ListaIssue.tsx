@@ -1,6 +1,7 @@
 import React, { useState, useEffect, useCallback } from "react";
 import { useNavigate } from "react-router-dom";
 import { issueService } from "../services/issueService";
+import { allegatoService } from "../services/allegatoService";
 import { authService } from "../services/authService";
 import Sidebar from "./Sidebar";
 import styles from "./ListaIssue.module.css";
@@ -12,8 +13,17 @@ interface Issue {
   tipo: string;
   priorita: string;
   dataCreazione: string;
-  dataUltimaModifica: string;
-  archiviata: boolean;
+}
+
+interface RiepilogoAllegati {
+  numeroAllegati: number;
+  dimensioneTotaleBytes: number;
+}
+
+interface Suggerimento {
+  idIssue: number;
+  titolo: string;
+  priorita: string;
 }
 
 interface Props {
@@ -24,10 +34,12 @@ interface Props {
 function ListaIssue({ sidebarOpen, setSidebarOpen }: Props) {
   const navigate = useNavigate();
   const [issues, setIssues] = useState<Issue[]>([]);
+  const [allegati, setAllegati] = useState<Record<number, RiepilogoAllegati>>({});
   const [loading, setLoading] = useState(true);
   // const [sidebarOpen, setSidebarOpen] = useState(true);
   const [searchTerm, setSearchTerm] = useState("");
   const [debouncedSearchTerm, setDebouncedSearchTerm] = useState("");
+  const [suggerimenti, setSuggerimenti] = useState<Suggerimento[]>([]);
   const [statoFilter, setStatoFilter] = useState("");
   const [tipoFilter, setTipoFilter] = useState("");
   const [prioritaFilter, setPrioritaFilter] = useState("");
@@ -49,6 +61,26 @@ function ListaIssue({ sidebarOpen, setSidebarOpen }: Props) {
     return () => clearTimeout(timer); // Pulisce il timer precedente
   }, [searchTerm]);
 
+  // Suggerimenti dei titoli a ogni tasto: li serve un indice in memoria, senza attendere il debounce
+  useEffect(() => {
+    const testo = searchTerm.trim();
+    if (testo.length < 2) {
+      setSuggerimenti([]);
+      return;
+    }
+    let annullata = false;
+    issueService.getTitleSuggestions(testo)
+      .then((risultato: Suggerimento[]) => {
+        if (!annullata) setSuggerimenti(risultato);
+      })
+      .catch(() => {
+        if (!annullata) setSuggerimenti([]);
+      });
+    return () => {
+      annullata = true;
+    };
+  }, [searchTerm]);
+
   const loadFilteredIssues = useCallback(async () => {
     try {
       setLoading(true);
@@ -77,6 +109,15 @@ function ListaIssue({ sidebarOpen, setSidebarOpen }: Props) {
     loadFilteredIssues();
   }, [loadFilteredIssues]);
 
+  // Indicatori allegati con una richiesta aggregata invece di una /count per riga
+  useEffect(() => {
+    if (issues.length === 0) return;
+    allegatoService
+      .getRiepilogo(issues.map((issue) => issue.idIssue))
+      .then(setAllegati)
+      .catch((error) => console.error("Errore caricamento allegati:", error));
+  }, [issues]);
+
   const handleReset = () => {
     setSearchTerm("");
     setDebouncedSearchTerm(""); // ← Reset anche debounced
@@ -214,8 +255,25 @@ function ListaIssue({ sidebarOpen, setSidebarOpen }: Props) {
                   placeholder="Scrivi il titolo..."
                   value={searchTerm}
                   onChange={(e) => setSearchTerm(e.target.value)}
+                  onBlur={() => setTimeout(() => setSuggerimenti([]), 150)}
                   className={`${styles.searchInput} ${searchTerm ? styles.searchInputActive : ''}`}
                 />
+                {suggerimenti.length > 0 && (
+                  <ul className={styles.suggestions} role="listbox">
+                    {suggerimenti.map((suggerimento) => (
+                      <li
+                        key={suggerimento.idIssue}
+                        role="option"
+                        aria-selected={false}
+                        className={styles.suggestionItem}
+                        onMouseDown={() => navigate(`/issues/${suggerimento.idIssue}`, { state: { from: "/issues" } })}
+                      >
+                        <span>{suggerimento.titolo}</span>
+                        <span className={styles.suggestionPriority}>{suggerimento.priorita}</span>
+                      </li>
+                    ))}
+                  </ul>
+                )}
               </div>
 
               <div className={styles.filterField}>
@@ -302,6 +360,9 @@ function ListaIssue({ sidebarOpen, setSidebarOpen }: Props) {
                   <th className={`${styles.tableHeaderCell} ${styles.tableHeaderCellCenter}`}>
                     Priorità
                   </th>
+                  <th className={`${styles.tableHeaderCell} ${styles.tableHeaderCellCenter}`}>
+                    Allegati
+                  </th>
                   <th className={`${styles.tableHeaderCell} ${styles.tableHeaderCellCenter}`}>
                     Data Creazione
                   </th>
@@ -310,13 +371,13 @@ function ListaIssue({ sidebarOpen, setSidebarOpen }: Props) {
               <tbody>
                 {loading && issues.length === 0 ? (
                   <tr>
-                    <td colSpan={5} className={styles.loadingState}>
+                    <td colSpan={6} className={styles.loadingState}>
                       Caricamento...
                     </td>
                   </tr>
                 ) : issues.length === 0 ? (
                   <tr>
-                    <td colSpan={5} className={styles.emptyState}>
+                    <td colSpan={6} className={styles.emptyState}>
                       Nessuna issue trovata
                     </td>
                   </tr>
@@ -345,6 +406,15 @@ function ListaIssue({ sidebarOpen, setSidebarOpen }: Props) {
                           {issue.priorita}
                         </span>
                       </td>
+                      <td className={`${styles.tableCell} ${styles.tableCellCenter}`}>
+                        {allegati[issue.idIssue]?.numeroAllegati ? (
+                          <span title={`${(allegati[issue.idIssue].dimensioneTotaleBytes / (1024 * 1024)).toFixed(2)} MB`}>
+                            📎 {allegati[issue.idIssue].numeroAllegati}
+                          </span>
+                        ) : (
+                          "—"
+                        )}
+                      </td>
                       <td className={`${styles.tableCell} ${styles.tableCellDate}`}>
                         {formatDate(issue.dataCreazione)}
                       </td>
@@ -16,6 +16,15 @@ interface Issue {
   archiviata: boolean;
 }
 
+interface PaginaArchiviate {
+  issue: Issue[];
+  pagina: number;
+  dimensione: number;
+  successiva: boolean;
+}
+
+const DIMENSIONE_PAGINA = 20;
+
 interface Props {
   sidebarOpen: boolean;
   setSidebarOpen: (open: boolean) => void;
@@ -31,6 +40,8 @@ function ListaIssueArchiviate({ sidebarOpen, setSidebarOpen }: Props) {
   const [tipoFilter, setTipoFilter] = useState("Tutti i tipi");
   const [prioritaFilter, setPrioritaFilter] = useState("Tutte le priorità");
   const [sortOrder, setSortOrder] = useState("Data (più recente)");
+  const [pagina, setPagina] = useState(0);
+  const [successiva, setSuccessiva] = useState(false);
 
   useEffect(() => {
     const token = authService.getToken();
@@ -38,16 +49,18 @@ function ListaIssueArchiviate({ sidebarOpen, setSidebarOpen }: Props) {
       navigate("/login");
       return;
     }
-    loadIssues();
-  }, [navigate]);
+    const ordinamento = sortOrder === "Data (meno recente)" ? "data_vecchio" : "data_recente";
+    loadIssues(pagina, ordinamento);
+  }, [navigate, pagina, sortOrder]);
 
-  const loadIssues = async () => {
+  // Paginazione e ordinamento lato server; i filtri si applicano alla pagina caricata
+  const loadIssues = async (numeroPagina: number, ordinamento: string) => {
     try {
       setLoading(true);
-      const data = await issueService.getAllIssues();
-      const archived = data.filter((issue: Issue) => issue.archiviata);
-      setIssues(archived);
-      setFilteredIssues(archived);
+      const data: PaginaArchiviate = await issueService.getArchivedIssues(numeroPagina, DIMENSIONE_PAGINA, ordinamento);
+      setIssues(data.issue);
+      setFilteredIssues(data.issue);
+      setSuccessiva(data.successiva);
     } catch (error) {
       console.error("Errore caricamento issue archiviate:", error);
     } finally {
@@ -76,14 +89,13 @@ function ListaIssueArchiviate({ sidebarOpen, setSidebarOpen }: Props) {
       filtered = filtered.filter((issue) => issue.priorita === prioritaFilter);
     }
 
-    if (sortOrder === "Data (più recente)") {
-      filtered.sort((a, b) => new Date(b.dataArchiviazione).getTime() - new Date(a.dataArchiviazione).getTime());
-    } else if (sortOrder === "Data (meno recente)") {
-      filtered.sort((a, b) => new Date(a.dataArchiviazione).getTime() - new Date(b.dataArchiviazione).getTime());
-    }
-
     setFilteredIssues(filtered);
-  }, [searchTerm, statoFilter, tipoFilter, prioritaFilter, sortOrder, issues]);
+  }, [searchTerm, statoFilter, tipoFilter, prioritaFilter, issues]);
+
+  const handleSortChange = (value: string) => {
+    setSortOrder(value);
+    setPagina(0);
+  };
 
   const handleReset = () => {
     setSearchTerm("");
@@ -91,6 +103,7 @@ function ListaIssueArchiviate({ sidebarOpen, setSidebarOpen }: Props) {
     setTipoFilter("Tutti i tipi");
     setPrioritaFilter("Tutte le priorità");
     setSortOrder("Data (più recente)");
+    setPagina(0);
   };
 
   const formatDate = (dateString: string) => {
@@ -169,7 +182,7 @@ function ListaIssueArchiviate({ sidebarOpen, setSidebarOpen }: Props) {
             <div className={styles.activeFiltersNotice}>
               <span style={{ fontSize: "16px" }}>🔍</span>
               <strong>Filtri attivi:</strong>
-              <span>Mostrando {filteredIssues.length} di {issues.length} issue archiviate</span>
+              <span>Mostrando {filteredIssues.length} di {issues.length} issue archiviate in questa pagina</span>
             </div>
           )}
 
@@ -237,7 +250,7 @@ function ListaIssueArchiviate({ sidebarOpen, setSidebarOpen }: Props) {
                 <label className={styles.filterLabel}>Ordina</label>
                 <select
                   value={sortOrder}
-                  onChange={(e) => setSortOrder(e.target.value)}
+                  onChange={(e) => handleSortChange(e.target.value)}
                   className={styles.filterSelect}
                 >
                   <option>Data (più recente)</option>
@@ -314,6 +327,24 @@ function ListaIssueArchiviate({ sidebarOpen, setSidebarOpen }: Props) {
               </tbody>
             </table>
           </div>
+
+          <div className={styles.pagination}>
+            <button
+              onClick={() => setPagina(pagina - 1)}
+              disabled={pagina === 0}
+              className={styles.paginationButton}
+            >
+              ← Precedente
+            </button>
+            <span className={styles.paginationInfo}>Pagina {pagina + 1}</span>
+            <button
+              onClick={() => setPagina(pagina + 1)}
+              disabled={!successiva}
+              className={styles.paginationButton}
+            >
+              Successiva →
+            </button>
+          </div>
         </div>
       </div>
     </div>
@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { authService } from './authService';
 
 const API_BASE_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080/api';
 
@@ -6,15 +7,140 @@ const getAuthHeader = () => ({
   Authorization: `Bearer ${localStorage.getItem('authToken')}`
 });
 
+// Chi carica il file, per la quota per utente
+const getIdCaricatore = (): number | undefined => {
+  const user = authService.getUser();
+  return user?.id || user?.idUtente || undefined;
+};
+
+// Oltre questa soglia il file viaggia a porzioni con il caricamento riprendibile
+const SOGLIA_RIPRENDIBILE = 5 * 1024 * 1024;
+const MAX_SIZE = 50 * 1024 * 1024;
+const PORZIONI_PARALLELE = 3;
+const MAX_FILE_MULTIPLO = 10;
+const TENTATIVI = 5;
+
+type Intervallo = [number, number];
+
+// Porzioni [inizio, fine) non ancora coperte dagli intervalli ricevuti dal server
+const porzioniMancanti = (dimensione: number, dimensionePorzione: number, ricevuti: Intervallo[]): Intervallo[] => {
+  const mancanti: Intervallo[] = [];
+  let posizione = 0;
+  for (const [inizio, fine] of [...ricevuti, [dimensione, dimensione] as Intervallo]) {
+    for (let p = posizione; p < inizio; p += dimensionePorzione) {
+      mancanti.push([p, Math.min(p + dimensionePorzione, inizio)]);
+    }
+    posizione = Math.max(posizione, fine);
+  }
+  return mancanti;
+};
+
+/**
+ * Caricamento a porzioni: dopo un errore si chiede al server cosa ha già ricevuto
+ * e si reinviano solo le porzioni mancanti
+ */
+const uploadRiprendibile = async (file: File, idIssue: number) => {
+  const headers = getAuthHeader();
+  const { data: sessione } = await axios.post(
+    `${API_BASE_URL}/allegato/caricamenti`,
+    null,
+    {
+      headers,
+      params: {
+        idIssue,
+        nomeFile: file.name,
+        tipoFile: file.type,
+        dimensione: file.size,
+        idCaricatore: getIdCaricatore()
+      }
+    }
+  );
+  const url = `${API_BASE_URL}/allegato/caricamenti/${sessione.idCaricamento}`;
+
+  let ricevuti: Intervallo[] = [];
+  for (let tentativo = 1; ; tentativo++) {
+    const coda = porzioniMancanti(file.size, sessione.dimensionePorzione, ricevuti);
+    if (coda.length === 0) {
+      break;
+    }
+    const invia = async () => {
+      for (let porzione = coda.shift(); porzione; porzione = coda.shift()) {
+        const [inizio, fine] = porzione;
+        await axios.put(url, file.slice(inizio, fine), {
+          headers: { ...headers, 'Content-Type': 'application/octet-stream' },
+          params: { offset: inizio }
+        });
+      }
+    };
+    try {
+      await Promise.all(Array.from({ length: PORZIONI_PARALLELE }, invia));
+    } catch (err) {
+      if (tentativo >= TENTATIVI) {
+        await axios.delete(url, { headers }).catch(() => undefined);
+        throw err;
+      }
+    }
+    const { data: stato } = await axios.get(url, { headers });
+    ricevuti = stato.intervalliRicevuti;
+  }
+
+  const response = await axios.post(`${url}/completa`, null, { headers });
+  return response.data;
+};
+
+// undefined finché il backend non ha risposto: se l'object storage non è configurato
+// (404 su /allegato/oggetti) si resta sui caricamenti tramite backend
+let storageDiretto: boolean | undefined;
+
+/**
+ * Caricamento diretto sull'object storage con un URL presigned: il backend registra solo
+ * i metadati. Restituisce null se lo storage non è configurato
+ */
+const uploadDiretto = async (file: File, idIssue: number) => {
+  if (storageDiretto === false) {
+    return null;
+  }
+  const headers = getAuthHeader();
+  let caricamento;
+  try {
+    const response = await axios.post(`${API_BASE_URL}/allegato/oggetti`, null, {
+      headers,
+      params: {
+        idIssue,
+        nomeFile: file.name,
+        tipoFile: file.type,
+        dimensione: file.size,
+        idCaricatore: getIdCaricatore()
+      }
+    });
+    caricamento = response.data;
+    storageDiretto = true;
+  } catch (err: any) {
+    if (err.response?.status === 404 && err.response?.data?.message === 'Object storage non configurato') {
+      storageDiretto = false;
+      return null;
+    }
+    throw err;
+  }
+
+  // Senza Authorization: l'URL presigned è già la credenziale
+  await axios.put(caricamento.url, file, { headers: caricamento.header });
+
+  const response = await axios.post(`${API_BASE_URL}/allegato/oggetti/conferma`, null, {
+    headers,
+    params: { idIssue, chiave: caricamento.chiave, nomeFile: file.name, idCaricatore: getIdCaricatore() }
+  });
+  return response.data;
+};
+
 export const allegatoService = {
 
   /**
    * Upload di un allegato associato a un'issue
    */
   uploadAllegato: async (file: File, idIssue: number) => {
-    const MAX_SIZE = 5 * 1024 * 1024; // 5MB
     if (file.size > MAX_SIZE) {
-      throw new Error('Il file supera il limite di 5MB');
+      throw new Error('Il file supera il limite di 50MB');
     }
 
     const allowedFormats = [
@@ -32,9 +158,21 @@ export const allegatoService = {
       throw new Error('Formato file non supportato. Usa JPEG, PNG, GIF, WebP, PDF, DOC o DOCX');
     }
 
+    const diretto = await uploadDiretto(file, idIssue);
+    if (diretto) {
+      return diretto;
+    }
+    if (file.size > SOGLIA_RIPRENDIBILE) {
+      return uploadRiprendibile(file, idIssue);
+    }
+
     const formData = new FormData();
     formData.append('file', file);
     formData.append('idIssue', idIssue.toString());
+    const idCaricatore = getIdCaricatore();
+    if (idCaricatore !== undefined) {
+      formData.append('idCaricatore', idCaricatore.toString());
+    }
 
     const response = await axios.post(
       `${API_BASE_URL}/allegato/upload`,
@@ -49,6 +187,61 @@ export const allegatoService = {
     return response.data;
   },
 
+  /**
+   * Upload di più file di un'issue: direttamente sull'object storage se configurato, altrimenti
+   * i piccoli in richieste da 10 file (un solo batch di insert lato server), i grandi con il
+   * caricamento riprendibile. Restituisce il numero di file scartati
+   */
+  uploadAllegati: async (files: File[], idIssue: number) => {
+    // Il primo file stabilisce se l'object storage è configurato
+    const primo = files.length > 0 ? await Promise.allSettled([uploadDiretto(files[0], idIssue)]) : [];
+    if (storageDiretto) {
+      const altri = await Promise.allSettled(files.slice(1).map(file => uploadDiretto(file, idIssue)));
+      return [...primo, ...altri].filter(esito => esito.status === 'rejected').length;
+    }
+
+    const piccoli = files.filter(f => f.size <= SOGLIA_RIPRENDIBILE);
+    const grandi = files.filter(f => f.size > SOGLIA_RIPRENDIBILE);
+
+    const blocchi: File[][] = [];
+    for (let i = 0; i < piccoli.length; i += MAX_FILE_MULTIPLO) {
+      blocchi.push(piccoli.slice(i, i + MAX_FILE_MULTIPLO));
+    }
+    const esiti = await Promise.allSettled([
+      ...blocchi.map(async blocco => {
+        const formData = new FormData();
+        blocco.forEach(file => formData.append('file', file));
+        formData.append('idIssue', idIssue.toString());
+        const idCaricatore = getIdCaricatore();
+        if (idCaricatore !== undefined) {
+          formData.append('idCaricatore', idCaricatore.toString());
+        }
+        const response = await axios.post(
+          `${API_BASE_URL}/allegato/upload-multiplo`,
+          formData,
+          {
+            headers: {
+              ...getAuthHeader(),
+              'Content-Type': 'multipart/form-data'
+            }
+          }
+        );
+        return response.data.scartati as number;
+      }),
+      ...grandi.map(async file => {
+        await uploadRiprendibile(file, idIssue);
+        return 0;
+      })
+    ]);
+
+    return esiti.reduce((scartati, esito, i) => {
+      if (esito.status === 'fulfilled') {
+        return scartati + esito.value;
+      }
+      return scartati + (i < blocchi.length ? blocchi[i].length : 1);
+    }, 0);
+  },
+
   /**
    * Recupera tutti gli allegati di un'issue
    */
@@ -76,6 +269,34 @@ export const allegatoService = {
     return response;
   },
 
+  /**
+   * URL presigned di breve durata per un allegato su object storage
+   */
+  getLink: async (id: number, inline = false) => {
+    const response = await axios.get(
+      `${API_BASE_URL}/allegato/${id}/link`,
+      {
+        headers: getAuthHeader(),
+        params: { inline }
+      }
+    );
+    return response.data as { url: string; scadenza: string };
+  },
+
+  /**
+   * Download di tutti gli allegati di un'issue in un unico ZIP
+   */
+  downloadZip: async (idIssue: number) => {
+    const response = await axios.get(
+      `${API_BASE_URL}/allegato/issue/${idIssue}/zip`,
+      {
+        headers: getAuthHeader(),
+        responseType: 'blob'
+      }
+    );
+    return response;
+  },
+
   /**
    * Ottiene la dimensione totale degli allegati di un'issue
    */
@@ -87,6 +308,52 @@ export const allegatoService = {
       }
     );
     return response.data;
+  },
+
+  /**
+   * Spazio occupato e quota del sistema, di un'issue e dell'utente corrente
+   */
+  getOccupazione: async (idIssue?: number) => {
+    const response = await axios.get(
+      `${API_BASE_URL}/allegato/occupazione`,
+      {
+        headers: getAuthHeader(),
+        params: { idIssue, idUtente: getIdCaricatore() }
+      }
+    );
+    return response.data;
+  },
+
+  /**
+   * Issue i cui allegati PDF o DOCX contengono il testo cercato, con un estratto per allegato
+   */
+  cercaNegliAllegati: async (testo: string, limite = 20) => {
+    const response = await axios.get(
+      `${API_BASE_URL}/allegato/cerca`,
+      {
+        headers: getAuthHeader(),
+        params: { testo, limite }
+      }
+    );
+    return response.data;
+  },
+
+  /**
+   * Numero e dimensione totale degli allegati di più issue, in blocchi da 1000 id
+   */
+  getRiepilogo: async (idIssue: number[]) => {
+    const blocchi: number[][] = [];
+    for (let i = 0; i < idIssue.length; i += 1000) {
+      blocchi.push(idIssue.slice(i, i + 1000));
+    }
+    const risposte = await Promise.all(
+      blocchi.map((blocco) =>
+        axios.post(`${API_BASE_URL}/allegato/riepilogo`, blocco, {
+          headers: getAuthHeader()
+        })
+      )
+    );
+    return Object.assign({}, ...risposte.map((r) => r.data));
   }
 };
 
@@ -13,13 +13,33 @@ export const issueService = {
     return response.data;
   },
 
-  getArchivedIssues: async () => {
-    const response = await axios.get(`${API_BASE_URL}/issue/visualizza-lista?archiviata=true`, {
+  getArchivedIssues: async (pagina: number, dimensione: number, ordinamento: string) => {
+    const response = await axios.get(
+      `${API_BASE_URL}/issue/archiviate?pagina=${pagina}&dimensione=${dimensione}&ordinamento=${ordinamento}`,
+      {
+        headers: getAuthHeader()
+      }
+    );
+    return response.data;
+  },
+
+  getBoard: async (limite: number) => {
+    const response = await axios.get(`${API_BASE_URL}/issue/board?limite=${limite}`, {
       headers: getAuthHeader()
     });
     return response.data;
   },
 
+  getBoardColumn: async (stato: string, cursore: string, limite: number) => {
+    const response = await axios.get(
+      `${API_BASE_URL}/issue/board/${stato}?cursore=${encodeURIComponent(cursore)}&limite=${limite}`,
+      {
+        headers: getAuthHeader()
+      }
+    );
+    return response.data;
+  },
+
   getActiveIssues: async () => {
     const response = await axios.get(`${API_BASE_URL}/issue/visualizza-lista?archiviata=false`, {
       headers: getAuthHeader()
@@ -34,6 +54,13 @@ export const issueService = {
     return response.data;
   },
 
+  getIssueDetail: async (id: number) => {
+    const response = await axios.get(`${API_BASE_URL}/issue/dettaglio/${id}`, {
+      headers: getAuthHeader()
+    });
+    return response.data;
+  },
+
   createIssue: async (issueData: any) => {
     const response = await axios.post(`${API_BASE_URL}/issue/crea`, issueData, {
       headers: getAuthHeader()
@@ -97,6 +124,24 @@ export const issueService = {
     return response.data;
   },
 
+  // Titoli delle issue attive che iniziano con le parole scritte, per priorità e data
+  getTitleSuggestions: async (testo: string, limite = 8) => {
+    const response = await axios.get(`${API_BASE_URL}/issue/autocompleta`, {
+      headers: getAuthHeader(),
+      params: { testo, limite }
+    });
+    return response.data;
+  },
+
+  // Possibili duplicati di un'issue in scrittura: basta l'inizio della descrizione
+  getSimilarIssues: async (titolo: string, descrizione: string) => {
+    const response = await axios.get(`${API_BASE_URL}/issue/simili`, {
+      headers: getAuthHeader(),
+      params: { titolo, descrizione: descrizione.slice(0, 500) || undefined }
+    });
+    return response.data;
+  },
+
   filterIssues: async (stato?: string, priorita?: string, tipo?: string) => {
     let url = `${API_BASE_URL}/issue/filtra?`;
     if (stato) url += `stato=${stato}&`;